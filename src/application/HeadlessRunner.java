@@ -0,0 +1,458 @@
+package application;
+
+import io.TopologyFiles;
+import models.*;
+import routing.ConvergenceReport;
+import routing.DistanceVectorRouting;
+import routing.LinkStateRouting;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ponto de entrada sem interface gráfica: carrega um cenário, injeta o
+ * tráfego, executa a simulação orientada a eventos até o fim (sem Timer do
+ * Swing) e grava as estatísticas resumidas. Nunca inicializa o AWT.
+ *
+ * Uso: java -cp bin application.HeadlessRunner cenario.txt [--out resumo.txt] [--max-time ticks] [--threads N]
+ *                                               [--log DEBUG|INFO|WARN|ERROR] [--log-file eventos.log]
+ *                                               [--topology rede.bin|rede.txt]
+ *                                               [--routing link-state|distance-vector] [--dv-infinity N]
+ *                                               [--reachability] [--ttl N] [--ttl-policy drop|record]
+ *                                               [--ecmp CAMINHOS]
+ *
+ * Por padrão o log de eventos fica desligado; --log liga a partir do nível dado.
+ *
+ * Com --threads N (N > 1) as chegadas de pacotes de um mesmo instante são
+ * processadas em N núcleos (ParallelSimulation); o resultado é o mesmo.
+ *
+ * Com --topology, a topologia é carregada antes do cenário, no formato
+ * binário (BinaryTopologyFormat) ou texto (TextTopologyFormat); as
+ * instruções do cenário podem então se referir aos dispositivos pelo nome.
+ *
+ * Com --routing, depois da carga as tabelas dos roteadores são completadas
+ * pelo roteamento dinâmico; rotas 'route' do cenário têm precedência sobre
+ * as calculadas. 'link-state' (LinkStateRouting) calcula tudo antes da
+ * simulação. 'distance-vector' (DistanceVectorRouting, métrica infinita
+ * dada por --dv-infinity, padrão 16) troca mensagens no próprio
+ * EventScheduler, junto com o tráfego: pacotes enviados antes da
+ * convergência podem ser descartados.
+ *
+ * Com --reachability, depois da simulação as tabelas finais são analisadas
+ * (NetworkMap.analyzeReachability): todos os hosts para todos os hosts,
+ * contando pares entregues, laços, buracos negros e inalcançáveis.
+ *
+ * Todo pacote nasce com TTL (--ttl, padrão Packet.DEFAULT_TTL) e perde 1 a
+ * cada encaminhamento; sem TTL ele é descartado. Com a política 'record'
+ * (padrão) os descartes entram no relatório de laços, e os laços mais
+ * frequentes aparecem no resumo; 'drop' só descarta e conta.
+ *
+ * Com --ecmp N, todos os roteadores dividem por fluxo o tráfego entre até N
+ * rotas repetidas do mesmo prefixo (Router.setMaxPaths); o resumo mostra o
+ * desequilíbrio de carga entre os caminhos de cada grupo.
+ *
+ * Formato do cenário (uma instrução por linha, '#' inicia comentário):
+ *   host    NOME IP MASCARA X Y
+ *   router  NOME IP MASCARA X Y
+ *   link    NOME1 IP1 MASCARA1 NOME2 IP2 MASCARA2
+ *   route   ROUTER REDE MASCARA PROXIMO_SALTO INDICE_INTERFACE
+ *   queue   NOME1 NOME2 BANDA LATENCIA CAPACIDADE [tail-drop|red]
+ *   traffic IP_ORIGEM IP_DESTINO QUANTIDADE [INSTANTE]
+ *
+ * 'queue' configura os dois sentidos do enlace entre NOME1 e NOME2 (banda em
+ * pacotes por tick e capacidade da fila em pacotes, 0 = ilimitada; latência
+ * em ticks). Enlaces não configurados têm banda ilimitada e latência de
+ * OutputQueue.DEFAULT_LATENCY ticks.
+ */
+public class HeadlessRunner {
+
+    private static final int SHOWN_LOOPS = 5;
+
+    private static final String USAGE = "Uso: HeadlessRunner cenario.txt [--out resumo.txt] [--max-time ticks] [--threads N]"
+            + " [--log NIVEL] [--log-file eventos.log] [--topology rede.bin|rede.txt]"
+            + " [--routing link-state|distance-vector] [--dv-infinity N] [--reachability]"
+            + " [--ttl N] [--ttl-policy drop|record] [--ecmp CAMINHOS]";
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 1) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        String scenarioPath = args[0];
+        String outputPath = null;
+        long maxTime = Long.MAX_VALUE;
+        int threads = 1;
+        SimulationLog.Level logLevel = SimulationLog.Level.OFF;
+        String logPath = null;
+        String topologyPath = null;
+        String routingMode = null;
+        int dvInfinity = DistanceVectorRouting.DEFAULT_INFINITY;
+        boolean reachability = false;
+        int ttl = Packet.DEFAULT_TTL;
+        NetworkMap.TtlPolicy ttlPolicy = NetworkMap.TtlPolicy.DROP_AND_RECORD;
+        int maxPaths = 0; // sem --ecmp os roteadores ficam com o limite padrão
+        for (int i = 1; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outputPath = args[++i];
+            } else if ("--max-time".equals(args[i]) && i + 1 < args.length) {
+                maxTime = parseNumber(args[i], args[++i], 0, Long.MAX_VALUE);
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = (int) parseNumber(args[i], args[++i], 1, Integer.MAX_VALUE);
+            } else if ("--log".equals(args[i]) && i + 1 < args.length && SimulationLog.parseLevel(args[i + 1]) != null) {
+                logLevel = SimulationLog.parseLevel(args[++i]);
+            } else if ("--log-file".equals(args[i]) && i + 1 < args.length) {
+                logPath = args[++i];
+            } else if ("--topology".equals(args[i]) && i + 1 < args.length) {
+                topologyPath = args[++i];
+            } else if ("--routing".equals(args[i]) && i + 1 < args.length
+                    && ("link-state".equals(args[i + 1]) || "distance-vector".equals(args[i + 1]))) {
+                routingMode = args[++i];
+            } else if ("--dv-infinity".equals(args[i]) && i + 1 < args.length) {
+                dvInfinity = (int) parseNumber(args[i], args[++i], 2, Integer.MAX_VALUE);
+            } else if ("--reachability".equals(args[i])) {
+                reachability = true;
+            } else if ("--ecmp".equals(args[i]) && i + 1 < args.length) {
+                maxPaths = (int) parseNumber(args[i], args[++i], 1, Integer.MAX_VALUE);
+            } else if ("--ttl".equals(args[i]) && i + 1 < args.length) {
+                ttl = (int) parseNumber(args[i], args[++i], 1, Packet.MAX_TTL);
+            } else if ("--ttl-policy".equals(args[i]) && i + 1 < args.length
+                    && (args[i + 1].equals("drop") || args[i + 1].equals("record"))) {
+                ttlPolicy = args[++i].equals("drop") ? NetworkMap.TtlPolicy.DROP : NetworkMap.TtlPolicy.DROP_AND_RECORD;
+            } else {
+                System.err.println("Argumento desconhecido: " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        NetworkMap map = NetworkMap.getInstance();
+        SimulationLog log = map.getLog();
+        log.setLevel(logLevel);
+        map.setInitialTtl(ttl);
+        map.setTtlPolicy(ttlPolicy);
+        PrintStream logFile = null;
+        if (logPath != null) {
+            try {
+                logFile = new PrintStream(logPath, StandardCharsets.UTF_8);
+                log.setOutput(logFile);
+            } catch (IOException e) {
+                System.err.println("❌ Erro ao abrir log: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        try {
+            if (topologyPath != null)
+                TopologyFiles.load(Paths.get(topologyPath), map);
+            loadScenario(map, scenarioPath);
+            if (maxPaths > 0) {
+                for (int i = 0; i < map.getDeviceCount(); i++) {
+                    if (map.getDevices()[i] instanceof Router)
+                        ((Router) map.getDevices()[i]).setMaxPaths(maxPaths);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Erro ao carregar cenário: " + e.getMessage());
+            System.exit(1);
+        }
+
+        // O relatório do distance-vector continua sendo preenchido durante a simulação
+        ConvergenceReport routing = null;
+        if ("link-state".equals(routingMode)) {
+            routing = new LinkStateRouting(map).update();
+        } else if ("distance-vector".equals(routingMode)) {
+            routing = new DistanceVectorRouting(map, dvInfinity).update();
+        }
+
+        long wallStart = System.nanoTime();
+        if (threads > 1) {
+            ParallelSimulation simulation = new ParallelSimulation(map, threads);
+            if (maxTime == Long.MAX_VALUE) {
+                simulation.runToCompletion();
+            } else {
+                simulation.runUntil(maxTime);
+            }
+            simulation.shutdown();
+        } else if (maxTime == Long.MAX_VALUE) {
+            map.runToCompletion();
+        } else {
+            map.runUntil(maxTime);
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        ReachabilityMatrix matrix = reachability ? map.analyzeReachability() : null;
+
+        log.flush();
+        if (logFile != null)
+            logFile.close();
+
+        try (PrintStream out = (outputPath == null) ? null : new PrintStream(outputPath, StandardCharsets.UTF_8)) {
+            writeSummary(map, wallNanos, routing, matrix, (out == null) ? System.out : out);
+        } catch (IOException e) {
+            System.err.println("❌ Erro ao gravar resumo: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // ==========================================================
+    // CARGA DO CENÁRIO
+    // ==========================================================
+
+    static void loadScenario(NetworkMap map, String path) throws Exception {
+        Map<String, Device> devicesByName = new HashMap<>();
+        map.forEachDevice(d -> devicesByName.put(d.getName(), d));
+        EventScheduler scheduler = map.getScheduler();
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                if (comment >= 0) line = line.substring(0, comment);
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                String[] f = line.split("\\s+");
+                try {
+                    switch (f[0]) {
+                        case "host":
+                        case "router": {
+                            requireFields(f, 6);
+                            String type = f[0].equals("host") ? "Host" : "Router";
+                            Device d = map.createAndAddDevice(type, f[1], f[2], f[3], Integer.parseInt(f[4]), Integer.parseInt(f[5]));
+                            if (d == null) throw new Exception("não foi possível adicionar " + f[1]);
+                            devicesByName.put(f[1], d);
+                            break;
+                        }
+                        case "link": {
+                            requireFields(f, 7);
+                            map.connectDevices(deviceNamed(devicesByName, f[1]), f[2], f[3],
+                                               deviceNamed(devicesByName, f[4]), f[5], f[6]);
+                            break;
+                        }
+                        case "route": {
+                            requireFields(f, 6);
+                            Device d = deviceNamed(devicesByName, f[1]);
+                            if (!(d instanceof Router)) throw new Exception(f[1] + " não é um Router");
+                            ((Router) d).addRoute(new RouteEntry(f[2], f[3], f[4], Integer.parseInt(f[5])));
+                            break;
+                        }
+                        case "queue": {
+                            requireFields(f, 6);
+                            OutputQueue.Discipline discipline = OutputQueue.Discipline.TAIL_DROP;
+                            if (f.length > 6) {
+                                if (f[6].equals("red")) discipline = OutputQueue.Discipline.RED;
+                                else if (!f[6].equals("tail-drop")) throw new Exception("disciplina desconhecida '" + f[6] + "'");
+                            }
+                            if (!map.configureLink(deviceNamed(devicesByName, f[1]), deviceNamed(devicesByName, f[2]),
+                                    Integer.parseInt(f[3]), Integer.parseInt(f[4]), Integer.parseInt(f[5]), discipline))
+                                throw new Exception("não há enlace entre " + f[1] + " e " + f[2]);
+                            break;
+                        }
+                        case "traffic": {
+                            requireFields(f, 4);
+                            int source = Ipv4Address.parseInt(f[1]);
+                            int destination = Ipv4Address.parseInt(f[2]);
+                            int quantity = Integer.parseInt(f[3]);
+                            long time = (f.length > 4) ? Long.parseLong(f[4]) : 0;
+                            scheduler.schedule(time, t -> map.startTransmission(source, destination, quantity));
+                            break;
+                        }
+                        default:
+                            throw new Exception("instrução desconhecida '" + f[0] + "'");
+                    }
+                } catch (Exception e) {
+                    throw new Exception(path + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    // Valor numérico de um parâmetro entre 'min' e 'max'; fora disso encerra com o uso (código 2)
+    private static long parseNumber(String flag, String value, long min, long max) {
+        String problem;
+        try {
+            long number = Long.parseLong(value);
+            if (number >= min && number <= max)
+                return number;
+            problem = (max == Long.MAX_VALUE || max == Integer.MAX_VALUE) ? " (mínimo " + min + ")" : " (use " + min + ".." + max + ")";
+        } catch (NumberFormatException e) {
+            problem = " (não é um número)";
+        }
+        System.err.println("Argumento inválido: " + flag + " " + value + problem);
+        System.err.println(USAGE);
+        System.exit(2);
+        return min;
+    }
+
+    private static void requireFields(String[] fields, int count) throws Exception {
+        if (fields.length < count)
+            throw new Exception("'" + fields[0] + "' espera " + (count - 1) + " argumentos");
+    }
+
+    private static Device deviceNamed(Map<String, Device> devicesByName, String name) throws Exception {
+        Device d = devicesByName.get(name);
+        if (d == null) throw new Exception("dispositivo não declarado: " + name);
+        return d;
+    }
+
+    // ==========================================================
+    // RESUMO
+    // ==========================================================
+
+    static void writeSummary(NetworkMap map, long wallNanos, ConvergenceReport routing, ReachabilityMatrix reachability,
+                             PrintStream out) {
+        SimulationStats stats = map.getStats();
+        EventScheduler scheduler = map.getScheduler();
+        double wallSeconds = wallNanos / 1e9;
+
+        out.println("dispositivos=" + map.getDeviceCount());
+        out.println("pacotes_injetados=" + stats.getPacketsInjected());
+        out.println("pacotes_entregues=" + stats.getPacketsDelivered());
+        out.println("pacotes_descartados=" + stats.getPacketsDropped());
+        out.println("pacotes_em_transito=" + map.getPacketCount());
+        out.println("saltos=" + stats.getTotalHops());
+        out.printf("latencia_media_ticks=%.2f%n", stats.getAverageDeliveredLatency());
+        out.println("latencia_maxima_ticks=" + stats.getMaxDeliveredLatency());
+        out.println("tempo_simulado_ticks=" + scheduler.now());
+        out.println("eventos=" + scheduler.getEventsFired());
+        out.printf("tempo_real_s=%.3f%n", wallSeconds);
+        out.printf("eventos_por_s=%.0f%n", (wallSeconds > 0) ? scheduler.getEventsFired() / wallSeconds : 0.0);
+        long cacheHits = 0, cacheMisses = 0;
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            Device d = map.getDevices()[i];
+            if (d instanceof Router) {
+                cacheHits += ((Router) d).getRouteCacheHits();
+                cacheMisses += ((Router) d).getRouteCacheMisses();
+            }
+        }
+        out.println("cache_rotas_acertos=" + cacheHits);
+        out.println("cache_rotas_faltas=" + cacheMisses);
+        writeQueueSummary(map, out);
+        writeTtlSummary(map, out);
+        writeEcmpSummary(map, out);
+        if (routing != null)
+            writeRoutingSummary(routing, out);
+        if (reachability != null)
+            writeReachabilitySummary(reachability, out);
+        out.println("log_registrados=" + map.getLog().getRecorded());
+        out.println("log_perdidos=" + map.getLog().getLost());
+        out.print(map.memoryReport());
+    }
+
+    private static void writeRoutingSummary(ConvergenceReport routing, PrintStream out) {
+        out.println("roteamento_protocolo=" + routing.getProtocol());
+        out.println("roteamento_roteadores=" + routing.getRouters());
+        out.println("roteamento_spf=" + routing.getFullSpfRuns());
+        out.println("roteamento_mensagens=" + routing.getMessages());
+        out.println("roteamento_rotas_instaladas=" + (routing.getRoutesAdded() - routing.getRoutesRemoved()));
+        out.println("roteamento_convergencia_ticks=" + routing.getConvergenceTicks());
+        out.printf("roteamento_cpu_ms=%.2f%n", routing.getCpuNanos() / 1e6);
+    }
+
+    /**
+     * Grupos ECMP e o equilíbrio da carga: para cada grupo que encaminhou
+     * pacotes, a razão entre o caminho mais carregado e a média do grupo
+     * (1.00 = perfeitamente dividido).
+     */
+    private static void writeEcmpSummary(NetworkMap map, PrintStream out) {
+        long groups = 0, loadedGroups = 0;
+        double imbalance = 0, worst = 0;
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            if (!(map.getDevices()[i] instanceof Router)) continue;
+            Router router = (Router) map.getDevices()[i];
+            if (router.getMultipathGroupCount() == 0) continue;
+            for (RouteEntry route : router.getRoutingTable()) {
+                List<RouteEntry> paths = router.getEqualCostPaths(route.network, route.prefixLength);
+                if (paths.size() < 2 || paths.get(0) != route) continue;
+                groups++;
+                long total = 0, max = 0;
+                for (RouteEntry path : paths) {
+                    total += path.getForwardedPackets();
+                    max = Math.max(max, path.getForwardedPackets());
+                }
+                if (total == 0) continue;
+                double ratio = max / ((double) total / paths.size());
+                loadedGroups++;
+                imbalance += ratio;
+                worst = Math.max(worst, ratio);
+            }
+        }
+        if (groups == 0) return;
+        out.println("ecmp_grupos=" + groups);
+        out.println("ecmp_grupos_com_trafego=" + loadedGroups);
+        out.printf("ecmp_desequilibrio_medio=%.2f%n", (loadedGroups == 0) ? 0.0 : imbalance / loadedGroups);
+        out.printf("ecmp_desequilibrio_maximo=%.2f%n", worst);
+    }
+
+    // Descartes por TTL; com DROP_AND_RECORD, também os destinos com mais descartes
+    private static void writeTtlSummary(NetworkMap map, PrintStream out) {
+        long expired = 0;
+        for (int i = 0; i < map.getDeviceCount(); i++)
+            expired += map.getDevices()[i].getTtlExpiredCount();
+        out.println("ttl_expirados=" + expired);
+        if (map.getTtlPolicy() != NetworkMap.TtlPolicy.DROP_AND_RECORD) return;
+        LoopReport loops = map.getLoopReport();
+        List<LoopReport.Entry> entries = loops.getEntries();
+        out.println("ttl_destinos=" + entries.size());
+        out.println("ttl_lacos=" + loops.getLoopCount());
+        for (int i = 0; i < Math.min(SHOWN_LOOPS, entries.size()); i++)
+            out.println("ttl_destino_" + (i + 1) + "=" + entries.get(i));
+    }
+
+    private static void writeReachabilitySummary(ReachabilityMatrix matrix, PrintStream out) {
+        out.println("alcancabilidade_pares=" + matrix.getPairCount());
+        out.println("alcancabilidade_entregues=" + matrix.count(PathTrace.Status.DELIVERED));
+        out.println("alcancabilidade_lacos=" + matrix.count(PathTrace.Status.LOOP));
+        out.println("alcancabilidade_buracos_negros=" + matrix.count(PathTrace.Status.BLACK_HOLE));
+        out.println("alcancabilidade_inalcancaveis=" + matrix.count(PathTrace.Status.UNREACHABLE));
+        out.printf("alcancabilidade_ms=%.2f%n", matrix.getElapsedNanos() / 1e6);
+    }
+
+    // Totais das filas de saída e a interface mais congestionada (mais descartes, depois maior ocupação)
+    private static void writeQueueSummary(NetworkMap map, PrintStream out) {
+        long now = map.getSimulationTime();
+        long droppedFull = 0, droppedEarly = 0;
+        int maxDepth = 0;
+        double maxUtilization = 0;
+        Device worstDevice = null;
+        NetworkInterface worst = null;
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            Device d = map.getDevices()[i];
+            for (int j = 0; j < d.getInterfaceCount(); j++) {
+                NetworkInterface intf = d.getInterface(j);
+                OutputQueue queue = intf.peekOutputQueue();
+                if (queue == null) continue;
+                droppedFull += queue.getDroppedFull();
+                droppedEarly += queue.getDroppedEarly();
+                maxDepth = Math.max(maxDepth, queue.getMaxDepth());
+                maxUtilization = Math.max(maxUtilization, queue.getUtilization(now));
+                OutputQueue current = (worst == null) ? null : worst.peekOutputQueue();
+                if (current == null || queue.getDropped() > current.getDropped()
+                        || (queue.getDropped() == current.getDropped() && queue.getMaxDepth() > current.getMaxDepth())) {
+                    worst = intf;
+                    worstDevice = d;
+                }
+            }
+        }
+        out.println("fila_descartes_cheia=" + droppedFull);
+        out.println("fila_descartes_red=" + droppedEarly);
+        out.println("fila_ocupacao_maxima=" + maxDepth);
+        out.printf("fila_utilizacao_maxima=%.3f%n", maxUtilization);
+        if (worst != null && (worst.getOutputQueue().getDropped() > 0 || worst.getOutputQueue().getMaxDepth() > 0)) {
+            OutputQueue queue = worst.getOutputQueue();
+            out.printf("fila_mais_congestionada=%s %s descartes=%d ocupacao_maxima=%d ocupacao_media=%.2f utilizacao=%.3f%n",
+                    worstDevice.getName(), worst.getIpAddress(), queue.getDropped(), queue.getMaxDepth(),
+                    queue.getAverageDepth(), queue.getUtilization(now));
+        }
+    }
+}
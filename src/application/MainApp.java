@@ -2,6 +2,10 @@ package application;
 
 import models.*;
 import gui.SimulationPanel;
+import io.TopologyFiles;
+import routing.ConvergenceReport;
+import routing.DistanceVectorRouting;
+import routing.LinkStateRouting;
 
 import javax.swing.*;
 import java.awt.*;
@@ -20,6 +24,11 @@ public class MainApp {
     public static String tempDeviceIp = null;
     public static String tempDeviceMask = null;
 
+    // Roteamento dinâmico: mantido entre os cliques para que as atualizações sejam incrementais
+    // (um protocolo por vez: ativar um remove as rotas do outro)
+    private static LinkStateRouting linkStateRouting = null;
+    private static DistanceVectorRouting distanceVectorRouting = null;
+
     // ==========================================================
     // MÉTODOS AUXILIARES DE CONFIGURAÇÃO DE REDE
     // ==========================================================
@@ -30,17 +39,12 @@ public class MainApp {
     public static void connectDevices(Device d1, String ip1, String mask1,
                                       Device d2, String ip2, String mask2) throws Exception {
 
-        // 1. Cria as interfaces
-        NetworkInterface intf1 = new NetworkInterface(ip1, mask1);
-        NetworkInterface intf2 = new NetworkInterface(ip2, mask2);
-
-        // 2. Configura a referência mútua (vizinho)
-        intf1.setNeighbor(d2);
-        intf2.setNeighbor(d1);
-
-        // 3. Adiciona aos arrays de interfaces dos dispositivos
-        d1.addInterface(intf1);
-        d2.addInterface(intf2);
+        // Interfaces e vizinhança mútua são configuradas pelo NetworkMap
+        // (com o monitor do mapa: a simulação roda em outra thread)
+        NetworkMap map = NetworkMap.getInstance();
+        synchronized (map) {
+            map.connectDevices(d1, ip1, mask1, d2, ip2, mask2);
+        }
 
         System.out.println("✅ Conectado: " + d1.getName() + " (" + ip1 + ") a " + d2.getName() + " (" + ip2 + ")");
     }
@@ -59,7 +63,10 @@ public class MainApp {
             frame.setLayout(new BorderLayout());
 
             // Painel principal de simulação/desenho
-            SimulationPanel panel = new SimulationPanel(map);
+            // Ritmos ajustáveis com -Dsimulador.tps=<ticks/s> e -Dsimulador.fps=<quadros/s>
+            SimulationPanel panel = new SimulationPanel(map,
+                    Integer.getInteger("simulador.tps", SimulationPanel.DEFAULT_TICKS_PER_SECOND),
+                    Integer.getInteger("simulador.fps", SimulationPanel.DEFAULT_FRAMES_PER_SECOND));
             frame.add(panel, BorderLayout.CENTER);
 
             // Painel Lateral (Agrupa Controles de Dispositivos e Rotas)
@@ -203,6 +210,8 @@ public class MainApp {
         JButton btnAddHost = new JButton("Adicionar Host (Configurar)");
         JButton btnAddRouter = new JButton("Adicionar Router (Configurar)");
         JButton btnConnect = new JButton("Conectar Dispositivos");
+        JButton btnOpen = new JButton("Abrir Topologia...");
+        JButton btnSave = new JButton("Salvar Topologia...");
 
         // Configuração visual dos botões
         btnAddHost.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -211,6 +220,10 @@ public class MainApp {
         btnAddHost.setMaximumSize(new Dimension(180, 30));
         btnAddRouter.setMaximumSize(new Dimension(180, 30));
         btnConnect.setMaximumSize(new Dimension(180, 30));
+        btnOpen.setAlignmentX(Component.CENTER_ALIGNMENT);
+        btnSave.setAlignmentX(Component.CENTER_ALIGNMENT);
+        btnOpen.setMaximumSize(new Dimension(180, 30));
+        btnSave.setMaximumSize(new Dimension(180, 30));
 
 
         // Ação Host
@@ -261,8 +274,46 @@ public class MainApp {
         control.add(btnAddRouter);
         control.add(Box.createVerticalStrut(20));
         control.add(btnConnect);
+        control.add(Box.createVerticalStrut(20));
+        control.add(btnOpen);
+        control.add(Box.createVerticalStrut(10));
+        control.add(btnSave);
         control.add(Box.createVerticalStrut(10));
 
+        // Ações Abrir/Salvar (binário, ou texto quando o arquivo termina em .txt)
+        btnOpen.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(panel) != JFileChooser.APPROVE_OPTION) return;
+            NetworkMap map = NetworkMap.getInstance();
+            try {
+                synchronized (map) {
+                    TopologyFiles.load(chooser.getSelectedFile().toPath(), map);
+                }
+                currentMode = "NONE";
+                firstDeviceToConnect = null;
+                routerToEdit = null;
+                panel.setCursor(Cursor.getDefaultCursor());
+                panel.repaint();
+                System.out.println("✅ Topologia carregada: " + map.getDeviceCount() + " dispositivos");
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(panel, "Erro ao abrir topologia: " + ex.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        btnSave.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(panel) != JFileChooser.APPROVE_OPTION) return;
+            NetworkMap map = NetworkMap.getInstance();
+            try {
+                synchronized (map) {
+                    TopologyFiles.save(map, chooser.getSelectedFile().toPath());
+                }
+                System.out.println("✅ Topologia salva em " + chooser.getSelectedFile());
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(panel, "Erro ao salvar topologia: " + ex.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
         return control;
     }
 
@@ -275,6 +326,9 @@ public class MainApp {
 
         JButton btnSelectRouter = new JButton("1. Selecionar Router");
         JButton btnAddRoute = new JButton("2. Adicionar Rota");
+        JButton btnLinkState = new JButton("Roteamento Link-State");
+        JButton btnDistanceVector = new JButton("Roteamento Distance-Vector");
+        JButton btnReachability = new JButton("Analisar Alcançabilidade");
         JLabel lblSelectedRouter = new JLabel("Router Selecionado: N/A");
 
         // Garante que o JLabel tenha a mesma largura que os botões
@@ -285,6 +339,12 @@ public class MainApp {
         btnAddRoute.setAlignmentX(Component.CENTER_ALIGNMENT);
         btnSelectRouter.setMaximumSize(new Dimension(180, 30));
         btnAddRoute.setMaximumSize(new Dimension(180, 30));
+        btnLinkState.setAlignmentX(Component.CENTER_ALIGNMENT);
+        btnLinkState.setMaximumSize(new Dimension(180, 30));
+        btnDistanceVector.setAlignmentX(Component.CENTER_ALIGNMENT);
+        btnDistanceVector.setMaximumSize(new Dimension(180, 30));
+        btnReachability.setAlignmentX(Component.CENTER_ALIGNMENT);
+        btnReachability.setMaximumSize(new Dimension(180, 30));
 
         // Ação 1: Selecionar Roteador no mapa
         btnSelectRouter.addActionListener(e -> {
@@ -311,7 +371,9 @@ public class MainApp {
                     int outIndex = Integer.parseInt(routeConfig[3]); 
                     
                     RouteEntry newRoute = new RouteEntry(net, mask, next, outIndex);
-                    routerToEdit.addRoute(newRoute); // Chama o método do Router.java
+                    synchronized (NetworkMap.getInstance()) {
+                        routerToEdit.addRoute(newRoute); // Chama o método do Router.java
+                    }
                     
                     System.out.println("✅ Rota adicionada ao " + routerToEdit.getName() + 
                                        ": Rede " + net + " via " + next + " (Interface " + outIndex + ")");
@@ -323,6 +385,49 @@ public class MainApp {
             }
         });
         
+        // Ação 3: Preencher as tabelas de todos os Routers (link-state; rotas manuais têm precedência)
+        btnLinkState.addActionListener(e -> {
+            NetworkMap map = NetworkMap.getInstance();
+            ConvergenceReport report;
+            synchronized (map) {
+                if (distanceVectorRouting != null) {
+                    distanceVectorRouting.reset();
+                    distanceVectorRouting = null;
+                }
+                if (linkStateRouting == null)
+                    linkStateRouting = new LinkStateRouting(map);
+                report = linkStateRouting.update();
+            }
+            System.out.println("✅ Roteamento link-state: " + report);
+            JOptionPane.showMessageDialog(control, report.toString(), "Roteamento Link-State", JOptionPane.INFORMATION_MESSAGE);
+        });
+
+        // Ação 4: Distance-vector (RIP); as mensagens trafegam durante a simulação
+        btnDistanceVector.addActionListener(e -> {
+            NetworkMap map = NetworkMap.getInstance();
+            synchronized (map) {
+                if (linkStateRouting != null) {
+                    linkStateRouting.reset();
+                    linkStateRouting = null;
+                }
+                if (distanceVectorRouting == null)
+                    distanceVectorRouting = new DistanceVectorRouting(map);
+                distanceVectorRouting.update();
+            }
+            System.out.println("✅ Roteamento distance-vector: anúncios agendados; as tabelas convergem com a simulação.");
+        });
+
+        // Ação 5: Alcançabilidade de todos os hosts para todos os hosts, sem enviar pacotes
+        btnReachability.addActionListener(e -> {
+            NetworkMap map = NetworkMap.getInstance();
+            synchronized (map) {
+                ReachabilityMatrix matrix = map.analyzeReachability();
+                System.out.println("✅ Alcançabilidade: " + matrix);
+                for (PathTrace trace : matrix.traceProblems(10))
+                    System.out.println("   ⚠ " + trace);
+            }
+        });
+
         // Timer simples para atualizar o nome do router selecionado
         new Timer(200, e -> {
             if (routerToEdit != null) {
@@ -339,6 +444,12 @@ public class MainApp {
         control.add(Box.createVerticalStrut(10));
         control.add(btnAddRoute);
         control.add(Box.createVerticalStrut(10));
+        control.add(btnLinkState);
+        control.add(Box.createVerticalStrut(10));
+        control.add(btnDistanceVector);
+        control.add(Box.createVerticalStrut(10));
+        control.add(btnReachability);
+        control.add(Box.createVerticalStrut(10));
 
         return control;
     }
@@ -361,7 +472,9 @@ public class MainApp {
 
             try {
                 int qtd = Integer.parseInt(txtQtd.getText());
-                map.startTransmission(origem, destino, qtd);
+                synchronized (map) {
+                    map.startTransmission(origem, destino, qtd);
+                }
                 System.out.println(">>> INÍCIO DA TRANSMISSÃO: " + qtd + " pacotes de " + origem + " para " + destino);
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(panel, "Quantidade inválida.", "Erro", JOptionPane.ERROR_MESSAGE);
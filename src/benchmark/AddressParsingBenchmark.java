@@ -0,0 +1,121 @@
+package benchmark;
+
+import models.Ipv4Address;
+import models.NetworkInterface;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Compara a validação de IP e máscara original (InetAddress.getByName e
+ * split por expressão regular) com o parser de uma passada do Ipv4Address,
+ * e confere que ambos dão a mesma resposta para as entradas de teste.
+ *
+ * Uso: java -cp bin benchmark.AddressParsingBenchmark
+ */
+public class AddressParsingBenchmark {
+
+    private static final int OPERATIONS = 2_000_000;
+
+    // Entradas numéricas apenas: um nome de host faria a versão original consultar o DNS
+    private static final String[] IPS = {
+        "192.168.1.10", "10.0.0.1", "172.16.254.3", "8.8.8.8", "0.0.0.0", "255.255.255.255",
+        "1.2.3.4.5", "192.168.001.1", "01.2.3.4", "1.2.3.", ".1.2.3", "1..2.3",
+    };
+    private static final String[] MASKS = {
+        "255.255.255.0", "255.255.0.0", "255.255.255.252", "0.0.0.0", "255.255.255.255", "128.0.0.0",
+        "255.0.255.0", "255.255.255.1", "300.0.0.0", "255.255.255", "", "255.255.255.0.0",
+    };
+
+    public static void main(String[] args) {
+        int mismatches = 0;
+        for (String ip : IPS) {
+            if (originalIsValidIP(ip) != NetworkInterface.isValidIP(ip)) {
+                System.out.println("Divergência em isValidIP(\"" + ip + "\")");
+                mismatches++;
+            }
+        }
+        for (String mask : MASKS) {
+            if (originalIsValidMask(mask) != NetworkInterface.isValidMask(mask)) {
+                System.out.println("Divergência em isValidMask(\"" + mask + "\")");
+                mismatches++;
+            }
+        }
+        System.out.println("Divergências: " + mismatches);
+
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2; // as duas primeiras rodadas são aquecimento
+
+            long start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++)
+                if (originalIsValidIP(IPS[i % IPS.length])) sink++;
+            double originalIp = (double) (System.nanoTime() - start) / OPERATIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++)
+                if (Ipv4Address.isValid(IPS[i % IPS.length])) sink++;
+            double parserIp = (double) (System.nanoTime() - start) / OPERATIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++)
+                if (originalIsValidMask(MASKS[i % MASKS.length])) sink++;
+            double originalMask = (double) (System.nanoTime() - start) / OPERATIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++)
+                if (Ipv4Address.isValidMask(MASKS[i % MASKS.length])) sink++;
+            double parserMask = (double) (System.nanoTime() - start) / OPERATIONS;
+
+            if (report) {
+                System.out.printf("isValidIP:   original %8.1f ns  parser %6.1f ns  (%.0fx)%n",
+                        originalIp, parserIp, originalIp / parserIp);
+                System.out.printf("isValidMask: original %8.1f ns  parser %6.1f ns  (%.0fx)%n",
+                        originalMask, parserMask, originalMask / parserMask);
+            }
+        }
+        System.out.println("(soma de controle " + sink + ")");
+    }
+
+    // ============================
+    // IMPLEMENTAÇÃO ORIGINAL
+    // ============================
+
+    private static boolean originalIsValidIP(String ip) {
+        try {
+            InetAddress addr = InetAddress.getByName(ip);
+            return addr.getHostAddress().equals(ip);
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static boolean originalIsValidMask(String mask) {
+        String[] parts = mask.split("\\.");
+        if (parts.length != 4)
+            return false;
+
+        int maskInt = 0;
+        for (String part : parts) {
+            int octet;
+            try {
+                octet = Integer.parseInt(part);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            if (octet < 0 || octet > 255)
+                return false;
+            maskInt = (maskInt << 8) | octet;
+        }
+
+        boolean seenZero = false;
+        for (int i = 31; i >= 0; i--) {
+            boolean bit = (maskInt & (1 << i)) != 0;
+            if (!bit)
+                seenZero = true;
+            else if (seenZero)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,423 @@
+package benchmark;
+
+import generator.GeneratedTopology;
+import generator.TopologyGenerator;
+import generator.TrafficMatrix;
+import models.*;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Conjunto de micro-benchmarks dos caminhos críticos da simulação, com
+ * verificação de regressão contra uma linha de base gravada.
+ *
+ * Mede (em ns por operação, menor é melhor):
+ *   - Router.lookupRoute com 1k, 100k e 1M rotas (destinos uniformes) e com
+ *     tráfego concentrado em poucos destinos, com e sem o cache de rotas
+ *   - NetworkMap.findDeviceByIP com ~100, ~10k e ~50k dispositivos
+ *   - NetworkInterface.isValidIP / isValidMask / sameSubnet
+ *   - NetworkMap.tickSimulation, em ns por salto de pacote (também exibido em saltos/s),
+ *     na topologia de BenchmarkTopology e em um fat-tree gerado (TopologyGenerator)
+ *
+ * Cada medida faz aquecimento e depois várias iterações cronometradas; o
+ * resultado é a mediana. Não depende de bibliotecas externas:
+ *
+ *   javac -encoding UTF-8 -d bin $(find src -name '*.java')
+ *   java -Xmx3g -cp bin benchmark.BenchmarkSuite --save base.properties
+ *   java -Xmx3g -cp bin benchmark.BenchmarkSuite --baseline base.properties [--threshold 0.25]
+ *
+ * Com --baseline, o processo termina com código 1 se alguma medida ficar
+ * mais lenta que a linha de base além do limite (padrão 25%), para ser usado
+ * como etapa de verificação. Outras opções: --quick (menos iterações) e
+ * --filter texto (só os benchmarks cujo nome contém o texto).
+ */
+public class BenchmarkSuite {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 7;
+    private static final long ITERATION_NANOS = 200_000_000L;
+    private static final double DEFAULT_THRESHOLD = 0.25;
+
+    // Uma operação executada 'count' vezes; o retorno evita que o JIT elimine o trabalho
+    interface Operation {
+        long run(int count) throws Exception;
+    }
+
+    private static final class Measurement {
+        final String name;
+        final double nanosPerOp;
+
+        Measurement(String name, double nanosPerOp) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+        }
+    }
+
+    private final List<Measurement> results = new ArrayList<>();
+    private final String filter;
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private long sink;
+
+    private BenchmarkSuite(String filter, boolean quick) {
+        this.filter = filter;
+        this.warmupIterations = quick ? 2 : WARMUP_ITERATIONS;
+        this.measurementIterations = quick ? 3 : MEASUREMENT_ITERATIONS;
+        this.iterationNanos = quick ? ITERATION_NANOS / 4 : ITERATION_NANOS;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baselinePath = null;
+        String savePath = null;
+        String filter = "";
+        boolean quick = false;
+        double threshold = DEFAULT_THRESHOLD;
+        for (int i = 0; i < args.length; i++) {
+            if ("--baseline".equals(args[i]) && i + 1 < args.length) {
+                baselinePath = args[++i];
+            } else if ("--save".equals(args[i]) && i + 1 < args.length) {
+                savePath = args[++i];
+            } else if ("--threshold".equals(args[i]) && i + 1 < args.length) {
+                threshold = Double.parseDouble(args[++i]);
+            } else if ("--filter".equals(args[i]) && i + 1 < args.length) {
+                filter = args[++i];
+            } else if ("--quick".equals(args[i])) {
+                quick = true;
+            } else {
+                System.err.println("Argumento desconhecido: " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        NetworkMap.getInstance().getLog().setLevel(SimulationLog.Level.OFF);
+
+        BenchmarkSuite suite = new BenchmarkSuite(filter, quick);
+        suite.runAll();
+
+        if (savePath != null)
+            suite.save(savePath);
+        if (baselinePath != null && !suite.compare(baselinePath, threshold))
+            System.exit(1);
+    }
+
+    private void runAll() throws Exception {
+        for (int size : new int[] { 1_000, 100_000, 1_000_000 })
+            benchmarkRouteLookup(size);
+        benchmarkSkewedRouteLookup(100_000, true);
+        benchmarkSkewedRouteLookup(100_000, false);
+        for (int[] shape : new int[][] { { 2, 49 }, { 50, 200 }, { 250, 200 } })
+            benchmarkFindDevice(shape[0], shape[1]);
+        benchmarkAddressValidation();
+        benchmarkTick(100, 100, 5);
+        benchmarkFatTreeTick(16, 4, 5);
+    }
+
+    // ============================
+    // BENCHMARKS
+    // ============================
+
+    private void benchmarkRouteLookup(int size) throws Exception {
+        String name = "router.lookupRoute." + size;
+        if (!selected(name)) return;
+
+        Random random = new Random(size);
+        Router router = new Router(1, "BENCH", 0, 0);
+        for (int i = 0; i < size; i++) {
+            int prefixLength = 8 + random.nextInt(25);
+            int mask = Ipv4Address.maskOf(prefixLength);
+            router.addRoute(new RouteEntry(Ipv4Address.toString(random.nextInt() & mask),
+                    Ipv4Address.toString(mask), "0.0.0.0", 0));
+        }
+        int[] destinations = randomAddresses(random, 4096);
+
+        measure(name, count -> {
+            long found = 0;
+            for (int i = 0; i < count; i++)
+                if (router.lookupRoute(destinations[i & 4095]) != null) found++;
+            return found;
+        });
+    }
+
+    /**
+     * Destinos com distribuição de Zipf (s = 1) sobre 10k endereços: poucos
+     * destinos concentram a maior parte das consultas.
+     */
+    private void benchmarkSkewedRouteLookup(int size, boolean cached) throws Exception {
+        String name = "router.lookupRoute.skewed." + size + (cached ? ".cache" : ".semCache");
+        if (!selected(name)) return;
+
+        Random random = new Random(size);
+        Router router = new Router(1, "BENCH", 0, 0);
+        for (int i = 0; i < size; i++) {
+            int prefixLength = 8 + random.nextInt(25);
+            int mask = Ipv4Address.maskOf(prefixLength);
+            router.addRoute(new RouteEntry(Ipv4Address.toString(random.nextInt() & mask),
+                    Ipv4Address.toString(mask), "0.0.0.0", 0));
+        }
+        if (!cached)
+            router.setRouteCacheSize(0);
+
+        int[] population = randomAddresses(random, 10_000);
+        double[] cumulative = new double[population.length];
+        double total = 0;
+        for (int i = 0; i < population.length; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        int[] destinations = new int[1 << 16];
+        for (int i = 0; i < destinations.length; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            destinations[i] = population[Math.min(population.length - 1, (rank < 0) ? -rank - 1 : rank)];
+        }
+        int indexMask = destinations.length - 1;
+
+        measure(name, count -> {
+            long found = 0;
+            for (int i = 0; i < count; i++)
+                if (router.lookupRoute(destinations[i & indexMask]) != null) found++;
+            return found;
+        });
+        if (cached) {
+            long hits = router.getRouteCacheHits(), misses = router.getRouteCacheMisses();
+            System.out.printf("    %s: taxa de acerto %.1f%%%n", name, 100.0 * hits / Math.max(1, hits + misses));
+        }
+    }
+
+    private void benchmarkFindDevice(int edges, int hostsPerEdge) throws Exception {
+        int devices = 1 + edges * (hostsPerEdge + 1);
+        String name = "networkMap.findDeviceByIP." + devices;
+        if (!selected(name)) return;
+
+        NetworkMap map = NetworkMap.getInstance();
+        map.clear();
+        BenchmarkTopology.build(map, edges, hostsPerEdge, 0);
+
+        // Metade dos endereços existe, a outra metade não
+        Random random = new Random(devices);
+        int[] addresses = new int[4096];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = ((i & 1) == 0)
+                    ? BenchmarkTopology.hostAddress(random.nextInt(edges), random.nextInt(hostsPerEdge))
+                    : random.nextInt();
+        }
+
+        measure(name, count -> {
+            long found = 0;
+            for (int i = 0; i < count; i++)
+                if (map.findDeviceByIP(addresses[i & 4095]) != null) found++;
+            return found;
+        });
+        map.clear();
+    }
+
+    private void benchmarkAddressValidation() throws Exception {
+        // Só entradas numéricas: nomes de host fariam a implementação atual consultar o DNS
+        String[] ips = {
+            "192.168.1.10", "10.0.0.1", "172.16.254.3", "8.8.8.8", "0.0.0.0",
+            "256.1.1.1", "1.2.3", "1.2.3.4.5", "", "192.168.001.1",
+        };
+        String[] masks = {
+            "255.255.255.0", "255.255.0.0", "255.255.255.252", "0.0.0.0", "255.255.255.255",
+            "255.0.255.0", "255.255.255.1", "300.0.0.0", "255.255.255", "",
+        };
+        String[] subnets = {
+            "192.168.1.10", "192.168.1.200", "192.168.2.10", "10.0.0.1",
+        };
+
+        if (selected("networkInterface.isValidIP")) {
+            measure("networkInterface.isValidIP", count -> {
+                long valid = 0;
+                for (int i = 0; i < count; i++)
+                    if (NetworkInterface.isValidIP(ips[i % ips.length])) valid++;
+                return valid;
+            });
+        }
+        if (selected("networkInterface.isValidMask")) {
+            measure("networkInterface.isValidMask", count -> {
+                long valid = 0;
+                for (int i = 0; i < count; i++)
+                    if (NetworkInterface.isValidMask(masks[i % masks.length])) valid++;
+                return valid;
+            });
+        }
+        if (selected("networkInterface.sameSubnet")) {
+            measure("networkInterface.sameSubnet", count -> {
+                long same = 0;
+                for (int i = 0; i < count; i++)
+                    if (NetworkInterface.sameSubnet(subnets[i & 3], "255.255.255.0", subnets[(i >> 2) & 3])) same++;
+                return same;
+            });
+        }
+    }
+
+    /**
+     * Vazão de tickSimulation: cada iteração monta a topologia e injeta o
+     * tráfego fora do cronômetro e mede só os ticks até esvaziar a agenda.
+     */
+    private void benchmarkTick(int edges, int hostsPerEdge, int packetsPerHost) throws Exception {
+        String name = "networkMap.tickSimulation.perHop";
+        if (!selected(name)) return;
+
+        NetworkMap map = NetworkMap.getInstance();
+        int iterations = warmupIterations + measurementIterations;
+        double[] samples = new double[measurementIterations];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            map.clear();
+            BenchmarkTopology.build(map, edges, hostsPerEdge, 10_000);
+            BenchmarkTopology.injectTraffic(map, edges, hostsPerEdge, packetsPerHost, iteration);
+
+            EventScheduler scheduler = map.getScheduler();
+            long start = System.nanoTime();
+            while (!scheduler.isEmpty())
+                map.tickSimulation();
+            long elapsed = System.nanoTime() - start;
+
+            long hops = map.getStats().getTotalHops();
+            sink += hops;
+            if (iteration >= warmupIterations)
+                samples[iteration - warmupIterations] = (double) elapsed / Math.max(1, hops);
+        }
+        map.clear();
+
+        double nanosPerHop = median(samples);
+        report(name, nanosPerHop);
+        System.out.printf("    %s: %,.0f saltos/s%n", name, 1e9 / nanosPerHop);
+    }
+
+    /**
+     * Fat-tree de parâmetro k (k³/4 hosts, caminhos de até 6 saltos) com
+     * tráfego uniforme: cada host inicia 'flowsPerHost' fluxos espalhados
+     * pelos primeiros 50 ticks.
+     */
+    private void benchmarkFatTreeTick(int k, int flowsPerHost, int packetsPerFlow) throws Exception {
+        String name = "networkMap.tickSimulation.fatTree" + k + ".perHop";
+        if (!selected(name)) return;
+
+        NetworkMap map = NetworkMap.getInstance();
+        int iterations = warmupIterations + measurementIterations;
+        double[] samples = new double[measurementIterations];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            GeneratedTopology topology = TopologyGenerator.fatTree(map, k);
+            TrafficMatrix.uniform(topology, flowsPerHost, packetsPerFlow, 50, iteration).schedule(map);
+
+            EventScheduler scheduler = map.getScheduler();
+            long start = System.nanoTime();
+            while (!scheduler.isEmpty())
+                map.tickSimulation();
+            long elapsed = System.nanoTime() - start;
+
+            long hops = map.getStats().getTotalHops();
+            sink += hops;
+            if (iteration >= warmupIterations)
+                samples[iteration - warmupIterations] = (double) elapsed / Math.max(1, hops);
+        }
+        map.clear();
+
+        double nanosPerHop = median(samples);
+        report(name, nanosPerHop);
+        System.out.printf("    %s: %,.0f saltos/s%n", name, 1e9 / nanosPerHop);
+    }
+
+    // ============================
+    // MEDIÇÃO
+    // ============================
+
+    private boolean selected(String name) {
+        return name.contains(filter);
+    }
+
+    private void measure(String name, Operation operation) throws Exception {
+        // Calibra o tamanho do lote para que cada iteração dure ~iterationNanos
+        int count = 1;
+        long elapsed;
+        while (true) {
+            long start = System.nanoTime();
+            sink += operation.run(count);
+            elapsed = System.nanoTime() - start;
+            if (elapsed >= iterationNanos / 10 || count >= (1 << 30)) break;
+            count *= 2;
+        }
+        count = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (double) count * iterationNanos / Math.max(1, elapsed)));
+
+        for (int i = 0; i < warmupIterations; i++)
+            sink += operation.run(count);
+
+        double[] samples = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            long start = System.nanoTime();
+            sink += operation.run(count);
+            samples[i] = (double) (System.nanoTime() - start) / count;
+        }
+        report(name, median(samples));
+    }
+
+    private void report(String name, double nanosPerOp) {
+        results.add(new Measurement(name, nanosPerOp));
+        System.out.printf("%-40s %12.2f ns/op%n", name, nanosPerOp);
+    }
+
+    private static double median(double[] samples) {
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static int[] randomAddresses(Random random, int count) {
+        int[] addresses = new int[count];
+        for (int i = 0; i < count; i++)
+            addresses[i] = random.nextInt();
+        return addresses;
+    }
+
+    // ============================
+    // LINHA DE BASE
+    // ============================
+
+    private void save(String path) throws IOException {
+        Properties baseline = new Properties();
+        for (Measurement m : results)
+            baseline.setProperty(m.name, String.format(Locale.ROOT, "%.3f", m.nanosPerOp));
+        try (OutputStream out = new FileOutputStream(path)) {
+            baseline.store(out, "Linha de base do BenchmarkSuite (ns/op)");
+        }
+        System.out.println("Linha de base gravada em " + path + " (soma de controle " + sink + ")");
+    }
+
+    // Retorna false se alguma medida regrediu além do limite
+    private boolean compare(String path, double threshold) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            baseline.load(in);
+        }
+
+        boolean ok = true;
+        System.out.printf("%nComparação com %s (limite +%.0f%%)%n", path, threshold * 100);
+        for (Measurement m : results) {
+            String value = baseline.getProperty(m.name);
+            if (value == null) {
+                System.out.printf("%-40s %12s%n", m.name, "sem base");
+                continue;
+            }
+            double base = Double.parseDouble(value);
+            double change = m.nanosPerOp / base - 1.0;
+            boolean regressed = change > threshold;
+            ok &= !regressed;
+            System.out.printf("%-40s %+11.1f%% %s%n", m.name, change * 100, regressed ? "REGRESSÃO" : "ok");
+        }
+        if (!ok)
+            System.out.println("❌ Regressão de desempenho acima do limite.");
+        return ok;
+    }
+}
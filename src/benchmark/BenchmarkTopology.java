@@ -0,0 +1,84 @@
+package benchmark;
+
+import models.*;
+
+import java.util.Random;
+
+/**
+ * Topologia núcleo/borda/hosts usada pelos benchmarks.
+ *
+ * Um roteador de núcleo é ligado a cada borda i por um enlace
+ * 172.16.x.y/30; cada borda atende a sub-rede 10.0.i.0/24 (gateway
+ * 10.0.i.1) com hosts a partir de 10.0.i.10.
+ */
+final class BenchmarkTopology {
+
+    static final int MAX_EDGES = 256;
+    static final int MAX_HOSTS_PER_EDGE = 240;
+
+    private BenchmarkTopology() {
+    }
+
+    static void build(NetworkMap map, int edges, int hostsPerEdge, int extraRoutes) throws Exception {
+        if (edges < 1 || edges > MAX_EDGES || hostsPerEdge < 1 || hostsPerEdge > MAX_HOSTS_PER_EDGE)
+            throw new IllegalArgumentException("Use 1.." + MAX_EDGES + " bordas e 1.." + MAX_HOSTS_PER_EDGE + " hosts por borda");
+
+        int id = 1;
+        Router core = new Router(id++, "CORE", 0, 0);
+        map.addDevice(core);
+
+        for (int i = 0; i < edges; i++) {
+            int link = Ipv4Address.parseInt("172.16.0.0") + i * 4;
+            String lan = "10.0." + i + ".0";
+
+            Router edge = new Router(id++, "EDGE" + i, i, 1);
+            map.addDevice(edge);
+            map.connectDevices(core, Ipv4Address.toString(link + 1), "255.255.255.252",
+                               edge, Ipv4Address.toString(link + 2), "255.255.255.252");
+            edge.addInterface(new NetworkInterface("10.0." + i + ".1", "255.255.255.0"));
+
+            core.addRoute(new RouteEntry(lan, "255.255.255.0", Ipv4Address.toString(link + 2), i));
+            edge.addRoute(new RouteEntry(lan, "255.255.255.0", "0.0.0.0", 1));
+            edge.addRoute(new RouteEntry("0.0.0.0", "0.0.0.0", Ipv4Address.toString(link + 1), 0));
+
+            int gateway = Ipv4Address.parseInt("10.0." + i + ".1");
+            for (int h = 0; h < hostsPerEdge; h++) {
+                Host host = new Host(id++, "H" + i + "_" + h, i, h + 2, gateway);
+                host.addInterface(new NetworkInterface(Ipv4Address.toString(hostAddress(i, h)), "255.255.255.0"));
+                map.addDevice(host);
+            }
+        }
+
+        // Rotas que não casam com o tráfego, só para a FIB do núcleo ter um tamanho realista
+        Random random = new Random(7);
+        for (int r = 0; r < extraRoutes; r++) {
+            int prefixLength = 16 + random.nextInt(17);
+            int mask = -1 << (32 - prefixLength);
+            int network = (random.nextInt() | 0x80000000) & mask; // fora de 10.0.0.0/8
+            core.addRoute(new RouteEntry(Ipv4Address.toString(network), Ipv4Address.toString(mask),
+                    "0.0.0.0", random.nextInt(edges)));
+        }
+    }
+
+    // Endereço do host 'h' da borda 'edge'
+    static int hostAddress(int edge, int h) {
+        return (10 << 24) | (edge << 8) | (h + 10);
+    }
+
+    /**
+     * Cada host envia 'packetsPerHost' pacotes no instante atual para hosts
+     * sorteados; o destino às vezes é um endereço inexistente (descarte).
+     */
+    static void injectTraffic(NetworkMap map, int edges, int hostsPerEdge, int packetsPerHost, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < edges; i++) {
+            for (int h = 0; h < hostsPerEdge; h++) {
+                int source = hostAddress(i, h);
+                for (int k = 0; k < packetsPerHost; k++) {
+                    int destination = hostAddress(random.nextInt(edges), random.nextInt(hostsPerEdge + 1));
+                    map.startTransmission(source, destination, 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import generator.GeneratedTopology;
+import generator.TopologyGenerator;
+import generator.TrafficMatrix;
+import models.*;
+
+import java.util.List;
+
+/**
+ * Compara o encaminhamento por um único caminho com o ECMP numa fat-tree:
+ * a mesma matriz de permutação (cada host manda para exatamente um outro)
+ * é simulada com 1 caminho e com k/2 caminhos por destino.
+ *
+ * Todos os enlaces têm a mesma banda; os hosts enfileiram sem limite (só
+ * ditam o ritmo) e os enlaces entre roteadores têm fila limitada. Com um só
+ * caminho os fluxos de uma borda disputam o mesmo uplink; com ECMP eles se
+ * espalham pelos roteadores de agregação e de núcleo. Para cada rodada
+ * mostra entregas, descartes, latência, vazão em pacotes por tick simulado
+ * e a carga do enlace entre roteadores mais usado sobre a média deles.
+ *
+ * Uso: java -cp bin benchmark.EcmpBenchmark [k] [pacotes_por_fluxo] [banda] [capacidade] [semente]
+ */
+public class EcmpBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int k = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+        int packetsPerFlow = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+        int bandwidth = (args.length > 2) ? Integer.parseInt(args[2]) : 1;
+        int capacity = (args.length > 3) ? Integer.parseInt(args[3]) : 64;
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : 1;
+
+        NetworkMap map = NetworkMap.getInstance();
+        map.getLog().setLevel(SimulationLog.Level.OFF);
+
+        System.out.printf("Fat-tree k=%d, permutação com %d pacotes por fluxo, enlaces de %d pacote(s)/tick e fila de %d%n",
+                k, packetsPerFlow, bandwidth, capacity);
+        System.out.println("Caminhos  entregues  descartados  latência média  latência máx  pacotes/tick  carga máx/média");
+        for (int paths : new int[] { 1, k / 2 }) {
+            map.clear();
+            GeneratedTopology topology = TopologyGenerator.fatTree(map, k, paths);
+            int links = limitLinks(topology, map, bandwidth, capacity);
+            TrafficMatrix traffic = TrafficMatrix.permutation(topology, packetsPerFlow, 1, seed);
+            traffic.schedule(map);
+            map.runToCompletion();
+
+            SimulationStats stats = map.getStats();
+            long elapsed = Math.max(1, map.getScheduler().now());
+            System.out.printf("%8d %10d %12d %15.1f %13d %13.2f %16.2f%n", paths,
+                    stats.getPacketsDelivered(), stats.getPacketsDropped(), stats.getAverageDeliveredLatency(),
+                    stats.getMaxDeliveredLatency(), (double) stats.getPacketsDelivered() / elapsed,
+                    linkImbalance(topology.getRouters()));
+            if (paths == 1)
+                System.out.println("         (" + links + " enlaces entre roteadores limitados)");
+        }
+    }
+
+    // Hosts: banda sem limite de fila; roteadores: os dois sentidos de cada enlace, uma única vez
+    private static int limitLinks(GeneratedTopology topology, NetworkMap map, int bandwidth, int capacity) {
+        for (Host host : topology.getHosts())
+            host.getInterface(0).getOutputQueue().configure(bandwidth, OutputQueue.DEFAULT_LATENCY,
+                    OutputQueue.UNLIMITED, OutputQueue.Discipline.TAIL_DROP);
+        int links = 0;
+        for (Router router : topology.getRouters()) {
+            for (int i = 0; i < router.getInterfaceCount(); i++) {
+                Device neighbor = router.getInterface(i).getNeighbor();
+                if (!(neighbor instanceof Router) || neighbor.getId() < router.getId()) continue;
+                map.configureLink(router, neighbor, bandwidth, OutputQueue.DEFAULT_LATENCY, capacity,
+                        OutputQueue.Discipline.TAIL_DROP);
+                links++;
+            }
+        }
+        return links;
+    }
+
+    // Pacotes transmitidos pelo sentido mais carregado entre roteadores, sobre a média desses sentidos
+    private static double linkImbalance(List<Router> routers) {
+        long total = 0, max = 0;
+        int count = 0;
+        for (Router router : routers) {
+            for (int i = 0; i < router.getInterfaceCount(); i++) {
+                NetworkInterface intf = router.getInterface(i);
+                if (!(intf.getNeighbor() instanceof Router)) continue;
+                long transmitted = intf.getOutputQueue().getTransmitted();
+                total += transmitted;
+                max = Math.max(max, transmitted);
+                count++;
+            }
+        }
+        return (total == 0) ? 0 : max / ((double) total / count);
+    }
+}
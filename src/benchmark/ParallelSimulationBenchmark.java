@@ -0,0 +1,116 @@
+package benchmark;
+
+import models.*;
+
+/**
+ * Mede o ganho do ParallelSimulation em relação ao motor sequencial do
+ * NetworkMap, em uma topologia núcleo/borda/hosts (BenchmarkTopology), e
+ * confere que todas as execuções produzem exatamente as mesmas estatísticas.
+ *
+ * Uso: java -cp bin benchmark.ParallelSimulationBenchmark [bordas] [hosts_por_borda] [pacotes_por_host] [rotas_extras]
+ */
+public class ParallelSimulationBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int edges = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        int hostsPerEdge = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+        int packetsPerHost = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        int extraRoutes = (args.length > 3) ? Integer.parseInt(args[3]) : 100_000;
+
+        NetworkMap map = NetworkMap.getInstance();
+        map.getLog().setLevel(SimulationLog.Level.OFF);
+
+        System.out.printf("Topologia: %d bordas x %d hosts, %d pacotes por host, %d rotas extras no núcleo%n",
+                edges, hostsPerEdge, packetsPerHost, extraRoutes);
+
+        // Uma rodada de cada motor só para aquecer o JIT, senão o primeiro medido (o sequencial) sai prejudicado
+        for (int threads = 0; threads <= 2; threads += 2)
+            run(map, edges, hostsPerEdge, packetsPerHost, extraRoutes, threads);
+
+        // Ao menos 4 threads, para exercitar o caminho paralelo mesmo em máquinas pequenas
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        long baselineNanos = 0;
+        Result baseline = null;
+
+        for (int threads = 0; threads <= maxThreads; threads = (threads == 0) ? 1 : threads * 2) {
+            long best = Long.MAX_VALUE;
+            Result result = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                best = Math.min(best, run(map, edges, hostsPerEdge, packetsPerHost, extraRoutes, threads));
+                result = new Result(map);
+            }
+
+            String label = (threads == 0) ? "sequencial" : threads + " thread(s)";
+            if (baseline == null) {
+                baseline = result;
+                baselineNanos = best;
+            } else if (!baseline.equals(result)) {
+                throw new IllegalStateException("Resultado divergente com " + label + ": " + result + " != " + baseline);
+            }
+            System.out.printf("%-12s %8.1f ms  %6.2fx  (%s)%n",
+                    label, best / 1e6, (double) baselineNanos / best, result);
+        }
+    }
+
+    // Monta o cenário e devolve o tempo da simulação (0 threads = motor sequencial do NetworkMap)
+    private static long run(NetworkMap map, int edges, int hostsPerEdge, int packetsPerHost, int extraRoutes, int threads)
+            throws Exception {
+        map.clear();
+        BenchmarkTopology.build(map, edges, hostsPerEdge, extraRoutes);
+        BenchmarkTopology.injectTraffic(map, edges, hostsPerEdge, packetsPerHost, 42);
+
+        long start = System.nanoTime();
+        if (threads == 0) {
+            map.runToCompletion();
+        } else {
+            ParallelSimulation simulation = new ParallelSimulation(map, threads);
+            simulation.runToCompletion();
+            simulation.shutdown();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // ============================
+    // RESULTADO
+    // ============================
+
+    private static final class Result {
+        final long delivered;
+        final long dropped;
+        final long hops;
+        final long events;
+        final long finalTime;
+        final long checksum;
+
+        Result(NetworkMap map) {
+            SimulationStats stats = map.getStats();
+            delivered = stats.getPacketsDelivered();
+            dropped = stats.getPacketsDropped();
+            hops = stats.getTotalHops();
+            checksum = stats.getOutcomeChecksum();
+            events = map.getScheduler().getEventsFired();
+            finalTime = map.getScheduler().now();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Result)) return false;
+            Result r = (Result) o;
+            return delivered == r.delivered && dropped == r.dropped && hops == r.hops
+                    && events == r.events && finalTime == r.finalTime && checksum == r.checksum;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(checksum);
+        }
+
+        @Override
+        public String toString() {
+            return "entregues=" + delivered + " descartados=" + dropped + " saltos=" + hops
+                    + " eventos=" + events + " checksum=" + Long.toHexString(checksum);
+        }
+    }
+}
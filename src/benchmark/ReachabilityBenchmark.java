@@ -0,0 +1,115 @@
+package benchmark;
+
+import generator.GeneratedTopology;
+import generator.TopologyGenerator;
+import models.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mede NetworkMap.analyzeReachability (todos os hosts x todos os hosts) num
+ * campus gerado, depois de estragar algumas tabelas: metade das falhas
+ * remove uma rota remota de um roteador (buraco negro) e a outra metade faz
+ * um roteador devolver a rota para o vizinho de onde ela vem (laço).
+ *
+ * Uma amostra de pares é conferida com NetworkMap.tracePath, que caminha
+ * salto a salto sem memoização.
+ *
+ * Com caminhos > 1 o campus é gerado com ECMP, e os caminhos passam a
+ * depender também da origem de cada par.
+ *
+ * Uso: java -Xmx3g -cp bin benchmark.ReachabilityBenchmark [nucleos] [blocos] [acessos_por_bloco] [hosts_por_acesso]
+ *                                                         [falhas] [semente] [caminhos]
+ *
+ * O padrão (4 núcleos, 20 blocos, 10 acessos, 50 hosts) dá 10k hosts, ou
+ * seja, 100M pares.
+ */
+public class ReachabilityBenchmark {
+
+    private static final int VERIFIED_PAIRS = 2000;
+    private static final int SHOWN_PROBLEMS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int cores = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        int blocks = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        int accessPerBlock = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        int hostsPerAccess = (args.length > 3) ? Integer.parseInt(args[3]) : 50;
+        int faults = (args.length > 4) ? Integer.parseInt(args[4]) : 20;
+        long seed = (args.length > 5) ? Long.parseLong(args[5]) : 1;
+        int paths = (args.length > 6) ? Integer.parseInt(args[6]) : 1;
+
+        NetworkMap map = NetworkMap.getInstance();
+        map.getLog().setLevel(SimulationLog.Level.OFF);
+        GeneratedTopology topology = TopologyGenerator.campus(map, cores, blocks, accessPerBlock, hostsPerAccess, paths);
+        System.out.println("Topologia: " + topology);
+
+        Random random = new Random(seed);
+        int injected = 0;
+        for (int i = 0; i < faults; i++) {
+            if (injectFault(topology.getRouters(), random, (i % 2) == 0))
+                injected++;
+        }
+        System.out.println("Falhas injetadas: " + injected);
+
+        // A primeira rodada aquece o JIT; a segunda é a medida
+        map.analyzeReachability();
+        ReachabilityMatrix matrix = map.analyzeReachability();
+        System.out.println(matrix);
+        System.out.printf("%.1f M pares/s com %d núcleos%n",
+                matrix.getPairCount() / (matrix.getElapsedNanos() / 1e9) / 1e6,
+                Runtime.getRuntime().availableProcessors());
+
+        int differences = 0;
+        for (int k = 0; k < VERIFIED_PAIRS; k++) {
+            int s = random.nextInt(matrix.getSourceCount());
+            int d = random.nextInt(matrix.getDestinationCount());
+            PathTrace trace = map.tracePath(matrix.getSource(s), matrix.getDestination(d));
+            int expectedHops = (trace.getStatus() == PathTrace.Status.LOOP) ? -1 : Math.min(trace.getHops(), 255);
+            if (trace.getStatus() != matrix.getStatus(s, d) || trace.getDropReason() != matrix.getDropReason(s, d)
+                    || expectedHops != matrix.getHops(s, d)) {
+                if (differences++ == 0)
+                    System.out.println("Divergência: " + trace + " / matriz " + matrix.getStatus(s, d) + " "
+                            + matrix.getDropReason(s, d) + " " + matrix.getHops(s, d));
+            }
+        }
+        System.out.println((differences == 0)
+                ? "Amostra de " + VERIFIED_PAIRS + " pares igual ao tracePath"
+                : "DIVERGENTE: " + differences + " de " + VERIFIED_PAIRS + " pares");
+
+        for (PathTrace trace : matrix.traceProblems(SHOWN_PROBLEMS))
+            System.out.println("  " + trace);
+        if (differences > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Escolhe um roteador e uma de suas rotas remotas. Buraco negro: remove a
+     * rota. Laço: o vizinho da rota passa a mandar o prefixo de volta.
+     */
+    private static boolean injectFault(List<Router> routers, Random random, boolean blackHole) throws Exception {
+        Router router = routers.get(random.nextInt(routers.size()));
+        List<RouteEntry> table = router.getRoutingTable();
+        if (table.isEmpty()) return false;
+        RouteEntry route = table.get(random.nextInt(table.size()));
+        if (route.isDirectlyConnected()) return false;
+        if (blackHole)
+            return router.removeRoute(route);
+
+        NetworkInterface toNeighbor = router.getInterface(route.outputInterfaceIndex);
+        if (toNeighbor == null || !(toNeighbor.getNeighbor() instanceof Router)) return false;
+        Router neighbor = (Router) toNeighbor.getNeighbor();
+        RouteEntry old = neighbor.getRoute(route.network, route.prefixLength);
+        int back = indexOfNeighbor(neighbor, router);
+        if (old == null || back < 0) return false;
+        return neighbor.replaceRoute(old, new RouteEntry(route.network, route.mask, toNeighbor.getAddress(), back));
+    }
+
+    private static int indexOfNeighbor(Device device, Device neighbor) {
+        for (int i = 0; i < device.getInterfaceCount(); i++) {
+            if (device.getInterface(i).getNeighbor() == neighbor)
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,108 @@
+package benchmark;
+
+import models.Ipv4Address;
+import models.RouteEntry;
+import models.Router;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara a busca linear original (sameSubnet + calculatePrefixLength sobre
+ * Strings) com a FIB em trie do Router, para 1k, 100k e 1M rotas.
+ *
+ * Uso: java -cp bin benchmark.RouteLookupBenchmark [seed]
+ */
+public class RouteLookupBenchmark {
+
+    private static final int[] TABLE_SIZES = { 1_000, 100_000, 1_000_000 };
+    private static final int FIB_LOOKUPS = 1_000_000;
+    // A busca linear é ordens de grandeza mais lenta; limita o tempo gasto nela
+    private static final long LINEAR_BUDGET_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        long seed = (args.length > 0) ? Long.parseLong(args[0]) : 42L;
+
+        for (int size : TABLE_SIZES) {
+            Random random = new Random(seed);
+            Router router = new Router(1, "BENCH", 0, 0);
+            List<RouteEntry> routes = new ArrayList<>(size);
+
+            long buildStart = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                int prefixLength = randomPrefixLength(random);
+                int mask = (prefixLength == 0) ? 0 : (-1 << (32 - prefixLength));
+                RouteEntry entry = new RouteEntry(Ipv4Address.toString(random.nextInt() & mask), Ipv4Address.toString(mask), "0.0.0.0", 0);
+                routes.add(entry);
+                router.addRoute(entry);
+            }
+            long buildNanos = System.nanoTime() - buildStart;
+
+            String[] destinations = new String[1024];
+            for (int i = 0; i < destinations.length; i++)
+                destinations[i] = Ipv4Address.toString(random.nextInt());
+
+            // Aquecimento da FIB
+            int sink = 0;
+            for (int i = 0; i < FIB_LOOKUPS; i++)
+                sink += (router.lookupRoute(destinations[i & 1023]) != null) ? 1 : 0;
+
+            long fibStart = System.nanoTime();
+            for (int i = 0; i < FIB_LOOKUPS; i++)
+                sink += (router.lookupRoute(destinations[i & 1023]) != null) ? 1 : 0;
+            double fibNanos = (double) (System.nanoTime() - fibStart) / FIB_LOOKUPS;
+
+            long linearStart = System.nanoTime();
+            int linearLookups = 0;
+            while (System.nanoTime() - linearStart < LINEAR_BUDGET_NANOS && linearLookups < FIB_LOOKUPS) {
+                RouteEntry expected = linearLookup(routes, destinations[linearLookups & 1023]);
+                if (expected != router.lookupRoute(destinations[linearLookups & 1023]))
+                    throw new IllegalStateException("FIB divergiu da busca linear para " + destinations[linearLookups & 1023]);
+                linearLookups++;
+            }
+            double linearNanos = (double) (System.nanoTime() - linearStart) / linearLookups;
+
+            System.out.printf("%,9d rotas | montagem %,8d ms | FIB %,10.1f ns/busca | linear %,14.1f ns/busca (%d amostras) | %s%n",
+                    size, buildNanos / 1_000_000, fibNanos, linearNanos, linearLookups, (sink == 0) ? "-" : "ok");
+        }
+    }
+
+    // Implementação original de Router.lookupRoute (Strings + InetAddress), mantida como referência
+    private static RouteEntry linearLookup(List<RouteEntry> routingTable, String destinationIp) throws UnknownHostException {
+        RouteEntry bestMatch = null;
+        int longestPrefix = -1;
+        for (RouteEntry entry : routingTable) {
+            byte[] ipBytes1 = InetAddress.getByName(entry.getNetworkAddress()).getAddress();
+            byte[] ipBytes2 = InetAddress.getByName(destinationIp).getAddress();
+            byte[] maskBytes = InetAddress.getByName(entry.getSubnetMask()).getAddress();
+
+            boolean sameSubnet = true;
+            for (int i = 0; i < 4; i++) {
+                if ((ipBytes1[i] & maskBytes[i]) != (ipBytes2[i] & maskBytes[i]))
+                    sameSubnet = false;
+            }
+            if (sameSubnet) {
+                int prefixLength = 0;
+                for (byte b : maskBytes)
+                    prefixLength += Integer.bitCount(b & 0xFF);
+                if (prefixLength > longestPrefix) {
+                    longestPrefix = prefixLength;
+                    bestMatch = entry;
+                }
+            }
+        }
+        return bestMatch;
+    }
+
+    // Distribuição próxima de uma tabela real: maioria /24, alguns /16 a /32
+    private static int randomPrefixLength(Random random) {
+        int r = random.nextInt(100);
+        if (r < 60) return 24;
+        if (r < 75) return 16 + random.nextInt(8);
+        if (r < 95) return 25 + random.nextInt(8);
+        return 8 + random.nextInt(8);
+    }
+}
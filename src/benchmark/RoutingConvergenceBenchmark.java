@@ -0,0 +1,249 @@
+package benchmark;
+
+import generator.GeneratedTopology;
+import generator.TopologyGenerator;
+import models.*;
+import routing.ConvergenceReport;
+import routing.DistanceVectorRouting;
+import routing.LinkStateRouting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Mede a convergência dos protocolos de roteamento dinâmico em uma
+ * topologia Waxman grande: a convergência inicial e, em seguida, uma
+ * sequência de falhas e recuperações de enlaces e de mudanças de banda.
+ *
+ *   - link-state (LinkStateRouting): cada mudança é aplicada com update()
+ *     (SPF incremental); no final as tabelas são comparadas com as de um
+ *     recomputeAll();
+ *   - distance-vector (DistanceVectorRouting): cada mudança é seguida de
+ *     update() e da execução do EventScheduler até as mensagens acabarem;
+ *     no final as métricas de uma amostra de roteadores são comparadas com
+ *     uma busca em largura. A banda não entra na métrica (saltos).
+ *
+ * Os dois protocolos veem a mesma sequência de mudanças. Para cada tipo de
+ * mudança mostra o custo médio e o pior custo de CPU, as mensagens, os
+ * roteadores com rotas alteradas e o tempo simulado de convergência.
+ *
+ * Um enlace que falha deixa as duas interfaces sem vizinho, e elas passam a
+ * ser anunciadas como redes stub (como uma LAN sem hosts), por isso falhas
+ * e recuperações alteram rotas em todos os roteadores.
+ *
+ * Uso: java -Xmx3g -cp bin benchmark.RoutingConvergenceBenchmark [roteadores] [grau] [lan_a_cada] [mudancas] [semente]
+ *                                                               [link-state|distance-vector|ambos] [infinito_dv]
+ */
+public class RoutingConvergenceBenchmark {
+
+    private static final double BETA = 0.4;
+    private static final int VERIFIED_SOURCES = 50;
+
+    // Um protocolo levado até convergir depois de uma mudança
+    private interface Protocol {
+        ConvergenceReport converge();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int routerCount = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        double degree = (args.length > 1) ? Double.parseDouble(args[1]) : 4;
+        int lanEvery = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+        int changes = (args.length > 3) ? Integer.parseInt(args[3]) : 100;
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : 1;
+        String protocols = (args.length > 5) ? args[5] : "link-state";
+        int dvInfinity = (args.length > 6) ? Integer.parseInt(args[6]) : 255;
+
+        NetworkMap map = NetworkMap.getInstance();
+        map.getLog().setLevel(SimulationLog.Level.OFF);
+        map.clear();
+
+        // Probabilidade média de enlace ~ 4*pi*alfa^2*beta: escolhe alfa para o grau médio pedido
+        double alpha = Math.sqrt(degree / (4 * Math.PI * BETA * routerCount));
+        long start = System.nanoTime();
+        GeneratedTopology topology = TopologyGenerator.waxman(map, routerCount, 0, alpha, BETA, seed);
+        List<Router> routers = topology.getRouters();
+        int lans = addLans(routers, lanEvery);
+        clearRoutes(routers);
+        System.out.printf("Topologia: %s, %d enlaces, %d LANs (%.0f ms)%n", topology.getDescription(),
+                topology.getLinkCount(), lans, (System.nanoTime() - start) / 1e6);
+
+        boolean ok = true;
+        if (protocols.equals("link-state") || protocols.equals("ambos")) {
+            LinkStateRouting routing = new LinkStateRouting(map);
+            System.out.println();
+            System.out.println("Inicial: " + routing.update());
+            System.out.printf("Memória do motor: %.1f MB%n", routing.estimateMemory() / 1e6);
+            runChanges(map, routers, changes, seed, routing::update);
+
+            ConvergenceReport check = routing.recomputeAll();
+            long differences = check.getRoutesAdded() + check.getRoutesRemoved() + check.getRoutesChanged();
+            System.out.printf("Recálculo completo: %.0f ms; %s%n", check.getCpuNanos() / 1e6,
+                    (differences == 0) ? "tabelas iguais às incrementais"
+                            : "DIVERGENTE: " + differences + " rotas diferentes");
+            ok = differences == 0;
+            routing.reset();
+        }
+        if (protocols.equals("distance-vector") || protocols.equals("ambos")) {
+            DistanceVectorRouting routing = new DistanceVectorRouting(map, dvInfinity);
+            // Sem mudança que o afete (banda não entra na métrica em saltos) o update() não abre rodada
+            Protocol protocol = () -> {
+                ConvergenceReport previous = routing.getReport();
+                ConvergenceReport report = routing.update();
+                map.runToCompletion();
+                return (report == previous) ? null : report;
+            };
+            System.out.println();
+            System.out.println("Inicial: " + protocol.converge());
+            runChanges(map, routers, changes, seed, protocol);
+
+            long differences = verifyHopCounts(routers, routing, new Random(seed));
+            System.out.println((differences == 0)
+                    ? "Métricas iguais às distâncias em saltos (" + VERIFIED_SOURCES + " origens)"
+                    : "DIVERGENTE: " + differences + " métricas diferentes");
+            ok &= differences == 0;
+            routing.reset();
+        }
+        if (!ok)
+            System.exit(1);
+    }
+
+    private static void runChanges(NetworkMap map, List<Router> routers, int changes, long seed, Protocol protocol) {
+        Random random = new Random(seed);
+        Stats failures = new Stats("falha de enlace");
+        Stats recoveries = new Stats("recuperação");
+        Stats bandwidth = new Stats("mudança de banda");
+        for (int i = 0; i < changes; i++) {
+            Router a = routers.get(random.nextInt(routers.size()));
+            NetworkInterface fromA = randomRouterLink(a, random);
+            if (fromA == null) continue;
+            Router b = (Router) fromA.getNeighbor();
+            NetworkInterface fromB = b.findInterfaceByNeighbor(a);
+
+            fromA.setNeighbor(null);
+            fromB.setNeighbor(null);
+            failures.add(protocol.converge());
+            fromA.setNeighbor(b);
+            fromB.setNeighbor(a);
+            recoveries.add(protocol.converge());
+
+            map.configureLink(a, b, 1 + random.nextInt(100), OutputQueue.DEFAULT_LATENCY, OutputQueue.UNLIMITED,
+                    OutputQueue.Discipline.TAIL_DROP);
+            bandwidth.add(protocol.converge());
+        }
+        System.out.println("Mudança                   n    CPU média   CPU pior   mensagens  roteadores  convergência");
+        failures.print();
+        recoveries.print();
+        bandwidth.print();
+    }
+
+    // Interface stub /24 a cada 'every' roteadores (a topologia é gerada sem hosts)
+    private static int addLans(List<Router> routers, int every) throws Exception {
+        int mask = Ipv4Address.maskOf(24);
+        int count = 0;
+        for (int r = 0; r < routers.size(); r += every) {
+            int network = (10 << 24) | (count << 8);
+            routers.get(r).addInterface(new NetworkInterface(network | 1, mask));
+            count++;
+        }
+        return count;
+    }
+
+    private static void clearRoutes(List<Router> routers) {
+        for (Router router : routers) {
+            for (RouteEntry route : new ArrayList<>(router.getRoutingTable()))
+                router.removeRoute(route);
+        }
+    }
+
+    private static NetworkInterface randomRouterLink(Router router, Random random) {
+        int count = router.getInterfaceCount();
+        int first = random.nextInt(Math.max(1, count));
+        for (int k = 0; k < count; k++) {
+            NetworkInterface intf = router.getInterface((first + k) % count);
+            if (intf.getNeighbor() instanceof Router)
+                return intf;
+        }
+        return null;
+    }
+
+    /**
+     * Busca em largura a partir de algumas origens sorteadas; a métrica do
+     * distance-vector para cada LAN deve ser a distância em saltos até o
+     * roteador da LAN (ou inalcançável além da métrica infinita).
+     */
+    private static long verifyHopCounts(List<Router> routers, DistanceVectorRouting routing, Random random) {
+        Map<Router, Integer> hops = new IdentityHashMap<>();
+        long differences = 0;
+        for (int s = 0; s < VERIFIED_SOURCES; s++) {
+            Router source = routers.get(random.nextInt(routers.size()));
+            hops.clear();
+            hops.put(source, 0);
+            ArrayDeque<Router> queue = new ArrayDeque<>();
+            queue.add(source);
+            while (!queue.isEmpty()) {
+                Router current = queue.poll();
+                for (int j = 0; j < current.getInterfaceCount(); j++) {
+                    Device neighbor = current.getInterface(j).getNeighbor();
+                    if (neighbor instanceof Router && !hops.containsKey(neighbor)
+                            && neighbor.findInterfaceByNeighbor(current) != null) {
+                        hops.put((Router) neighbor, hops.get(current) + 1);
+                        queue.add((Router) neighbor);
+                    }
+                }
+            }
+            for (Router owner : routers) {
+                NetworkInterface lan = owner.getInterface(owner.getInterfaceCount() - 1);
+                if (lan.getNeighbor() != null) continue;
+                Integer distance = hops.get(owner);
+                int expected = (distance == null || distance >= routing.getInfinity()) ? -1 : distance;
+                if (routing.metric(source, lan.getAddress(), lan.getMask()) != expected)
+                    differences++;
+            }
+        }
+        return differences;
+    }
+
+    private static final class Stats {
+        private final String name;
+        private long[] cpu = new long[16];
+        private int count = 0;
+        private long messages = 0;
+        private long routersUpdated = 0;
+        private long convergenceTicks = 0;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        // null: a mudança não abriu rodada no protocolo
+        void add(ConvergenceReport report) {
+            if (report == null) return;
+            if (count == cpu.length)
+                cpu = Arrays.copyOf(cpu, count * 2);
+            cpu[count++] = report.getCpuNanos();
+            messages += report.getMessages();
+            routersUpdated += report.getRoutersUpdated();
+            convergenceTicks += report.getConvergenceTicks();
+        }
+
+        void print() {
+            if (count == 0) {
+                System.out.printf("%-20s %6d  (nenhuma rodada)%n", name, 0);
+                return;
+            }
+            long total = 0, worst = 0;
+            for (int i = 0; i < count; i++) {
+                total += cpu[i];
+                worst = Math.max(worst, cpu[i]);
+            }
+            System.out.printf("%-20s %6d %9.2f ms %8.2f ms %11.0f %11.0f %11.0f t%n", name, count,
+                    total / 1e6 / count, worst / 1e6, (double) messages / count,
+                    (double) routersUpdated / count, (double) convergenceTicks / count);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package benchmark;
+
+import models.*;
+import routing.ConvergenceReport;
+import routing.DistanceVectorRouting;
+import routing.LinkStateRouting;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Verificação rápida e determinística das estruturas de roteamento, para
+ * rodar a cada mudança (o RoutingConvergenceBenchmark cobre o caso grande):
+ *
+ *   - ForwardingTable: insert/get/lookup/remove/replace com prefixos
+ *     aninhados;
+ *   - Router: rotas repetidas (sombreadas) removidas e trocadas, promoção da
+ *     primeira na ordem de inserção, e a manutenção dos grupos ECMP;
+ *   - LinkStateRouting: custo de enlace aumentado e depois reduzido, falha e
+ *     recuperação de enlace e remoção de um roteador; depois de cada update()
+ *     o caminho é conferido com tracePath e as tabelas com um recomputeAll();
+ *   - DistanceVectorRouting: as mesmas mudanças de topologia, conferindo as
+ *     métricas em saltos.
+ *
+ * A topologia tem 5 roteadores, cada um com uma LAN 10.0.i.0/24:
+ *
+ *     R0 --- R1 --- R4
+ *      \     |      |
+ *       `--- R2 --- R3
+ *
+ * Uso: java -cp bin benchmark.RoutingSelfCheck
+ */
+public class RoutingSelfCheck {
+
+    private static final int LAN_MASK = Ipv4Address.maskOf(24);
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        NetworkMap map = NetworkMap.getInstance();
+        map.getLog().setLevel(SimulationLog.Level.OFF);
+
+        checkForwardingTable();
+        checkShadowedRoutes();
+        checkMultipathGroups();
+        checkLinkState(map);
+        checkDistanceVector(map);
+
+        System.out.println((failures == 0) ? "Tudo certo" : "FALHAS: " + failures);
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    private static void check(boolean condition, String description) {
+        System.out.println((condition ? "ok     " : "FALHA  ") + description);
+        if (!condition) failures++;
+    }
+
+    // ============================
+    // FIB E TABELA DO ROUTER
+    // ============================
+
+    private static void checkForwardingTable() throws Exception {
+        ForwardingTable fib = new ForwardingTable();
+        RouteEntry wide = route(address(10, 0, 0, 0), 8, 0);
+        RouteEntry middle = route(address(10, 1, 0, 0), 16, 0);
+        RouteEntry narrow = route(address(10, 1, 2, 0), 24, 0);
+        fib.insert(wide.network, 8, wide);
+        fib.insert(middle.network, 16, middle);
+        fib.insert(narrow.network, 24, narrow);
+        int address = address(10, 1, 2, 7);
+
+        check(fib.lookup(address) == narrow, "FIB: lookup escolhe o prefixo mais longo");
+        check(fib.get(middle.network, 16) == middle && fib.get(middle.network, 12) == null, "FIB: get só casa o prefixo exato");
+        check(!fib.remove(middle.network, 16, narrow), "FIB: remove de outra rota no mesmo prefixo é recusado");
+        check(fib.remove(narrow.network, 24, narrow) && fib.lookup(address) == middle, "FIB: remove /24 volta para o /16");
+        RouteEntry replacement = route(address(10, 1, 0, 0), 16, 1);
+        check(fib.replace(middle.network, 16, middle, replacement) && fib.lookup(address) == replacement,
+                "FIB: replace troca a rota no lugar");
+        check(fib.remove(replacement.network, 16, replacement) && fib.lookup(address) == wide && fib.size() == 1,
+                "FIB: sem o /16 sobra o /8");
+    }
+
+    private static void checkShadowedRoutes() throws Exception {
+        Router router = standaloneRouter();
+        RouteEntry other = route(address(30, 0, 0, 0), 8, 0);
+        RouteEntry a = route(address(20, 0, 0, 0), 16, 0);
+        RouteEntry b = route(address(20, 0, 0, 0), 16, 1);
+        RouteEntry c = route(address(20, 0, 0, 0), 16, 2);
+        router.addRoute(other);
+        router.addRoute(a);
+        router.addRoute(b);
+        router.addRoute(c);
+
+        RouteEntry b2 = route(address(20, 0, 0, 0), 16, 3);
+        check(router.replaceRoute(b, b2) && router.getRoute(a.network, 16) == a, "Router: trocar rota sombreada não mexe na FIB");
+        check(router.removeRoute(other) && router.getRoutingTable().equals(Arrays.asList(a, b2, c)),
+                "Router: remover mantém a ordem de inserção");
+        check(router.removeRoute(a) && router.getRoute(a.network, 16) == b2, "Router: a primeira rota sombreada é promovida");
+        check(router.removeRoute(c) && router.getRoute(a.network, 16) == b2, "Router: remover rota sombreada não mexe na FIB");
+        check(router.removeRoute(b2) && router.getRoute(a.network, 16) == null && !router.removeRoute(b2),
+                "Router: sem rotas o prefixo sai da FIB");
+    }
+
+    private static void checkMultipathGroups() throws Exception {
+        Router router = standaloneRouter();
+        RouteEntry a = route(address(20, 0, 0, 0), 16, 0);
+        RouteEntry b = route(address(20, 0, 0, 0), 16, 1);
+        RouteEntry c = route(address(20, 0, 0, 0), 16, 2);
+        router.addRoute(a);
+        router.addRoute(b);
+        router.addRoute(c);
+
+        router.setMaxPaths(2);
+        check(paths(router).equals(Arrays.asList(a, b)), "ECMP: grupo com as duas primeiras rotas");
+        check(router.removeRoute(a) && paths(router).equals(Arrays.asList(b, c)), "ECMP: remover a principal refaz o grupo");
+        RouteEntry c2 = route(address(20, 0, 0, 0), 16, 3);
+        check(router.replaceRoute(c, c2) && paths(router).equals(Arrays.asList(b, c2)), "ECMP: trocar um membro");
+        RouteEntry b2 = route(address(20, 0, 0, 0), 16, 0);
+        check(router.replaceRoute(b, b2) && paths(router).equals(Arrays.asList(b2, c2)) && router.getRoute(b.network, 16) == b2,
+                "ECMP: trocar a principal mantém o grupo");
+        router.addRoute(route(address(20, 0, 0, 0), 16, 1));
+        check(paths(router).size() == 2, "ECMP: rota além do limite fica fora do grupo");
+        router.setMaxPaths(1);
+        check(router.getMultipathGroupCount() == 0 && paths(router).equals(Arrays.asList(b2)), "ECMP: um caminho desfaz os grupos");
+    }
+
+    private static List<RouteEntry> paths(Router router) {
+        return router.getEqualCostPaths(address(20, 0, 0, 0), 16);
+    }
+
+    // Router fora do mapa com 4 interfaces 10.0.i.1/24 (as rotas só precisam do índice)
+    private static Router standaloneRouter() throws Exception {
+        Router router = new Router(1, "R", 0, 0);
+        for (int i = 0; i < 4; i++)
+            router.addInterface(new NetworkInterface(address(10, 0, i, 1), LAN_MASK));
+        return router;
+    }
+
+    // Próximo salto 10.0.i.2, na sub-rede da interface i
+    private static RouteEntry route(int network, int prefixLength, int interfaceIndex) throws Exception {
+        return new RouteEntry(network, Ipv4Address.maskOf(prefixLength), address(10, 0, interfaceIndex, 2), interfaceIndex);
+    }
+
+    private static int address(int a, int b, int c, int d) {
+        return a << 24 | b << 16 | c << 8 | d;
+    }
+
+    // ============================
+    // PROTOCOLOS
+    // ============================
+
+    private static Router[] buildTopology(NetworkMap map) throws Exception {
+        map.clear();
+        Router[] r = new Router[5];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = new Router(map.allocateDeviceId(), "R" + i, 100 * i, 0);
+            map.addDevice(r[i]);
+            r[i].addInterface(new NetworkInterface(address(10, 0, i, 1), LAN_MASK));
+        }
+        int[][] links = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 2, 3 }, { 3, 4 }, { 1, 4 } };
+        for (int k = 0; k < links.length; k++) {
+            int a = links[k][0], b = links[k][1];
+            map.connectDevices(r[a], "10.1." + k + ".1", "255.255.255.252", r[b], "10.1." + k + ".2", "255.255.255.252");
+        }
+        return r;
+    }
+
+    // Saltos de 'from' até o endereço da LAN de 'to' (-1 se o caminho não entrega)
+    private static int hops(NetworkMap map, Router from, Router to) {
+        PathTrace trace = map.tracePath(from, to.getInterface(0).getAddress());
+        return (trace.getStatus() == PathTrace.Status.DELIVERED) ? trace.getHops() : -1;
+    }
+
+    private static void checkLinkState(NetworkMap map) throws Exception {
+        Router[] r = buildTopology(map);
+        LinkStateRouting routing = new LinkStateRouting(map);
+        routing.update();
+        checkLinkState(map, routing, hops(map, r[0], r[2]) == 1 && hops(map, r[0], r[4]) == 2, "inicial");
+
+        map.configureLink(r[0], r[2], 1, OutputQueue.DEFAULT_LATENCY, OutputQueue.UNLIMITED, OutputQueue.Discipline.TAIL_DROP);
+        routing.update();
+        checkLinkState(map, routing, hops(map, r[0], r[2]) == 2, "custo de R0-R2 aumentado: desvia por R1");
+
+        map.configureLink(r[0], r[2], OutputQueue.UNLIMITED, OutputQueue.DEFAULT_LATENCY, OutputQueue.UNLIMITED,
+                OutputQueue.Discipline.TAIL_DROP);
+        routing.update();
+        checkLinkState(map, routing, hops(map, r[0], r[2]) == 1, "custo de R0-R2 reduzido: volta ao enlace direto");
+
+        NetworkInterface fromR1 = r[1].findInterfaceByNeighbor(r[4]);
+        NetworkInterface fromR4 = r[4].findInterfaceByNeighbor(r[1]);
+        fromR1.setNeighbor(null);
+        fromR4.setNeighbor(null);
+        routing.update();
+        checkLinkState(map, routing, hops(map, r[0], r[4]) == 3, "falha de R1-R4");
+        fromR1.setNeighbor(r[4]);
+        fromR4.setNeighbor(r[1]);
+        routing.update();
+        checkLinkState(map, routing, hops(map, r[0], r[4]) == 2, "recuperação de R1-R4");
+
+        map.removeDevice(r[1].getId());
+        routing.update();
+        checkLinkState(map, routing, hops(map, r[0], r[4]) == 3 && hops(map, r[0], r[1]) == -1, "R1 removido");
+        routing.reset();
+    }
+
+    private static void checkLinkState(NetworkMap map, LinkStateRouting routing, boolean paths, String step) {
+        check(paths, "link-state, " + step + ": caminhos esperados");
+        // O recálculo completo não pode achar nada diferente do que o incremental instalou
+        ConvergenceReport full = routing.recomputeAll();
+        check(full.getRoutesAdded() == 0 && full.getRoutesRemoved() == 0 && full.getRoutesChanged() == 0,
+                "link-state, " + step + ": incremental igual ao recálculo completo");
+    }
+
+    private static void checkDistanceVector(NetworkMap map) throws Exception {
+        Router[] r = buildTopology(map);
+        DistanceVectorRouting routing = new DistanceVectorRouting(map);
+        convergeDv(map, routing);
+        check(metric(routing, r[0], r[4]) == 2 && hops(map, r[0], r[4]) == 2, "distance-vector, inicial: R0 a 2 saltos de R4");
+
+        NetworkInterface fromR1 = r[1].findInterfaceByNeighbor(r[4]);
+        NetworkInterface fromR4 = r[4].findInterfaceByNeighbor(r[1]);
+        fromR1.setNeighbor(null);
+        fromR4.setNeighbor(null);
+        convergeDv(map, routing);
+        check(metric(routing, r[0], r[4]) == 3 && hops(map, r[0], r[4]) == 3, "distance-vector, falha de R1-R4");
+        fromR1.setNeighbor(r[4]);
+        fromR4.setNeighbor(r[1]);
+        convergeDv(map, routing);
+        check(metric(routing, r[0], r[4]) == 2 && hops(map, r[0], r[4]) == 2, "distance-vector, recuperação de R1-R4");
+
+        map.removeDevice(r[1].getId());
+        convergeDv(map, routing);
+        check(metric(routing, r[0], r[1]) == -1 && hops(map, r[0], r[1]) == -1 && metric(routing, r[0], r[4]) == 3,
+                "distance-vector, R1 removido");
+        routing.reset();
+        map.clear();
+    }
+
+    private static void convergeDv(NetworkMap map, DistanceVectorRouting routing) {
+        routing.update();
+        map.runToCompletion();
+    }
+
+    private static int metric(DistanceVectorRouting routing, Router from, Router to) {
+        return routing.metric(from, to.getInterface(0).getAddress(), LAN_MASK);
+    }
+}
@@ -0,0 +1,133 @@
+package benchmark;
+
+import io.BinaryTopologyFormat;
+import io.TextTopologyFormat;
+import models.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Mede a gravação e a carga dos formatos de topologia binário
+ * (BinaryTopologyFormat) e texto (TextTopologyFormat) em uma rede grande, e
+ * confere que a topologia carregada é igual à gravada.
+ *
+ * A rede tem 'roteadores' roteadores em anel, cada um com uma LAN de
+ * 'hosts' hosts e 'rotas' rotas para LANs de outros roteadores.
+ *
+ * Uso: java -Xmx3g -cp bin benchmark.TopologyFormatBenchmark [roteadores] [hosts] [rotas]
+ */
+public class TopologyFormatBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int routers = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        int hosts = (args.length > 1) ? Integer.parseInt(args[1]) : 9;
+        int routes = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+
+        NetworkMap map = NetworkMap.getInstance();
+        map.getLog().setLevel(SimulationLog.Level.OFF);
+        build(map, routers, hosts, routes);
+        String expected = summary(map);
+        System.out.println("Topologia: " + expected);
+
+        Path binary = Files.createTempFile("topologia", ".bin");
+        Path text = Files.createTempFile("topologia", ".txt");
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                BinaryTopologyFormat.save(map, binary);
+                long saveNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                BinaryTopologyFormat.load(binary, map);
+                long loadNanos = System.nanoTime() - start;
+                report("binário", round, saveNanos, loadNanos, Files.size(binary), summary(map), expected);
+
+                start = System.nanoTime();
+                TextTopologyFormat.save(map, text);
+                saveNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                TextTopologyFormat.load(text, map);
+                loadNanos = System.nanoTime() - start;
+                report("texto", round, saveNanos, loadNanos, Files.size(text), summary(map), expected);
+            }
+        } finally {
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(text);
+        }
+    }
+
+    private static void report(String format, int round, long saveNanos, long loadNanos, long bytes,
+                               String loaded, String expected) {
+        System.out.printf("%-8s rodada %d: gravação %6.0f ms  carga %6.0f ms  (%d bytes)%s%n",
+                format, round + 1, saveNanos / 1e6, loadNanos / 1e6, bytes,
+                loaded.equals(expected) ? "" : "  DIVERGENTE: " + loaded);
+    }
+
+    private static void build(NetworkMap map, int routers, int hosts, int routes) throws Exception {
+        map.clear();
+        int mask24 = Ipv4Address.maskOf(24);
+        int mask30 = Ipv4Address.maskOf(30);
+        Router[] ring = new Router[routers];
+        int id = 1;
+        for (int r = 0; r < routers; r++) {
+            int lan = lanOf(r);
+            ring[r] = new Router(id++, "R" + r, (r % 100) * 200, (r / 100) * 200);
+            ring[r].addInterface(new NetworkInterface(lan | 1, mask24));
+            map.addDevice(ring[r]);
+            for (int h = 0; h < hosts; h++) {
+                Host host = new Host(id++, "H" + r + "_" + h, (r % 100) * 200 + h * 10, (r / 100) * 200 + 50, lan | 1);
+                host.addInterface(new NetworkInterface(lan | (h + 10), mask24));
+                map.addDevice(host);
+            }
+        }
+
+        // Anel: R[r] interface 1 -> R[r+1], enlace 172.16.0.0 + 4r /30
+        for (int r = 0; r < routers; r++) {
+            int link = (172 << 24) | (16 << 16) | (r * 4);
+            Router next = ring[(r + 1) % routers];
+            NetworkInterface out = new NetworkInterface(link | 1, mask30);
+            NetworkInterface in = new NetworkInterface(link | 2, mask30);
+            out.setNeighbor(next);
+            in.setNeighbor(ring[r]);
+            ring[r].addInterface(out);
+            next.addInterface(in);
+        }
+
+        for (int r = 0; r < routers; r++) {
+            int nextHop = (172 << 24) | (16 << 16) | (r * 4) | 2;
+            ring[r].addRoute(new RouteEntry(lanOf(r), mask24, Ipv4Address.ANY, 0));
+            for (int k = 1; k < routes; k++)
+                ring[r].addRoute(new RouteEntry(lanOf((r + k) % routers), mask24, nextHop, 1));
+        }
+    }
+
+    // LAN 10.x.y.0/24 do roteador r
+    private static int lanOf(int r) {
+        return (10 << 24) | (r << 8);
+    }
+
+    // Resumo independente dos IDs (o formato texto referencia dispositivos pelo nome)
+    private static String summary(NetworkMap map) {
+        long interfaces = 0, routes = 0, checksum = 0;
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            Device d = map.getDevices()[i];
+            checksum = checksum * 31 + d.getX() * 3L + d.getY() + d.getName().hashCode();
+            for (int j = 0; j < d.getInterfaceCount(); j++) {
+                NetworkInterface intf = d.getInterface(j);
+                Device neighbor = intf.getNeighbor();
+                checksum = checksum * 31 + intf.getAddress() + ((neighbor == null) ? 0 : neighbor.getName().hashCode());
+                interfaces++;
+            }
+            if (d instanceof Router) {
+                for (RouteEntry route : ((Router) d).getRoutingTable()) {
+                    checksum = checksum * 31 + route.network + route.prefixLength + route.nextHop + route.outputInterfaceIndex;
+                    routes++;
+                }
+            }
+        }
+        return map.getDeviceCount() + " dispositivos, " + interfaces + " interfaces, "
+                + routes + " rotas, soma " + Long.toHexString(checksum);
+    }
+}
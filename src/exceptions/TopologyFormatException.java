@@ -0,0 +1,24 @@
+package exceptions;
+
+public class TopologyFormatException extends Exception {
+  // Linha do arquivo de texto com o erro (0 = não se aplica, ex.: formato binário)
+  private final int lineNumber;
+
+  public TopologyFormatException(String message) {
+    this(message, null);
+  }
+
+  public TopologyFormatException(String message, Throwable cause) {
+    super(message, cause);
+    this.lineNumber = 0;
+  }
+
+  public TopologyFormatException(String source, int lineNumber, String message, Throwable cause) {
+    super(source + ":" + lineNumber + ": " + message, cause);
+    this.lineNumber = lineNumber;
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+}
@@ -0,0 +1,48 @@
+package generator;
+
+import models.Host;
+import models.Router;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de um TopologyGenerator: os dispositivos criados (já
+ * cadastrados no NetworkMap) e os endereços dos hosts, usados para montar
+ * matrizes de tráfego.
+ */
+public class GeneratedTopology {
+
+    private final String description;
+    private final List<Router> routers;
+    private final List<Host> hosts;
+    private final int[] hostAddresses;
+    private final int linkCount;
+    private final int routeCount;
+
+    GeneratedTopology(String description, List<Router> routers, List<Host> hosts, int[] hostAddresses,
+                      int linkCount, int routeCount) {
+        this.description = description;
+        this.routers = Collections.unmodifiableList(routers);
+        this.hosts = Collections.unmodifiableList(hosts);
+        this.hostAddresses = hostAddresses;
+        this.linkCount = linkCount;
+        this.routeCount = routeCount;
+    }
+
+    public String getDescription() { return description; }
+    public List<Router> getRouters() { return routers; }
+    public List<Host> getHosts() { return hosts; }
+    public int getHostCount() { return hostAddresses.length; }
+    // Endereço do i-ésimo host (mesma ordem de getHosts)
+    public int getHostAddress(int i) { return hostAddresses[i]; }
+    // Enlaces entre roteadores
+    public int getLinkCount() { return linkCount; }
+    public int getRouteCount() { return routeCount; }
+
+    @Override
+    public String toString() {
+        return description + ": " + routers.size() + " roteadores, " + hosts.size() + " hosts, "
+                + linkCount + " enlaces, " + routeCount + " rotas";
+    }
+}
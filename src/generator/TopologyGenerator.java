@@ -0,0 +1,494 @@
+package generator;
+
+import exceptions.InvalidMaskException;
+import io.TopologyFiles;
+import models.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gera topologias sintéticas direto no NetworkMap, para testes de escala:
+ * anel, fat-tree, grafo aleatório de Waxman e campus hierárquico
+ * (acesso/distribuição/núcleo).
+ *
+ * Plano de endereços:
+ *   - cada LAN é uma /24 em 10.0.0.0/8 (gateway .1 no roteador, hosts a partir de .10)
+ *   - cada enlace entre roteadores é uma /30 em 172.16.0.0/12 (.1 e .2)
+ *
+ * As tabelas de rotas são preenchidas com o menor caminho em saltos (BFS a
+ * partir de cada roteador que tem LAN): cada roteador recebe uma rota /24
+ * para cada LAN remota e uma rota direta para a própria LAN. Empates são
+ * resolvidos pela ordem dos enlaces, então o resultado é sempre o mesmo
+ * para os mesmos parâmetros; só o Waxman usa a semente. No fat-tree e no
+ * campus, 'paths' > 1 instala até esse número de próximos saltos de custo
+ * igual por LAN e liga o ECMP nos roteadores (Router.setMaxPaths).
+ *
+ * Uso pela linha de comando (grava a topologia e, opcionalmente, o tráfego
+ * no formato de cenário do HeadlessRunner):
+ *
+ *   java -cp bin generator.TopologyGenerator ring ROTEADORES HOSTS_POR_ROTEADOR
+ *   java -cp bin generator.TopologyGenerator fattree K
+ *   java -cp bin generator.TopologyGenerator waxman ROTEADORES HOSTS_POR_ROTEADOR [ALFA BETA]
+ *   java -cp bin generator.TopologyGenerator campus NUCLEOS BLOCOS ACESSOS_POR_BLOCO HOSTS_POR_ACESSO
+ *       --out rede.bin|rede.txt [--seed N]
+ *       [--traffic trafego.txt] [--pattern uniform|hotspot|permutation] [--flows N] [--packets N] [--spread TICKS]
+ *       [--ecmp CAMINHOS]
+ *
+ *   java -cp bin application.HeadlessRunner trafego.txt --topology rede.bin [--ecmp CAMINHOS]
+ *
+ * Os arquivos guardam as rotas repetidas, mas não o número de caminhos do
+ * ECMP: ao carregar, ele é ligado de novo com --ecmp no HeadlessRunner.
+ */
+public final class TopologyGenerator {
+
+    public static final int MAX_LANS = 1 << 16;
+    public static final int MAX_HOSTS_PER_LAN = 244;
+    public static final int MAX_LINKS = 1 << 18;
+
+    private static final int LAN_BASE = 10 << 24;                   // 10.0.0.0
+    private static final int LINK_BASE = (172 << 24) | (16 << 16);  // 172.16.0.0
+    private static final int LAN_MASK = Ipv4Address.maskOf(24);
+    private static final int LINK_MASK = Ipv4Address.maskOf(30);
+    private static final int HOST_SPACING = 30;
+    private static final int HOST_OFFSET_Y = 80;
+
+    private final NetworkMap map;
+    // Próximos saltos de custo igual instalados por LAN (1 = só o primeiro)
+    private final int paths;
+    private final List<Router> routers = new ArrayList<>();
+    private final List<Host> hosts = new ArrayList<>();
+    // Enlaces de cada roteador: {índice do vizinho, interface local, endereço do vizinho}
+    private final List<List<int[]>> adjacency = new ArrayList<>();
+    // LANs de cada roteador: {rede, interface local}
+    private final List<List<int[]>> lans = new ArrayList<>();
+    private int lanCount = 0;
+    private int linkCount = 0;
+
+    private TopologyGenerator(NetworkMap map) {
+        this(map, 1);
+    }
+
+    private TopologyGenerator(NetworkMap map, int paths) {
+        require(paths >= 1, "use ao menos 1 caminho");
+        this.map = map;
+        this.paths = paths;
+        map.clear();
+    }
+
+    // ============================
+    // TOPOLOGIAS
+    // ============================
+
+    /**
+     * Anel de 'routerCount' roteadores, cada um com uma LAN de 'hostsPerRouter' hosts.
+     */
+    public static GeneratedTopology ring(NetworkMap map, int routerCount, int hostsPerRouter) {
+        require(routerCount >= 3, "o anel precisa de ao menos 3 roteadores");
+        TopologyGenerator g = new TopologyGenerator(map);
+        double radius = Math.max(300, routerCount * 60 / (2 * Math.PI));
+        for (int i = 0; i < routerCount; i++) {
+            double angle = 2 * Math.PI * i / routerCount;
+            int x = (int) Math.round(radius + 100 + radius * Math.cos(angle));
+            int y = (int) Math.round(radius + 100 + radius * Math.sin(angle));
+            int r = g.addRouter("R" + i, x, y);
+            g.addLan(r, hostsPerRouter);
+        }
+        for (int i = 0; i < routerCount; i++)
+            g.link(i, (i + 1) % routerCount);
+        return g.finish("anel(" + routerCount + ")");
+    }
+
+    /**
+     * Fat-tree de parâmetro k (par): (k/2)² roteadores de núcleo e k pods com
+     * k/2 roteadores de agregação e k/2 de borda; cada borda tem uma LAN com
+     * k/2 hosts (k³/4 hosts no total).
+     */
+    public static GeneratedTopology fatTree(NetworkMap map, int k) {
+        return fatTree(map, k, 1);
+    }
+
+    // Fat-tree com ECMP: até 'paths' próximos saltos de custo igual por LAN (k/2 cobre todos)
+    public static GeneratedTopology fatTree(NetworkMap map, int k, int paths) {
+        require(k >= 2 && k % 2 == 0, "k deve ser par e >= 2");
+        int half = k / 2;
+        TopologyGenerator g = new TopologyGenerator(map, paths);
+        int width = k * half * 60;
+
+        int[] cores = new int[half * half];
+        for (int c = 0; c < cores.length; c++)
+            cores[c] = g.addRouter("CORE" + c, spread(c, cores.length, width), 50);
+
+        for (int p = 0; p < k; p++) {
+            int[] aggregation = new int[half];
+            for (int a = 0; a < half; a++) {
+                int column = p * half + a;
+                aggregation[a] = g.addRouter("AGG" + p + "_" + a, spread(column, k * half, width), 250);
+                // A agregação a de cada pod liga-se aos núcleos a*(k/2) .. a*(k/2) + k/2 - 1
+                for (int c = 0; c < half; c++)
+                    g.link(aggregation[a], cores[a * half + c]);
+            }
+            for (int e = 0; e < half; e++) {
+                int column = p * half + e;
+                int edge = g.addRouter("EDGE" + p + "_" + e, spread(column, k * half, width), 450);
+                for (int a = 0; a < half; a++)
+                    g.link(edge, aggregation[a]);
+                g.addLan(edge, half);
+            }
+        }
+        return g.finish("fat-tree(k=" + k + ((paths > 1) ? ", ecmp=" + paths : "") + ")");
+    }
+
+    /**
+     * Grafo aleatório de Waxman: roteadores em posições uniformes e enlace
+     * entre u e v com probabilidade beta * exp(-d(u, v) / (alfa * L)), onde L
+     * é a maior distância possível. Componentes desconexos são ligados ao
+     * restante pelo par de roteadores mais próximo.
+     */
+    public static GeneratedTopology waxman(NetworkMap map, int routerCount, int hostsPerRouter,
+                                           double alpha, double beta, long seed) {
+        require(routerCount >= 2, "são necessários ao menos 2 roteadores");
+        require(alpha > 0 && beta > 0 && beta <= 1, "use alfa > 0 e 0 < beta <= 1");
+        TopologyGenerator g = new TopologyGenerator(map);
+        Random random = new Random(seed);
+
+        int side = (int) Math.max(800, Math.sqrt(routerCount) * 150);
+        int[] xs = new int[routerCount];
+        int[] ys = new int[routerCount];
+        for (int i = 0; i < routerCount; i++) {
+            xs[i] = 50 + random.nextInt(side);
+            ys[i] = 50 + random.nextInt(side);
+            int r = g.addRouter("R" + i, xs[i], ys[i]);
+            g.addLan(r, hostsPerRouter);
+        }
+
+        double maxDistance = side * Math.sqrt(2);
+        int[] component = new int[routerCount];
+        for (int i = 0; i < routerCount; i++) component[i] = i;
+        for (int u = 0; u < routerCount; u++) {
+            for (int v = u + 1; v < routerCount; v++) {
+                double distance = Math.hypot(xs[u] - xs[v], ys[u] - ys[v]);
+                if (random.nextDouble() < beta * Math.exp(-distance / (alpha * maxDistance))) {
+                    g.link(u, v);
+                    union(component, u, v);
+                }
+            }
+        }
+
+        // Liga cada componente que não contém o roteador 0 ao vizinho mais próximo já conectado
+        for (int u = 1; u < routerCount; u++) {
+            if (find(component, u) == find(component, 0)) continue;
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int v = 0; v < routerCount; v++) {
+                if (find(component, v) != find(component, 0)) continue;
+                double distance = Math.hypot(xs[u] - xs[v], ys[u] - ys[v]);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = v;
+                }
+            }
+            g.link(u, best);
+            union(component, u, best);
+        }
+        return g.finish("waxman(" + routerCount + ", alfa=" + alpha + ", beta=" + beta + ", semente=" + seed + ")");
+    }
+
+    /**
+     * Campus hierárquico: 'cores' roteadores de núcleo em malha completa;
+     * 'blocks' blocos, cada um com dois roteadores de distribuição ligados a
+     * todos os núcleos e 'accessPerBlock' roteadores de acesso ligados aos
+     * dois de distribuição; cada acesso tem uma LAN com 'hostsPerAccess' hosts.
+     */
+    public static GeneratedTopology campus(NetworkMap map, int cores, int blocks, int accessPerBlock, int hostsPerAccess) {
+        return campus(map, cores, blocks, accessPerBlock, hostsPerAccess, 1);
+    }
+
+    public static GeneratedTopology campus(NetworkMap map, int cores, int blocks, int accessPerBlock, int hostsPerAccess,
+                                           int paths) {
+        require(cores >= 1 && blocks >= 1 && accessPerBlock >= 1, "use ao menos 1 núcleo, 1 bloco e 1 acesso");
+        TopologyGenerator g = new TopologyGenerator(map, paths);
+        int width = Math.max(blocks * accessPerBlock, cores) * 80;
+
+        int[] core = new int[cores];
+        for (int c = 0; c < cores; c++) {
+            core[c] = g.addRouter("CORE" + c, spread(c, cores, width), 50);
+            for (int other = 0; other < c; other++)
+                g.link(core[other], core[c]);
+        }
+
+        for (int b = 0; b < blocks; b++) {
+            int[] distribution = new int[2];
+            for (int d = 0; d < 2; d++) {
+                distribution[d] = g.addRouter("DIST" + b + "_" + d, spread(b * 2 + d, blocks * 2, width), 250);
+                for (int c = 0; c < cores; c++)
+                    g.link(distribution[d], core[c]);
+            }
+            for (int a = 0; a < accessPerBlock; a++) {
+                int access = g.addRouter("ACC" + b + "_" + a, spread(b * accessPerBlock + a, blocks * accessPerBlock, width), 450);
+                g.link(access, distribution[0]);
+                g.link(access, distribution[1]);
+                g.addLan(access, hostsPerAccess);
+            }
+        }
+        return g.finish("campus(" + cores + " núcleos, " + blocks + " blocos, " + accessPerBlock + " acessos"
+                + ((paths > 1) ? ", ecmp=" + paths : "") + ")");
+    }
+
+    // ============================
+    // CONSTRUÇÃO
+    // ============================
+
+    private int addRouter(String name, int x, int y) {
+        Router router = new Router(map.allocateDeviceId(), name, x, y);
+        map.addDevice(router);
+        routers.add(router);
+        adjacency.add(new ArrayList<>());
+        lans.add(new ArrayList<>());
+        return routers.size() - 1;
+    }
+
+    // Cria uma LAN /24 no roteador, com os hosts enfileirados abaixo dele
+    private void addLan(int r, int hostCount) {
+        require(hostCount >= 0 && hostCount <= MAX_HOSTS_PER_LAN, "use 0.." + MAX_HOSTS_PER_LAN + " hosts por LAN");
+        if (hostCount == 0) return;
+        require(lanCount < MAX_LANS, "endereços de LAN esgotados (máximo " + MAX_LANS + ")");
+        int network = LAN_BASE | (lanCount++ << 8);
+        int gateway = network | 1;
+
+        Router router = routers.get(r);
+        lans.get(r).add(new int[] { network, router.getInterfaceCount() });
+        router.addInterface(newInterface(gateway, LAN_MASK));
+
+        int left = router.getX() - (hostCount - 1) * HOST_SPACING / 2;
+        for (int h = 0; h < hostCount; h++) {
+            String name = "H" + (network >>> 8 & 0xFFFF) + "_" + h;
+            Host host = new Host(map.allocateDeviceId(), name, left + h * HOST_SPACING, router.getY() + HOST_OFFSET_Y, gateway);
+            NetworkInterface intf = newInterface(network | (10 + h), LAN_MASK);
+            intf.setNeighbor(router);
+            host.addInterface(intf);
+            map.addDevice(host);
+            hosts.add(host);
+        }
+    }
+
+    // Enlace ponto a ponto /30 entre dois roteadores (ignora enlaces repetidos)
+    private void link(int a, int b) {
+        for (int[] edge : adjacency.get(a))
+            if (edge[0] == b) return;
+        require(linkCount < MAX_LINKS, "endereços de enlace esgotados (máximo " + MAX_LINKS + ")");
+        int network = LINK_BASE + (linkCount++ << 2);
+
+        Router routerA = routers.get(a);
+        Router routerB = routers.get(b);
+        NetworkInterface intfA = newInterface(network | 1, LINK_MASK);
+        NetworkInterface intfB = newInterface(network | 2, LINK_MASK);
+        intfA.setNeighbor(routerB);
+        intfB.setNeighbor(routerA);
+        adjacency.get(a).add(new int[] { b, routerA.getInterfaceCount(), network | 2 });
+        adjacency.get(b).add(new int[] { a, routerB.getInterfaceCount(), network | 1 });
+        routerA.addInterface(intfA);
+        routerB.addInterface(intfB);
+    }
+
+    // Preenche as tabelas de rotas (BFS a partir de cada roteador com LAN) e monta o resultado
+    private GeneratedTopology finish(String description) {
+        int count = routers.size();
+        int routeCount = 0;
+        int[] distance = new int[count];
+        int[] queue = new int[count];
+        if (paths > 1) {
+            for (Router router : routers)
+                router.setMaxPaths(paths);
+        }
+
+        for (int t = 0; t < count; t++) {
+            List<int[]> destinationLans = lans.get(t);
+            if (destinationLans.isEmpty()) continue;
+
+            for (int[] lan : destinationLans) {
+                routers.get(t).addRoute(newRoute(lan[0], LAN_MASK, Ipv4Address.ANY, lan[1]));
+                routeCount++;
+            }
+
+            Arrays.fill(distance, -1);
+            distance[t] = 0;
+            int head = 0, tail = 0;
+            queue[tail++] = t;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int[] edge : adjacency.get(u)) {
+                    if (distance[edge[0]] >= 0) continue;
+                    distance[edge[0]] = distance[u] + 1;
+                    queue[tail++] = edge[0];
+                }
+            }
+
+            // Cada roteador alcançado sai pelos primeiros 'paths' enlaces que o aproximam de t
+            for (int i = 1; i < tail; i++) {
+                int r = queue[i];
+                int installed = 0;
+                for (int[] edge : adjacency.get(r)) {
+                    if (distance[edge[0]] != distance[r] - 1) continue;
+                    for (int[] lan : destinationLans) {
+                        routers.get(r).addRoute(newRoute(lan[0], LAN_MASK, edge[2], edge[1]));
+                        routeCount++;
+                    }
+                    if (++installed == paths) break;
+                }
+            }
+        }
+
+        int[] addresses = new int[hosts.size()];
+        for (int i = 0; i < addresses.length; i++)
+            addresses[i] = hosts.get(i).getInterface(0).getAddress();
+        return new GeneratedTopology(description, routers, hosts, addresses, linkCount, routeCount);
+    }
+
+    // Distribui 'count' posições igualmente em uma faixa de largura 'width'
+    private static int spread(int index, int count, int width) {
+        return 50 + (int) ((index + 0.5) * width / count);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition)
+            throw new IllegalArgumentException(message);
+    }
+
+    // Máscaras geradas aqui são sempre contíguas
+    private static NetworkInterface newInterface(int address, int mask) {
+        try {
+            return new NetworkInterface(address, mask);
+        } catch (InvalidMaskException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static RouteEntry newRoute(int network, int mask, int nextHop, int outputInterface) {
+        try {
+            return new RouteEntry(network, mask, nextHop, outputInterface);
+        } catch (InvalidMaskException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ============================
+    // LINHA DE COMANDO
+    // ============================
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 1) {
+            System.err.println("Uso: TopologyGenerator ring|fattree|waxman|campus PARAMETROS --out rede.bin|rede.txt"
+                    + " [--seed N] [--traffic trafego.txt] [--pattern uniform|hotspot|permutation]"
+                    + " [--flows N] [--packets N] [--spread TICKS] [--ecmp CAMINHOS]");
+            System.exit(2);
+        }
+
+        List<String> positional = new ArrayList<>();
+        String outputPath = null, trafficPath = null, pattern = "uniform";
+        long seed = 1;
+        int flows = 1, packets = 1, spreadTicks = 100, paths = 1;
+        for (int i = 1; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outputPath = args[++i];
+            } else if ("--seed".equals(args[i]) && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if ("--traffic".equals(args[i]) && i + 1 < args.length) {
+                trafficPath = args[++i];
+            } else if ("--pattern".equals(args[i]) && i + 1 < args.length) {
+                pattern = args[++i];
+            } else if ("--flows".equals(args[i]) && i + 1 < args.length) {
+                flows = Integer.parseInt(args[++i]);
+            } else if ("--packets".equals(args[i]) && i + 1 < args.length) {
+                packets = Integer.parseInt(args[++i]);
+            } else if ("--spread".equals(args[i]) && i + 1 < args.length) {
+                spreadTicks = Integer.parseInt(args[++i]);
+            } else if ("--ecmp".equals(args[i]) && i + 1 < args.length) {
+                paths = Integer.parseInt(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                System.err.println("Argumento desconhecido: " + args[i]);
+                System.exit(2);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (outputPath == null) {
+            System.err.println("Informe o arquivo de saída com --out");
+            System.exit(2);
+        }
+
+        NetworkMap map = NetworkMap.getInstance();
+        map.getLog().setLevel(SimulationLog.Level.OFF);
+        GeneratedTopology topology;
+        try {
+            topology = generate(map, args[0], positional, seed, paths);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("❌ Parâmetros inválidos para '" + args[0] + "': " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        TopologyFiles.save(map, Paths.get(outputPath));
+        System.out.println(topology + " -> " + outputPath);
+
+        if (trafficPath != null) {
+            TrafficMatrix traffic;
+            switch (pattern) {
+                case "uniform":
+                    traffic = TrafficMatrix.uniform(topology, flows, packets, spreadTicks, seed);
+                    break;
+                case "hotspot":
+                    traffic = TrafficMatrix.hotspot(topology, flows, packets, spreadTicks, 0.5, seed);
+                    break;
+                case "permutation":
+                    traffic = TrafficMatrix.permutation(topology, packets, spreadTicks, seed);
+                    break;
+                default:
+                    System.err.println("Padrão de tráfego desconhecido: " + pattern);
+                    System.exit(2);
+                    return;
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(Paths.get(trafficPath), StandardCharsets.UTF_8)) {
+                traffic.write(out);
+            }
+            System.out.println(traffic + " -> " + trafficPath);
+        }
+    }
+
+    private static GeneratedTopology generate(NetworkMap map, String type, List<String> p, long seed, int paths) {
+        switch (type) {
+            case "ring":
+                return ring(map, Integer.parseInt(p.get(0)), Integer.parseInt(p.get(1)));
+            case "fattree":
+                return fatTree(map, Integer.parseInt(p.get(0)), paths);
+            case "waxman":
+                return waxman(map, Integer.parseInt(p.get(0)), Integer.parseInt(p.get(1)),
+                        (p.size() > 2) ? Double.parseDouble(p.get(2)) : 0.2,
+                        (p.size() > 3) ? Double.parseDouble(p.get(3)) : 0.4, seed);
+            case "campus":
+                return campus(map, Integer.parseInt(p.get(0)), Integer.parseInt(p.get(1)),
+                        Integer.parseInt(p.get(2)), Integer.parseInt(p.get(3)), paths);
+            default:
+                throw new IllegalArgumentException("tipo desconhecido");
+        }
+    }
+}
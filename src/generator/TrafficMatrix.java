@@ -0,0 +1,164 @@
+package generator;
+
+import models.Ipv4Address;
+import models.NetworkMap;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Matriz de tráfego sintética sobre os hosts de uma GeneratedTopology: uma
+ * lista de fluxos (origem, destino, pacotes, instante de início). Pode ser
+ * agendada direto no EventScheduler do mapa ou gravada como linhas
+ * 'traffic' de cenário do HeadlessRunner.
+ *
+ * Padrões:
+ *   - uniform: cada host envia 'flowsPerHost' fluxos para destinos sorteados
+ *   - hotspot: como uniform, mas uma fração dos fluxos vai para poucos hosts
+ *   - permutation: cada host envia um fluxo para outro host, e cada host
+ *     recebe exatamente um (permutação sem pontos fixos)
+ *
+ * Os instantes de início são sorteados em [0, spreadTicks). Com a mesma
+ * semente, a matriz é sempre a mesma.
+ */
+public class TrafficMatrix {
+
+    private final int[] sources;
+    private final int[] destinations;
+    private final int[] quantities;
+    private final long[] startTimes;
+
+    private TrafficMatrix(int flows) {
+        sources = new int[flows];
+        destinations = new int[flows];
+        quantities = new int[flows];
+        startTimes = new long[flows];
+    }
+
+    // ============================
+    // PADRÕES
+    // ============================
+
+    public static TrafficMatrix uniform(GeneratedTopology topology, int flowsPerHost, int packetsPerFlow,
+                                        int spreadTicks, long seed) {
+        return hotspot(topology, flowsPerHost, packetsPerFlow, spreadTicks, 0, seed);
+    }
+
+    /**
+     * Uma fração 'hotFraction' dos fluxos tem como destino um dos hosts
+     * "quentes" (cerca de 1% dos hosts, ao menos um); o restante é uniforme.
+     */
+    public static TrafficMatrix hotspot(GeneratedTopology topology, int flowsPerHost, int packetsPerFlow,
+                                        int spreadTicks, double hotFraction, long seed) {
+        int hosts = requireHosts(topology);
+        require(flowsPerHost >= 1 && packetsPerFlow >= 1 && spreadTicks >= 1,
+                "fluxos, pacotes e intervalo devem ser positivos");
+        Random random = new Random(seed);
+        int hotCount = Math.max(1, hosts / 100);
+
+        TrafficMatrix traffic = new TrafficMatrix(hosts * flowsPerHost);
+        int flow = 0;
+        for (int source = 0; source < hosts; source++) {
+            for (int f = 0; f < flowsPerHost; f++) {
+                int destination = (random.nextDouble() < hotFraction)
+                        ? random.nextInt(hotCount)
+                        : random.nextInt(hosts);
+                // Nunca envia para si mesmo
+                if (destination == source)
+                    destination = (destination + 1) % hosts;
+                traffic.set(flow++, topology, source, destination, packetsPerFlow, random.nextInt(spreadTicks));
+            }
+        }
+        return traffic;
+    }
+
+    public static TrafficMatrix permutation(GeneratedTopology topology, int packetsPerFlow, int spreadTicks, long seed) {
+        int hosts = requireHosts(topology);
+        require(packetsPerFlow >= 1 && spreadTicks >= 1, "pacotes e intervalo devem ser positivos");
+        Random random = new Random(seed);
+
+        // Embaralha (Fisher-Yates) e liga cada posição à seguinte: um único ciclo, sem pontos fixos
+        int[] order = new int[hosts];
+        for (int i = 0; i < hosts; i++) order[i] = i;
+        for (int i = hosts - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        TrafficMatrix traffic = new TrafficMatrix(hosts);
+        for (int i = 0; i < hosts; i++)
+            traffic.set(i, topology, order[i], order[(i + 1) % hosts], packetsPerFlow, random.nextInt(spreadTicks));
+        return traffic;
+    }
+
+    private void set(int flow, GeneratedTopology topology, int source, int destination, int quantity, long time) {
+        sources[flow] = topology.getHostAddress(source);
+        destinations[flow] = topology.getHostAddress(destination);
+        quantities[flow] = quantity;
+        startTimes[flow] = time;
+    }
+
+    private static int requireHosts(GeneratedTopology topology) {
+        int hosts = topology.getHostCount();
+        require(hosts >= 2, "a topologia precisa de ao menos 2 hosts");
+        return hosts;
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition)
+            throw new IllegalArgumentException(message);
+    }
+
+    // ============================
+    // USO
+    // ============================
+
+    public int size() {
+        return sources.length;
+    }
+
+    public int getSource(int flow) { return sources[flow]; }
+    public int getDestination(int flow) { return destinations[flow]; }
+    public int getQuantity(int flow) { return quantities[flow]; }
+    public long getStartTime(int flow) { return startTimes[flow]; }
+
+    public long totalPackets() {
+        long total = 0;
+        for (int quantity : quantities) total += quantity;
+        return total;
+    }
+
+    /**
+     * Agenda o início de cada fluxo no EventScheduler do mapa, relativo ao
+     * instante atual da simulação.
+     */
+    public void schedule(NetworkMap map) {
+        long now = map.getScheduler().now();
+        for (int i = 0; i < sources.length; i++) {
+            int source = sources[i];
+            int destination = destinations[i];
+            int quantity = quantities[i];
+            map.getScheduler().schedule(now + startTimes[i], t -> map.startTransmission(source, destination, quantity));
+        }
+    }
+
+    // Uma linha 'traffic ORIGEM DESTINO QUANTIDADE INSTANTE' por fluxo (formato de cenário do HeadlessRunner)
+    public void write(Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        for (int i = 0; i < sources.length; i++) {
+            line.setLength(0);
+            line.append("traffic ").append(Ipv4Address.toString(sources[i])).append(' ')
+                .append(Ipv4Address.toString(destinations[i])).append(' ')
+                .append(quantities[i]).append(' ').append(startTimes[i]).append('\n');
+            out.append(line);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sources.length + " fluxos, " + totalPackets() + " pacotes";
+    }
+}
@@ -1,8 +1,9 @@
 package gui;
 
 import models.Device;
-import models.Packet;
 import models.NetworkMap;
+import models.PacketSnapshot;
+import models.SimulationLoop;
 import application.MainApp;
 import exceptions.InvalidIpException;
 import exceptions.InvalidMaskException;
@@ -11,25 +12,103 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseEvent;
-
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * Área de desenho da simulação.
+ *
+ * Navegação: arrastar com o botão direito (ou do meio) move a vista e a roda
+ * do mouse aproxima/afasta em torno do cursor. Só os dispositivos e enlaces
+ * da área visível são desenhados (índice espacial do NetworkMap).
+ *
+ * A simulação roda na thread do SimulationLoop; o Timer do painel só
+ * controla a taxa de quadros e desenha o snapshot mais recente, com as
+ * posições interpoladas entre dois ticks.
+ */
 public class SimulationPanel extends JPanel implements ActionListener, MouseListener {
 
+  public static final int DEFAULT_TICKS_PER_SECOND = 10;
+  public static final int DEFAULT_FRAMES_PER_SECOND = 60;
+
   private final NetworkMap networkMap;
+  private final SimulationLoop simulation;
   private final Timer timer;
-  private final int TICK_RATE = 100;
   private final int CLICK_TOLERANCE = 15;
 
+  // Objetos de desenho reutilizados em todos os quadros
+  private static final BasicStroke LINK_STROKE = new BasicStroke(2);
+  private static final BasicStroke DEFAULT_STROKE = new BasicStroke(1);
+  private static final Color SELECTION_COLOR = new Color(255, 165, 0);
+  private static final int PACKET_RADIUS = 4;
+  // Margem em volta do pacote para cobrir o antialiasing
+  private static final int PACKET_MARGIN = PACKET_RADIUS + 2;
+  // Quanto um dispositivo (ícone + nome) pode se estender além da sua posição
+  private static final int DEVICE_MARGIN = 200;
+
+  private static final double MIN_SCALE = 0.05;
+  private static final double MAX_SCALE = 8.0;
+  private static final double ZOOM_STEP = 1.1;
+
+  // Vista: coordenadas do mapa no canto superior esquerdo e escala
+  private double viewX = 0;
+  private double viewY = 0;
+  private double scale = 1.0;
+
+  // Camada estática (enlaces, ícones e nomes), refeita só quando a topologia ou a vista mudam
+  private BufferedImage staticLayer;
+  private int staticLayerVersion = -1;
+  private double staticLayerViewX, staticLayerViewY, staticLayerScale;
+
+  // Região ocupada pelos pacotes no último quadro desenhado (coordenadas da tela)
+  private final Rectangle packetRegion = new Rectangle();
+  private final Rectangle nextPacketRegion = new Rectangle();
+  private int lastTopologyVersion = -1;
+
+  // Snapshot e instante (interpolado) do quadro atual
+  private PacketSnapshot frame;
+  private double frameTime;
+
   public SimulationPanel(NetworkMap map) {
+    this(map, DEFAULT_TICKS_PER_SECOND, DEFAULT_FRAMES_PER_SECOND);
+  }
+
+  public SimulationPanel(NetworkMap map, int ticksPerSecond, int framesPerSecond) {
     this.networkMap = map;
     setPreferredSize(new Dimension(800, 600));
     setBackground(Color.WHITE);
 
     addMouseListener(this);
+    NavigationHandler navigation = new NavigationHandler();
+    addMouseListener(navigation);
+    addMouseMotionListener(navigation);
+    addMouseWheelListener(navigation);
+
+    simulation = new SimulationLoop(map, ticksPerSecond);
+    frame = simulation.latestSnapshot();
+    frameTime = frame.getTime();
 
-    timer = new Timer(TICK_RATE, this);
+    timer = new Timer(frameInterval(framesPerSecond), this);
     timer.start();
+    simulation.start();
+  }
+
+  public SimulationLoop getSimulation() {
+    return simulation;
+  }
+
+  // Taxa de quadros da interface (a da simulação é ajustada no SimulationLoop)
+  public void setFramesPerSecond(int framesPerSecond) {
+    timer.setDelay(frameInterval(framesPerSecond));
+  }
+
+  private static int frameInterval(int framesPerSecond) {
+    if (framesPerSecond <= 0)
+      throw new IllegalArgumentException("Quadros por segundo inválido: " + framesPerSecond);
+    return Math.max(1, 1000 / framesPerSecond);
   }
 
   // ==========================================================
@@ -37,52 +116,208 @@ public class SimulationPanel extends JPanel implements ActionListener, MouseList
   // ==========================================================
   @Override
   protected void paintComponent(Graphics g) {
-    super.paintComponent(g);
-    Graphics2D g2d = (Graphics2D) g;
+    // 1. Enlaces e dispositivos: uma cópia da camada estática
+    g.drawImage(staticLayer(), 0, 0, null);
+
+    Graphics2D g2d = (Graphics2D) g.create();
+    try {
+      g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      applyView(g2d);
+
+      // 2. Destaque do dispositivo selecionado no modo CONNECT
+      Device selected = MainApp.firstDeviceToConnect;
+      if (selected != null) {
+        g2d.setColor(SELECTION_COLOR);
+        g2d.drawOval(selected.getX() - 15, selected.getY() - 15, 30, 30);
+      }
 
-    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      // 3. Pacotes em trânsito (do snapshot), só os que caem na área a redesenhar
+      // A posição é interpolada a partir dos instantes de partida e chegada do salto
+      Rectangle clip = g2d.getClipBounds();
+      g2d.setColor(Color.MAGENTA);
+      PacketSnapshot packets = frame;
+      for (int i = 0; i < packets.getCount(); i++) {
+        int x = packets.getX(i, frameTime);
+        int y = packets.getY(i, frameTime);
+        if (clip == null || clip.intersects(x - PACKET_MARGIN, y - PACKET_MARGIN, 2 * PACKET_MARGIN, 2 * PACKET_MARGIN))
+          g2d.fillOval(x - PACKET_RADIUS, y - PACKET_RADIUS, 2 * PACKET_RADIUS, 2 * PACKET_RADIUS);
+      }
+    } finally {
+      g2d.dispose();
+    }
+  }
 
-    // 1. Desenhar Conexões
-    g2d.setColor(Color.LIGHT_GRAY);
-    g2d.setStroke(new BasicStroke(2));
-    for (int i = 0; i < networkMap.getDeviceCount(); i++) {
-      Device d = networkMap.getDevices()[i];
+  // Transforma coordenadas do mapa em coordenadas da tela
+  private void applyView(Graphics2D g2d) {
+    g2d.scale(scale, scale);
+    g2d.translate(-viewX, -viewY);
+  }
 
-      for (int j = 0; j < d.getInterfaceCount(); j++) {
-        Device neighbor = d.getInterface(j).getNeighbor();
-        if (neighbor != null && d.getId() < neighbor.getId()) {
-          g2d.drawLine(d.getX(), d.getY(), neighbor.getX(), neighbor.getY());
-        }
-      }
+  // Devolve a camada estática, refazendo-a se a topologia, a vista ou o tamanho mudaram
+  // A topologia só é alterada pela thread da interface, então ler dispositivos e enlaces aqui
+  // não precisa do monitor do mapa (o tick da simulação não os modifica)
+  private BufferedImage staticLayer() {
+    int width = Math.max(1, getWidth());
+    int height = Math.max(1, getHeight());
+    int version = networkMap.getTopologyVersion();
+    boolean sameSize = staticLayer != null && staticLayer.getWidth() == width && staticLayer.getHeight() == height;
+    if (sameSize && staticLayerVersion == version && staticLayerViewX == viewX
+        && staticLayerViewY == viewY && staticLayerScale == scale)
+      return staticLayer;
+
+    if (!sameSize) {
+      GraphicsConfiguration config = getGraphicsConfiguration();
+      staticLayer = (config != null)
+          ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+          : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
     }
-    g2d.setStroke(new BasicStroke(1));
 
-    // 2. Desenhar Dispositivos
-    for (int i = 0; i < networkMap.getDeviceCount(); i++) {
-      Device d = networkMap.getDevices()[i];
+    Graphics2D g2d = staticLayer.createGraphics();
+    try {
+      g2d.setColor(getBackground());
+      g2d.fillRect(0, 0, width, height);
+      g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      applyView(g2d);
+
+      // Área visível em coordenadas do mapa, com folga para ícones e nomes
+      int minX = (int) Math.floor(viewX) - DEVICE_MARGIN;
+      int minY = (int) Math.floor(viewY) - DEVICE_MARGIN;
+      int maxX = (int) Math.ceil(viewX + width / scale) + DEVICE_MARGIN;
+      int maxY = (int) Math.ceil(viewY + height / scale) + DEVICE_MARGIN;
+
+      // Conexões
+      g2d.setColor(Color.LIGHT_GRAY);
+      g2d.setStroke(LINK_STROKE);
+      networkMap.forEachLinkIn(minX, minY, maxX, maxY,
+          (a, b) -> g2d.drawLine(a.getX(), a.getY(), b.getX(), b.getY()));
+      g2d.setStroke(DEFAULT_STROKE);
+
+      // Dispositivos
+      networkMap.forEachDeviceIn(minX, minY, maxX, maxY, d -> d.draw(g2d));
+    } finally {
+      g2d.dispose();
+    }
+    staticLayerVersion = version;
+    staticLayerViewX = viewX;
+    staticLayerViewY = viewY;
+    staticLayerScale = scale;
+    return staticLayer;
+  }
 
-      if (d == MainApp.firstDeviceToConnect) {
-        g2d.setColor(new Color(255, 165, 0));
-        g2d.drawOval(d.getX() - 15, d.getY() - 15, 30, 30);
+  // Retângulo da tela que envolve todos os pacotes do snapshot no instante 'time' (vazio se não houver)
+  private void computePacketRegion(PacketSnapshot packets, double time, Rectangle region) {
+    int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+    for (int i = 0; i < packets.getCount(); i++) {
+      int x = packets.getX(i, time);
+      int y = packets.getY(i, time);
+      minX = Math.min(minX, x);
+      minY = Math.min(minY, y);
+      maxX = Math.max(maxX, x);
+      maxY = Math.max(maxY, y);
+    }
+    if (minX > maxX) {
+      region.setBounds(0, 0, 0, 0);
+      return;
+    }
+    int left = (int) Math.floor(toScreenX(minX - PACKET_MARGIN)) - 1;
+    int top = (int) Math.floor(toScreenY(minY - PACKET_MARGIN)) - 1;
+    int right = (int) Math.ceil(toScreenX(maxX + PACKET_MARGIN)) + 1;
+    int bottom = (int) Math.ceil(toScreenY(maxY + PACKET_MARGIN)) + 1;
+    region.setBounds(left, top, right - left, bottom - top);
+  }
+
+  // ==========================================================
+  // CONVERSÃO TELA <-> MAPA
+  // ==========================================================
+  private double toScreenX(double mapX) {
+    return (mapX - viewX) * scale;
+  }
+
+  private double toScreenY(double mapY) {
+    return (mapY - viewY) * scale;
+  }
+
+  private int toMapX(int screenX) {
+    return (int) Math.round(viewX + screenX / scale);
+  }
+
+  private int toMapY(int screenY) {
+    return (int) Math.round(viewY + screenY / scale);
+  }
+
+  // ==========================================================
+  // NAVEGAÇÃO (ARRASTAR E ZOOM)
+  // ==========================================================
+  private class NavigationHandler extends MouseAdapter {
+    private int lastX;
+    private int lastY;
+    private boolean dragging = false;
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+      if (SwingUtilities.isRightMouseButton(e) || SwingUtilities.isMiddleMouseButton(e)) {
+        dragging = true;
+        lastX = e.getX();
+        lastY = e.getY();
       }
-      d.draw(g2d);
     }
 
-    // 3. Desenhar Pacotes em Trânsito
-    g2d.setColor(Color.MAGENTA);
-    for (int i = 0; i < networkMap.getPacketCount(); i++) {
-      Packet p = networkMap.getPacketsInTransit()[i];
-      g2d.fillOval(p.getCurrentX() - 4, p.getCurrentY() - 4, 8, 8);
+    @Override
+    public void mouseReleased(MouseEvent e) {
+      dragging = false;
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+      if (!dragging) return;
+      viewX -= (e.getX() - lastX) / scale;
+      viewY -= (e.getY() - lastY) / scale;
+      lastX = e.getX();
+      lastY = e.getY();
+      repaint();
+    }
+
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+      double newScale = scale * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation());
+      newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, newScale));
+      // Mantém fixo o ponto do mapa sob o cursor
+      double mapX = viewX + e.getX() / scale;
+      double mapY = viewY + e.getY() / scale;
+      scale = newScale;
+      viewX = mapX - e.getX() / scale;
+      viewY = mapY - e.getY() / scale;
+      repaint();
     }
   }
 
   // ==========================================================
-  // LOOP DE SIMULAÇÃO (CHAMADO PELO TIMER)
+  // QUADROS (CHAMADO PELO TIMER)
   // ==========================================================
   @Override
   public void actionPerformed(ActionEvent e) {
-    networkMap.tickSimulation();
-    repaint();
+    frame = simulation.latestSnapshot();
+    // Avança a animação entre o tick publicado e o próximo, sem ultrapassá-lo
+    double elapsed = (double) (System.nanoTime() - frame.getPublishedNanos()) / simulation.getTickNanos();
+    frameTime = frame.getTime() + (simulation.isRunning() ? Math.max(0.0, Math.min(1.0, elapsed)) : 0.0);
+
+    // Topologia alterada fora do painel (menus): redesenha tudo
+    int version = frame.getTopologyVersion();
+    if (version != lastTopologyVersion) {
+      lastTopologyVersion = version;
+      computePacketRegion(frame, frameTime, packetRegion);
+      repaint();
+      return;
+    }
+
+    // Só a área por onde os pacotes passaram: posições antigas (apagar) e novas (desenhar)
+    computePacketRegion(frame, frameTime, nextPacketRegion);
+    if (!packetRegion.isEmpty())
+      repaint(packetRegion);
+    if (!nextPacketRegion.isEmpty())
+      repaint(nextPacketRegion);
+    packetRegion.setBounds(nextPacketRegion);
   }
 
   // ==========================================================
@@ -95,8 +330,12 @@ public class SimulationPanel extends JPanel implements ActionListener, MouseList
 
 @Override
 public void mouseClicked(MouseEvent e) {
-    int x = e.getX();
-    int y = e.getY();
+    if (!SwingUtilities.isLeftMouseButton(e)) return; // botões direito/do meio: navegação
+
+    // Coordenadas do mapa (a vista pode estar deslocada ou com zoom)
+    int x = toMapX(e.getX());
+    int y = toMapY(e.getY());
+    int tolerance = (int) Math.ceil(CLICK_TOLERANCE / scale);
 
     // A. Lógica de Adição de Dispositivo
     if (MainApp.currentMode.equals("ADD_HOST") || MainApp.currentMode.equals("ADD_ROUTER")) {
@@ -105,14 +344,17 @@ public void mouseClicked(MouseEvent e) {
         type = type.substring(0, 1).toUpperCase() + type.substring(1).toLowerCase();
 
         try {
-            Device newDevice = networkMap.createAndAddDevice(
-                    type,
-                    MainApp.tempDeviceName,
-                    MainApp.tempDeviceIp,
-                    MainApp.tempDeviceMask,
-                    x,
-                    y
-            );
+            Device newDevice;
+            synchronized (networkMap) {
+                newDevice = networkMap.createAndAddDevice(
+                        type,
+                        MainApp.tempDeviceName,
+                        MainApp.tempDeviceIp,
+                        MainApp.tempDeviceMask,
+                        x,
+                        y
+                );
+            }
 
             if (newDevice != null) {
                 System.out.println("✅ Dispositivo adicionado: " + newDevice.getName() +
@@ -141,7 +383,7 @@ public void mouseClicked(MouseEvent e) {
 
     // B. Lógica de Conexão de Dispositivos
     else if (MainApp.currentMode.equals("CONNECT")) {
-        Device clickedDevice = networkMap.findDeviceByCoordinates(x, y, CLICK_TOLERANCE);
+        Device clickedDevice = networkMap.findDeviceByCoordinates(x, y, tolerance);
 
         if (clickedDevice == null) {
             System.out.println("Nenhum dispositivo encontrado na posição clicada. Modo CONNECT ativo.");
@@ -187,7 +429,7 @@ public void mouseClicked(MouseEvent e) {
 
     // C. NOVO: Lógica de Seleção de Roteador para Tabela de Roteamento
     else if (MainApp.currentMode.equals("SELECT_ROUTER_FOR_ROUTE")) {
-        Device clickedDevice = networkMap.findDeviceByCoordinates(x, y, CLICK_TOLERANCE);
+        Device clickedDevice = networkMap.findDeviceByCoordinates(x, y, tolerance);
         
         if (clickedDevice instanceof models.Router) {
             MainApp.routerToEdit = (models.Router) clickedDevice;
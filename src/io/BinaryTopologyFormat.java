@@ -0,0 +1,260 @@
+package io;
+
+import exceptions.InvalidMaskException;
+import exceptions.TopologyFormatException;
+import models.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Formato binário da topologia (dispositivos, interfaces, enlaces e tabelas
+ * de rotas), versionado.
+ *
+ * Todos os endereços são gravados como int e os vizinhos como índice do
+ * dispositivo no próprio arquivo, então a carga não interpreta texto (só os
+ * nomes são decodificados). A gravação percorre o mapa escrevendo direto no
+ * arquivo; a leitura mapeia o arquivo em memória e só altera o NetworkMap
+ * depois de ler tudo sem erro.
+ *
+ * Layout (big-endian):
+ *   cabeçalho   MAGIC, VERSION, nº de dispositivos, nº de interfaces, nº de rotas
+ *   dispositivos  tipo (byte), id, x, y, gateway (só Host), nome (u16 + UTF-8)
+ *   interfaces    por dispositivo: quantidade, e para cada uma endereço, máscara,
+ *                 índice do vizinho (-1 = sem vizinho)
+ *   rotas         por Router: quantidade, e para cada uma rede, máscara,
+ *                 próximo salto, índice da interface de saída
+ */
+public final class BinaryTopologyFormat {
+
+    public static final int MAGIC = 0x53494D54; // "SIMT"
+    public static final int VERSION = 1;
+
+    private static final byte TYPE_HOST = 0;
+    private static final byte TYPE_ROUTER = 1;
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+    private static final int MIN_DEVICE_BYTES = 1 + 4 + 4 + 4 + 2;
+
+    private BinaryTopologyFormat() {
+    }
+
+    // ============================
+    // GRAVAÇÃO
+    // ============================
+
+    public static void save(NetworkMap map, Path file) throws IOException {
+        Device[] devices = map.getDevices();
+        int deviceCount = map.getDeviceCount();
+
+        // Posição de cada dispositivo no arquivo, para referenciar vizinhos
+        Map<Device, Integer> indexOf = new IdentityHashMap<>(deviceCount * 2);
+        long interfaceCount = 0, routeCount = 0;
+        for (int i = 0; i < deviceCount; i++) {
+            Device d = devices[i];
+            if (!(d instanceof Host) && !(d instanceof Router))
+                throw new IOException("Tipo de dispositivo não suportado: " + d.getClass().getName());
+            indexOf.put(d, i);
+            interfaceCount += d.getInterfaceCount();
+            if (d instanceof Router)
+                routeCount += ((Router) d).getRoutingTable().size();
+        }
+        if (interfaceCount > Integer.MAX_VALUE || routeCount > Integer.MAX_VALUE)
+            throw new IOException("Topologia grande demais para o formato");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(deviceCount);
+            out.writeInt((int) interfaceCount);
+            out.writeInt((int) routeCount);
+
+            for (int i = 0; i < deviceCount; i++) {
+                Device d = devices[i];
+                boolean host = d instanceof Host;
+                out.writeByte(host ? TYPE_HOST : TYPE_ROUTER);
+                out.writeInt(d.getId());
+                out.writeInt(d.getX());
+                out.writeInt(d.getY());
+                if (host)
+                    out.writeInt(((Host) d).getGateway());
+                byte[] name = d.getName().getBytes(StandardCharsets.UTF_8);
+                if (name.length > MAX_NAME_BYTES)
+                    throw new IOException("Nome longo demais: " + d.getName().substring(0, 32) + "...");
+                out.writeShort(name.length);
+                out.write(name);
+            }
+
+            for (int i = 0; i < deviceCount; i++) {
+                Device d = devices[i];
+                out.writeInt(d.getInterfaceCount());
+                for (int j = 0; j < d.getInterfaceCount(); j++) {
+                    NetworkInterface intf = d.getInterface(j);
+                    Integer neighbor = (intf.getNeighbor() == null) ? null : indexOf.get(intf.getNeighbor());
+                    out.writeInt(intf.getAddress());
+                    out.writeInt(intf.getMask());
+                    out.writeInt((neighbor == null) ? -1 : neighbor);
+                }
+            }
+
+            for (int i = 0; i < deviceCount; i++) {
+                if (!(devices[i] instanceof Router)) continue;
+                List<RouteEntry> routes = ((Router) devices[i]).getRoutingTable();
+                out.writeInt(routes.size());
+                for (RouteEntry route : routes) {
+                    out.writeInt(route.network);
+                    out.writeInt(route.mask);
+                    out.writeInt(route.nextHop);
+                    out.writeInt(route.outputInterfaceIndex);
+                }
+            }
+        }
+    }
+
+    // ============================
+    // LEITURA
+    // ============================
+
+    /**
+     * Substitui o conteúdo do mapa pela topologia do arquivo. Se o arquivo
+     * for inválido o mapa não é alterado.
+     */
+    public static void load(Path file, NetworkMap map) throws IOException, TopologyFormatException {
+        Device[] devices;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new TopologyFormatException("arquivo grande demais (" + size + " bytes)");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            devices = read(buffer);
+            if (buffer.hasRemaining())
+                throw new TopologyFormatException(buffer.remaining() + " bytes sobrando no fim do arquivo");
+        } catch (BufferUnderflowException e) {
+            throw new TopologyFormatException(file + ": arquivo truncado", e);
+        } catch (TopologyFormatException e) {
+            throw new TopologyFormatException(file + ": " + e.getMessage(), e);
+        }
+
+        map.clear();
+        for (Device d : devices)
+            map.addDevice(d);
+    }
+
+    private static Device[] read(MappedByteBuffer in) throws TopologyFormatException {
+        if (in.remaining() < 8 || in.getInt() != MAGIC)
+            throw new TopologyFormatException("não é um arquivo de topologia");
+        int version = in.getInt();
+        if (version != VERSION)
+            throw new TopologyFormatException("versão " + version + " não suportada (esperada " + VERSION + ")");
+
+        int deviceCount = readCount(in, "dispositivos");
+        int interfaceCount = readCount(in, "interfaces");
+        int routeCount = readCount(in, "rotas");
+
+        // Cada dispositivo ocupa ao menos MIN_DEVICE_BYTES: evita alocar a partir de um cabeçalho corrompido
+        if ((long) deviceCount * MIN_DEVICE_BYTES > in.remaining())
+            throw new BufferUnderflowException();
+
+        Device[] devices = new Device[deviceCount];
+        Set<Integer> ids = new HashSet<>(deviceCount * 2);
+        byte[] nameBytes = new byte[64];
+        for (int i = 0; i < deviceCount; i++) {
+            byte type = in.get();
+            int id = in.getInt();
+            if (!ids.add(id))
+                throw new TopologyFormatException("ID de dispositivo repetido: " + id);
+            int x = in.getInt();
+            int y = in.getInt();
+            int gateway = (type == TYPE_HOST) ? in.getInt() : 0;
+            int nameLength = in.getShort() & 0xFFFF;
+            if (nameLength > nameBytes.length)
+                nameBytes = new byte[Math.max(nameLength, nameBytes.length * 2)];
+            in.get(nameBytes, 0, nameLength);
+            String name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+
+            if (type == TYPE_HOST) {
+                devices[i] = new Host(id, name, x, y, gateway);
+            } else if (type == TYPE_ROUTER) {
+                devices[i] = new Router(id, name, x, y);
+            } else {
+                throw new TopologyFormatException("tipo de dispositivo desconhecido: " + type);
+            }
+        }
+
+        int interfacesRead = 0;
+        for (int i = 0; i < deviceCount; i++) {
+            int count = readCount(in, "interfaces de " + devices[i].getName());
+            for (int j = 0; j < count; j++) {
+                int address = in.getInt();
+                int mask = in.getInt();
+                int neighbor = in.getInt();
+                if (neighbor < -1 || neighbor >= deviceCount)
+                    throw new TopologyFormatException("vizinho inválido em " + devices[i].getName() + ": " + neighbor);
+
+                NetworkInterface intf = newInterface(address, mask);
+                if (neighbor >= 0)
+                    intf.setNeighbor(devices[neighbor]);
+                if (!devices[i].addInterface(intf))
+                    throw new TopologyFormatException("interface repetida em " + devices[i].getName()
+                            + ": " + Ipv4Address.toString(address));
+            }
+            interfacesRead += count;
+        }
+        if (interfacesRead != interfaceCount)
+            throw new TopologyFormatException("esperadas " + interfaceCount + " interfaces, lidas " + interfacesRead);
+
+        int routesRead = 0;
+        for (int i = 0; i < deviceCount; i++) {
+            if (!(devices[i] instanceof Router)) continue;
+            Router router = (Router) devices[i];
+            int count = readCount(in, "rotas de " + router.getName());
+            for (int j = 0; j < count; j++) {
+                int network = in.getInt();
+                int mask = in.getInt();
+                int nextHop = in.getInt();
+                int outputInterface = in.getInt();
+                router.addRoute(newRoute(network, mask, nextHop, outputInterface));
+            }
+            routesRead += count;
+        }
+        if (routesRead != routeCount)
+            throw new TopologyFormatException("esperadas " + routeCount + " rotas, lidas " + routesRead);
+
+        return devices;
+    }
+
+    private static int readCount(MappedByteBuffer in, String what) throws TopologyFormatException {
+        int count = in.getInt();
+        if (count < 0)
+            throw new TopologyFormatException("quantidade inválida de " + what + ": " + count);
+        return count;
+    }
+
+    private static NetworkInterface newInterface(int address, int mask) throws TopologyFormatException {
+        try {
+            return new NetworkInterface(address, mask);
+        } catch (InvalidMaskException e) {
+            throw new TopologyFormatException(e.getMessage(), e);
+        }
+    }
+
+    private static RouteEntry newRoute(int network, int mask, int nextHop, int outputInterface) throws TopologyFormatException {
+        try {
+            return new RouteEntry(network, mask, nextHop, outputInterface);
+        } catch (InvalidMaskException e) {
+            throw new TopologyFormatException(e.getMessage(), e);
+        }
+    }
+}
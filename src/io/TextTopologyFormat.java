@@ -0,0 +1,338 @@
+package io;
+
+import exceptions.InvalidIpException;
+import exceptions.InvalidMaskException;
+import exceptions.TopologyFormatException;
+import models.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato texto da topologia, uma instrução por linha, para ser editado à
+ * mão ou gerado por ferramentas. '#' inicia comentário.
+ *
+ *   version 1
+ *   host   NOME X Y GATEWAY
+ *   router NOME X Y
+ *   iface  NOME IP MASCARA [VIZINHO]
+ *   link   NOME1 IP1 MASCARA1 NOME2 IP2 MASCARA2
+ *   route  ROUTER REDE MASCARA PROXIMO_SALTO INDICE_INTERFACE
+ *
+ * Dispositivos são referenciados pelo nome (único, sem espaços) e precisam
+ * ter sido declarados em uma linha anterior. As interfaces de cada
+ * dispositivo ficam na ordem em que aparecem, que é a usada pelo
+ * INDICE_INTERFACE das rotas. 'link' cria as duas pontas de um enlace de uma
+ * vez (como no cenário do HeadlessRunner); 'iface' cria uma interface com
+ * vizinho opcional.
+ *
+ * A leitura é feita linha a linha, criando os objetos à medida que as linhas
+ * chegam; o arquivo nunca fica inteiro em memória. Endereços são validados
+ * sem alocar (Ipv4Address.tryParse) e qualquer erro vira uma
+ * TopologyFormatException com o número da linha e, quando for o caso, a
+ * InvalidIpException/InvalidMaskException como causa. O NetworkMap só é
+ * alterado depois que o arquivo inteiro foi aceito: os dispositivos recebem
+ * IDs provisórios, em sequência a partir do próximo ID livre do mapa, que só
+ * passam a contar no mapa quando eles são adicionados (um arquivo rejeitado
+ * não consome IDs).
+ */
+public final class TextTopologyFormat {
+
+    public static final int VERSION = 1;
+
+    private static final int MAX_FIELDS = 8;
+
+    private TextTopologyFormat() {
+    }
+
+    // ============================
+    // EXPORTAÇÃO
+    // ============================
+
+    public static void save(NetworkMap map, Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(map, out);
+        }
+    }
+
+    public static void write(NetworkMap map, Writer out) throws IOException {
+        Device[] devices = map.getDevices();
+        int deviceCount = map.getDeviceCount();
+
+        // Os nomes são as referências do formato: precisam ser únicos e sem espaços
+        Map<String, Device> names = new HashMap<>(deviceCount * 2);
+        for (int i = 0; i < deviceCount; i++) {
+            String name = devices[i].getName();
+            if (name.isEmpty() || hasWhitespace(name))
+                throw new IOException("Nome sem representação no formato texto: '" + name + "'");
+            if (names.putIfAbsent(name, devices[i]) != null)
+                throw new IOException("Nome de dispositivo repetido: " + name);
+        }
+
+        out.write("# Topologia: " + deviceCount + " dispositivos\n");
+        out.write("version " + VERSION + "\n");
+
+        StringBuilder line = new StringBuilder(96);
+        for (int i = 0; i < deviceCount; i++) {
+            Device d = devices[i];
+            line.setLength(0);
+            if (d instanceof Host) {
+                line.append("host ").append(d.getName()).append(' ').append(d.getX()).append(' ').append(d.getY())
+                    .append(' ').append(Ipv4Address.toString(((Host) d).getGateway()));
+            } else if (d instanceof Router) {
+                line.append("router ").append(d.getName()).append(' ').append(d.getX()).append(' ').append(d.getY());
+            } else {
+                throw new IOException("Tipo de dispositivo não suportado: " + d.getClass().getName());
+            }
+            out.append(line).append('\n');
+        }
+
+        for (int i = 0; i < deviceCount; i++) {
+            Device d = devices[i];
+            for (int j = 0; j < d.getInterfaceCount(); j++) {
+                NetworkInterface intf = d.getInterface(j);
+                line.setLength(0);
+                line.append("iface ").append(d.getName()).append(' ')
+                    .append(Ipv4Address.toString(intf.getAddress())).append(' ')
+                    .append(Ipv4Address.toString(intf.getMask()));
+                Device neighbor = intf.getNeighbor();
+                if (neighbor != null && names.get(neighbor.getName()) == neighbor)
+                    line.append(' ').append(neighbor.getName());
+                out.append(line).append('\n');
+            }
+        }
+
+        for (int i = 0; i < deviceCount; i++) {
+            if (!(devices[i] instanceof Router)) continue;
+            Router router = (Router) devices[i];
+            List<RouteEntry> routes = router.getRoutingTable();
+            for (RouteEntry route : routes) {
+                line.setLength(0);
+                line.append("route ").append(router.getName()).append(' ')
+                    .append(Ipv4Address.toString(route.network)).append(' ')
+                    .append(Ipv4Address.toString(route.mask)).append(' ')
+                    .append(Ipv4Address.toString(route.nextHop)).append(' ')
+                    .append(route.outputInterfaceIndex);
+                out.append(line).append('\n');
+            }
+        }
+    }
+
+    private static boolean hasWhitespace(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isWhitespace(s.charAt(i)) || s.charAt(i) == '#')
+                return true;
+        }
+        return false;
+    }
+
+    // ============================
+    // IMPORTAÇÃO
+    // ============================
+
+    /**
+     * Substitui o conteúdo do mapa pela topologia do arquivo. Se o arquivo
+     * tiver algum erro, o mapa não é alterado.
+     */
+    public static void load(Path file, NetworkMap map) throws IOException, TopologyFormatException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            read(in, file.toString(), map);
+        }
+    }
+
+    public static void read(Reader reader, String source, NetworkMap map) throws IOException, TopologyFormatException {
+        BufferedReader in = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+        Parser parser = new Parser(source, map);
+        String line;
+        while ((line = in.readLine()) != null)
+            parser.parseLine(line);
+
+        map.clear();
+        for (Device d : parser.devices.values())
+            map.addDevice(d);
+    }
+
+    // Estado da leitura de um arquivo: dispositivos já declarados e a linha atual
+    private static final class Parser {
+        final String source;
+        final NetworkMap map;
+        final Map<String, Device> devices = new LinkedHashMap<>();
+        // ID provisório do primeiro dispositivo; os demais seguem a ordem de declaração
+        final int firstId;
+
+        String line;
+        int lineNumber = 0;
+        // Início e fim de cada campo da linha atual (sem criar substrings)
+        final int[] starts = new int[MAX_FIELDS];
+        final int[] ends = new int[MAX_FIELDS];
+        int fieldCount;
+
+        Parser(String source, NetworkMap map) {
+            this.source = source;
+            this.map = map;
+            this.firstId = map.peekDeviceId();
+        }
+
+        void parseLine(String text) throws TopologyFormatException {
+            lineNumber++;
+            line = text;
+            if (!split()) return;
+
+            if (is(0, "host")) {
+                requireFields(5, 5);
+                String name = declare(1);
+                devices.put(name, new Host(firstId + devices.size(), name, integer(2), integer(3), address(4)));
+            } else if (is(0, "router")) {
+                requireFields(4, 4);
+                String name = declare(1);
+                devices.put(name, new Router(firstId + devices.size(), name, integer(2), integer(3)));
+            } else if (is(0, "iface")) {
+                requireFields(4, 5);
+                Device d = device(1);
+                NetworkInterface intf = newInterface(address(2), mask(3));
+                if (fieldCount == 5)
+                    intf.setNeighbor(device(4));
+                addInterface(d, intf, 2);
+            } else if (is(0, "link")) {
+                requireFields(7, 7);
+                Device d1 = device(1);
+                Device d2 = device(4);
+                NetworkInterface intf1 = newInterface(address(2), mask(3));
+                NetworkInterface intf2 = newInterface(address(5), mask(6));
+                intf1.setNeighbor(d2);
+                intf2.setNeighbor(d1);
+                addInterface(d1, intf1, 2);
+                addInterface(d2, intf2, 5);
+            } else if (is(0, "route")) {
+                requireFields(6, 6);
+                Device d = device(1);
+                if (!(d instanceof Router))
+                    throw error(field(1) + " não é um Router", null);
+                int network = address(2);
+                int mask = mask(3);
+                int nextHop = address(4);
+                int outputInterface = integer(5);
+                if (outputInterface < 0)
+                    throw error("índice de interface inválido: " + outputInterface, null);
+                ((Router) d).addRoute(newRoute(network, mask, nextHop, outputInterface));
+            } else if (is(0, "version")) {
+                requireFields(2, 2);
+                int version = integer(1);
+                if (version != VERSION)
+                    throw error("versão " + version + " não suportada (esperada " + VERSION + ")", null);
+            } else {
+                throw error("instrução desconhecida '" + field(0) + "'", null);
+            }
+        }
+
+        // Separa a linha em campos; devolve false para linhas vazias ou só com comentário
+        private boolean split() throws TopologyFormatException {
+            int length = line.indexOf('#');
+            if (length < 0) length = line.length();
+            fieldCount = 0;
+            int i = 0;
+            while (true) {
+                while (i < length && Character.isWhitespace(line.charAt(i))) i++;
+                if (i == length) break;
+                if (fieldCount == MAX_FIELDS)
+                    throw error("campos demais", null);
+                starts[fieldCount] = i;
+                while (i < length && !Character.isWhitespace(line.charAt(i))) i++;
+                ends[fieldCount++] = i;
+            }
+            return fieldCount > 0;
+        }
+
+        private boolean is(int index, String keyword) {
+            int length = ends[index] - starts[index];
+            return length == keyword.length() && line.regionMatches(starts[index], keyword, 0, length);
+        }
+
+        private String field(int index) {
+            return line.substring(starts[index], ends[index]);
+        }
+
+        private void requireFields(int min, int max) throws TopologyFormatException {
+            if (fieldCount < min || fieldCount > max) {
+                String expected = (min == max) ? String.valueOf(min - 1) : (min - 1) + " a " + (max - 1);
+                throw error("'" + field(0) + "' espera " + expected + " argumentos", null);
+            }
+        }
+
+        private String declare(int index) throws TopologyFormatException {
+            String name = field(index);
+            if (devices.containsKey(name))
+                throw error("dispositivo já declarado: " + name, null);
+            return name;
+        }
+
+        private Device device(int index) throws TopologyFormatException {
+            Device d = devices.get(field(index));
+            if (d == null)
+                throw error("dispositivo não declarado: " + field(index), null);
+            return d;
+        }
+
+        private int integer(int index) throws TopologyFormatException {
+            try {
+                return Integer.parseInt(line, starts[index], ends[index], 10);
+            } catch (NumberFormatException e) {
+                throw error("número inválido: " + field(index), e);
+            }
+        }
+
+        private int address(int index) throws TopologyFormatException {
+            long value = Ipv4Address.tryParse(line, starts[index], ends[index]);
+            if (value == Ipv4Address.INVALID) {
+                InvalidIpException cause = new InvalidIpException(field(index));
+                throw error(cause.getMessage(), cause);
+            }
+            return (int) value;
+        }
+
+        private int mask(int index) throws TopologyFormatException {
+            long value = Ipv4Address.tryParse(line, starts[index], ends[index]);
+            if (value == Ipv4Address.INVALID || !Ipv4Address.isContiguousMask((int) value)) {
+                InvalidMaskException cause = new InvalidMaskException(field(index));
+                throw error(cause.getMessage(), cause);
+            }
+            return (int) value;
+        }
+
+        private NetworkInterface newInterface(int address, int mask) throws TopologyFormatException {
+            try {
+                return new NetworkInterface(address, mask);
+            } catch (InvalidMaskException e) {
+                throw error(e.getMessage(), e);
+            }
+        }
+
+        private RouteEntry newRoute(int network, int mask, int nextHop, int outputInterface) throws TopologyFormatException {
+            try {
+                return new RouteEntry(network, mask, nextHop, outputInterface);
+            } catch (InvalidMaskException e) {
+                throw error(e.getMessage(), e);
+            }
+        }
+
+        private void addInterface(Device d, NetworkInterface intf, int addressField) throws TopologyFormatException {
+            if (!d.addInterface(intf))
+                throw error("interface rejeitada em " + d.getName() + " (endereço ou vizinho repetido): "
+                        + field(addressField), null);
+        }
+
+        private TopologyFormatException error(String message, Throwable cause) {
+            return new TopologyFormatException(source, lineNumber, message, cause);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io;
+
+import exceptions.TopologyFormatException;
+import models.NetworkMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Escolhe entre o formato binário e o texto: na leitura pelo conteúdo do
+ * arquivo (número mágico), na gravação pela extensão (".txt" = texto).
+ */
+public final class TopologyFiles {
+
+    private TopologyFiles() {
+    }
+
+    public static void load(Path file, NetworkMap map) throws IOException, TopologyFormatException {
+        if (isBinary(file)) {
+            BinaryTopologyFormat.load(file, map);
+        } else {
+            TextTopologyFormat.load(file, map);
+        }
+    }
+
+    public static void save(NetworkMap map, Path file) throws IOException {
+        if (file.getFileName().toString().toLowerCase().endsWith(".txt")) {
+            TextTopologyFormat.save(map, file);
+        } else {
+            BinaryTopologyFormat.save(map, file);
+        }
+    }
+
+    public static boolean isBinary(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(4);
+            if (header.length < 4) return false;
+            int magic = (header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8 | (header[3] & 0xFF);
+            return magic == BinaryTopologyFormat.MAGIC;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package models;
 
 import java.awt.Graphics;
 import java.awt.Image;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import javax.swing.ImageIcon; 
 
 public abstract class Device {
@@ -11,46 +14,76 @@ public abstract class Device {
     private final int x;
     private final int y;
 
-    private static final int MAX_INTERFACES = 8;
+    private static final int INITIAL_INTERFACE_CAPACITY = 4;
     
     
     protected final int DEVICE_SIZE = 40; 
-    protected Image deviceImage;
 
-    private final NetworkInterface[] interfaces;
+    // Caminho do ícone; a imagem só é carregada no primeiro desenho, de modo
+    // que a simulação sem interface gráfica nunca inicializa o AWT
+    private final String imagePath;
+
+    // Ícones já carregados, compartilhados por todos os dispositivos do mesmo tipo
+    private static final Map<String, Image> IMAGE_CACHE = new HashMap<>();
+
+    private NetworkInterface[] interfaces;
     private int interfaceCount = 0;
 
+    // Mapa em que o dispositivo está cadastrado (null enquanto não for adicionado)
+    NetworkMap owner;
+    // Posição no array de dispositivos do NetworkMap (-1 se não cadastrado)
+    int mapSlot = -1;
+    // Posição na célula do índice espacial do NetworkMap (-1 se não cadastrado)
+    int gridSlot = -1;
+    // Pacotes descartados aqui por TTL esgotado (sinal de laço passando por este dispositivo)
+    private long ttlExpiredCount = 0;
+
 
     public Device(int id, String name, int x, int y) {
+        this(id, name, x, y, null);
+    }
+
+
+    protected Device(int id, String name, int x, int y, String imagePath) {
         this.id = id;
         this.name = name;
         this.x = x;
         this.y = y;
-        this.interfaces = new NetworkInterface[MAX_INTERFACES];
+        this.interfaces = new NetworkInterface[INITIAL_INTERFACE_CAPACITY];
+        this.imagePath = imagePath;
     }
 
 
-    protected Device(int id, String name, int x, int y, String imagePath) {
-        this(id, name, x, y); 
-        loadImage(imagePath);
+    // Chamado apenas a partir de draw(), na thread da interface gráfica
+    protected Image getDeviceImage() {
+        if (imagePath == null)
+            return null;
+        if (IMAGE_CACHE.containsKey(imagePath))
+            return IMAGE_CACHE.get(imagePath);
+
+        Image image = loadImage(imagePath);
+        IMAGE_CACHE.put(imagePath, image);
+        return image;
     }
 
 
-    private void loadImage(String imagePath) {
+    private Image loadImage(String imagePath) {
         try {
             java.net.URL imageUrl = getClass().getClassLoader().getResource(imagePath);
             if (imageUrl != null) {
-                // Carrega a imagem e redimensiona para um tamanho fixo
+                // Carrega a imagem e redimensiona para um tamanho fixo. O ImageIcon
+                // externo espera o redimensionamento terminar, para que a imagem já
+                // esteja completa quando for desenhada na camada estática do painel
                 Image originalImage = new ImageIcon(imageUrl).getImage();
-                this.deviceImage = originalImage.getScaledInstance(DEVICE_SIZE, DEVICE_SIZE, Image.SCALE_SMOOTH);
+                return new ImageIcon(originalImage.getScaledInstance(DEVICE_SIZE, DEVICE_SIZE, Image.SCALE_SMOOTH)).getImage();
             } else {
                 // Se a imagem não for encontrada, imprime um erro
                 System.err.println("❌ Imagem não encontrada: " + imagePath + ". Usando fallback.");
             }
         } catch (Exception e) {
             System.err.println("❌ Erro ao carregar imagem '" + imagePath + "': " + e.getMessage());
-            this.deviceImage = null;
         }
+        return null;
     }
 
 
@@ -88,26 +121,45 @@ public abstract class Device {
     }
 
 
+    // Verifica se alguma interface do dispositivo tem o endereço 'address'
+    public boolean hasAddress(int address) {
+        for (int i = 0; i < interfaceCount; i++) {
+            if (interfaces[i].getAddress() == address)
+                return true;
+        }
+        return false;
+    }
+
+
     public int getDeviceSize() {
         return DEVICE_SIZE;
     }
 
     public boolean addInterface(NetworkInterface netInterface) {
-        if (interfaceCount >= MAX_INTERFACES)
-            return false;
-
         for (int i = 0; i < interfaceCount; i++) {
             NetworkInterface ni = interfaces[i];
-            if (ni.getIpAddress().equals(netInterface.getIpAddress()) ||
+            if (ni.getAddress() == netInterface.getAddress() ||
                 ni.getNeighbor() == netInterface.getNeighbor())
                 return false;
         }
 
+        if (interfaceCount == interfaces.length)
+            interfaces = Arrays.copyOf(interfaces, interfaceCount * 2);
         interfaces[interfaceCount] = netInterface;
         interfaceCount++;
+        netInterface.device = this;
+        if (owner != null)
+            owner.indexInterface(this, netInterface);
         return true;
     }
 
+    // Memória estimada do dispositivo sem as interfaces (objeto, nome e array de interfaces)
+    long estimateMemory() {
+        return MemoryFootprint.shallowSize(getClass())
+                + MemoryFootprint.stringSize(name)
+                + MemoryFootprint.referenceArraySize(interfaces.length);
+    }
+
     public NetworkInterface findInterfaceByNeighbor(Device neighbor) {
         for (int i = 0; i < interfaceCount; i++) {
             if (interfaces[i].getNeighbor() == neighbor)
@@ -116,8 +168,58 @@ public abstract class Device {
         return null;
     }
 
+    // Mapa em que o dispositivo está cadastrado (ou a instância global)
+    protected NetworkMap map() {
+        return (owner != null) ? owner : NetworkMap.getInstance();
+    }
+
+    // Registra um evento deste dispositivo no log da simulação
+    protected void logEvent(SimulationLog.Type type, Packet packet, Device other, int address) {
+        NetworkMap map = map();
+        map.getLog().record(type, map.getSimulationTime(), packet.getId(), this, other, address);
+    }
+
+    // Descarte por TTL esgotado, comum a Host e Router (chamado em apply)
+    protected void expireTtl(Packet packet) {
+        logEvent(SimulationLog.Type.DROP_TTL_EXCEEDED, packet, null, packet.getDestinationAddress());
+        ttlExpiredCount++;
+        map().recordTtlExpired(this, packet);
+        packet.endSimulation();
+    }
+
+    public long getTtlExpiredCount() {
+        return ttlExpiredCount;
+    }
+
+    /**
+     * Processa um pacote recebido: decide o próximo salto, aplica a decisão
+     * e coloca o pacote na fila da interface de saída. A simulação paralela
+     * executa as etapas separadamente.
+     */
+    public void processPacket(Packet packet) {
+        NetworkMap map = packet.getNetworkMap();
+        HopDecision decision = map.injectionDecision();
+        decide(packet, decision);
+        apply(packet, decision);
+        map.transmit(packet, decision.outgoingInterface);
+    }
+
     // Métodos abstratos
-    public abstract void processPacket(Packet packet);
+
+    // Decide o destino do pacote lendo apenas o estado da rede (seguro para threads)
+    protected void decide(Packet packet, HopDecision decision) {
+        decide(packet.getSourceAddress(), packet.getDestinationAddress(), decision);
+        // Todo encaminhamento consome um salto do TTL; sem saldo o pacote é descartado aqui
+        if (decision.outcome == HopDecision.Outcome.FORWARD && packet.getTtl() == 0)
+            decision.outcome = HopDecision.Outcome.DROP_TTL_EXCEEDED;
+    }
+
+    // Decisão para um fluxo, sem pacote (também usada pela análise de alcançabilidade);
+    // a origem só importa para o ECMP
+    protected abstract void decide(int source, int destination, HopDecision decision);
+
+    // Aplica a decisão ao pacote (sempre sequencial, na ordem dos eventos)
+    protected abstract void apply(Packet packet, HopDecision decision);
 
     public abstract void draw(Graphics g);
 }
\ No newline at end of file
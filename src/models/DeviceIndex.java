@@ -0,0 +1,123 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Índice IP (int) -> Device com endereçamento aberto e sondagem linear.
+ *
+ * As chaves ficam em um int[] (sem boxing); uma posição é considerada livre
+ * quando o valor correspondente é null. A remoção usa deslocamento para trás,
+ * de modo que nenhuma marca de remoção ("tombstone") é necessária.
+ */
+class DeviceIndex {
+
+    private static final int INITIAL_CAPACITY = 64; // potência de 2
+
+    private int[] keys;
+    private Device[] values;
+    private int size = 0;
+
+    DeviceIndex() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.values = new Device[INITIAL_CAPACITY];
+    }
+
+    Device get(int address) {
+        int mask = keys.length - 1;
+        for (int i = slotOf(address, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == address)
+                return values[i];
+        }
+        return null;
+    }
+
+    /**
+     * Associa o endereço ao dispositivo, caso ainda não esteja associado.
+     * Em IPs duplicados prevalece o primeiro dispositivo cadastrado,
+     * como na busca sequencial.
+     */
+    boolean putIfAbsent(int address, Device device) {
+        if ((size + 1) * 2 > keys.length)
+            resize(keys.length * 2);
+
+        int mask = keys.length - 1;
+        int i = slotOf(address, mask);
+        while (values[i] != null) {
+            if (keys[i] == address)
+                return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = address;
+        values[i] = device;
+        size++;
+        return true;
+    }
+
+    // Remove a entrada apenas se ela apontar para 'device'
+    boolean remove(int address, Device device) {
+        int mask = keys.length - 1;
+        int i = slotOf(address, mask);
+        while (values[i] != null) {
+            if (keys[i] == address) {
+                if (values[i] != device)
+                    return false;
+                deleteSlot(i);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // Desloca para trás as entradas seguintes que dependiam da posição liberada
+    private void deleteSlot(int hole) {
+        int mask = keys.length - 1;
+        values[hole] = null;
+        size--;
+
+        int i = (hole + 1) & mask;
+        while (values[i] != null) {
+            int home = slotOf(keys[i], mask);
+            // A entrada pode ocupar o buraco se 'home' não estiver entre (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                values[i] = null;
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        Device[] oldValues = values;
+        keys = new int[newCapacity];
+        values = new Device[newCapacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null)
+                putIfAbsent(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    // Espalha os bits do endereço (finalizador do MurmurHash3)
+    private static int slotOf(int key, int mask) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
@@ -0,0 +1,191 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Agenda de eventos discretos: um heap binário mínimo ordenado por
+ * (instante, ordem de agendamento).
+ *
+ * O heap é mantido em arrays paralelos para não alocar um nó por evento.
+ * Eventos agendados para o mesmo instante disparam na ordem em que foram
+ * agendados, o que torna a simulação determinística.
+ */
+public class EventScheduler {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private SimulationEvent[] events = new SimulationEvent[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private long nextSequence = 0;
+    private long now = 0;
+    private long eventsFired = 0;
+
+    // ============================
+    // AGENDAMENTO
+    // ============================
+
+    public void schedule(long time, SimulationEvent event) {
+        if (time < now)
+            throw new IllegalArgumentException("Evento no passado: " + time + " < " + now);
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+            events = Arrays.copyOf(events, capacity);
+        }
+        siftUp(size++, time, nextSequence++, event);
+    }
+
+    public void scheduleAfter(long delay, SimulationEvent event) {
+        schedule(now + delay, event);
+    }
+
+    // ============================
+    // EXECUÇÃO
+    // ============================
+
+    /**
+     * Dispara todos os eventos com instante <= 'time' e avança o relógio até 'time'.
+     */
+    public void runUntil(long time) {
+        while (size > 0 && times[0] <= time) {
+            fireNext();
+        }
+        if (time > now)
+            now = time;
+    }
+
+    /**
+     * Dispara eventos até a agenda ficar vazia (execução sem interface gráfica).
+     */
+    public void runToCompletion() {
+        while (size > 0) {
+            fireNext();
+        }
+    }
+
+    private void fireNext() {
+        long time = times[0];
+        poll().fire(time);
+    }
+
+    /**
+     * Remove o próximo evento e avança o relógio até o seu instante, sem
+     * dispará-lo. Usado por quem processa eventos em lote (ParallelSimulation).
+     */
+    public SimulationEvent poll() {
+        long time = times[0];
+        SimulationEvent event = events[0];
+        removeHead();
+        now = time;
+        eventsFired++;
+        return event;
+    }
+
+    // Avança o relógio sem disparar eventos (não pode ultrapassar o próximo evento)
+    public void advanceTo(long time) {
+        if (time > peekTime())
+            throw new IllegalArgumentException("Há eventos pendentes antes de " + time);
+        if (time > now)
+            now = time;
+    }
+
+    // Descarta todos os eventos e volta o relógio a zero
+    public void clear() {
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+        nextSequence = 0;
+        now = 0;
+        eventsFired = 0;
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+
+    public long now() {
+        return now;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getEventsFired() {
+        return eventsFired;
+    }
+
+    public long peekTime() {
+        return (size > 0) ? times[0] : Long.MAX_VALUE;
+    }
+
+    public SimulationEvent peekEvent() {
+        return (size > 0) ? events[0] : null;
+    }
+
+    // ============================
+    // HEAP
+    // ============================
+
+    private void removeHead() {
+        size--;
+        if (size == 0) {
+            events[0] = null;
+            return;
+        }
+        long time = times[size];
+        long sequence = sequences[size];
+        SimulationEvent event = events[size];
+        events[size] = null;
+        siftDown(0, time, sequence, event);
+    }
+
+    private void siftUp(int index, long time, long sequence, SimulationEvent event) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(time, sequence, times[parent], sequences[parent]))
+                break;
+            move(parent, index);
+            index = parent;
+        }
+        set(index, time, sequence, event);
+    }
+
+    private void siftDown(int index, long time, long sequence, SimulationEvent event) {
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && before(times[right], sequences[right], times[child], sequences[child]))
+                child = right;
+            if (!before(times[child], sequences[child], time, sequence))
+                break;
+            move(child, index);
+            index = child;
+        }
+        set(index, time, sequence, event);
+    }
+
+    private static boolean before(long timeA, long sequenceA, long timeB, long sequenceB) {
+        return timeA < timeB || (timeA == timeB && sequenceA < sequenceB);
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        sequences[to] = sequences[from];
+        events[to] = events[from];
+    }
+
+    private void set(int index, long time, long sequence, SimulationEvent event) {
+        times[index] = time;
+        sequences[index] = sequence;
+        events[index] = event;
+    }
+}
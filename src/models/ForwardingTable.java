@@ -0,0 +1,177 @@
+package models;
+
+/**
+ * Tabela de encaminhamento compilada (FIB) de um Router.
+ *
+ * Implementada como uma trie binária com compressão de caminho (Patricia),
+ * indexada pelo endereço IPv4 em formato int. A busca percorre no máximo
+ * 33 nós, independentemente do número de rotas instaladas.
+ */
+public class ForwardingTable {
+
+    // Nó da trie: representa o prefixo 'prefix/length'
+    private static final class Node {
+        final int prefix;
+        final int length;
+        RouteEntry entry;
+        Node zero;
+        Node one;
+
+        Node(int prefix, int length) {
+            this.prefix = prefix;
+            this.length = length;
+        }
+    }
+
+    private final Node root = new Node(0, 0);
+    private int size = 0;
+    private int nodeCount = 1;
+
+    // ============================
+    // INSERÇÃO
+    // ============================
+
+    /**
+     * Instala uma rota para 'network/prefixLength'.
+     * Se já existir uma rota para o mesmo prefixo, a primeira é mantida
+     * (mesmo critério de desempate da busca linear original) e o retorno é false.
+     */
+    public boolean insert(int network, int prefixLength, RouteEntry entry) {
+        int prefix = network & Ipv4Address.maskOf(prefixLength);
+        Node current = root;
+
+        while (true) {
+            if (current.length == prefixLength) {
+                if (current.entry != null)
+                    return false;
+                current.entry = entry;
+                size++;
+                return true;
+            }
+
+            int bit = bitAt(prefix, current.length);
+            Node child = (bit == 0) ? current.zero : current.one;
+
+            if (child == null) {
+                Node leaf = new Node(prefix, prefixLength);
+                leaf.entry = entry;
+                setChild(current, bit, leaf);
+                size++;
+                nodeCount++;
+                return true;
+            }
+
+            int common = commonLength(child.prefix, child.length, prefix, prefixLength);
+            if (common == child.length) {
+                current = child;
+                continue;
+            }
+
+            // Divide a aresta: cria um nó intermediário no ponto de divergência
+            Node split = new Node(prefix & Ipv4Address.maskOf(common), common);
+            setChild(split, bitAt(child.prefix, common), child);
+            if (common == prefixLength) {
+                split.entry = entry;
+            } else {
+                Node leaf = new Node(prefix, prefixLength);
+                leaf.entry = entry;
+                setChild(split, bitAt(prefix, common), leaf);
+                nodeCount++;
+            }
+            setChild(current, bit, split);
+            size++;
+            nodeCount++;
+            return true;
+        }
+    }
+
+    // ============================
+    // REMOÇÃO E TROCA
+    // ============================
+
+    /**
+     * Remove a rota de 'network/prefixLength' se for 'entry'. Os nós da trie
+     * são mantidos (um prefixo removido costuma ser reinstalado em seguida).
+     */
+    public boolean remove(int network, int prefixLength, RouteEntry entry) {
+        Node node = find(network, prefixLength);
+        if (node == null || node.entry != entry)
+            return false;
+        node.entry = null;
+        size--;
+        return true;
+    }
+
+    // Troca a rota instalada para o prefixo, se for 'old'
+    public boolean replace(int network, int prefixLength, RouteEntry old, RouteEntry replacement) {
+        Node node = find(network, prefixLength);
+        if (node == null || node.entry != old)
+            return false;
+        node.entry = replacement;
+        return true;
+    }
+
+    // Rota instalada para exatamente 'network/prefixLength' (null se não houver)
+    public RouteEntry get(int network, int prefixLength) {
+        Node node = find(network, prefixLength);
+        return (node == null) ? null : node.entry;
+    }
+
+    private Node find(int network, int prefixLength) {
+        int prefix = network & Ipv4Address.maskOf(prefixLength);
+        Node node = root;
+        while (node != null && node.length < prefixLength)
+            node = (bitAt(prefix, node.length) == 0) ? node.zero : node.one;
+        return (node != null && node.length == prefixLength && node.prefix == prefix) ? node : null;
+    }
+
+    // ============================
+    // BUSCA (LONGEST PREFIX MATCH)
+    // ============================
+
+    public RouteEntry lookup(int address) {
+        RouteEntry best = null;
+        Node node = root;
+
+        while (node != null) {
+            if ((address & Ipv4Address.maskOf(node.length)) != node.prefix)
+                break;
+            if (node.entry != null)
+                best = node.entry;
+            if (node.length == 32)
+                break;
+            node = (bitAt(address, node.length) == 0) ? node.zero : node.one;
+        }
+        return best;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Memória estimada da trie (nós + referências às rotas)
+    public long estimateMemory() {
+        return nodeCount * MemoryFootprint.shallowSize(Node.class);
+    }
+
+    // ============================
+    // UTILITÁRIOS DE BITS
+    // ============================
+
+    // Bit na posição 'index' contando a partir do bit mais significativo
+    private static int bitAt(int value, int index) {
+        return (value >>> (31 - index)) & 1;
+    }
+
+    private static int commonLength(int prefixA, int lengthA, int prefixB, int lengthB) {
+        int common = Integer.numberOfLeadingZeros(prefixA ^ prefixB);
+        return Math.min(common, Math.min(lengthA, lengthB));
+    }
+
+    private static void setChild(Node parent, int bit, Node child) {
+        if (bit == 0)
+            parent.zero = child;
+        else
+            parent.one = child;
+    }
+}
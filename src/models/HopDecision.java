@@ -0,0 +1,58 @@
+package models;
+
+/**
+ * Resultado da decisão de encaminhamento de um dispositivo para um pacote.
+ *
+ * Preenchido por Device.decide (sem efeitos colaterais, pode rodar em
+ * paralelo) e consumido por Device.apply (sequencial, altera o pacote).
+ * Os objetos são reaproveitados entre pacotes.
+ */
+public class HopDecision {
+
+    public enum Outcome {
+        FORWARD,                 // encaminhado para nextHop
+        DELIVER,                 // chegou ao destino final
+        DROP_NO_INTERFACE,       // Host sem interface configurada
+        DROP_LOCAL_NOT_FOUND,    // destino na sub-rede local não existe
+        DROP_NO_GATEWAY,         // gateway do Host não encontrado
+        DROP_NO_ROUTE,           // Router sem rota para o destino
+        DROP_INVALID_INTERFACE,  // rota aponta para interface inexistente
+        DROP_NEXT_HOP_NOT_FOUND, // próximo salto da rota não encontrado
+        DROP_TTL_EXCEEDED        // encaminharia, mas o TTL acabou (laço ou caminho longo demais)
+    }
+
+    // Decisões da análise de alcançabilidade não passam pelo cache de rotas
+    // (não distorcem as estatísticas do cache nem expulsam os destinos da simulação)
+    final boolean bypassRouteCache;
+
+    Outcome outcome;
+    Device nextHop;
+    NetworkInterface outgoingInterface;
+    RouteEntry route;
+    boolean viaGateway;
+    // A rota foi escolhida num grupo ECMP pelo hash do fluxo (depende da origem)
+    boolean multipath;
+
+    public HopDecision() {
+        this(false);
+    }
+
+    HopDecision(boolean bypassRouteCache) {
+        this.bypassRouteCache = bypassRouteCache;
+    }
+
+    void reset() {
+        outcome = null;
+        nextHop = null;
+        outgoingInterface = null;
+        route = null;
+        viaGateway = false;
+        multipath = false;
+    }
+
+    public Outcome getOutcome() { return outcome; }
+    public Device getNextHop() { return nextHop; }
+    public NetworkInterface getOutgoingInterface() { return outgoingInterface; }
+    public RouteEntry getRoute() { return route; }
+    public boolean isMultipath() { return multipath; }
+}
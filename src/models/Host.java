@@ -2,13 +2,21 @@ package models;
 
 import java.awt.Graphics;
 import java.awt.Color;
+import java.awt.Image;
+import exceptions.InvalidIpException;
 
 public class Host extends Device {
 
     // Endereço do Gateway que este Host usará para sair da rede local
-    private String gatewayAddress;
+    private int gatewayAddress;
+    // Gateway já resolvido, válido até a próxima mudança de topologia
+    private NextHopBinding gatewayBinding;
 
-    public Host(int id, String name, int x, int y, String gateway) {
+    public Host(int id, String name, int x, int y, String gateway) throws InvalidIpException {
+        this(id, name, x, y, Ipv4Address.parseInt(gateway));
+    }
+
+    public Host(int id, String name, int x, int y, int gateway) {
         super(id, name, x, y, "resources/host_icon.png");
         this.gatewayAddress = gateway;
     }
@@ -16,67 +24,83 @@ public class Host extends Device {
     // ==========================================================
     // POLIMORFISMO: Lógica de Processamento de Pacotes (Roteamento Básico)
     // ==========================================================
+
+    // Decide o destino do pacote sem alterá-lo (pode rodar em paralelo)
     @Override
-    public void processPacket(Packet packet) {
+    protected void decide(int source, int destination, HopDecision decision) {
         // Assume que o Host tem apenas 1 interface relevante (getInterface(0))
         NetworkInterface primaryInterface = getInterface(0);
+        decision.outgoingInterface = primaryInterface;
 
         if (primaryInterface == null) {
-            System.out.println("Host " + getName() + " sem interface. Descartando pacote.");
-            packet.endSimulation();
+            decision.outcome = HopDecision.Outcome.DROP_NO_INTERFACE;
             return;
         }
 
         // 1. Verificar se é o Destino Final
-        if (packet.getDestinationIp().equals(primaryInterface.getIpAddress())) {
-            System.out.println("Host " + getName() + " recebeu o pacote. SUCESSO!");
-            packet.endSimulation();
+        if (destination == primaryInterface.getAddress()) {
+            decision.outcome = HopDecision.Outcome.DELIVER;
             return;
         }
 
         // 2. Lógica de Encaminhamento: Local vs. Gateway
-        Device nextHopDevice = null;
-        String destinationIp = packet.getDestinationIp();
-
-        // ** Acessa a instância global do mapa para encontrar dispositivos **
-        NetworkMap map = NetworkMap.getInstance(); 
+        NetworkMap map = map();
 
         // **A:** Destino na Mesma Sub-rede (Envio Local)
-        if (NetworkInterface.sameSubnet(
-                primaryInterface.getIpAddress(),
-                primaryInterface.getSubnetMask(),
-                destinationIp)) {
-            
-            // CORREÇÃO: Busca o dispositivo de destino DENTRO do NetworkMap
-            nextHopDevice = map.findDeviceByIP(destinationIp);
-            
-            if (nextHopDevice != null) {
-                System.out.println("Host " + getName() + " enviando para o destino local: " + nextHopDevice.getName() + " (Sub-rede local).");
-            } else {
-                System.out.println("Host " + getName() + ": Destino local não encontrado. Descartando pacote.");
-            }
+        if (primaryInterface.isInSubnet(destination)) {
+            decision.nextHop = map.findDeviceByIP(destination);
+            decision.outcome = (decision.nextHop != null)
+                    ? HopDecision.Outcome.FORWARD
+                    : HopDecision.Outcome.DROP_LOCAL_NOT_FOUND;
         }
         // **B:** Destino Fora da Sub-rede (Envio para o Gateway)
         else {
-            // CORREÇÃO: Busca o dispositivo Gateway DENTRO do NetworkMap
-            nextHopDevice = map.findDeviceByIP(this.gatewayAddress);
-
-            if (nextHopDevice != null) {
-                System.out.println("Host " + getName() + " enviando para o Gateway: " + nextHopDevice.getName() + " (" + gatewayAddress + ").");
-            } else {
-                System.out.println("Host " + getName() + ": Gateway indisponível/não encontrado. Descartando pacote.");
-            }
+            decision.viaGateway = true;
+            gatewayBinding = NextHopBinding.resolve(gatewayBinding, this, primaryInterface, gatewayAddress);
+            decision.nextHop = gatewayBinding.device;
+            decision.outcome = (decision.nextHop != null)
+                    ? HopDecision.Outcome.FORWARD
+                    : HopDecision.Outcome.DROP_NO_GATEWAY;
         }
+    }
 
-        // 3. Execução do Salto
-        if (nextHopDevice != null) {
-            // Seta o próximo nó de rede e o nó atual para a animação do NetworkMap
-            packet.setNextHop(nextHopDevice);
-            packet.setCurrentDevice(this); 
-            // O NetworkMap.tickSimulation() fará o pacote "andar" até o nextHopDevice
-        } else {
-            // Se o pacote não era para ele e não tem para onde ir, descarta
-            packet.endSimulation();
+    // Executa a decisão: registra o evento e atualiza o pacote
+    @Override
+    protected void apply(Packet packet, HopDecision decision) {
+        switch (decision.outcome) {
+            case DROP_NO_INTERFACE:
+                logEvent(SimulationLog.Type.DROP_NO_INTERFACE, packet, null, 0);
+                packet.endSimulation();
+                break;
+            case DELIVER:
+                logEvent(SimulationLog.Type.DELIVER, packet, null, 0);
+                packet.deliver();
+                break;
+            case DROP_LOCAL_NOT_FOUND:
+                logEvent(SimulationLog.Type.DROP_LOCAL_NOT_FOUND, packet, null, packet.getDestinationAddress());
+                packet.endSimulation();
+                break;
+            case DROP_NO_GATEWAY:
+                logEvent(SimulationLog.Type.DROP_NO_GATEWAY, packet, null, gatewayAddress);
+                packet.endSimulation();
+                break;
+            case FORWARD:
+                Device nextHopDevice = decision.nextHop;
+                if (decision.viaGateway) {
+                    logEvent(SimulationLog.Type.FORWARD_GATEWAY, packet, nextHopDevice, gatewayAddress);
+                } else {
+                    logEvent(SimulationLog.Type.FORWARD_LOCAL, packet, nextHopDevice, packet.getDestinationAddress());
+                }
+                // Seta o próximo nó de rede e o nó atual; o NetworkMap agenda a chegada
+                packet.setNextHop(nextHopDevice);
+                packet.setCurrentDevice(this);
+                break;
+            case DROP_TTL_EXCEEDED:
+                expireTtl(packet);
+                break;
+            default:
+                packet.endSimulation();
+                break;
         }
     }
 
@@ -88,6 +112,7 @@ public class Host extends Device {
         int drawX = getX() - DEVICE_SIZE / 2;
         int drawY = getY() - DEVICE_SIZE / 2;
 
+        Image deviceImage = getDeviceImage();
         if (deviceImage != null) {
             // Desenha a imagem centralizada no ponto (x, y)
             g.drawImage(deviceImage, drawX, drawY, null);
@@ -104,10 +129,15 @@ public class Host extends Device {
 
     // Getters e Setters
     public String getGatewayAddress() {
+        return Ipv4Address.toString(gatewayAddress);
+    }
+
+    public int getGateway() {
         return gatewayAddress;
     }
 
-    public void setGatewayAddress(String gatewayAddress) {
-        this.gatewayAddress = gatewayAddress;
+    public void setGatewayAddress(String gatewayAddress) throws InvalidIpException {
+        this.gatewayAddress = Ipv4Address.parseInt(gatewayAddress);
+        this.gatewayBinding = null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package models;
+
+import exceptions.InvalidIpException;
+import exceptions.InvalidMaskException;
+
+/**
+ * Endereço IPv4 imutável, armazenado como um int (octeto mais significativo
+ * primeiro).
+ *
+ * Os métodos estáticos operam diretamente sobre o int e são usados no
+ * caminho de encaminhamento, sem alocação. A instância serve para quem
+ * precisa de um objeto (coleções, igualdade, exibição).
+ */
+public final class Ipv4Address {
+
+    public static final int ANY = 0; // 0.0.0.0
+
+    private final int value;
+
+    private Ipv4Address(int value) {
+        this.value = value;
+    }
+
+    public static Ipv4Address of(int value) {
+        return new Ipv4Address(value);
+    }
+
+    public static Ipv4Address parse(String ip) throws InvalidIpException {
+        return new Ipv4Address(parseInt(ip));
+    }
+
+    public int intValue() {
+        return value;
+    }
+
+    // ============================
+    // CONVERSÃO
+    // ============================
+
+    // Retorno de tryParse para texto inválido
+    public static final long INVALID = -1L;
+
+    /**
+     * Converte a notação decimal pontuada para int.
+     */
+    public static int parseInt(String ip) throws InvalidIpException {
+        long value = tryParse(ip);
+        if (value == INVALID)
+            throw new InvalidIpException(ip);
+        return (int) value;
+    }
+
+    /**
+     * Converte uma máscara em notação decimal pontuada para int,
+     * exigindo bits '1' contíguos.
+     */
+    public static int parseMask(String mask) throws InvalidMaskException {
+        long value = tryParse(mask);
+        if (value == INVALID || !isContiguousMask((int) value))
+            throw new InvalidMaskException(mask);
+        return (int) value;
+    }
+
+    public static long tryParse(CharSequence text) {
+        return (text == null) ? INVALID : tryParse(text, 0, text.length());
+    }
+
+    /**
+     * Lê um endereço IPv4 literal em text[start, end) em uma única passada,
+     * sem alocar e sem consultar DNS. Aceita só a forma canônica: quatro
+     * octetos decimais de 0 a 255, sem zeros à esquerda nem espaços.
+     *
+     * @return o endereço nos 32 bits menos significativos, ou INVALID
+     */
+    public static long tryParse(CharSequence text, int start, int end) {
+        if (end - start < 7 || end - start > 15)
+            return INVALID;
+
+        int value = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits > 0 && octet == 0)
+                    return INVALID; // zero à esquerda
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255)
+                    return INVALID;
+            } else if (c == '.') {
+                if (digits == 0 || ++dots > 3)
+                    return INVALID;
+                value = (value << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return INVALID;
+            }
+        }
+        if (digits == 0 || dots != 3)
+            return INVALID;
+        return ((value << 8) | octet) & 0xFFFFFFFFL;
+    }
+
+    public static boolean isValid(CharSequence ip) {
+        return tryParse(ip) != INVALID;
+    }
+
+    public static boolean isValidMask(CharSequence mask) {
+        long value = tryParse(mask);
+        return value != INVALID && isContiguousMask((int) value);
+    }
+
+    public static String toString(int address) {
+        return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "."
+                + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    // ============================
+    // OPERAÇÕES DE BITS
+    // ============================
+
+    public static boolean isContiguousMask(int mask) {
+        // Uma máscara válida, invertida, é da forma 0...01...1
+        int inverted = ~mask;
+        return (inverted & (inverted + 1)) == 0;
+    }
+
+    public static int prefixLength(int mask) {
+        return Integer.bitCount(mask);
+    }
+
+    public static int maskOf(int prefixLength) {
+        return (prefixLength == 0) ? 0 : (-1 << (32 - prefixLength));
+    }
+
+    public static boolean sameSubnet(int address1, int mask, int address2) {
+        return ((address1 ^ address2) & mask) == 0;
+    }
+
+    // ============================
+    // OBJECT
+    // ============================
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof Ipv4Address) && ((Ipv4Address) obj).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return toString(value);
+    }
+}
@@ -0,0 +1,120 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumo dos pacotes descartados por TTL esgotado, agrupados por destino
+ * (NetworkMap.getLoopReport, preenchido com a política DROP_AND_RECORD).
+ *
+ * Na primeira expiração de cada destino o caminho a partir do dispositivo
+ * que descartou é refeito com PathTrace: se for um laço, os dispositivos do
+ * ciclo ficam registrados; senão o caminho só era maior que o TTL. Nomes são
+ * guardados em texto para que o relatório continue válido se os
+ * dispositivos forem removidos. Só os primeiros MAX_DESTINATIONS destinos
+ * são detalhados; os demais entram apenas no total.
+ */
+public class LoopReport {
+
+    public static final int MAX_DESTINATIONS = 1024;
+
+    public static final class Entry {
+        private final int destination;
+        private final String firstDevice;
+        private final List<String> cycle;
+        private final long firstTime;
+        private long lastTime;
+        private long packets;
+
+        Entry(int destination, String firstDevice, List<String> cycle, long time) {
+            this.destination = destination;
+            this.firstDevice = firstDevice;
+            this.cycle = cycle;
+            this.firstTime = time;
+            this.lastTime = time;
+        }
+
+        public int getDestination() { return destination; }
+        // Dispositivo onde o primeiro pacote para este destino expirou
+        public String getFirstDevice() { return firstDevice; }
+        // Dispositivos do laço, na ordem do encaminhamento (vazio se não há laço)
+        public List<String> getCycle() { return cycle; }
+        public boolean isLoop() { return !cycle.isEmpty(); }
+        public long getPackets() { return packets; }
+        public long getFirstTime() { return firstTime; }
+        public long getLastTime() { return lastTime; }
+
+        @Override
+        public String toString() {
+            return Ipv4Address.toString(destination) + ": " + packets + " pacotes (t=" + firstTime + ".." + lastTime + "), "
+                    + (isLoop() ? "laço " + String.join(" > ", cycle) + " > " + cycle.get(0)
+                                : "caminho maior que o TTL a partir de " + firstDevice);
+        }
+    }
+
+    private final Map<Integer, Entry> byDestination = new HashMap<>();
+    private long totalExpired = 0;
+    private long untrackedExpired = 0;
+
+    void record(Device device, int source, int destination, long time) {
+        totalExpired++;
+        Entry entry = byDestination.get(destination);
+        if (entry == null) {
+            if (byDestination.size() >= MAX_DESTINATIONS) {
+                untrackedExpired++;
+                return;
+            }
+            entry = new Entry(destination, device.getName(), cycleFrom(device, source, destination), time);
+            byDestination.put(destination, entry);
+        }
+        entry.packets++;
+        entry.lastTime = time;
+    }
+
+    // Ciclo do caminho atual a partir de 'device' (o trace termina repetindo o primeiro dispositivo do ciclo)
+    private static List<String> cycleFrom(Device device, int source, int destination) {
+        PathTrace trace = PathTrace.trace(device, source, destination);
+        if (trace.getStatus() != PathTrace.Status.LOOP)
+            return Collections.emptyList();
+        List<Device> path = trace.getPath();
+        Device repeated = path.get(path.size() - 1);
+        List<String> cycle = new ArrayList<>();
+        for (int i = path.indexOf(repeated); i < path.size() - 1; i++)
+            cycle.add(path.get(i).getName());
+        return Collections.unmodifiableList(cycle);
+    }
+
+    void clear() {
+        byDestination.clear();
+        totalExpired = 0;
+        untrackedExpired = 0;
+    }
+
+    public long getTotalExpired() { return totalExpired; }
+    // Expirações de destinos além de MAX_DESTINATIONS, sem detalhe
+    public long getUntrackedExpired() { return untrackedExpired; }
+
+    public int getLoopCount() {
+        int loops = 0;
+        for (Entry entry : byDestination.values()) {
+            if (entry.isLoop()) loops++;
+        }
+        return loops;
+    }
+
+    // Destinos em ordem decrescente de pacotes descartados
+    public List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>(byDestination.values());
+        entries.sort((a, b) -> Long.compare(b.packets, a.packets));
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return totalExpired + " pacotes com TTL esgotado, " + byDestination.size() + " destinos, "
+                + getLoopCount() + " laços";
+    }
+}
@@ -0,0 +1,71 @@
+package models;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estimativa do tamanho em memória das entidades do modelo.
+ *
+ * Calculada por reflexão a partir dos campos de instância, supondo uma JVM
+ * de 64 bits com referências comprimidas (cabeçalho de 12 bytes, referência
+ * de 4 bytes, alinhamento de 8). Não substitui um profiler, mas permite
+ * acompanhar o custo por dispositivo, interface, rota e pacote.
+ */
+public final class MemoryFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+
+    private static final Map<Class<?>, Long> SHALLOW_SIZES = new HashMap<>();
+
+    private MemoryFootprint() {
+    }
+
+    public static synchronized long shallowSize(Class<?> type) {
+        Long cached = SHALLOW_SIZES.get(type);
+        if (cached != null)
+            return cached;
+
+        long size = OBJECT_HEADER;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers()))
+                    size += fieldSize(f.getType());
+            }
+        }
+        size = align(size);
+        SHALLOW_SIZES.put(type, size);
+        return size;
+    }
+
+    public static long referenceArraySize(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    public static long primitiveArraySize(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) elementSize * length);
+    }
+
+    // String compacta (Latin-1): objeto String + byte[]
+    public static long stringSize(String s) {
+        if (s == null)
+            return 0;
+        return shallowSize(String.class) + primitiveArraySize(s.length(), 1);
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
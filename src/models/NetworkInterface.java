@@ -1,123 +1,133 @@
 package models;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import exceptions.InvalidIpException;
 import exceptions.InvalidMaskException;
 
 public class NetworkInterface {
 
+  // Endereços armazenados como int; as Strings são apenas visões para a GUI,
+  // montadas no primeiro uso quando a interface foi criada a partir de ints
+  private int address;
+  private int mask;
   private String ipAddress;
   private String subnetMask;
   private Device neighbor;
+  // Banda, latência e fila do sentido de saída; criada no primeiro uso com os valores padrão
+  private OutputQueue outputQueue;
+
+  // Dispositivo ao qual a interface pertence (definido em Device.addInterface)
+  Device device;
 
   public NetworkInterface(String ip, String mask) throws InvalidIpException, InvalidMaskException {
     setIpAddress(ip);
     setSubnetMask(mask);
   }
 
+  public NetworkInterface(int address, int mask) throws InvalidMaskException {
+    if (!Ipv4Address.isContiguousMask(mask))
+      throw new InvalidMaskException(Ipv4Address.toString(mask));
+    this.address = address;
+    this.mask = mask;
+  }
+
   public void setIpAddress(String ip) throws InvalidIpException {
-    if (!isValidIP(ip))
-      throw new InvalidIpException(ip);
+    int newAddress = Ipv4Address.parseInt(ip);
+    boolean indexed = device != null && device.owner != null;
+
+    if (indexed)
+      device.owner.unindexInterface(device, this);
+    this.address = newAddress;
     this.ipAddress = ip;
+    if (indexed)
+      device.owner.indexInterface(device, this);
   }
 
   public void setSubnetMask(String mask) throws InvalidMaskException {
-    if (!isValidMask(mask))
-      throw new InvalidMaskException(mask);
+    this.mask = Ipv4Address.parseMask(mask);
     this.subnetMask = mask;
   }
 
   public String getIpAddress() {
+    if (ipAddress == null)
+      ipAddress = Ipv4Address.toString(address);
     return ipAddress;
   }
 
   public String getSubnetMask() {
+    if (subnetMask == null)
+      subnetMask = Ipv4Address.toString(mask);
     return subnetMask;
   }
 
+  public int getAddress() {
+    return address;
+  }
+
+  public int getMask() {
+    return mask;
+  }
+
+  public int getPrefixLength() {
+    return Ipv4Address.prefixLength(mask);
+  }
+
+  // Verifica se 'destination' pertence à sub-rede desta interface
+  public boolean isInSubnet(int destination) {
+    return Ipv4Address.sameSubnet(address, mask, destination);
+  }
+
   public Device getNeighbor() {
     return neighbor;
   }
 
   public void setNeighbor(Device neighbor) {
     this.neighbor = neighbor;
+    if (device != null && device.owner != null)
+      device.owner.topologyChanged();
   }
 
-  public static boolean isValidIP(String ip) {
-    try {
-      InetAddress addr = InetAddress.getByName(ip);
-      return addr.getHostAddress().equals(ip);
-    } catch (UnknownHostException e) {
-      return false;
-    }
+  public OutputQueue getOutputQueue() {
+    if (outputQueue == null)
+      outputQueue = new OutputQueue();
+    return outputQueue;
   }
 
-  public static boolean isValidMask(String mask) {
-    String[] parts = mask.split("\\.");
-    if (parts.length != 4)
-      return false;
+  // Sem criar a fila: null se a interface nunca transmitiu nem foi configurada
+  public OutputQueue peekOutputQueue() {
+    return outputQueue;
+  }
 
-    int maskInt = 0;
-    for (String part : parts) {
-      int octet;
-      try {
-        octet = Integer.parseInt(part);
-      } catch (NumberFormatException e) {
-        return false;
-      }
-      if (octet < 0 || octet > 255)
-        return false;
-      maskInt = (maskInt << 8) | octet;
-    }
+  long estimateMemory() {
+    return MemoryFootprint.shallowSize(NetworkInterface.class)
+        + MemoryFootprint.stringSize(ipAddress)
+        + MemoryFootprint.stringSize(subnetMask)
+        + ((outputQueue == null) ? 0 : outputQueue.estimateMemory());
+  }
 
-    boolean seenZero = false;
-    for (int i = 31; i >= 0; i--) {
-      boolean bit = (maskInt & (1 << i)) != 0;
-      if (!bit)
-        seenZero = true;
-      else if (seenZero)
-        return false;
-    }
-    return true;
+  public static boolean isValidIP(String ip) {
+    return Ipv4Address.isValid(ip);
+  }
+
+  public static boolean isValidMask(String mask) {
+    return Ipv4Address.isValidMask(mask);
   }
 
   public static boolean sameSubnet(String ip1, String mask, String ip2) {
-    try {
-      byte[] ipBytes1 = InetAddress.getByName(ip1).getAddress();
-      byte[] ipBytes2 = InetAddress.getByName(ip2).getAddress();
-      byte[] maskBytes = InetAddress.getByName(mask).getAddress();
-
-      for (int i = 0; i < 4; i++) {
-        if ((ipBytes1[i] & maskBytes[i]) != (ipBytes2[i] & maskBytes[i]))
-          return false;
-      }
-      return true;
-    } catch (UnknownHostException e) {
+    long address1 = Ipv4Address.tryParse(ip1);
+    long maskValue = Ipv4Address.tryParse(mask);
+    long address2 = Ipv4Address.tryParse(ip2);
+    if (address1 == Ipv4Address.INVALID || maskValue == Ipv4Address.INVALID || address2 == Ipv4Address.INVALID)
       return false;
-    }
+    return Ipv4Address.sameSubnet((int) address1, (int) maskValue, (int) address2);
   }
-public static int calculatePrefixLength(String subnetMask) {
-    try {
-        java.net.InetAddress maskAddr = java.net.InetAddress.getByName(subnetMask);
-        byte[] maskBytes = maskAddr.getAddress();
-        int prefixLength = 0;
-        
-        // Conta o número de bits "1" na máscara
-        for (byte b : maskBytes) {
-            // Conta os bits '1' em cada byte usando o popcount
-            int val = b & 0xFF; // Converte para inteiro sem sinal
-            while (val > 0) {
-                // Remove o bit '1' menos significativo
-                val &= (val - 1); 
-                prefixLength++;
-            }
-        }
-        return prefixLength;
-    } catch (java.net.UnknownHostException e) {
-        System.err.println("Erro ao calcular prefixo para a máscara: " + subnetMask);
-        return 0; 
+
+  public static int calculatePrefixLength(String subnetMask) {
+    long mask = Ipv4Address.tryParse(subnetMask);
+    if (mask == Ipv4Address.INVALID) {
+      System.err.println("Erro ao calcular prefixo para a máscara: " + subnetMask);
+      return 0;
     }
-}
+    return Ipv4Address.prefixLength((int) mask);
+  }
 
 }
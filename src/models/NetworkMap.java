@@ -1,29 +1,65 @@
 package models;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.util.Arrays;
+import exceptions.InvalidIpException;
+import exceptions.InvalidMaskException;
 
 public class NetworkMap {
 
     // 1. Variável estática e privada para armazenar a única instância
     private static NetworkMap instance;
 
-    private static final int MAX_DEVICES = 100;
-    private final Device[] devices;
+    // Arrays crescem por duplicação (inserção O(1) amortizada); remoções
+    // movem o último elemento para a posição liberada (O(1))
+    private static final int INITIAL_DEVICE_CAPACITY = 64;
+    private Device[] devices;
     private int deviceCount = 0;
     private int nextDeviceId = 1000;
 
-    private static final int MAX_PACKETS_IN_TRANSIT = 500;
-    private final Packet[] packetsInTransit;
+    // Índice ID -> Device, usado por removeDevice
+    private final DeviceIndex devicesById = new DeviceIndex();
+
+    // Índice IP -> Device, mantido em addDevice/removeDevice e Device.addInterface
+    private final DeviceIndex deviceIndex = new DeviceIndex();
+    private boolean hasDuplicateAddresses = false;
+
+    private static final int INITIAL_PACKET_CAPACITY = 256;
+    private Packet[] packetsInTransit;
     private int packetCount = 0;
+
+    // Estado dos pacotes em arrays paralelos, com slots reciclados
+    private PacketStore packetStore = new PacketStore(this);
     
-    // ... (sua constante ANIMATION_STEPS)
-    private static final int ANIMATION_STEPS = 10;
+    // Agenda de eventos discretos: chegadas de pacotes ordenadas por instante
+    private final EventScheduler scheduler = new EventScheduler();
+    private final SimulationStats stats = new SimulationStats();
+    private final HopDecision arrivalDecision = new HopDecision();
+    // Decisão reaproveitada na injeção (Device.processPacket), separada da usada nas chegadas
+    private final HopDecision injectionDecision = new HopDecision();
+    // Incrementada a cada mudança de dispositivos, endereços ou enlaces;
+    // invalida os próximos saltos já resolvidos (NextHopBinding)
+    private int topologyVersion = 0;
+    // Incrementada quando banda ou latência de um enlace mudam (configureLink): só o custo
+    // do roteamento dinâmico muda, então vizinhos resolvidos e desenho continuam valendo
+    private int linkCostVersion = 0;
+
+    // Índice espacial (grade) para cliques e para desenhar só a área visível;
+    // os enlaces são reindexados quando a versão da topologia muda
+    private SpatialGrid spatialGrid = new SpatialGrid();
+    private int spatialLinksVersion = -1;
+
+    // Registro assíncrono dos eventos (substitui os System.out.println do caminho do pacote)
+    private final SimulationLog log = new SimulationLog();
+
+    // TTL dos pacotes novos e o que fazer quando ele acaba (ver LoopReport)
+    private int initialTtl = Packet.DEFAULT_TTL;
+    private TtlPolicy ttlPolicy = TtlPolicy.DROP_AND_RECORD;
+    private final LoopReport loopReport = new LoopReport();
 
     // 2. O CONSTRUTOR DEVE SER PRIVADO
     private NetworkMap() { // <--- MUITO IMPORTANTE: Mude de public para private
-        this.devices = new Device[MAX_DEVICES];
-        this.packetsInTransit = new Packet[MAX_PACKETS_IN_TRANSIT];
+        this.devices = new Device[INITIAL_DEVICE_CAPACITY];
+        this.packetsInTransit = new Packet[INITIAL_PACKET_CAPACITY];
     }
 
     // 3. Método estático e público para obter a única instância (getInstance)
@@ -39,18 +75,41 @@ public class NetworkMap {
 
     // Adiciona dispositivo ao array
     public boolean addDevice(Device d) {
-        if (deviceCount >= MAX_DEVICES) return false;
+        if (d.owner != null || !devicesById.putIfAbsent(d.getId(), d)) return false;
+        if (deviceCount == devices.length)
+            devices = Arrays.copyOf(devices, deviceCount * 2);
+        d.mapSlot = deviceCount;
         devices[deviceCount++] = d;
+        d.owner = this;
+        // Dispositivos criados fora do mapa (carga de arquivo) trazem o próprio ID
+        if (d.getId() >= nextDeviceId)
+            nextDeviceId = d.getId() + 1;
+        spatialGrid.insert(d);
+        for (int i = 0; i < d.getInterfaceCount(); i++) {
+            indexInterface(d, d.getInterface(i));
+        }
+        topologyChanged();
         return true;
     }
 
+    // Próximo ID livre, para dispositivos criados fora do mapa (importação)
+    public int allocateDeviceId() {
+        return nextDeviceId++;
+    }
+
+    // Próximo ID livre sem reservá-lo: quem cria IDs provisórios a partir dele os
+    // confirma em addDevice, que avança o contador
+    public int peekDeviceId() {
+        return nextDeviceId;
+    }
+
     // Cria e adiciona Host ou Router
     public Device createAndAddDevice(String type, String name, String ip, String mask, int x, int y) throws Exception {
         Device newDevice;
-        int id = nextDeviceId++;
+        int id = allocateDeviceId();
 
         if ("Host".equals(type)) {
-            String gateway = calculateGateway(ip, mask);
+            int gateway = calculateGateway(Ipv4Address.parseInt(ip), Ipv4Address.parseMask(mask));
             newDevice = new Host(id, name, x, y, gateway);
         } else if ("Router".equals(type)) {
             newDevice = new Router(id, name, x, y);
@@ -63,49 +122,114 @@ public class NetworkMap {
         newDevice.addInterface(intf);
 
         if (addDevice(newDevice)) {
-            System.out.println("✅ Adicionado " + newDevice.getName() + " (" + x + "," + y + ")");
+            log.record(SimulationLog.Type.DEVICE_ADDED, scheduler.now(), 0, newDevice, null, 0);
             return newDevice;
         } else {
-            System.out.println("❌ Falha ao adicionar " + newDevice.getName());
+            log.record(SimulationLog.Type.DEVICE_REJECTED, scheduler.now(), 0, newDevice, null, 0);
             return null;
         }
     }
 
+    /**
+     * Conecta dois dispositivos, configurando interfaces e vizinhança mútua.
+     */
+    public void connectDevices(Device d1, String ip1, String mask1,
+                               Device d2, String ip2, String mask2) throws InvalidIpException, InvalidMaskException {
+
+        // 1. Cria as interfaces
+        NetworkInterface intf1 = new NetworkInterface(ip1, mask1);
+        NetworkInterface intf2 = new NetworkInterface(ip2, mask2);
+
+        // 2. Configura a referência mútua (vizinho)
+        intf1.setNeighbor(d2);
+        intf2.setNeighbor(d1);
+
+        // 3. Adiciona aos arrays de interfaces dos dispositivos
+        d1.addInterface(intf1);
+        d2.addInterface(intf2);
+    }
+
     // Remove dispositivo pelo ID
     public boolean removeDevice(int id) {
-        for (int i = 0; i < deviceCount; i++) {
-            if (devices[i].getId() == id) {
-                // Desloca elementos para manter array compacto
-                for (int j = i; j < deviceCount - 1; j++) {
-                    devices[j] = devices[j + 1];
-                }
-                devices[--deviceCount] = null;
-                return true;
-            }
+        Device removed = devicesById.get(id);
+        if (removed == null) return false;
+
+        devicesById.remove(id, removed);
+        spatialGrid.remove(removed);
+        for (int j = 0; j < removed.getInterfaceCount(); j++) {
+            unindexInterface(removed, removed.getInterface(j));
         }
-        return false;
+
+        // Move o último dispositivo para a posição liberada
+        int slot = removed.mapSlot;
+        Device last = devices[--deviceCount];
+        devices[slot] = last;
+        last.mapSlot = slot;
+        devices[deviceCount] = null;
+        packetStore.onDeviceRemoved(slot, deviceCount);
+
+        removed.owner = null;
+        removed.mapSlot = -1;
+        topologyChanged();
+        return true;
+    }
+
+    // Busca dispositivo por IP (O(1) pelo índice)
+    public Device findDeviceByIP(int address) {
+        return deviceIndex.get(address);
+    }
+
+    /**
+     * Resolve o dispositivo dono de 'address' saindo pela interface 'outgoing':
+     * se o vizinho do enlace tem esse endereço, usa-o diretamente; senão
+     * (segmento compartilhado, enlace sem vizinho) consulta o índice de IPs.
+     */
+    Device resolveNeighbor(NetworkInterface outgoing, int address) {
+        Device neighbor = (outgoing == null) ? null : outgoing.getNeighbor();
+        if (neighbor != null && neighbor.owner == this && neighbor.hasAddress(address))
+            return neighbor;
+        return findDeviceByIP(address);
     }
 
-    // Busca dispositivo por IP
     public Device findDeviceByIP(String ip) {
-        for (int i = 0; i < deviceCount; i++) {
-            Device d = devices[i];
-            for (int j = 0; j < d.getInterfaceCount(); j++) {
-                if (d.getInterface(j).getIpAddress().equals(ip)) return d;
-            }
+        try {
+            return findDeviceByIP(Ipv4Address.parseInt(ip));
+        } catch (InvalidIpException e) {
+            return null;
         }
-        return null;
     }
 
     // Busca dispositivo por coordenadas
+    // Dispositivo mais próximo do ponto, dentro da tolerância (consulta o índice espacial)
     public Device findDeviceByCoordinates(int x, int y, int tolerance) {
-        for (int i = 0; i < deviceCount; i++) {
-            Device d = devices[i];
-            int dx = x - d.getX();
-            int dy = y - d.getY();
-            if (dx * dx + dy * dy <= tolerance * tolerance) return d;
+        return spatialGrid.nearest(x, y, tolerance);
+    }
+
+    // Visita os dispositivos posicionados dentro do retângulo (coordenadas do mapa)
+    public void forEachDeviceIn(int minX, int minY, int maxX, int maxY, DeviceConsumer consumer) {
+        spatialGrid.forEachDevice(minX, minY, maxX, maxY, consumer);
+    }
+
+    /**
+     * Visita, uma vez cada, os enlaces que podem cruzar o retângulo. Um enlace
+     * aparece como (a, b) com a.getId() < b.getId().
+     */
+    public void forEachLinkIn(int minX, int minY, int maxX, int maxY, LinkConsumer consumer) {
+        if (spatialLinksVersion != topologyVersion) {
+            spatialGrid.clearLinks();
+            for (int i = 0; i < deviceCount; i++) {
+                Device d = devices[i];
+                for (int j = 0; j < d.getInterfaceCount(); j++) {
+                    Device neighbor = d.getInterface(j).getNeighbor();
+                    if (neighbor == null || neighbor.owner != this) continue;
+                    // Cada enlace entra uma vez; enlaces de um lado só (host em uma LAN) entram pelo lado que os declara
+                    if (d.getId() < neighbor.getId() || neighbor.findInterfaceByNeighbor(d) == null)
+                        spatialGrid.insertLink(d, neighbor);
+                }
+            }
+            spatialLinksVersion = topologyVersion;
         }
-        return null;
+        spatialGrid.forEachLink(minX, minY, maxX, maxY, consumer);
     }
 
     // ============================
@@ -113,74 +237,372 @@ public class NetworkMap {
     // ============================
 
     public void startTransmission(String sourceIp, String destinationIp, int quantity) {
-        Device source = findDeviceByIP(sourceIp);
+        int source;
+        int destination;
+        try {
+            source = Ipv4Address.parseInt(sourceIp);
+            destination = Ipv4Address.parseInt(destinationIp);
+        } catch (InvalidIpException e) {
+            log.record(SimulationLog.Type.INVALID_ADDRESS, scheduler.now(), e.getMessage());
+            return;
+        }
+        startTransmission(source, destination, quantity);
+    }
+
+    public void startTransmission(int sourceAddress, int destinationAddress, int quantity) {
+        Device source = findDeviceByIP(sourceAddress);
         if (source == null) {
-            System.out.println("Erro: dispositivo fonte não encontrado para IP " + sourceIp);
+            log.record(SimulationLog.Type.SOURCE_NOT_FOUND, scheduler.now(), 0, null, null, sourceAddress);
             return;
         }
 
-        for (int i = 0; i < quantity && packetCount < MAX_PACKETS_IN_TRANSIT; i++) {
-            Packet p = new Packet(sourceIp, destinationIp, source);
-            packetsInTransit[packetCount++] = p;
+        for (int i = 0; i < quantity; i++) {
+            Packet p = packetStore.allocate(sourceAddress, destinationAddress, source, initialTtl, scheduler.now());
+            stats.recordInjected();
+            addPacket(p);
             source.processPacket(p);
         }
     }
 
+    HopDecision injectionDecision() {
+        injectionDecision.reset();
+        return injectionDecision;
+    }
+
+    // Evento de chegada: o pacote alcançou o próximo salto
+    void onPacketArrival(Packet p) {
+        prepareArrival(p, arrivalDecision);
+        completeArrival(p, arrivalDecision);
+    }
+
+    /**
+     * Primeira etapa da chegada: move o pacote para o próximo salto e calcula
+     * a decisão do dispositivo. Só altera o próprio pacote, então pode rodar
+     * em paralelo para pacotes diferentes.
+     */
+    void prepareArrival(Packet p, HopDecision decision) {
+        decision.reset();
+        Device next = p.getNextHop();
+        if (next == null) return; // próximo salto removido durante o trajeto
+
+        p.incrementHopCount();
+        p.setCurrentDevice(next);
+        p.setNextHop(null);
+        next.decide(p, decision);
+    }
+
+    // Segunda etapa da chegada: aplica a decisão (sempre sequencial, na ordem dos eventos)
+    void completeArrival(Packet p, HopDecision decision) {
+        if (decision.outcome == null) {
+            log.record(SimulationLog.Type.DROP_NEXT_HOP_REMOVED, scheduler.now(), p.getId(), p.getCurrentDevice(), null, 0);
+            p.endSimulation();
+            removePacket(p);
+            return;
+        }
+        p.getCurrentDevice().apply(p, decision);
+        transmit(p, decision.outgoingInterface);
+    }
+
+    /**
+     * Após a decisão do dispositivo: coloca o pacote na fila da interface de
+     * saída e agenda a chegada ao próximo salto, ou encerra o pacote (entregue,
+     * descartado pelo dispositivo ou pela fila).
+     */
+    void transmit(Packet p, NetworkInterface outgoing) {
+        if (!p.isInTransit()) {
+            removePacket(p);
+            return;
+        }
+        if (p.getNextHop() == null) {
+            p.endSimulation();
+            removePacket(p);
+            return;
+        }
+        p.decrementTtl();
+        long now = scheduler.now();
+        if (outgoing == null) {
+            p.setHopTimes(now, now + OutputQueue.DEFAULT_LATENCY);
+            scheduler.schedule(now + OutputQueue.DEFAULT_LATENCY, p);
+            return;
+        }
+
+        OutputQueue queue = outgoing.getOutputQueue();
+        long arrival = queue.offer(now);
+        if (arrival < 0) {
+            SimulationLog.Type type = (arrival == OutputQueue.DROPPED_EARLY)
+                    ? SimulationLog.Type.DROP_QUEUE_EARLY
+                    : SimulationLog.Type.DROP_QUEUE_FULL;
+            log.record(type, now, p.getId(), p.getCurrentDevice(), p.getNextHop(), outgoing.getAddress());
+            p.endSimulation();
+            removePacket(p);
+            return;
+        }
+        // Espera na fila parado no dispositivo; a animação começa ao fim da transmissão
+        p.setHopTimes(arrival - queue.getLatency(), arrival);
+        scheduler.schedule(arrival, p);
+    }
+
+    /**
+     * Configura os dois sentidos do enlace entre 'a' e 'b' (ver OutputQueue
+     * para as unidades). Enlaces declarados de um lado só (host em uma LAN)
+     * configuram apenas o lado existente. Devolve false se não há enlace.
+     */
+    public boolean configureLink(Device a, Device b, int bandwidth, int latency, int capacity,
+                                 OutputQueue.Discipline discipline) {
+        NetworkInterface fromA = a.findInterfaceByNeighbor(b);
+        NetworkInterface fromB = b.findInterfaceByNeighbor(a);
+        if (fromA == null && fromB == null)
+            return false;
+        if (fromA != null)
+            fromA.getOutputQueue().configure(bandwidth, latency, capacity, discipline);
+        if (fromB != null)
+            fromB.getOutputQueue().configure(bandwidth, latency, capacity, discipline);
+        // Banda e latência entram no custo dos enlaces do roteamento dinâmico
+        linkCostVersion++;
+        return true;
+    }
+
+    /**
+     * Avança o relógio da simulação em um tick, disparando apenas as chegadas
+     * que vencem neste intervalo. Usado pelo SimulationLoop da interface gráfica.
+     */
     public void tickSimulation() {
-        for (int i = 0; i < packetCount; i++) {
-            Packet p = packetsInTransit[i];
-            if (p == null || !p.isInTransit()) continue;
-
-            Device next = p.getNextHop();
-            Device current = p.getCurrentDevice();
-
-            if (next != null) {
-                int dx = (next.getX() - current.getX()) / ANIMATION_STEPS;
-                int dy = (next.getY() - current.getY()) / ANIMATION_STEPS;
-
-                p.setCurrentX(p.getCurrentX() + dx);
-                p.setCurrentY(p.getCurrentY() + dy);
-                p.setStep(p.getStep() + 1);
-
-                if (p.getStep() >= ANIMATION_STEPS) {
-                    p.setCurrentDevice(next);
-                    p.setNextHop(null);
-                    p.setStep(0);
-                    p.setCurrentX(next.getX());
-                    p.setCurrentY(next.getY());
-                    p.getCurrentDevice().processPacket(p);
+        scheduler.runUntil(scheduler.now() + 1);
+    }
+
+    /**
+     * Executa a simulação até não haver mais eventos, sem vínculo com o
+     * relógio de parede.
+     */
+    public void runToCompletion() {
+        scheduler.runToCompletion();
+    }
+
+    // Executa a simulação até o instante 'time' (limite para cenários com laços de roteamento)
+    public void runUntil(long time) {
+        scheduler.runUntil(time);
+    }
+
+    public long getSimulationTime() {
+        return scheduler.now();
+    }
+
+    public EventScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public int getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    public int getLinkCostVersion() {
+        return linkCostVersion;
+    }
+
+    // Chamado em toda mudança de dispositivos, endereços ou enlaces
+    void topologyChanged() {
+        topologyVersion++;
+    }
+
+    public SimulationLog getLog() {
+        return log;
+    }
+
+    public SimulationStats getStats() {
+        return stats;
+    }
+
+    // ============================
+    // TTL
+    // ============================
+
+    /**
+     * O que acontece com um pacote cujo TTL acaba: DROP descarta, registra
+     * no log e conta no dispositivo (Device.getTtlExpiredCount);
+     * DROP_AND_RECORD também o inclui no LoopReport, que refaz o caminho
+     * uma vez por destino para identificar o laço.
+     */
+    public enum TtlPolicy { DROP, DROP_AND_RECORD }
+
+    // TTL dos pacotes criados a partir de agora: cada encaminhamento consome 1
+    public void setInitialTtl(int ttl) {
+        if (ttl < 1 || ttl > Packet.MAX_TTL)
+            throw new IllegalArgumentException("TTL fora de 1.." + Packet.MAX_TTL + ": " + ttl);
+        initialTtl = ttl;
+    }
+
+    public int getInitialTtl() {
+        return initialTtl;
+    }
+
+    public void setTtlPolicy(TtlPolicy policy) {
+        ttlPolicy = policy;
+    }
+
+    public TtlPolicy getTtlPolicy() {
+        return ttlPolicy;
+    }
+
+    public LoopReport getLoopReport() {
+        return loopReport;
+    }
+
+    // Chamado por Device.expireTtl (na aplicação sequencial das decisões)
+    void recordTtlExpired(Device device, Packet p) {
+        if (ttlPolicy == TtlPolicy.DROP_AND_RECORD)
+            loopReport.record(device, p.getSourceAddress(), p.getDestinationAddress(), scheduler.now());
+    }
+
+    private void addPacket(Packet p) {
+        if (packetCount == packetsInTransit.length)
+            packetsInTransit = Arrays.copyOf(packetsInTransit, packetCount * 2);
+        p.mapSlot = packetCount;
+        packetsInTransit[packetCount++] = p;
+    }
+
+    // Remove um pacote concluído movendo o último para a sua posição
+    private void removePacket(Packet p) {
+        stats.recordFinished(p);
+
+        int slot = p.mapSlot;
+        Packet last = packetsInTransit[--packetCount];
+        packetsInTransit[slot] = last;
+        last.mapSlot = slot;
+        packetsInTransit[packetCount] = null;
+        p.mapSlot = -1;
+        packetStore.release(p);
+    }
+
+    /**
+     * Remove todos os dispositivos e pacotes e reinicia o relógio, para
+     * carregar um novo cenário na mesma instância.
+     */
+    public void clear() {
+        for (int i = 0; i < deviceCount; i++) {
+            devices[i].owner = null;
+            devices[i].mapSlot = -1;
+            devices[i].gridSlot = -1;
+        }
+        spatialGrid = new SpatialGrid();
+        spatialLinksVersion = -1;
+        devices = new Device[INITIAL_DEVICE_CAPACITY];
+        deviceCount = 0;
+        devicesById.clear();
+        deviceIndex.clear();
+        hasDuplicateAddresses = false;
+
+        packetsInTransit = new Packet[INITIAL_PACKET_CAPACITY];
+        packetCount = 0;
+        packetStore = new PacketStore(this);
+
+        scheduler.clear();
+        stats.reset();
+        loopReport.clear();
+        topologyChanged();
+    }
+
+    // ============================
+    // UTILITÁRIOS
+    // ============================
+
+    private int calculateGateway(int address, int mask) {
+        return ((address & mask) & 0xFFFFFF00) | 1; // último octeto = 1
+    }
+
+    // Chamados por addDevice/removeDevice e pelas interfaces de dispositivos já cadastrados
+    void indexInterface(Device d, NetworkInterface intf) {
+        if (!deviceIndex.putIfAbsent(intf.getAddress(), d))
+            hasDuplicateAddresses = true;
+        topologyChanged();
+    }
+
+    void unindexInterface(Device d, NetworkInterface intf) {
+        topologyChanged();
+        if (deviceIndex.remove(intf.getAddress(), d) && hasDuplicateAddresses) {
+            // Outro dispositivo com o mesmo IP (configuração duplicada) assume a entrada
+            for (int i = 0; i < deviceCount; i++) {
+                Device other = devices[i];
+                if (other == d) continue;
+                for (int j = 0; j < other.getInterfaceCount(); j++) {
+                    if (other.getInterface(j).getAddress() == intf.getAddress()) {
+                        deviceIndex.putIfAbsent(intf.getAddress(), other);
+                        return;
+                    }
                 }
-            } else if (current != null && p.getStep() == 0) {
-                p.endSimulation();
             }
         }
+    }
 
-        // Remove pacotes concluídos
-        int newCount = 0;
-        for (int i = 0; i < packetCount; i++) {
-            if (packetsInTransit[i] != null && packetsInTransit[i].isInTransit()) {
-                packetsInTransit[newCount++] = packetsInTransit[i];
+    /**
+     * Relatório de memória estimada por entidade, no formato chave=valor
+     * (ver MemoryFootprint).
+     */
+    public String memoryReport() {
+        long deviceBytes = 0, interfaceBytes = 0, routeBytes = 0;
+        long interfaceCount = 0, routeCount = 0;
+
+        for (int i = 0; i < deviceCount; i++) {
+            Device d = devices[i];
+            deviceBytes += d.estimateMemory();
+            for (int j = 0; j < d.getInterfaceCount(); j++) {
+                interfaceBytes += d.getInterface(j).estimateMemory();
+                interfaceCount++;
+            }
+            if (d instanceof Router) {
+                routeBytes += ((Router) d).estimateRouteMemory();
+                routeCount += ((Router) d).getRoutingTable().size();
             }
         }
-        for (int i = newCount; i < packetCount; i++) packetsInTransit[i] = null;
-        packetCount = newCount;
+        long packetBytes = packetStore.estimateMemory();
+        long storageBytes = MemoryFootprint.referenceArraySize(devices.length)
+                + MemoryFootprint.referenceArraySize(packetsInTransit.length)
+                + spatialGrid.estimateMemory();
+
+        StringBuilder sb = new StringBuilder();
+        appendMemoryLine(sb, "dispositivos", deviceCount, deviceBytes);
+        appendMemoryLine(sb, "interfaces", interfaceCount, interfaceBytes);
+        appendMemoryLine(sb, "rotas", routeCount, routeBytes);
+        appendMemoryLine(sb, "pacotes_em_transito", packetCount, packetBytes);
+        sb.append("memoria_arrays_bytes=").append(storageBytes).append('\n');
+        sb.append("memoria_total_bytes=")
+          .append(deviceBytes + interfaceBytes + routeBytes + packetBytes + storageBytes).append('\n');
+        return sb.toString();
+    }
+
+    private static void appendMemoryLine(StringBuilder sb, String entity, long count, long bytes) {
+        sb.append("memoria_").append(entity).append("_bytes=").append(bytes).append('\n');
+        sb.append("memoria_").append(entity).append("_bytes_por_item=")
+          .append((count == 0) ? 0 : bytes / count).append('\n');
     }
 
     // ============================
-    // UTILITÁRIOS
+    // ANÁLISE DE ALCANÇABILIDADE
     // ============================
 
-    private String calculateGateway(String ip, String mask) {
-        try {
-            byte[] ipBytes = InetAddress.getByName(ip).getAddress();
-            byte[] maskBytes = InetAddress.getByName(mask).getAddress();
-            byte[] netBytes = new byte[4];
-            for (int i = 0; i < 4; i++) netBytes[i] = (byte) (ipBytes[i] & maskBytes[i]);
-            netBytes[3] = 1; // último octeto = 1
-            return InetAddress.getByAddress(netBytes).getHostAddress();
-        } catch (UnknownHostException e) {
-            return "0.0.0.0";
+    // Caminho que um pacote seguiria agora de 'source' até 'destination' (com o TTL inicial), sem animar
+    public PathTrace tracePath(Device source, int destination) {
+        return PathTrace.trace(source, PathTrace.addressOf(source), destination, initialTtl);
+    }
+
+    /**
+     * Alcançabilidade de todos os Hosts para os endereços (primeira
+     * interface) de todos os Hosts. O mapa não pode mudar durante o cálculo.
+     */
+    public ReachabilityMatrix analyzeReachability() {
+        Device[] hosts = new Device[deviceCount];
+        int[] addresses = new int[deviceCount];
+        int hostCount = 0, addressCount = 0;
+        for (int i = 0; i < deviceCount; i++) {
+            if (!(devices[i] instanceof Host)) continue;
+            hosts[hostCount++] = devices[i];
+            if (devices[i].getInterfaceCount() > 0)
+                addresses[addressCount++] = devices[i].getInterface(0).getAddress();
         }
+        return analyzeReachability(Arrays.copyOf(hosts, hostCount), Arrays.copyOf(addresses, addressCount));
+    }
+
+    public ReachabilityMatrix analyzeReachability(Device[] sources, int[] destinations) {
+        return ReachabilityMatrix.compute(this, sources, destinations);
     }
 
     // ============================
@@ -188,6 +610,8 @@ public class NetworkMap {
     // ============================
 
     public Device[] getDevices() { return devices; }
+    Device deviceAt(int slot) { return devices[slot]; }
+    boolean hasDuplicateAddresses() { return hasDuplicateAddresses; }
     public int getDeviceCount() { return deviceCount; }
     public Packet[] getPacketsInTransit() { return packetsInTransit; }
     public int getPacketCount() { return packetCount; }
@@ -212,5 +636,6 @@ public class NetworkMap {
 
     // Interfaces funcionais para iteração
     public interface DeviceConsumer { void accept(Device d); }
+    public interface LinkConsumer { void accept(Device a, Device b); }
     public interface PacketConsumer { void accept(Packet p); }
 }
@@ -0,0 +1,36 @@
+package models;
+
+/**
+ * Próximo salto já resolvido para um endereço fixo (next hop de uma rota ou
+ * gateway de um Host), válido enquanto a topologia do mapa não mudar.
+ *
+ * Imutável: é substituído por inteiro a cada nova resolução, então threads
+ * que decidem em paralelo nunca veem um dispositivo de uma versão com o
+ * número de outra.
+ */
+final class NextHopBinding {
+
+    final Device owner;      // dispositivo que encaminha
+    final NetworkMap map;
+    final int version;       // NetworkMap.getTopologyVersion() na resolução
+    final Device device;     // null = próximo salto não encontrado
+
+    NextHopBinding(Device owner, NetworkMap map, int version, Device device) {
+        this.owner = owner;
+        this.map = map;
+        this.version = version;
+        this.device = device;
+    }
+
+    boolean isCurrent(Device owner, NetworkMap map) {
+        return this.owner == owner && this.map == map && version == map.getTopologyVersion();
+    }
+
+    // Retorna a resolução guardada em 'binding' ou resolve de novo se estiver desatualizada
+    static NextHopBinding resolve(NextHopBinding binding, Device owner, NetworkInterface outgoing, int address) {
+        NetworkMap map = owner.map();
+        if (binding != null && binding.isCurrent(owner, map))
+            return binding;
+        return new NextHopBinding(owner, map, map.getTopologyVersion(), map.resolveNeighbor(outgoing, address));
+    }
+}
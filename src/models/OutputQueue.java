@@ -0,0 +1,199 @@
+package models;
+
+/**
+ * Sentido de saída de um enlace, ligado a uma NetworkInterface: banda,
+ * atraso de propagação e fila de saída limitada, com descarte de cauda
+ * (tail-drop) ou RED.
+ *
+ * A fila é FIFO e cada pacote ocupa o transmissor por 1/banda ticks, então
+ * o instante em que um pacote sai já é conhecido quando ele entra na fila:
+ * basta guardar o próximo "slot" livre do transmissor (tick * banda +
+ * posição dentro do tick). Por isso a fila não guarda os pacotes nem agenda
+ * eventos extras: offer() devolve o instante de chegada ao vizinho, e a
+ * ocupação em um instante é a quantidade de slots reservados a partir dele
+ * (incluindo o pacote em transmissão).
+ *
+ * Unidades: banda em pacotes por tick (UNLIMITED = sem fila, o pacote sai
+ * no mesmo tick), latência em ticks (>= 1), capacidade em pacotes
+ * (UNLIMITED = fila sem limite).
+ *
+ * RED (Floyd & Jacobson) usa a média móvel da ocupação, com limiares em 1/4
+ * e 3/4 da capacidade; a média decai enquanto o enlace fica ocioso. O
+ * sorteio é determinístico, como o resto da simulação.
+ */
+public class OutputQueue {
+
+    public enum Discipline { TAIL_DROP, RED }
+
+    public static final int UNLIMITED = 0;
+    // Mesma duração de salto usada antes do modelo de enlaces
+    public static final int DEFAULT_LATENCY = 10;
+
+    // Resultados de offer() para pacotes descartados
+    public static final long DROPPED_FULL = -1;
+    public static final long DROPPED_EARLY = -2;
+
+    private static final double RED_WEIGHT = 0.002;
+    private static final double RED_MAX_PROBABILITY = 0.1;
+    private static final int RED_MIN_CAPACITY = 4;
+
+    private int bandwidth = UNLIMITED;
+    private int latency = DEFAULT_LATENCY;
+    private int capacity = UNLIMITED;
+    private Discipline discipline = Discipline.TAIL_DROP;
+    private int redMinThreshold;
+    private int redMaxThreshold;
+
+    // Próximo slot livre do transmissor
+    private long nextFreeSlot = 0;
+    private double averageDepth = 0;
+    private int randomState = 0x9E3779B9;
+
+    // Estatísticas desde o último resetStats
+    private long statsSince = 0;
+    private long offered = 0;
+    private long transmitted = 0;
+    private long droppedFull = 0;
+    private long droppedEarly = 0;
+    private long depthSum = 0;
+    private int maxDepth = 0;
+
+    // ============================
+    // CONFIGURAÇÃO
+    // ============================
+
+    public void configure(int bandwidth, int latency, int capacity, Discipline discipline) {
+        if (bandwidth < 0 || latency < 1 || capacity < 0)
+            throw new IllegalArgumentException("Use banda >= 0, latência >= 1 e capacidade >= 0");
+        if (discipline == Discipline.RED && capacity < RED_MIN_CAPACITY)
+            throw new IllegalArgumentException("RED exige capacidade de ao menos " + RED_MIN_CAPACITY + " pacotes");
+        this.bandwidth = bandwidth;
+        this.latency = latency;
+        this.capacity = capacity;
+        this.discipline = discipline;
+        this.redMinThreshold = Math.max(1, capacity / 4);
+        this.redMaxThreshold = Math.max(redMinThreshold + 1, capacity * 3 / 4);
+    }
+
+    // ============================
+    // TRANSMISSÃO
+    // ============================
+
+    /**
+     * Coloca um pacote na fila no instante 'now'. Devolve o instante de
+     * chegada ao outro lado do enlace, ou DROPPED_FULL / DROPPED_EARLY se o
+     * pacote foi descartado.
+     */
+    long offer(long now) {
+        offered++;
+        if (bandwidth == UNLIMITED) {
+            transmitted++;
+            return now + latency;
+        }
+
+        long firstSlot = now * bandwidth;
+        int depth = depthFrom(firstSlot);
+        depthSum += depth;
+        if (depth > maxDepth)
+            maxDepth = depth;
+
+        if (capacity != UNLIMITED && depth >= capacity) {
+            droppedFull++;
+            return DROPPED_FULL;
+        }
+        if (discipline == Discipline.RED && dropEarly(depth, firstSlot)) {
+            droppedEarly++;
+            return DROPPED_EARLY;
+        }
+
+        long slot = Math.max(firstSlot, nextFreeSlot);
+        nextFreeSlot = slot + 1;
+        transmitted++;
+        // Fim da transmissão: início do tick seguinte ao slot ocupado
+        long transmissionEnd = (slot + bandwidth) / bandwidth;
+        return transmissionEnd + latency;
+    }
+
+    private boolean dropEarly(int depth, long firstSlot) {
+        if (depth == 0) {
+            // Enlace ocioso desde nextFreeSlot: a média decai como se chegassem filas vazias
+            long idleSlots = firstSlot - nextFreeSlot;
+            averageDepth *= Math.pow(1 - RED_WEIGHT, Math.max(1, idleSlots));
+        } else {
+            averageDepth += RED_WEIGHT * (depth - averageDepth);
+        }
+
+        if (averageDepth < redMinThreshold)
+            return false;
+        if (averageDepth >= redMaxThreshold)
+            return true;
+        double probability = RED_MAX_PROBABILITY * (averageDepth - redMinThreshold) / (redMaxThreshold - redMinThreshold);
+        return nextRandom() < probability;
+    }
+
+    // xorshift32: sorteio reprodutível sem alocar
+    private double nextRandom() {
+        int x = randomState;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        randomState = x;
+        return (x >>> 8) / (double) (1 << 24);
+    }
+
+    private int depthFrom(long firstSlot) {
+        long depth = nextFreeSlot - firstSlot;
+        return (depth <= 0) ? 0 : (int) Math.min(depth, Integer.MAX_VALUE);
+    }
+
+    // ============================
+    // ESTATÍSTICAS
+    // ============================
+
+    // Pacotes na fila no instante 'now', incluindo o que está em transmissão
+    public int getDepth(long now) {
+        return (bandwidth == UNLIMITED) ? 0 : depthFrom(now * bandwidth);
+    }
+
+    /**
+     * Fração da banda usada desde o último resetStats até 'now' (0 para
+     * enlaces de banda ilimitada).
+     */
+    public double getUtilization(long now) {
+        long elapsed = now - statsSince;
+        if (bandwidth == UNLIMITED || elapsed <= 0)
+            return 0.0;
+        long sent = transmitted - getDepth(now);
+        return Math.min(1.0, Math.max(0, sent) / ((double) bandwidth * elapsed));
+    }
+
+    // Ocupação média vista pelos pacotes que chegaram à fila
+    public double getAverageDepth() {
+        return (offered == 0) ? 0.0 : (double) depthSum / offered;
+    }
+
+    public void resetStats(long now) {
+        statsSince = now;
+        offered = transmitted = droppedFull = droppedEarly = depthSum = 0;
+        maxDepth = getDepth(now);
+    }
+
+    long estimateMemory() {
+        return MemoryFootprint.shallowSize(OutputQueue.class);
+    }
+
+    // ============================
+    // GETTERS
+    // ============================
+
+    public int getBandwidth() { return bandwidth; }
+    public int getLatency() { return latency; }
+    public int getCapacity() { return capacity; }
+    public Discipline getDiscipline() { return discipline; }
+    public long getOffered() { return offered; }
+    public long getTransmitted() { return transmitted; }
+    public long getDropped() { return droppedFull + droppedEarly; }
+    public long getDroppedFull() { return droppedFull; }
+    public long getDroppedEarly() { return droppedEarly; }
+    public int getMaxDepth() { return maxDepth; }
+}
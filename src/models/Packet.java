@@ -1,126 +1,181 @@
 package models;
 
-public class Packet {
+/**
+ * Visão de um pacote em trânsito.
+ *
+ * O estado fica nos arrays do PacketStore; este objeto é apenas o "cursor"
+ * de um slot e é reaproveitado quando o slot recebe um novo pacote. Por isso
+ * uma referência a Packet não deve ser guardada depois que o pacote finaliza.
+ */
+public class Packet implements SimulationEvent {
+
+  // TTL inicial padrão (ver NetworkMap.setInitialTtl)
+  public static final int DEFAULT_TTL = 64;
+  public static final int MAX_TTL = 255;
 
   // ==========================================================
-  // RASTREAMENTO DE ID ÚNICO
+  // SLOT NO ARMAZENAMENTO
   // ==========================================================
-  private int id;
-  private static int nextId = 1;
+  private final PacketStore store;
+  final int slot;
 
-  // ==========================================================
-  // ATRIBUTOS DE ROTEAMENTO E ESTADO
-  // ==========================================================
-  private String sourceIp;
-  private String destinationIp;
-  private Device currentDevice;
-  private Device nextHop;
-  // NOVO: Adicione o dispositivo que enviou o pacote para evitar loops
-  private Device previousDevice;
-  private boolean inTransit;
-
-  // ==========================================================
-  // ATRIBUTOS DE ANIMAÇÃO
-  // ==========================================================
-  private int step;
-  private int currentX;
-  private int currentY;
+  // Posição no array de pacotes em trânsito do NetworkMap
+  int mapSlot = -1;
 
-  /**
-   * Construtor para criar um novo pacote.
-   */
-  public Packet(String source, String destination, Device sourceDevice) {
-    this.id = nextId++;
-
-    this.sourceIp = source;
-    this.destinationIp = destination;
-    this.currentDevice = sourceDevice;
-
-    // Inicializa como null, pois o dispositivo de origem não tem "anterior"
-    this.previousDevice = null;
+  Packet(PacketStore store, int slot) {
+    this.store = store;
+    this.slot = slot;
+  }
 
-    this.nextHop = null;
-    this.step = 0;
-    this.inTransit = true;
+  // Chegada ao próximo salto, disparada pelo EventScheduler
+  @Override
+  public void fire(long time) {
+    store.owner().onPacketArrival(this);
+  }
 
-    this.currentX = sourceDevice.getX();
-    this.currentY = sourceDevice.getY();
+  // Chegou ao destino final: conta como entregue nas estatísticas
+  public void deliver() {
+    store.flags[slot] |= PacketStore.FLAG_DELIVERED;
+    endSimulation();
   }
 
+  // Sai da simulação no instante atual, que fica registrado para as estatísticas
   public void endSimulation() {
-    this.inTransit = false;
-    System.out.println("Pacote ID " + this.id + " finalizou a simulação.");
+    if (!isInTransit()) return;
+    store.flags[slot] &= ~PacketStore.FLAG_IN_TRANSIT;
+    store.finishTimes[slot] = store.owner().getSimulationTime();
   }
 
   // ==========================================================
   // GETTERS
   // ==========================================================
+  NetworkMap getNetworkMap() {
+    return store.owner();
+  }
+
   public int getId() {
-    return id;
+    return store.ids[slot];
+  }
+
+  public int getSourceAddress() {
+    return store.sourceAddresses[slot];
   }
 
+  public int getDestinationAddress() {
+    return store.destinationAddresses[slot];
+  }
+
+  // Visões em texto, para exibição
   public String getSourceIp() {
-    return sourceIp;
+    return Ipv4Address.toString(getSourceAddress());
   }
 
   public String getDestinationIp() {
-    return destinationIp;
+    return Ipv4Address.toString(getDestinationAddress());
   }
 
   public Device getCurrentDevice() {
-    return currentDevice;
+    return store.deviceAt(store.currentDevices[slot]);
   }
 
-  // NOVO GETTER
   public Device getPreviousDevice() {
-    return previousDevice;
+    return store.deviceAt(store.previousDevices[slot]);
   }
 
   public Device getNextHop() {
-    return nextHop;
+    return store.deviceAt(store.nextDevices[slot]);
   }
 
-  public int getStep() {
-    return step;
+  public boolean isInTransit() {
+    return (store.flags[slot] & PacketStore.FLAG_IN_TRANSIT) != 0;
   }
 
-  public boolean isInTransit() {
-    return inTransit;
+  public boolean isDelivered() {
+    return (store.flags[slot] & PacketStore.FLAG_DELIVERED) != 0;
   }
 
-  public int getCurrentX() {
-    return currentX;
+  public int getHopCount() {
+    return store.hopCounts[slot];
   }
 
-  public int getCurrentY() {
-    return currentY;
+  // Saltos que o pacote ainda pode dar; com 0 o próximo encaminhamento o descarta
+  public int getTtl() {
+    return store.ttls[slot] & 0xFF;
+  }
+
+  public long getCreationTime() {
+    return store.creationTimes[slot];
+  }
+
+  // Instante da entrega ou do descarte (-1 enquanto em trânsito)
+  public long getFinishTime() {
+    return store.finishTimes[slot];
+  }
+
+  public long getDepartureTime() {
+    return store.departureTimes[slot];
+  }
+
+  public long getArrivalTime() {
+    return store.arrivalTimes[slot];
+  }
+
+  // Posição interpolada entre o dispositivo atual e o próximo salto no instante 'time'
+  public int getX(double time) {
+    Device current = getCurrentDevice();
+    Device next = getNextHop();
+    if (next == null)
+      return (current == null) ? 0 : current.getX();
+    if (current == null)
+      return next.getX();
+    return (int) Math.round(current.getX() + (next.getX() - current.getX()) * progressAt(time));
+  }
+
+  public int getY(double time) {
+    Device current = getCurrentDevice();
+    Device next = getNextHop();
+    if (next == null)
+      return (current == null) ? 0 : current.getY();
+    if (current == null)
+      return next.getY();
+    return (int) Math.round(current.getY() + (next.getY() - current.getY()) * progressAt(time));
+  }
+
+  private double progressAt(double time) {
+    long departureTime = getDepartureTime();
+    long arrivalTime = getArrivalTime();
+    if (arrivalTime <= departureTime)
+      return 1.0;
+    double progress = (time - departureTime) / (arrivalTime - departureTime);
+    return Math.max(0.0, Math.min(1.0, progress));
   }
 
   // ==========================================================
   // SETTERS
   // ==========================================================
   public void setCurrentDevice(Device device) {
-    this.currentDevice = device;
+    store.currentDevices[slot] = store.slotOf(device);
   }
 
   public void setNextHop(Device nextHop) {
-    this.nextHop = nextHop;
+    store.nextDevices[slot] = store.slotOf(nextHop);
   }
 
-  public void setStep(int step) {
-    this.step = step;
+  public void setPreviousDevice(Device device) {
+    store.previousDevices[slot] = store.slotOf(device);
   }
 
-  public void setCurrentX(int x) {
-    this.currentX = x;
+  void incrementHopCount() {
+    store.hopCounts[slot]++;
   }
 
-  public void setCurrentY(int y) {
-    this.currentY = y;
+  void decrementTtl() {
+    store.ttls[slot]--;
   }
 
-  // NOVO SETTER
-  public void setPreviousDevice(Device device) {
-    this.previousDevice = device;
+  // Define a janela de tempo do salto atual (usado pelo NetworkMap ao agendar a chegada)
+  void setHopTimes(long departureTime, long arrivalTime) {
+    store.departureTimes[slot] = departureTime;
+    store.arrivalTimes[slot] = arrivalTime;
   }
-}
\ No newline at end of file
+}
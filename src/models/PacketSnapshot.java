@@ -0,0 +1,101 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Posições dos pacotes em trânsito copiadas ao fim de um tick, para a
+ * interface desenhar sem tocar no estado vivo da simulação.
+ *
+ * Para cada pacote guarda os extremos do salto atual e a janela de tempo do
+ * salto, de modo que a posição possa ser interpolada entre dois ticks. Depois
+ * de publicado (ver SimulationLoop) o conteúdo não muda mais; os arrays só
+ * são reaproveitados quando o snapshot volta para a thread da simulação.
+ */
+public class PacketSnapshot {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int count = 0;
+    private long time = 0;
+    private int topologyVersion = -1;
+    private long sequence = 0;
+    private long publishedNanos = 0;
+
+    private int[] fromX = new int[INITIAL_CAPACITY];
+    private int[] fromY = new int[INITIAL_CAPACITY];
+    private int[] toX = new int[INITIAL_CAPACITY];
+    private int[] toY = new int[INITIAL_CAPACITY];
+    private long[] departureTimes = new long[INITIAL_CAPACITY];
+    private long[] arrivalTimes = new long[INITIAL_CAPACITY];
+
+    // Copia o estado atual do mapa (chamado com o monitor do NetworkMap adquirido)
+    void capture(NetworkMap map, long sequence) {
+        int packets = map.getPacketCount();
+        if (packets > fromX.length)
+            grow(packets);
+
+        Packet[] inTransit = map.getPacketsInTransit();
+        for (int i = 0; i < packets; i++) {
+            Packet p = inTransit[i];
+            Device current = p.getCurrentDevice();
+            Device next = p.getNextHop();
+            Device from = (current != null) ? current : next;
+            Device to = (next != null) ? next : current;
+            fromX[i] = (from == null) ? 0 : from.getX();
+            fromY[i] = (from == null) ? 0 : from.getY();
+            toX[i] = (to == null) ? 0 : to.getX();
+            toY[i] = (to == null) ? 0 : to.getY();
+            departureTimes[i] = p.getDepartureTime();
+            arrivalTimes[i] = p.getArrivalTime();
+        }
+        this.count = packets;
+        this.time = map.getSimulationTime();
+        this.topologyVersion = map.getTopologyVersion();
+        this.sequence = sequence;
+        this.publishedNanos = System.nanoTime();
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, fromX.length * 2);
+        fromX = Arrays.copyOf(fromX, capacity);
+        fromY = Arrays.copyOf(fromY, capacity);
+        toX = Arrays.copyOf(toX, capacity);
+        toY = Arrays.copyOf(toY, capacity);
+        departureTimes = Arrays.copyOf(departureTimes, capacity);
+        arrivalTimes = Arrays.copyOf(arrivalTimes, capacity);
+    }
+
+    // ============================
+    // POSIÇÕES (mesma interpolação de Packet.getX/getY)
+    // ============================
+
+    public int getX(int i, double time) {
+        return (int) Math.round(fromX[i] + (toX[i] - fromX[i]) * progressAt(i, time));
+    }
+
+    public int getY(int i, double time) {
+        return (int) Math.round(fromY[i] + (toY[i] - fromY[i]) * progressAt(i, time));
+    }
+
+    private double progressAt(int i, double time) {
+        long departureTime = departureTimes[i];
+        long arrivalTime = arrivalTimes[i];
+        if (arrivalTime <= departureTime)
+            return 1.0;
+        double progress = (time - departureTime) / (arrivalTime - departureTime);
+        return Math.max(0.0, Math.min(1.0, progress));
+    }
+
+    // ============================
+    // GETTERS
+    // ============================
+
+    public int getCount() { return count; }
+    // Instante da simulação em que as posições foram copiadas
+    public long getTime() { return time; }
+    public int getTopologyVersion() { return topologyVersion; }
+    // Número do tick publicado (cresce a cada publicação)
+    public long getSequence() { return sequence; }
+    // System.nanoTime() da publicação, para interpolar até o próximo tick
+    public long getPublishedNanos() { return publishedNanos; }
+}
@@ -0,0 +1,188 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Armazenamento dos pacotes em trânsito em arrays paralelos de primitivos
+ * (structure-of-arrays), indexados por "slot".
+ *
+ * Cada slot tem um único objeto Packet associado, criado no primeiro uso e
+ * reaproveitado a cada novo pacote que ocupar o slot. Slots liberados voltam
+ * para uma lista livre, de modo que, em regime, criar e finalizar pacotes não
+ * aloca memória. Dispositivos são referenciados pela posição no array de
+ * dispositivos do NetworkMap (-1 = nenhum).
+ */
+class PacketStore {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    static final int FLAG_ALLOCATED = 1;
+    static final int FLAG_IN_TRANSIT = 2;
+    static final int FLAG_DELIVERED = 4;
+
+    private final NetworkMap owner;
+
+    // Estado de cada slot
+    int[] ids;
+    int[] sourceAddresses;
+    int[] destinationAddresses;
+    int[] currentDevices;
+    int[] nextDevices;
+    int[] previousDevices;
+    int[] hopCounts;
+    byte[] ttls;                     // sem sinal (0..255)
+    int[] flags;
+    long[] creationTimes;
+    long[] departureTimes;
+    long[] arrivalTimes;
+    long[] finishTimes;              // instante em que o pacote foi entregue ou descartado
+    private Packet[] handles;
+
+    private int used = 0;            // slots já utilizados alguma vez
+    private int[] freeSlots;         // pilha de slots livres
+    private int freeCount = 0;
+    private int liveCount = 0;
+
+    // Identificadores atribuídos pelo próprio store (sem contador estático)
+    private int nextId = 1;
+
+    PacketStore(NetworkMap owner) {
+        this.owner = owner;
+        resize(INITIAL_CAPACITY);
+        this.freeSlots = new int[INITIAL_CAPACITY];
+    }
+
+    // ============================
+    // ALOCAÇÃO E LIBERAÇÃO
+    // ============================
+
+    Packet allocate(int source, int destination, Device sourceDevice, int ttl, long now) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (used == ids.length)
+                resize(used * 2);
+            slot = used++;
+        }
+
+        ids[slot] = nextId++;
+        sourceAddresses[slot] = source;
+        destinationAddresses[slot] = destination;
+        currentDevices[slot] = slotOf(sourceDevice);
+        nextDevices[slot] = -1;
+        previousDevices[slot] = -1;
+        hopCounts[slot] = 0;
+        ttls[slot] = (byte) ttl;
+        flags[slot] = FLAG_ALLOCATED | FLAG_IN_TRANSIT;
+        creationTimes[slot] = now;
+        departureTimes[slot] = now;
+        arrivalTimes[slot] = now;
+        finishTimes[slot] = -1;
+        liveCount++;
+
+        Packet handle = handles[slot];
+        if (handle == null) {
+            handle = new Packet(this, slot);
+            handles[slot] = handle;
+        }
+        return handle;
+    }
+
+    void release(Packet p) {
+        int slot = p.slot;
+        flags[slot] = 0;
+        if (freeCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+        liveCount--;
+    }
+
+    // ============================
+    // REFERÊNCIAS A DISPOSITIVOS
+    // ============================
+
+    Device deviceAt(int deviceSlot) {
+        return (deviceSlot < 0) ? null : owner.deviceAt(deviceSlot);
+    }
+
+    int slotOf(Device d) {
+        return (d == null || d.owner != owner) ? -1 : d.mapSlot;
+    }
+
+    /**
+     * Ajusta as referências após a remoção de um dispositivo: o que estava em
+     * 'removedSlot' deixa de existir e o que estava em 'movedFrom' passou a
+     * ocupar 'removedSlot'.
+     */
+    void onDeviceRemoved(int removedSlot, int movedFrom) {
+        for (int slot = 0; slot < used; slot++) {
+            if ((flags[slot] & FLAG_ALLOCATED) == 0) continue;
+            currentDevices[slot] = remap(currentDevices[slot], removedSlot, movedFrom);
+            nextDevices[slot] = remap(nextDevices[slot], removedSlot, movedFrom);
+            previousDevices[slot] = remap(previousDevices[slot], removedSlot, movedFrom);
+        }
+    }
+
+    private static int remap(int deviceSlot, int removedSlot, int movedFrom) {
+        if (deviceSlot == removedSlot) return -1;
+        if (deviceSlot == movedFrom) return removedSlot;
+        return deviceSlot;
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+
+    NetworkMap owner() {
+        return owner;
+    }
+
+    int liveCount() {
+        return liveCount;
+    }
+
+    long estimateMemory() {
+        int capacity = ids.length;
+        return 8 * MemoryFootprint.primitiveArraySize(capacity, 4)
+                + MemoryFootprint.primitiveArraySize(capacity, 1)
+                + 4 * MemoryFootprint.primitiveArraySize(capacity, 8)
+                + MemoryFootprint.referenceArraySize(capacity)
+                + MemoryFootprint.primitiveArraySize(freeSlots.length, 4)
+                + (long) used * MemoryFootprint.shallowSize(Packet.class);
+    }
+
+    private void resize(int capacity) {
+        if (ids == null) {
+            ids = new int[capacity];
+            sourceAddresses = new int[capacity];
+            destinationAddresses = new int[capacity];
+            currentDevices = new int[capacity];
+            nextDevices = new int[capacity];
+            previousDevices = new int[capacity];
+            hopCounts = new int[capacity];
+            ttls = new byte[capacity];
+            flags = new int[capacity];
+            creationTimes = new long[capacity];
+            departureTimes = new long[capacity];
+            arrivalTimes = new long[capacity];
+            finishTimes = new long[capacity];
+            handles = new Packet[capacity];
+            return;
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        sourceAddresses = Arrays.copyOf(sourceAddresses, capacity);
+        destinationAddresses = Arrays.copyOf(destinationAddresses, capacity);
+        currentDevices = Arrays.copyOf(currentDevices, capacity);
+        nextDevices = Arrays.copyOf(nextDevices, capacity);
+        previousDevices = Arrays.copyOf(previousDevices, capacity);
+        hopCounts = Arrays.copyOf(hopCounts, capacity);
+        ttls = Arrays.copyOf(ttls, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        creationTimes = Arrays.copyOf(creationTimes, capacity);
+        departureTimes = Arrays.copyOf(departureTimes, capacity);
+        arrivalTimes = Arrays.copyOf(arrivalTimes, capacity);
+        finishTimes = Arrays.copyOf(finishTimes, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+    }
+}
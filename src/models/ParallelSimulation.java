@@ -0,0 +1,161 @@
+package models;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Executa a simulação do NetworkMap usando vários núcleos.
+ *
+ * Todas as chegadas de pacotes agendadas para o mesmo instante formam um lote.
+ * A decisão de encaminhamento de cada pacote do lote (consulta à tabela de
+ * rotas e ao índice de IPs) é calculada em paralelo, já que só lê a topologia
+ * e altera apenas o slot do próprio pacote. Em seguida as decisões são
+ * aplicadas e os próximos saltos agendados sequencialmente, na mesma ordem em
+ * que o EventScheduler os dispararia. Assim o resultado é idêntico ao da
+ * execução sequencial (NetworkMap.runUntil / runToCompletion).
+ *
+ * Outros eventos (injeção de tráfego etc.) encerram o lote e são disparados
+ * normalmente. A topologia não pode ser alterada durante uma chamada.
+ */
+public class ParallelSimulation {
+
+    // Lotes menores que isso são processados na própria thread
+    private static final int PARALLEL_THRESHOLD = 256;
+    // Quantidade de pacotes por tarefa do ForkJoinPool
+    private static final int LEAF_SIZE = 128;
+
+    private final NetworkMap map;
+    private final ForkJoinPool pool;
+
+    private Packet[] batch = new Packet[PARALLEL_THRESHOLD];
+    private HopDecision[] decisions = new HopDecision[PARALLEL_THRESHOLD];
+
+    private long batches = 0;
+    private long parallelBatches = 0;
+
+    public ParallelSimulation(NetworkMap map, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Número de threads inválido: " + threads);
+        this.map = map;
+        this.pool = new ForkJoinPool(threads);
+        for (int i = 0; i < decisions.length; i++)
+            decisions[i] = new HopDecision();
+    }
+
+    public ParallelSimulation(NetworkMap map) {
+        this(map, Runtime.getRuntime().availableProcessors());
+    }
+
+    // ============================
+    // EXECUÇÃO
+    // ============================
+
+    public void tick() {
+        runUntil(map.getSimulationTime() + 1);
+    }
+
+    /**
+     * Processa todos os eventos com instante <= 'time' e avança o relógio até 'time'.
+     */
+    public void runUntil(long time) {
+        EventScheduler scheduler = map.getScheduler();
+        while (!scheduler.isEmpty() && scheduler.peekTime() <= time) {
+            step(scheduler);
+        }
+        scheduler.advanceTo(time);
+    }
+
+    public void runToCompletion() {
+        EventScheduler scheduler = map.getScheduler();
+        while (!scheduler.isEmpty()) {
+            step(scheduler);
+        }
+    }
+
+    // Libera as threads do pool
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // ============================
+    // LOTES
+    // ============================
+
+    private void step(EventScheduler scheduler) {
+        long time = scheduler.peekTime();
+        if (!isArrival(scheduler.peekEvent())) {
+            scheduler.poll().fire(time);
+            return;
+        }
+
+        // Junta as chegadas consecutivas do mesmo instante
+        int count = 0;
+        while (scheduler.peekTime() == time && isArrival(scheduler.peekEvent())) {
+            if (count == batch.length)
+                grow();
+            batch[count++] = (Packet) scheduler.poll();
+        }
+        batches++;
+
+        if (count < PARALLEL_THRESHOLD) {
+            prepare(0, count);
+        } else {
+            parallelBatches++;
+            pool.invoke(new PrepareTask(0, count));
+        }
+
+        for (int i = 0; i < count; i++) {
+            map.completeArrival(batch[i], decisions[i]);
+            batch[i] = null;
+        }
+    }
+
+    private boolean isArrival(SimulationEvent event) {
+        return event instanceof Packet && ((Packet) event).getNetworkMap() == map;
+    }
+
+    private void prepare(int from, int to) {
+        for (int i = from; i < to; i++) {
+            map.prepareArrival(batch[i], decisions[i]);
+        }
+    }
+
+    private void grow() {
+        int oldLength = batch.length;
+        batch = Arrays.copyOf(batch, oldLength * 2);
+        decisions = Arrays.copyOf(decisions, oldLength * 2);
+        for (int i = oldLength; i < decisions.length; i++)
+            decisions[i] = new HopDecision();
+    }
+
+    private class PrepareTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        PrepareTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                prepare(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PrepareTask(from, middle), new PrepareTask(middle, to));
+        }
+    }
+
+    // ============================
+    // GETTERS
+    // ============================
+
+    public int getParallelism() { return pool.getParallelism(); }
+    public long getBatches() { return batches; }
+    public long getParallelBatches() { return parallelBatches; }
+}
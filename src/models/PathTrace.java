@@ -0,0 +1,128 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caminho que um pacote de 'source' para 'destination' percorreria com as
+ * tabelas atuais, calculado sem animação e sem filas (NetworkMap.tracePath).
+ *
+ * Cada salto usa a mesma decisão da simulação (Device.decide): gateway e
+ * sub-rede local no Host, Longest Prefix Match no Router. Como a decisão de
+ * um dispositivo só depende do fluxo (o destino e, no ECMP, a origem),
+ * passar duas vezes pelo mesmo dispositivo já é um laço.
+ *
+ * Um caminho que termina depois de mais encaminhamentos do que o TTL
+ * inicial do mapa é descartado com DROP_TTL_EXCEEDED no dispositivo em que
+ * o TTL acaba, como na simulação. Laços continuam LOOP, qualquer que seja o
+ * comprimento (na simulação eles também terminam no TTL).
+ */
+public class PathTrace {
+
+    public enum Status {
+        DELIVERED,   // chegou ao dispositivo dono do destino
+        LOOP,        // voltou a um dispositivo já visitado
+        BLACK_HOLE,  // descartado no meio do caminho (sem rota, interface ou próximo salto, ou TTL esgotado)
+        UNREACHABLE; // descartado na origem ou na última entrega: o destino não existe ou não há gateway
+
+        // Classificação de um descarte; DROP_NEXT_HOP_NOT_FOUND numa rota direta é destino inexistente
+        static Status ofDrop(HopDecision decision) {
+            switch (decision.outcome) {
+                case DROP_NO_ROUTE:
+                case DROP_INVALID_INTERFACE:
+                case DROP_TTL_EXCEEDED:
+                    return BLACK_HOLE;
+                case DROP_NEXT_HOP_NOT_FOUND:
+                    return decision.route.isDirectlyConnected() ? UNREACHABLE : BLACK_HOLE;
+                default:
+                    return UNREACHABLE;
+            }
+        }
+    }
+
+    private final Device source;
+    private final int destination;
+    private final List<Device> path;
+    private final Status status;
+    private final HopDecision.Outcome dropReason;
+
+    private PathTrace(Device source, int destination, List<Device> path, Status status, HopDecision.Outcome dropReason) {
+        this.source = source;
+        this.destination = destination;
+        this.path = Collections.unmodifiableList(path);
+        this.status = status;
+        this.dropReason = dropReason;
+    }
+
+    // Endereço de origem do fluxo: o da primeira interface (0 se não houver)
+    static int addressOf(Device device) {
+        return (device.getInterfaceCount() > 0) ? device.getInterface(0).getAddress() : Ipv4Address.ANY;
+    }
+
+    // Caminho a partir de 'source' para o fluxo 'sourceAddress' -> 'destination', sem limite de saltos
+    static PathTrace trace(Device source, int sourceAddress, int destination) {
+        return trace(source, sourceAddress, destination, Integer.MAX_VALUE);
+    }
+
+    // O mesmo, com o TTL 'hopLimit': no máximo 'hopLimit' encaminhamentos até a entrega ou o descarte
+    static PathTrace trace(Device source, int sourceAddress, int destination, int hopLimit) {
+        PathTrace trace = follow(source, sourceAddress, destination);
+        if (trace.status == Status.LOOP || trace.getHops() <= hopLimit)
+            return trace;
+        // O dispositivo alcançado depois de 'hopLimit' encaminhamentos ainda encaminharia
+        List<Device> path = new ArrayList<>(trace.path.subList(0, hopLimit + 1));
+        return new PathTrace(source, destination, path, Status.BLACK_HOLE, HopDecision.Outcome.DROP_TTL_EXCEEDED);
+    }
+
+    private static PathTrace follow(Device source, int sourceAddress, int destination) {
+        List<Device> path = new ArrayList<>();
+        Map<Device, Boolean> visited = new IdentityHashMap<>();
+        HopDecision decision = new HopDecision(true);
+        Device current = source;
+        path.add(current);
+        visited.put(current, Boolean.TRUE);
+
+        while (true) {
+            decision.reset();
+            current.decide(sourceAddress, destination, decision);
+            if (decision.outcome == HopDecision.Outcome.DELIVER)
+                return new PathTrace(source, destination, path, Status.DELIVERED, null);
+            if (decision.outcome != HopDecision.Outcome.FORWARD)
+                return new PathTrace(source, destination, path, Status.ofDrop(decision), decision.outcome);
+
+            current = decision.nextHop;
+            path.add(current);
+            if (visited.put(current, Boolean.TRUE) != null)
+                return new PathTrace(source, destination, path, Status.LOOP, null);
+        }
+    }
+
+    public Device getSource() { return source; }
+    public int getDestination() { return destination; }
+    // Dispositivos visitados, da origem até o que entregou ou descartou (no laço, termina no repetido)
+    public List<Device> getPath() { return path; }
+    public Status getStatus() { return status; }
+    // Motivo do descarte (null se entregue ou em laço)
+    public HopDecision.Outcome getDropReason() { return dropReason; }
+
+    public int getHops() {
+        return path.size() - 1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(source.getName()).append(" -> ").append(Ipv4Address.toString(destination)).append(": ");
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0) sb.append(" > ");
+            sb.append(path.get(i).getName());
+        }
+        sb.append(" (").append(status);
+        if (dropReason != null)
+            sb.append(' ').append(dropReason);
+        return sb.append(", ").append(getHops()).append(" saltos)").toString();
+    }
+}
@@ -0,0 +1,567 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Alcançabilidade entre todos os pares (origem, IP de destino), calculada
+ * sem simular pacotes (NetworkMap.analyzeReachability). O resultado de cada
+ * par é o mesmo de PathTrace: entregue, laço, buraco negro ou inalcançável,
+ * com o motivo do descarte e o número de saltos. Caminhos mais longos que o
+ * TTL inicial do mapa viram descarte por TTL no salto em que ele acaba.
+ *
+ * O trabalho é memoizado para que o custo por par fique perto de constante:
+ *
+ *   - Classes de destino: todos os prefixos de todas as tabelas são
+ *     reunidos numa única trie; dois destinos com o mesmo prefixo global
+ *     mais longo casam com as mesmas rotas em todos os roteadores. Para uma
+ *     classe, a decisão de um roteador por uma rota remota é a mesma para
+ *     todos os destinos, então o trecho "deste roteador até a última rota
+ *     direta (ou descarte, ou laço)" é calculado uma vez por roteador e
+ *     classe. Destinos que são endereços de roteadores não usam esse atalho.
+ *   - Por destino: o resultado a partir do primeiro salto (o gateway das
+ *     origens) não depende da origem e é reaproveitado.
+ *   - ECMP: com grupos o caminho depende da origem e o atalho por destino
+ *     é desligado. Os trechos terminam nos roteadores com grupo e guardam
+ *     os membros; o trecho depois de cada membro também é memoizado por
+ *     roteador e classe. Cada par custa então um hash por roteador com
+ *     grupo no caminho, e voltar a um membro já escolhido é um laço.
+ *
+ * As classes são divididas entre os núcleos pelo ForkJoinPool comum; cada
+ * tarefa preenche só as colunas dos seus destinos. O mapa não pode ser
+ * alterado durante o cálculo (a interface gráfica sincroniza no mapa).
+ *
+ * Memória: dois bytes por par (situação e saltos), ~200 MB para 10k x 10k.
+ */
+public class ReachabilityMatrix {
+
+    // Tarefas por núcleo; cada tarefa aloca o próprio estado e refaz a memoização das classes que recebe
+    private static final int TASKS_PER_THREAD = 8;
+    private static final int MIN_PAIRS_PER_TASK = 1 << 16;
+    private static final int MAX_STORED_HOPS = 255;
+
+    // Resultado do trecho memoizado de um roteador (ver Workspace.follow)
+    private static final byte SEGMENT_DROP = 0;      // descartado em 'end'
+    private static final byte SEGMENT_LOOP = 1;
+    private static final byte SEGMENT_CONNECTED = 2; // 'end' usa uma rota direta: decide por destino
+    private static final byte SEGMENT_EXIT = 3;      // 'end' não é roteador: continua por destino
+    private static final byte SEGMENT_MULTIPATH = 4; // 'end' usa um grupo ECMP: decide por par
+
+    private static final byte TTL_EXCEEDED = encode(PathTrace.Status.BLACK_HOLE, HopDecision.Outcome.DROP_TTL_EXCEEDED);
+
+    private static final PathTrace.Status[] STATUSES = PathTrace.Status.values();
+    private static final HopDecision.Outcome[] OUTCOMES = HopDecision.Outcome.values();
+
+    private final NetworkMap map;
+    private final Device[] sources;
+    private final int[] destinations;
+    private final int[] sourceAddresses;
+    // TTL inicial: máximo de encaminhamentos de um caminho que termina
+    private final int hopLimit;
+    // Há grupos ECMP: o caminho depende da origem e o atalho por destino não vale
+    private boolean flowDependent;
+    // Maior grupo ECMP instalado nos roteadores; 0 sem ECMP
+    private int groupWidth;
+    // Por par (destino * origens + origem: cada tarefa escreve trechos contínuos):
+    // situação | (motivo + 1) << 2, e saltos (saturados em 255)
+    private final byte[] codes;
+    private final byte[] hops;
+    private final long[] counts = new long[STATUSES.length];
+    private int destinationClasses;
+    private int columnsPerTask;
+    private long elapsedNanos;
+
+    private ReachabilityMatrix(NetworkMap map, Device[] sources, int[] destinations) {
+        this.map = map;
+        this.sources = sources;
+        this.destinations = destinations;
+        this.sourceAddresses = new int[sources.length];
+        for (int s = 0; s < sources.length; s++)
+            sourceAddresses[s] = PathTrace.addressOf(sources[s]);
+        this.hopLimit = map.getInitialTtl();
+        long pairs = (long) sources.length * destinations.length;
+        if (pairs > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("pares demais: " + pairs);
+        this.codes = new byte[(int) pairs];
+        this.hops = new byte[(int) pairs];
+    }
+
+    // ============================
+    // CÁLCULO
+    // ============================
+
+    static ReachabilityMatrix compute(NetworkMap map, Device[] sources, int[] destinations) {
+        long start = System.nanoTime();
+        ReachabilityMatrix matrix = new ReachabilityMatrix(map, sources, destinations);
+
+        // Destinos agrupados por classe (ordenação por contagem); -1 = endereço de roteador
+        int[] classOf = matrix.classifyDestinations();
+        int classCount = matrix.destinationClasses;
+        int[] classStart = new int[classCount + 2];
+        for (int c : classOf)
+            classStart[c + 2]++;
+        for (int c = 0; c <= classCount; c++)
+            classStart[c + 1] += classStart[c];
+        int[] order = new int[destinations.length];
+        int[] next = classStart.clone();
+        for (int d = 0; d < destinations.length; d++)
+            order[next[classOf[d] + 1]++] = d;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        matrix.columnsPerTask = Math.max(destinations.length / (pool.getParallelism() * TASKS_PER_THREAD),
+                MIN_PAIRS_PER_TASK / Math.max(1, sources.length));
+        pool.invoke(matrix.new ColumnTask(order, classOf, 0, order.length));
+        matrix.elapsedNanos = System.nanoTime() - start;
+        return matrix;
+    }
+
+    /**
+     * Classe de cada destino: índice do prefixo global mais longo que o
+     * contém, o último índice se nenhuma rota o contém, ou -1 se o destino é
+     * endereço de um roteador (o roteador o entrega em vez de consultar a
+     * tabela, então a classe não vale para ele).
+     */
+    private int[] classifyDestinations() {
+        ForwardingTable prefixes = new ForwardingTable();
+        Map<RouteEntry, Integer> classIds = new IdentityHashMap<>();
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            Device d = map.deviceAt(i);
+            if (!(d instanceof Router)) continue;
+            if (((Router) d).getMultipathGroupCount() > 0) {
+                flowDependent = true;
+                groupWidth = Math.max(groupWidth, ((Router) d).getLargestPathGroup());
+            }
+            for (RouteEntry route : ((Router) d).getRoutingTable()) {
+                if (prefixes.insert(route.network, route.prefixLength, route))
+                    classIds.put(route, classIds.size());
+            }
+        }
+        int noRoute = classIds.size();
+        destinationClasses = noRoute + 1;
+
+        boolean duplicates = map.hasDuplicateAddresses();
+        int[] classOf = new int[destinations.length];
+        for (int d = 0; d < destinations.length; d++) {
+            Device owner = map.findDeviceByIP(destinations[d]);
+            if (duplicates || owner instanceof Router) {
+                classOf[d] = -1;
+                continue;
+            }
+            RouteEntry route = prefixes.lookup(destinations[d]);
+            classOf[d] = (route == null) ? noRoute : classIds.get(route);
+        }
+        return classOf;
+    }
+
+    // Divide as colunas (já agrupadas por classe) até 'columnsPerTask' destinos por tarefa
+    private final class ColumnTask extends RecursiveAction {
+        private final int[] order;
+        private final int[] classOf;
+        private final int from;
+        private final int to;
+
+        ColumnTask(int[] order, int[] classOf, int from, int to) {
+            this.order = order;
+            this.classOf = classOf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > Math.max(1, columnsPerTask)) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ColumnTask(order, classOf, from, middle), new ColumnTask(order, classOf, middle, to));
+                return;
+            }
+            Workspace workspace = new Workspace(map.getDeviceCount(), groupWidth);
+            long[] local = new long[STATUSES.length];
+            for (int k = from; k < to; k++) {
+                int column = order[k];
+                int destinationClass = classOf[column];
+                // Carimbos únicos por classe; destinos de roteador (-1) recebem carimbos próprios
+                int stamp = (destinationClass >= 0) ? destinationClass + 1 : -(k + 1);
+                workspace.fillColumn(column, destinationClass >= 0, stamp, local);
+            }
+            addCounts(local);
+        }
+    }
+
+    private synchronized void addCounts(long[] local) {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += local[i];
+    }
+
+    /**
+     * Estado de uma tarefa. Os trechos ficam em registros: o de cada
+     * roteador na posição dele no mapa e, com ECMP, mais 'groupWidth' por
+     * roteador, um para cada membro do grupo (o trecho depois da escolha).
+     * As entradas valem enquanto o carimbo bate: 'segment*' para a classe
+     * (ou, sem memoização, para o destino), 'tail*' para o destino. Cada
+     * registro guarda também a rota da FIB do roteador do fim e, se ela é
+     * um grupo ECMP, os membros do grupo; ambos valem para toda a classe.
+     */
+    private final class Workspace {
+        private final HopDecision decision = new HopDecision(true);
+        private final int deviceCount;
+        private final int deviceLimit;
+        private final int groupWidth;
+
+        private final int[] segmentStamp;
+        private final byte[] segmentKind;
+        private final byte[] segmentCode;
+        private final int[] segmentHops;
+        private final Device[] segmentEnd;
+        private final RouteEntry[] segmentRoute;
+        private final RouteEntry[][] segmentPaths;
+        private final int[] visitStamp;
+        private final Device[] stack;
+        // Caminhada em que cada registro de membro foi usado pela última vez
+        private final int[] choiceWalk;
+        private int walks;
+
+        private final int[] tailStamp;
+        private final byte[] tailCode;
+        private final int[] tailHops;
+
+        // Resultado da última caminhada (situação | motivo, saltos)
+        private byte resultCode;
+        private int resultHops;
+
+        /**
+         * Última rota direta no fim de um trecho, com o destino, e o resto do
+         * caminho a partir dela. O próximo salto é o dono do destino, então,
+         * se o caminho termina ali (descarte no roteador ou entrega no salto
+         * seguinte), o resto vale para qualquer origem. Evita resolver o
+         * vizinho para cada par quando o ECMP desliga o atalho por destino.
+         */
+        private RouteEntry exitRoute;
+        private int exitDestination;
+        private byte exitCode;
+        private int exitHops;
+        private RouteEntry pendingExit;
+        private int pendingExitDestination;
+        private int pendingExitStart;
+
+        Workspace(int deviceCount, int groupWidth) {
+            this.deviceCount = deviceCount;
+            this.deviceLimit = deviceCount + 1;
+            this.groupWidth = groupWidth;
+            int records = deviceCount * (1 + groupWidth);
+            segmentStamp = new int[records];
+            segmentKind = new byte[records];
+            segmentCode = new byte[records];
+            segmentHops = new int[records];
+            segmentEnd = new Device[records];
+            segmentRoute = new RouteEntry[records];
+            segmentPaths = new RouteEntry[records][];
+            visitStamp = new int[deviceCount];
+            stack = new Device[deviceCount];
+            choiceWalk = new int[deviceCount * groupWidth];
+            tailStamp = new int[deviceCount];
+            tailCode = new byte[deviceCount];
+            tailHops = new int[deviceCount];
+        }
+
+        void fillColumn(int column, boolean memoize, int stamp, long[] local) {
+            int destination = destinations[column];
+            int base = column * sources.length;
+            for (int s = 0; s < sources.length; s++) {
+                Device source = sources[s];
+                int sourceAddress = sourceAddresses[s];
+                decision.reset();
+                source.decide(sourceAddress, destination, decision);
+                byte code;
+                int pathHops;
+                if (decision.outcome == HopDecision.Outcome.DELIVER) {
+                    code = encode(PathTrace.Status.DELIVERED, null);
+                    pathHops = 0;
+                } else if (decision.outcome != HopDecision.Outcome.FORWARD) {
+                    code = encode(PathTrace.Status.ofDrop(decision), decision.outcome);
+                    pathHops = 0;
+                } else if (flowDependent) {
+                    walk(decision.nextHop, sourceAddress, destination, memoize, stamp);
+                    code = resultCode;
+                    pathHops = resultHops + 1;
+                } else {
+                    // O resultado a partir do primeiro salto não depende da origem
+                    Device first = decision.nextHop;
+                    int slot = first.mapSlot;
+                    if (tailStamp[slot] != column + 1) {
+                        walk(first, sourceAddress, destination, memoize, stamp);
+                        tailStamp[slot] = column + 1;
+                        tailCode[slot] = resultCode;
+                        tailHops[slot] = resultHops;
+                    }
+                    code = tailCode[slot];
+                    pathHops = tailHops[slot] + 1;
+                }
+                if (pathHops > hopLimit && (code & 3) != PathTrace.Status.LOOP.ordinal()) {
+                    code = TTL_EXCEEDED;
+                    pathHops = hopLimit;
+                }
+                int pair = base + s;
+                codes[pair] = code;
+                hops[pair] = (byte) Math.min(pathHops, MAX_STORED_HOPS);
+                local[code & 3]++;
+            }
+        }
+
+        // Caminha de 'current' até a entrega, o descarte ou um laço
+        private void walk(Device current, int source, int destination, boolean memoize, int stamp) {
+            int pathHops = 0;
+            pendingExit = null;
+            walks++;
+            for (int steps = 0; steps <= deviceLimit; steps++) {
+                if (memoize && current instanceof Router) {
+                    int record = follow((Router) current, destination, stamp);
+                    // ECMP: o hash do par escolhe o membro, cujo trecho também está memoizado
+                    while (segmentKind[record] == SEGMENT_MULTIPATH) {
+                        pathHops += segmentHops[record];
+                        record = choose(record, source, destination, stamp);
+                        // O mesmo fluxo escolhe sempre o mesmo membro: voltar a ele é um laço
+                        if (choiceWalk[record - deviceCount] == walks) {
+                            record = -1;
+                            break;
+                        }
+                        choiceWalk[record - deviceCount] = walks;
+                    }
+                    if (record < 0) break;
+                    byte kind = segmentKind[record];
+                    if (kind == SEGMENT_LOOP) break;
+                    pathHops += segmentHops[record];
+                    if (kind == SEGMENT_DROP) {
+                        finish(segmentCode[record], pathHops);
+                        return;
+                    }
+                    current = segmentEnd[record];
+                    if (kind == SEGMENT_EXIT) continue;
+
+                    // Rota direta: o próximo salto depende do destino
+                    RouteEntry route = segmentRoute[record];
+                    if (route == exitRoute && destination == exitDestination) {
+                        finish(exitCode, pathHops + exitHops);
+                        return;
+                    }
+                    pendingExit = route;
+                    pendingExitDestination = destination;
+                    pendingExitStart = pathHops;
+                    decision.reset();
+                    ((Router) current).resolve(route, destination, decision);
+                } else {
+                    decision.reset();
+                    current.decide(source, destination, decision);
+                }
+                if (decision.outcome == HopDecision.Outcome.DELIVER) {
+                    finish(encode(PathTrace.Status.DELIVERED, null), pathHops);
+                    return;
+                }
+                if (decision.outcome != HopDecision.Outcome.FORWARD) {
+                    finish(encode(PathTrace.Status.ofDrop(decision), decision.outcome), pathHops);
+                    return;
+                }
+                current = decision.nextHop;
+                pathHops++;
+            }
+            pendingExit = null;
+            finish(encode(PathTrace.Status.LOOP, null), 0);
+        }
+
+        private void finish(byte code, int pathHops) {
+            resultCode = code;
+            resultHops = pathHops;
+            if (pendingExit != null && pathHops - pendingExitStart <= 1) {
+                exitRoute = pendingExit;
+                exitDestination = pendingExitDestination;
+                exitCode = code;
+                exitHops = pathHops - pendingExitStart;
+            }
+        }
+
+        /**
+         * Segue as decisões por rotas remotas a partir de 'router' (que só
+         * dependem da classe do destino), memoizando o trecho de cada
+         * roteador visitado. Devolve o registro de 'router', cujo trecho
+         * termina num descarte, num laço, num roteador que usa uma rota
+         * direta ou um grupo ECMP, ou num dispositivo que não é roteador.
+         */
+        private int follow(Router router, int destination, int stamp) {
+            int depth = 0;
+            Device current = router;
+            byte kind;
+            byte code = 0;
+            int segmentLength = 0;
+            Device end = null;
+            RouteEntry route = null;
+            RouteEntry[] paths = null;
+
+            while (true) {
+                if (!(current instanceof Router)) {
+                    kind = SEGMENT_EXIT;
+                    end = current;
+                    break;
+                }
+                int slot = current.mapSlot;
+                if (segmentStamp[slot] == stamp) {
+                    kind = segmentKind[slot];
+                    code = segmentCode[slot];
+                    segmentLength = segmentHops[slot];
+                    end = segmentEnd[slot];
+                    route = segmentRoute[slot];
+                    paths = segmentPaths[slot];
+                    break;
+                }
+                if (visitStamp[slot] == stamp) {
+                    kind = SEGMENT_LOOP;
+                    break;
+                }
+
+                // Destinos memoizados nunca são endereços de roteador: basta a rota da FIB
+                Router hop = (Router) current;
+                route = hop.lookupUncached(destination);
+                paths = hop.pathsOf(route);
+                if (paths != null) {
+                    kind = SEGMENT_MULTIPATH;
+                    end = current;
+                    store(slot, kind, (byte) 0, 0, end, route, paths, stamp);
+                    break;
+                }
+                decision.reset();
+                hop.resolve(route, destination, decision);
+                boolean connected = route != null && route.isDirectlyConnected();
+                if (connected || decision.outcome != HopDecision.Outcome.FORWARD) {
+                    kind = connected ? SEGMENT_CONNECTED : SEGMENT_DROP;
+                    code = connected ? 0 : encode(PathTrace.Status.ofDrop(decision), decision.outcome);
+                    end = current;
+                    store(slot, kind, code, 0, end, route, null, stamp);
+                    break;
+                }
+                visitStamp[slot] = stamp;
+                stack[depth++] = current;
+                current = decision.nextHop;
+            }
+
+            // Cada roteador da pilha fica a um salto a mais do fim do trecho
+            while (depth > 0) {
+                Device d = stack[--depth];
+                stack[depth] = null;
+                if (kind != SEGMENT_LOOP) segmentLength++;
+                store(d.mapSlot, kind, code, segmentLength, end, route, paths, stamp);
+            }
+            return router.mapSlot;
+        }
+
+        /**
+         * Escolha do fluxo no grupo ECMP do fim do trecho 'record': devolve
+         * o registro do membro escolhido, cujo trecho (o membro e o que vem
+         * depois dele, até o próximo grupo, rota direta, descarte ou laço) é
+         * calculado uma vez por roteador, classe e membro.
+         */
+        private int choose(int record, int source, int destination, int stamp) {
+            Router router = (Router) segmentEnd[record];
+            RouteEntry[] paths = segmentPaths[record];
+            int member = router.selectPath(source, destination, paths.length);
+            int choice = deviceCount + router.mapSlot * groupWidth + member;
+            if (segmentStamp[choice] == stamp)
+                return choice;
+
+            RouteEntry route = paths[member];
+            if (route.isDirectlyConnected()) {
+                store(choice, SEGMENT_CONNECTED, (byte) 0, 0, router, route, null, stamp);
+                return choice;
+            }
+            decision.reset();
+            router.resolve(route, destination, decision);
+            if (decision.outcome != HopDecision.Outcome.FORWARD) {
+                store(choice, SEGMENT_DROP, encode(PathTrace.Status.ofDrop(decision), decision.outcome), 0, router,
+                        route, null, stamp);
+                return choice;
+            }
+            Device next = decision.nextHop;
+            if (!(next instanceof Router)) {
+                store(choice, SEGMENT_EXIT, (byte) 0, 1, next, null, null, stamp);
+                return choice;
+            }
+            int rest = follow((Router) next, destination, stamp);
+            store(choice, segmentKind[rest], segmentCode[rest], segmentHops[rest] + 1, segmentEnd[rest],
+                    segmentRoute[rest], segmentPaths[rest], stamp);
+            return choice;
+        }
+
+        private void store(int record, byte kind, byte code, int length, Device end, RouteEntry route,
+                           RouteEntry[] paths, int stamp) {
+            segmentStamp[record] = stamp;
+            segmentKind[record] = kind;
+            segmentCode[record] = code;
+            segmentHops[record] = length;
+            segmentEnd[record] = end;
+            segmentRoute[record] = route;
+            segmentPaths[record] = paths;
+        }
+    }
+
+    private static byte encode(PathTrace.Status status, HopDecision.Outcome reason) {
+        return (byte) (status.ordinal() | ((reason == null) ? 0 : reason.ordinal() + 1) << 2);
+    }
+
+    // ============================
+    // CONSULTA
+    // ============================
+
+    public int getSourceCount() { return sources.length; }
+    public int getDestinationCount() { return destinations.length; }
+    public Device getSource(int s) { return sources[s]; }
+    public int getDestination(int d) { return destinations[d]; }
+    public int getDestinationClasses() { return destinationClasses; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public PathTrace.Status getStatus(int s, int d) {
+        return STATUSES[codes[d * sources.length + s] & 3];
+    }
+
+    // Motivo do descarte (null se entregue ou em laço)
+    public HopDecision.Outcome getDropReason(int s, int d) {
+        int reason = (codes[d * sources.length + s] & 0xFF) >>> 2;
+        return (reason == 0) ? null : OUTCOMES[reason - 1];
+    }
+
+    // Saltos até a entrega ou o descarte (no máximo o TTL inicial); -1 em laço
+    public int getHops(int s, int d) {
+        if (getStatus(s, d) == PathTrace.Status.LOOP) return -1;
+        return hops[d * sources.length + s] & 0xFF;
+    }
+
+    public long count(PathTrace.Status status) {
+        return counts[status.ordinal()];
+    }
+
+    public long getPairCount() {
+        return codes.length;
+    }
+
+    // Caminhos completos dos primeiros 'limit' pares que não foram entregues
+    public List<PathTrace> traceProblems(int limit) {
+        List<PathTrace> traces = new ArrayList<>();
+        for (int s = 0; s < sources.length && traces.size() < limit; s++) {
+            for (int d = 0; d < destinations.length && traces.size() < limit; d++) {
+                if (getStatus(s, d) != PathTrace.Status.DELIVERED)
+                    traces.add(PathTrace.trace(sources[s], sourceAddresses[s], destinations[d], hopLimit));
+            }
+        }
+        return traces;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d origens x %d destinos (%d classes): %d entregues, %d laços, %d buracos negros, %d inalcançáveis (%.0f ms)",
+                sources.length, destinations.length, destinationClasses, count(PathTrace.Status.DELIVERED),
+                count(PathTrace.Status.LOOP), count(PathTrace.Status.BLACK_HOLE), count(PathTrace.Status.UNREACHABLE),
+                elapsedNanos / 1e6);
+    }
+}
@@ -0,0 +1,126 @@
+package models;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache destino -> rota de um Router, na frente da busca na FIB.
+ *
+ * Mapeamento direto: cada destino só pode ocupar uma posição, e um destino
+ * novo simplesmente substitui o anterior. Cada posição guarda um objeto
+ * imutável, então leituras e escritas concorrentes (decisões em paralelo no
+ * ParallelSimulation) nunca misturam o destino de um com a rota de outro.
+ *
+ * Qualquer mudança na tabela de rotas invalida tudo de uma vez, avançando a
+ * geração; posições de gerações anteriores contam como falta.
+ */
+class RouteCache {
+
+    static final int DEFAULT_SIZE = 1024;
+
+    private static final class Slot {
+        final int destination;
+        final int generation;
+        final RouteEntry route; // null = sem rota
+
+        Slot(int destination, int generation, RouteEntry route) {
+            this.destination = destination;
+            this.generation = generation;
+            this.route = route;
+        }
+    }
+
+    // Alocado na primeira consulta: roteadores que nunca encaminham não pagam o array
+    private Slot[] slots;
+    private int capacity;
+    private int mask;
+    private int generation = 0;
+    // Indica se algo foi gravado desde a última invalidação
+    private boolean populated = false;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    RouteCache(int size) {
+        resize(size);
+    }
+
+    RouteEntry lookup(int destination, ForwardingTable table) {
+        Slot[] current = slots;
+        if (current == null) {
+            if (capacity == 0)
+                return table.lookup(destination);
+            current = new Slot[capacity];
+            slots = current;
+        }
+
+        int index = mix(destination) & mask;
+        Slot slot = current[index];
+        if (slot != null && slot.destination == destination && slot.generation == generation) {
+            hits.increment();
+            return slot.route;
+        }
+
+        misses.increment();
+        RouteEntry route = table.lookup(destination);
+        current[index] = new Slot(destination, generation, route);
+        populated = true;
+        return route;
+    }
+
+    // Chamado sempre que a tabela de rotas muda
+    void invalidate() {
+        if (!populated) return;
+        generation++;
+        populated = false;
+    }
+
+    /**
+     * Redimensiona o cache (arredondado para potência de 2); 0 desliga.
+     */
+    void resize(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Tamanho de cache inválido: " + size);
+        if (size == 0) {
+            capacity = 0;
+        } else {
+            capacity = Integer.highestOneBit(size);
+            if (capacity < size) capacity <<= 1;
+        }
+        slots = null;
+        mask = capacity - 1;
+        populated = false;
+    }
+
+    int size() {
+        return capacity;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    void resetCounters() {
+        hits.reset();
+        misses.reset();
+    }
+
+    long estimateMemory() {
+        if (slots == null) return 0;
+        long total = MemoryFootprint.referenceArraySize(slots.length);
+        for (Slot slot : slots)
+            if (slot != null) total += MemoryFootprint.shallowSize(Slot.class);
+        return total;
+    }
+
+    // Espalha os bits do endereço (destinos costumam diferir só nos bits baixos de cada octeto)
+    private static int mix(int x) {
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        return x;
+    }
+}
@@ -1,16 +1,100 @@
 package models;
 
+import exceptions.InvalidIpException;
+import exceptions.InvalidMaskException;
+
 public class RouteEntry {
-  public String networkAddress;
-  public String subnetMask;
-  public String nextHopIp; // IP do próximo salto (gateway)
-  public int outputInterfaceIndex; // Índice no array 'interfaces' do Router
+  public final int outputInterfaceIndex; // Índice no array 'interfaces' do Router
+
+  // Endereços em formato int, convertidos uma única vez na criação
+  public final int network;
+  public final int mask;
+  public final int nextHop; // IP do próximo salto (gateway)
+  public final int prefixLength;
+
+  // Visões em texto, montadas só quando pedidas (a carga binária não cria Strings)
+  private String networkAddress;
+  private String subnetMask;
+  private String nextHopIp;
+
+  // Dispositivo do próximo salto, resolvido no primeiro uso (ver NextHopBinding)
+  private NextHopBinding nextHopBinding;
+
+  // Posição na tabela do Router que a cadastrou por último (atalho de Router.removeRoute)
+  int tableSlot = -1;
+
+  // Pacotes encaminhados por esta rota (carga de cada caminho de um grupo ECMP)
+  private long forwardedPackets = 0;
 
   // Construtor e Getters
-  public RouteEntry(String net, String mask, String next, int index) {
+  public RouteEntry(String net, String mask, String next, int index) throws InvalidIpException, InvalidMaskException {
+    this(Ipv4Address.parseInt(net), Ipv4Address.parseMask(mask), Ipv4Address.parseInt(next), index);
     this.networkAddress = net;
     this.subnetMask = mask;
     this.nextHopIp = next;
+  }
+
+  public RouteEntry(int network, int mask, int nextHop, int index) throws InvalidMaskException {
+    if (!Ipv4Address.isContiguousMask(mask))
+      throw new InvalidMaskException(Ipv4Address.toString(mask));
     this.outputInterfaceIndex = index;
+    this.mask = mask;
+    this.network = network & mask;
+    this.nextHop = nextHop;
+    this.prefixLength = Ipv4Address.prefixLength(mask);
+  }
+
+  public String getNetworkAddress() {
+    if (networkAddress == null)
+      networkAddress = Ipv4Address.toString(network);
+    return networkAddress;
+  }
+
+  public String getSubnetMask() {
+    if (subnetMask == null)
+      subnetMask = Ipv4Address.toString(mask);
+    return subnetMask;
+  }
+
+  public String getNextHopIp() {
+    if (nextHopIp == null)
+      nextHopIp = Ipv4Address.toString(nextHop);
+    return nextHopIp;
+  }
+
+  long estimateMemory() {
+    return MemoryFootprint.shallowSize(RouteEntry.class)
+        + MemoryFootprint.stringSize(networkAddress)
+        + MemoryFootprint.stringSize(subnetMask)
+        + MemoryFootprint.stringSize(nextHopIp);
+  }
+
+  // Chamado por Router.apply, sempre na thread da simulação
+  void countForwarded() {
+    forwardedPackets++;
+  }
+
+  public long getForwardedPackets() {
+    return forwardedPackets;
+  }
+
+  public void resetForwardedPackets() {
+    forwardedPackets = 0;
+  }
+
+  // Rota diretamente conectada: o próximo salto é o próprio destino
+  public boolean isDirectlyConnected() {
+    return nextHop == Ipv4Address.ANY;
+  }
+
+  public boolean matches(int destination) {
+    return Ipv4Address.sameSubnet(network, mask, destination);
+  }
+
+  // Próximo salto de uma rota remota, sem consultar o mapa enquanto a topologia não mudar
+  Device nextHopDevice(Router router, NetworkInterface outgoingInterface) {
+    NextHopBinding binding = NextHopBinding.resolve(nextHopBinding, router, outgoingInterface, nextHop);
+    nextHopBinding = binding;
+    return binding.device;
   }
-}
\ No newline at end of file
+}
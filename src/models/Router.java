@@ -2,14 +2,40 @@ package models;
 
 import java.awt.Graphics;
 import java.awt.Color;
+import java.awt.Image;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import exceptions.InvalidIpException;
 
 public class Router extends Device {
+
+    // Sem ECMP: vale só a primeira rota de cada prefixo (comportamento original)
+    public static final int DEFAULT_MAX_PATHS = 1;
     
     // Tabela de roteamento usando uma lista de RouteEntry (o array central de rotas)
     private final List<RouteEntry> routingTable; 
 
+    // Tabela de encaminhamento compilada (trie indexada por int), usada na busca
+    private final ForwardingTable forwardingTable;
+
+    // Últimos destinos consultados, invalidados a cada mudança na tabela
+    private final RouteCache routeCache = new RouteCache(RouteCache.DEFAULT_SIZE);
+
+    // Rotas com prefixo repetido na tabela: ficam fora da FIB, que usa a primeira de cada prefixo
+    private int shadowedRoutes = 0;
+
+    // ECMP: até 'maxPaths' rotas do mesmo prefixo dividem o tráfego por fluxo. O grupo é
+    // indexado pela rota que está na FIB (a primeira, seguida das demais na ordem da tabela);
+    // prefixos com um só caminho não aparecem aqui
+    private int maxPaths = DEFAULT_MAX_PATHS;
+    private final Map<RouteEntry, RouteEntry[]> multipath = new IdentityHashMap<>();
+    // Semente do hash de fluxo, diferente em cada roteador
+    private final int pathSeed;
+
     // ==========================================================
     // CONSTRUTOR ATUALIZADO
     // Agora chama o construtor da superclasse com o caminho da imagem
@@ -18,103 +44,354 @@ public class Router extends Device {
         // O caminho da imagem deve ser relativo à pasta 'resources'
         super(id, name, x, y, "resources/router_icon.png"); 
         this.routingTable = new ArrayList<>(); // Inicializa a Tabela de Roteamento
+        this.forwardingTable = new ForwardingTable();
+        this.pathSeed = id * 0x27D4EB2F;
     }
     
     // Método para adicionar entradas à tabela (usado na fase de configuração)
     public void addRoute(RouteEntry entry) {
+        entry.tableSlot = routingTable.size();
         this.routingTable.add(entry);
+        if (!this.forwardingTable.insert(entry.network, entry.prefixLength, entry)) {
+            shadowedRoutes++;
+            if (maxPaths > 1)
+                addPath(entry);
+        }
+        this.routeCache.invalidate();
+    }
+
+    /**
+     * Remove uma rota da tabela mantendo a ordem das demais (O(n)): a ordem
+     * de inserção decide qual rota repetida vale na FIB e quais entram no
+     * grupo ECMP, e é a ordem gravada nos arquivos de topologia. Se havia
+     * outra rota para o mesmo prefixo, a primeira delas passa a valer na
+     * FIB; o grupo ECMP do prefixo é refeito (os fluxos podem mudar de
+     * caminho).
+     */
+    public boolean removeRoute(RouteEntry entry) {
+        int slot = slotOf(entry);
+        if (slot < 0) return false;
+
+        routingTable.remove(slot);
+        for (int i = slot; i < routingTable.size(); i++)
+            routingTable.get(i).tableSlot = i;
+        boolean inFib = forwardingTable.remove(entry.network, entry.prefixLength, entry);
+        if (!inFib) {
+            shadowedRoutes--;
+        } else if (shadowedRoutes > 0) {
+            promoteShadowed(entry.network, entry.prefixLength);
+        }
+        RouteEntry primary = inFib ? entry : forwardingTable.get(entry.network, entry.prefixLength);
+        if (multipath.containsKey(primary))
+            rebuildPaths(entry.network, entry.prefixLength, primary);
+        routeCache.invalidate();
+        return true;
+    }
+
+    // Troca uma rota por outra do mesmo prefixo, na mesma posição da tabela
+    public boolean replaceRoute(RouteEntry old, RouteEntry replacement) {
+        if (old.network != replacement.network || old.prefixLength != replacement.prefixLength)
+            throw new IllegalArgumentException("A nova rota deve ter o mesmo prefixo da antiga");
+        int slot = slotOf(old);
+        if (slot < 0) return false;
+
+        routingTable.set(slot, replacement);
+        replacement.tableSlot = slot;
+        boolean inFib = forwardingTable.replace(old.network, old.prefixLength, old, replacement);
+        RouteEntry primary = inFib ? old : forwardingTable.get(old.network, old.prefixLength);
+        RouteEntry[] paths = multipath.remove(primary);
+        if (paths != null) {
+            paths = paths.clone();
+            for (int i = 0; i < paths.length; i++) {
+                if (paths[i] == old) paths[i] = replacement;
+            }
+            multipath.put(inFib ? replacement : primary, paths);
+        }
+        routeCache.invalidate();
+        return true;
+    }
+
+    // Rota em uso (na FIB) para exatamente 'network/prefixLength', ou null
+    public RouteEntry getRoute(int network, int prefixLength) {
+        return forwardingTable.get(network, prefixLength);
+    }
+
+    private int slotOf(RouteEntry entry) {
+        int slot = entry.tableSlot;
+        if (slot >= 0 && slot < routingTable.size() && routingTable.get(slot) == entry)
+            return slot;
+        // A mesma rota cadastrada em mais de um Router: a posição guardada é a do último
+        for (int i = 0; i < routingTable.size(); i++) {
+            if (routingTable.get(i) == entry) return i;
+        }
+        return -1;
+    }
+
+    private void promoteShadowed(int network, int prefixLength) {
+        for (RouteEntry candidate : routingTable) {
+            if (candidate.network == network && candidate.prefixLength == prefixLength) {
+                forwardingTable.insert(network, prefixLength, candidate);
+                shadowedRoutes--;
+                return;
+            }
+        }
+    }
+
+    // ============================
+    // ECMP
+    // ============================
+
+    /**
+     * Número máximo de caminhos de custo igual por prefixo. Com 1 (padrão)
+     * só a primeira rota de cada prefixo é usada; com mais, as rotas
+     * repetidas do mesmo prefixo (na ordem da tabela) formam um grupo, e cada
+     * fluxo (origem, destino) fica sempre no mesmo caminho.
+     */
+    public void setMaxPaths(int paths) {
+        if (paths < 1)
+            throw new IllegalArgumentException("use ao menos 1 caminho: " + paths);
+        maxPaths = paths;
+        multipath.clear();
+        if (paths == 1 || shadowedRoutes == 0) return;
+        for (RouteEntry route : routingTable) {
+            if (forwardingTable.get(route.network, route.prefixLength) != route)
+                addPath(route);
+        }
+    }
+
+    public int getMaxPaths() {
+        return maxPaths;
+    }
+
+    // Prefixos com mais de um caminho em uso
+    public int getMultipathGroupCount() {
+        return multipath.size();
+    }
+
+    // Tamanho do maior grupo ECMP instalado (0 sem grupos)
+    int getLargestPathGroup() {
+        int largest = 0;
+        for (RouteEntry[] paths : multipath.values())
+            largest = Math.max(largest, paths.length);
+        return largest;
+    }
+
+    // Caminhos em uso para exatamente 'network/prefixLength' (vazio se não há rota)
+    public List<RouteEntry> getEqualCostPaths(int network, int prefixLength) {
+        RouteEntry primary = forwardingTable.get(network, prefixLength);
+        if (primary == null)
+            return Collections.emptyList();
+        RouteEntry[] paths = multipath.get(primary);
+        return (paths == null) ? Collections.singletonList(primary) : Collections.unmodifiableList(Arrays.asList(paths));
+    }
+
+    // Acrescenta uma rota repetida ao grupo do seu prefixo, se ainda houver vaga
+    private void addPath(RouteEntry entry) {
+        RouteEntry primary = forwardingTable.get(entry.network, entry.prefixLength);
+        RouteEntry[] paths = multipath.get(primary);
+        if (paths == null) {
+            paths = new RouteEntry[] { primary };
+        } else if (paths.length >= maxPaths) {
+            return;
+        }
+        paths = Arrays.copyOf(paths, paths.length + 1);
+        paths[paths.length - 1] = entry;
+        multipath.put(primary, paths);
+    }
+
+    // Refaz o grupo de um prefixo a partir da tabela (depois de uma remoção)
+    private void rebuildPaths(int network, int prefixLength, RouteEntry previousPrimary) {
+        multipath.remove(previousPrimary);
+        RouteEntry primary = forwardingTable.get(network, prefixLength);
+        if (primary == null) return;
+        RouteEntry[] paths = new RouteEntry[maxPaths];
+        int count = 0;
+        paths[count++] = primary;
+        for (int i = 0; i < routingTable.size() && count < maxPaths; i++) {
+            RouteEntry candidate = routingTable.get(i);
+            if (candidate != primary && candidate.network == network && candidate.prefixLength == prefixLength)
+                paths[count++] = candidate;
+        }
+        if (count > 1)
+            multipath.put(primary, Arrays.copyOf(paths, count));
+    }
+
+    /**
+     * Escolhe o caminho do fluxo (origem, destino) entre 'pathCount': hash
+     * dos dois endereços (finalizador do MurmurHash3) misturado com a
+     * semente do roteador, para que roteadores em sequência não repitam a
+     * mesma escolha (polarização).
+     */
+    int selectPath(int source, int destination, int pathCount) {
+        int h = (source * 0x9E3779B1 + destination) ^ pathSeed;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return (int) (((h & 0xFFFFFFFFL) * pathCount) >>> 32);
+    }
+
+    public List<RouteEntry> getRoutingTable() {
+        return Collections.unmodifiableList(routingTable);
+    }
+
+    // Memória estimada das rotas: entradas, textos e nós da FIB
+    long estimateRouteMemory() {
+        long total = MemoryFootprint.referenceArraySize(routingTable.size()) + forwardingTable.estimateMemory();
+        for (RouteEntry entry : routingTable)
+            total += entry.estimateMemory();
+        return total + routeCache.estimateMemory();
+    }
+
+    // ============================
+    // CACHE DE ROTAS
+    // ============================
+
+    // Número de posições do cache (arredondado para potência de 2); 0 desliga o cache
+    public void setRouteCacheSize(int size) {
+        routeCache.resize(size);
+    }
+
+    public int getRouteCacheSize() {
+        return routeCache.size();
+    }
+
+    public long getRouteCacheHits() {
+        return routeCache.getHits();
+    }
+
+    public long getRouteCacheMisses() {
+        return routeCache.getMisses();
+    }
+
+    public void resetRouteCacheCounters() {
+        routeCache.resetCounters();
     }
     
     /**
      * O coração do roteador: Busca a rota mais específica para o IP de destino.
-     * Implementa o Longest Prefix Match.
+     * Implementa o Longest Prefix Match sobre a FIB compilada, consultando
+     * antes o cache de destinos recentes.
      */
-    private RouteEntry lookupRoute(String destinationIp) {
-        RouteEntry bestMatch = null;
-        int longestPrefix = -1; // Usado para encontrar a rota mais específica
-
-        for (RouteEntry entry : this.routingTable) {
-            
-            // 1. Verifica se o IP de destino está na sub-rede da entrada de rota
-            if (NetworkInterface.sameSubnet(
-                entry.networkAddress, 
-                entry.subnetMask, 
-                destinationIp)) {
-                
-                // 2. Calcula o comprimento do prefixo para determinar a especificidade
-                // (Presume que NetworkInterface.calculatePrefixLength existe e funciona)
-                int prefixLength = NetworkInterface.calculatePrefixLength(entry.subnetMask);
-                
-                // 3. Verifica se esta rota é mais específica do que a melhor rota atual
-                if (prefixLength > longestPrefix) {
-                    longestPrefix = prefixLength;
-                    bestMatch = entry;
-                }
-            }
+    public RouteEntry lookupRoute(int destination) {
+        return routeCache.lookup(destination, forwardingTable);
+    }
+
+    public RouteEntry lookupRoute(String destinationIp) {
+        try {
+            return lookupRoute(Ipv4Address.parseInt(destinationIp));
+        } catch (InvalidIpException e) {
+            return null;
         }
-        return bestMatch;
     }
 
     // ==========================================================
-    // POLIMORFISMO: Lógica de Processamento de Pacotes (SEM MUDANÇAS)
+    // POLIMORFISMO: Lógica de Processamento de Pacotes
     // ==========================================================
-    @Override
-    public void processPacket(Packet packet) {
-        // ... (Este bloco permanece o mesmo, pois a lógica de roteamento está correta) ...
 
+    // Decide o destino do pacote sem alterá-lo (pode rodar em paralelo)
+    @Override
+    protected void decide(int source, int destination, HopDecision decision) {
         // 1. Verificar se é para o roteador (para fins de simulação, ignoramos)
         for (int i = 0; i < getInterfaceCount(); i++) {
-            if (packet.getDestinationIp().equals(getInterface(i).getIpAddress())) {
-                System.out.println("Router " + getName() + " recebeu pacote para si mesmo. Descartando/Processando.");
-                packet.endSimulation();
+            if (destination == getInterface(i).getAddress()) {
+                decision.outcome = HopDecision.Outcome.DELIVER;
                 return;
             }
         }
 
         // 2. BUSCA NA TABELA DE ROTEAMENTO
-        RouteEntry route = lookupRoute(packet.getDestinationIp());
-        Device nextHopDevice = null;
-        NetworkMap map = NetworkMap.getInstance(); // Acesso ao mapa
+        RouteEntry route = decision.bypassRouteCache ? forwardingTable.lookup(destination) : lookupRoute(destination);
+        forward(route, source, destination, decision);
+    }
+
+    // Rota da FIB sem passar pelo cache (análises offline)
+    RouteEntry lookupUncached(int destination) {
+        return forwardingTable.lookup(destination);
+    }
+
+    /**
+     * Completa a decisão a partir da rota já encontrada na FIB: escolhe o
+     * caminho do fluxo no grupo ECMP e resolve a interface e o próximo salto.
+     */
+    void forward(RouteEntry route, int source, int destination, HopDecision decision) {
+        RouteEntry[] paths = pathsOf(route);
+        if (paths != null) {
+            route = paths[selectPath(source, destination, paths.length)];
+            decision.multipath = true;
+        }
+        resolve(route, destination, decision);
+    }
 
+    // Grupo ECMP da rota da FIB, ou null se ela é o único caminho (o array é interno: não alterar)
+    RouteEntry[] pathsOf(RouteEntry route) {
+        return (route == null || multipath.isEmpty()) ? null : multipath.get(route);
+    }
+
+    // Resolve a interface e o próximo salto de uma rota já escolhida (membro de um grupo ou rota única)
+    void resolve(RouteEntry route, int destination, HopDecision decision) {
+        decision.route = route;
         if (route == null) {
             // Nenhuma rota encontrada, nem mesmo a rota padrão (0.0.0.0/0)
-            System.out.println("Router " + getName() + " sem rota para " + packet.getDestinationIp() + ". Descartando.");
-            packet.endSimulation();
+            decision.outcome = HopDecision.Outcome.DROP_NO_ROUTE;
             return;
         }
 
         // 3. Determinar o Próximo Salto (Next Hop)
-        
-        // Obtém a interface de saída determinada pela rota
         NetworkInterface outgoingInterface = getInterface(route.outputInterfaceIndex);
-        
+        decision.outgoingInterface = outgoingInterface;
         if (outgoingInterface == null) {
-            System.out.println("Router " + getName() + ": Erro, interface de saída inválida. Descartando.");
-            packet.endSimulation();
+            decision.outcome = HopDecision.Outcome.DROP_INVALID_INTERFACE;
             return;
         }
 
-        // ** Caso 1: Rota Diretamente Conectada (Next Hop é o Destino Final) **
-        if (route.nextHopIp.equals("0.0.0.0")) {
-            // O próximo salto é o próprio dispositivo de destino final, conectado diretamente à interface.
-            nextHopDevice = map.findDeviceByIP(packet.getDestinationIp());
-        } 
-        // ** Caso 2: Rota Remota (Next Hop é outro Router) **
-        else {
-            // O próximo salto é o roteador vizinho cujo IP está na tabela.
-            nextHopDevice = map.findDeviceByIP(route.nextHopIp);
-        }
-        
-        // 4. Execução do Salto
-        if (nextHopDevice != null) {
-            System.out.println("Router " + getName() + " encaminhando via " + outgoingInterface.getIpAddress() + " para " + nextHopDevice.getName());
-            packet.setNextHop(nextHopDevice);
-            packet.setCurrentDevice(this);
-            // setPreviousDevice é importante para simular o "pulo"
-            packet.setPreviousDevice(this); 
-        } else {
-            System.out.println("Router " + getName() + ": Próximo Salto (" + (route.nextHopIp.equals("0.0.0.0") ? "Destino Final" : route.nextHopIp) + ") não encontrado. Descartando.");
-            packet.endSimulation();
+        // Rota diretamente conectada: o próximo salto é o próprio destino final;
+        // rota remota: o próximo salto é o roteador vizinho, já resolvido na rota
+        decision.nextHop = route.isDirectlyConnected()
+                ? map().resolveNeighbor(outgoingInterface, destination)
+                : route.nextHopDevice(this, outgoingInterface);
+        decision.outcome = (decision.nextHop != null)
+                ? HopDecision.Outcome.FORWARD
+                : HopDecision.Outcome.DROP_NEXT_HOP_NOT_FOUND;
+    }
+
+    // Executa a decisão: registra o evento e atualiza o pacote
+    @Override
+    protected void apply(Packet packet, HopDecision decision) {
+        switch (decision.outcome) {
+            case DELIVER:
+                logEvent(SimulationLog.Type.DELIVER, packet, null, 0);
+                packet.deliver();
+                break;
+            case DROP_NO_ROUTE:
+                logEvent(SimulationLog.Type.DROP_NO_ROUTE, packet, null, packet.getDestinationAddress());
+                packet.endSimulation();
+                break;
+            case DROP_INVALID_INTERFACE:
+                logEvent(SimulationLog.Type.DROP_INVALID_INTERFACE, packet, null, 0);
+                packet.endSimulation();
+                break;
+            case DROP_NEXT_HOP_NOT_FOUND:
+                RouteEntry route = decision.route;
+                logEvent(SimulationLog.Type.DROP_NEXT_HOP_NOT_FOUND, packet, null,
+                        route.isDirectlyConnected() ? packet.getDestinationAddress() : route.nextHop);
+                packet.endSimulation();
+                break;
+            case FORWARD:
+                decision.route.countForwarded();
+                logEvent(SimulationLog.Type.FORWARD, packet, decision.nextHop, decision.outgoingInterface.getAddress());
+                packet.setNextHop(decision.nextHop);
+                packet.setCurrentDevice(this);
+                // setPreviousDevice é importante para simular o "pulo"
+                packet.setPreviousDevice(this);
+                break;
+            case DROP_TTL_EXCEEDED:
+                expireTtl(packet);
+                break;
+            default:
+                packet.endSimulation();
+                break;
         }
     }
 
@@ -126,6 +403,7 @@ public class Router extends Device {
         int drawX = getX() - DEVICE_SIZE / 2;
         int drawY = getY() - DEVICE_SIZE / 2;
 
+        Image deviceImage = getDeviceImage();
         if (deviceImage != null) {
             // Desenha a imagem centralizada no ponto (x, y)
             g.drawImage(deviceImage, drawX, drawY, null);
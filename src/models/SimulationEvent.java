@@ -0,0 +1,9 @@
+package models;
+
+/**
+ * Evento agendado no EventScheduler. É disparado quando o relógio da
+ * simulação alcança o instante para o qual foi agendado.
+ */
+public interface SimulationEvent {
+    void fire(long time);
+}
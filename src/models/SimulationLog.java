@@ -0,0 +1,328 @@
+package models;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro dos eventos da simulação (encaminhamentos, entregas, descartes...).
+ *
+ * Quem registra só grava alguns campos em um buffer circular de tamanho fixo,
+ * sem trava, sem montar Strings e sem alocar; o texto é montado e escrito por
+ * uma thread de fundo. Eventos abaixo do nível configurado são descartados
+ * logo na entrada, então com o nível OFF o custo é uma comparação. Se o
+ * buffer encher, os eventos excedentes são perdidos e contados, para nunca
+ * travar a simulação.
+ */
+public class SimulationLog {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    public enum Type {
+        FORWARD(Level.DEBUG),
+        FORWARD_LOCAL(Level.DEBUG),
+        FORWARD_GATEWAY(Level.DEBUG),
+        DELIVER(Level.INFO),
+        DROP_NO_INTERFACE(Level.WARN),
+        DROP_LOCAL_NOT_FOUND(Level.WARN),
+        DROP_NO_GATEWAY(Level.WARN),
+        DROP_NO_ROUTE(Level.WARN),
+        DROP_INVALID_INTERFACE(Level.WARN),
+        DROP_NEXT_HOP_NOT_FOUND(Level.WARN),
+        DROP_NEXT_HOP_REMOVED(Level.WARN),
+        DROP_QUEUE_FULL(Level.WARN),
+        DROP_QUEUE_EARLY(Level.WARN),
+        DROP_TTL_EXCEEDED(Level.WARN),
+        DEVICE_ADDED(Level.INFO),
+        DEVICE_REJECTED(Level.WARN),
+        SOURCE_NOT_FOUND(Level.ERROR),
+        INVALID_ADDRESS(Level.ERROR);
+
+        final Level level;
+
+        Type(Level level) {
+            this.level = level;
+        }
+
+        public Level getLevel() { return level; }
+    }
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private static final Type[] TYPES = Type.values();
+
+    // Nível inicial; pode ser trocado com -Dsimulador.log=DEBUG|INFO|WARN|ERROR|OFF
+    private volatile int minLevel = initialLevel().ordinal();
+    private volatile PrintStream output = System.out;
+
+    // Buffer circular em arrays paralelos
+    private final int mask;
+    private final long[] times;
+    private final int[] types;
+    private final int[] packetIds;
+    private final int[] addresses;
+    private final String[] deviceNames;
+    private final String[] deviceKinds;
+    private final String[] otherNames;
+    private final String[] details;
+    // Sequência publicada em cada posição (-1 = nunca escrita)
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();  // próxima sequência a reservar
+    private volatile long consumed = 0;                    // próxima sequência a escrever
+    private final AtomicLong lost = new AtomicLong();
+
+    private volatile Thread writer;
+
+    public SimulationLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SimulationLog(int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("A capacidade deve ser potência de 2: " + capacity);
+        mask = capacity - 1;
+        times = new long[capacity];
+        types = new int[capacity];
+        packetIds = new int[capacity];
+        addresses = new int[capacity];
+        deviceNames = new String[capacity];
+        deviceKinds = new String[capacity];
+        otherNames = new String[capacity];
+        details = new String[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            published.set(i, -1);
+    }
+
+    // ============================
+    // CONFIGURAÇÃO
+    // ============================
+
+    // Nível pelo nome, sem diferenciar maiúsculas (null se não existir)
+    public static Level parseLevel(String name) {
+        if (name == null) return null;
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Um valor inválido na propriedade não pode impedir a criação do mapa: avisa e usa INFO
+    private static Level initialLevel() {
+        String property = System.getProperty("simulador.log", "INFO");
+        Level level = parseLevel(property);
+        if (level == null) {
+            System.err.println("⚠ simulador.log inválido: '" + property + "' (use DEBUG, INFO, WARN, ERROR ou OFF); usando INFO");
+            level = Level.INFO;
+        }
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        minLevel = level.ordinal();
+    }
+
+    public Level getLevel() {
+        return Level.values()[minLevel];
+    }
+
+    public boolean isEnabled(Type type) {
+        return type.level.ordinal() >= minLevel;
+    }
+
+    // Destino das mensagens (console por padrão). Eventos já registrados vão para o destino novo.
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    // ============================
+    // REGISTRO
+    // ============================
+
+    public void record(Type type, long time, int packetId, Device device, Device other, int address) {
+        if (type.level.ordinal() < minLevel) return;
+        long sequence = reserve();
+        if (sequence < 0) return;
+        int i = (int) sequence & mask;
+        times[i] = time;
+        types[i] = type.ordinal();
+        packetIds[i] = packetId;
+        addresses[i] = address;
+        deviceNames[i] = (device == null) ? null : device.getName();
+        deviceKinds[i] = (device instanceof Router) ? "Router" : "Host";
+        otherNames[i] = (other == null) ? null : other.getName();
+        details[i] = null;
+        published.lazySet(i, sequence);
+    }
+
+    public void record(Type type, long time, String detail) {
+        if (type.level.ordinal() < minLevel) return;
+        long sequence = reserve();
+        if (sequence < 0) return;
+        int i = (int) sequence & mask;
+        times[i] = time;
+        types[i] = type.ordinal();
+        packetIds[i] = 0;
+        addresses[i] = 0;
+        deviceNames[i] = null;
+        deviceKinds[i] = null;
+        otherNames[i] = null;
+        details[i] = detail;
+        published.lazySet(i, sequence);
+    }
+
+    // Reserva uma posição no buffer; -1 se estiver cheio
+    private long reserve() {
+        if (writer == null)
+            startWriter();
+        long capacity = mask + 1L;
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed >= capacity) {
+                lost.incrementAndGet();
+                return -1;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1))
+                return sequence;
+        }
+    }
+
+    /**
+     * Espera a thread de fundo escrever tudo o que foi registrado até agora.
+     */
+    public void flush() {
+        long target = claimed.get();
+        while (consumed < target) {
+            Thread current = writer;
+            if (current != null)
+                LockSupport.unpark(current);
+            Thread.yield();
+        }
+        output.flush();
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+
+    public long getRecorded() {
+        return claimed.get();
+    }
+
+    public long getLost() {
+        return lost.get();
+    }
+
+    // ============================
+    // THREAD DE ESCRITA
+    // ============================
+
+    private synchronized void startWriter() {
+        if (writer != null) return;
+        Thread thread = new Thread(this::drainLoop, "simulation-log");
+        thread.setDaemon(true);
+        thread.start();
+        writer = thread;
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(128);
+        while (true) {
+            long next = consumed;
+            int i = (int) next & mask;
+            if (published.get(i) != next) {
+                output.flush();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            line.setLength(0);
+            format(line, i);
+            output.println(line);
+            deviceNames[i] = null;
+            otherNames[i] = null;
+            details[i] = null;
+            consumed = next + 1;
+        }
+    }
+
+    private void format(StringBuilder line, int i) {
+        String device = deviceKinds[i] + " " + deviceNames[i];
+        String address = Ipv4Address.toString(addresses[i]);
+        int packetId = packetIds[i];
+
+        line.append("[t=").append(times[i]).append("] ");
+        switch (TYPES[types[i]]) {
+            case FORWARD:
+                line.append(device).append(" encaminhando pacote ").append(packetId)
+                    .append(" via ").append(address).append(" para ").append(otherNames[i]);
+                break;
+            case FORWARD_LOCAL:
+                line.append(device).append(" enviando pacote ").append(packetId)
+                    .append(" para o destino local: ").append(otherNames[i]).append(" (Sub-rede local).");
+                break;
+            case FORWARD_GATEWAY:
+                line.append(device).append(" enviando pacote ").append(packetId)
+                    .append(" para o Gateway: ").append(otherNames[i]).append(" (").append(address).append(").");
+                break;
+            case DELIVER:
+                line.append(device).append(" recebeu o pacote ").append(packetId).append(". SUCESSO!");
+                break;
+            case DROP_NO_INTERFACE:
+                line.append(device).append(" sem interface. Descartando pacote ").append(packetId).append('.');
+                break;
+            case DROP_LOCAL_NOT_FOUND:
+                line.append(device).append(": Destino local ").append(address)
+                    .append(" não encontrado. Descartando pacote ").append(packetId).append('.');
+                break;
+            case DROP_NO_GATEWAY:
+                line.append(device).append(": Gateway ").append(address)
+                    .append(" indisponível/não encontrado. Descartando pacote ").append(packetId).append('.');
+                break;
+            case DROP_NO_ROUTE:
+                line.append(device).append(" sem rota para ").append(address)
+                    .append(". Descartando pacote ").append(packetId).append('.');
+                break;
+            case DROP_INVALID_INTERFACE:
+                line.append(device).append(": Erro, interface de saída inválida. Descartando pacote ")
+                    .append(packetId).append('.');
+                break;
+            case DROP_NEXT_HOP_NOT_FOUND:
+                line.append(device).append(": Próximo Salto (").append(address)
+                    .append(") não encontrado. Descartando pacote ").append(packetId).append('.');
+                break;
+            case DROP_NEXT_HOP_REMOVED:
+                line.append("Pacote ").append(packetId)
+                    .append(": próximo salto removido durante o trajeto. Descartando.");
+                break;
+            case DROP_QUEUE_FULL:
+                line.append(device).append(": Fila da interface ").append(address).append(" para ").append(otherNames[i])
+                    .append(" cheia. Descartando pacote ").append(packetId).append('.');
+                break;
+            case DROP_QUEUE_EARLY:
+                line.append(device).append(": RED na interface ").append(address).append(" para ").append(otherNames[i])
+                    .append(". Descartando pacote ").append(packetId).append('.');
+                break;
+            case DROP_TTL_EXCEEDED:
+                line.append(device).append(": TTL esgotado para ").append(address)
+                    .append(". Descartando pacote ").append(packetId).append('.');
+                break;
+            case DEVICE_ADDED:
+                line.append("✅ Adicionado ").append(deviceNames[i]);
+                break;
+            case DEVICE_REJECTED:
+                line.append("❌ Falha ao adicionar ").append(deviceNames[i]);
+                break;
+            case SOURCE_NOT_FOUND:
+                line.append("Erro: dispositivo fonte não encontrado para IP ").append(address);
+                break;
+            case INVALID_ADDRESS:
+                line.append("Erro: ").append(details[i]);
+                break;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package models;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executa a simulação em uma thread própria, em ritmo fixo (ticks por
+ * segundo), independente da taxa de quadros da interface.
+ *
+ * Ao fim de cada tick as posições dos pacotes são copiadas para um
+ * PacketSnapshot e publicadas. São três buffers que trocam de dono por
+ * AtomicReference.getAndSet: um sendo preenchido pela simulação, um pronto e
+ * um sendo desenhado pela interface. Nenhum dos lados espera pelo outro e a
+ * interface nunca lê um snapshot que ainda está sendo escrito.
+ *
+ * O tick roda com o monitor do NetworkMap adquirido; quem altera o mapa a
+ * partir de outra thread (menus, cliques) deve fazer synchronized (map).
+ */
+public class SimulationLoop {
+
+    private final NetworkMap map;
+    private volatile long tickNanos;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    // Troca de snapshots: 'back' pertence à simulação, 'front' à interface
+    private PacketSnapshot back = new PacketSnapshot();
+    private final AtomicReference<PacketSnapshot> ready = new AtomicReference<>(new PacketSnapshot());
+    private PacketSnapshot front = new PacketSnapshot();
+    private long sequence = 0;
+
+    public SimulationLoop(NetworkMap map, int ticksPerSecond) {
+        this.map = map;
+        setTicksPerSecond(ticksPerSecond);
+        synchronized (map) {
+            publish(); // a interface já começa com o estado atual
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "simulation-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Para a thread e espera o tick em andamento terminar
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setTicksPerSecond(int ticksPerSecond) {
+        if (ticksPerSecond <= 0)
+            throw new IllegalArgumentException("Ticks por segundo inválido: " + ticksPerSecond);
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+    }
+
+    public int getTicksPerSecond() {
+        return (int) (1_000_000_000L / tickNanos);
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Snapshot mais recente. Deve ser chamado sempre pela mesma thread (a da
+     * interface); o objeto devolvido continua válido até a próxima chamada.
+     */
+    public PacketSnapshot latestSnapshot() {
+        if (ready.get().getSequence() > front.getSequence())
+            front = ready.getAndSet(front);
+        return front;
+    }
+
+    // ============================
+    // THREAD DA SIMULAÇÃO
+    // ============================
+
+    private void run() {
+        long deadline = System.nanoTime();
+        while (running) {
+            synchronized (map) {
+                map.tickSimulation();
+                publish();
+            }
+
+            deadline += tickNanos;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else if (-wait > tickNanos) {
+                // Atrasado mais de um tick (simulação pesada): não tenta recuperar em rajada
+                deadline = System.nanoTime();
+            }
+        }
+    }
+
+    // Preenche o buffer livre e o troca pelo pronto (chamado com o monitor do mapa)
+    private void publish() {
+        back.capture(map, ++sequence);
+        back = ready.getAndSet(back);
+    }
+}
@@ -0,0 +1,62 @@
+package models;
+
+/**
+ * Contadores agregados de uma execução da simulação, atualizados pelo
+ * NetworkMap quando cada pacote é criado e quando é finalizado.
+ */
+public class SimulationStats {
+
+    private long packetsInjected;
+    private long packetsDelivered;
+    private long packetsDropped;
+    private long totalHops;
+    private long totalDeliveredLatency;
+    private long maxDeliveredLatency;
+    // Resumo sensível à ordem de finalização dos pacotes, para comparar execuções
+    private long outcomeChecksum;
+
+    void recordInjected() {
+        packetsInjected++;
+    }
+
+    // Usa o instante em que o pacote terminou, não o da remoção do NetworkMap
+    void recordFinished(Packet p) {
+        long now = p.getFinishTime();
+        totalHops += p.getHopCount();
+        outcomeChecksum = outcomeChecksum * 31
+                + ((long) p.getId() << 32 ^ now << 8 ^ p.getHopCount() << 1 ^ (p.isDelivered() ? 1 : 0));
+        if (p.isDelivered()) {
+            long latency = now - p.getCreationTime();
+            packetsDelivered++;
+            totalDeliveredLatency += latency;
+            maxDeliveredLatency = Math.max(maxDeliveredLatency, latency);
+        } else {
+            packetsDropped++;
+        }
+    }
+
+    public void reset() {
+        packetsInjected = 0;
+        packetsDelivered = 0;
+        packetsDropped = 0;
+        totalHops = 0;
+        totalDeliveredLatency = 0;
+        maxDeliveredLatency = 0;
+        outcomeChecksum = 0;
+    }
+
+    // ============================
+    // GETTERS
+    // ============================
+
+    public long getPacketsInjected() { return packetsInjected; }
+    public long getPacketsDelivered() { return packetsDelivered; }
+    public long getPacketsDropped() { return packetsDropped; }
+    public long getTotalHops() { return totalHops; }
+    public long getMaxDeliveredLatency() { return maxDeliveredLatency; }
+    public long getOutcomeChecksum() { return outcomeChecksum; }
+
+    public double getAverageDeliveredLatency() {
+        return (packetsDelivered == 0) ? 0.0 : (double) totalDeliveredLatency / packetsDelivered;
+    }
+}
@@ -0,0 +1,305 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Índice espacial em grade uniforme sobre as posições dos dispositivos e
+ * sobre os enlaces entre eles.
+ *
+ * Cada célula cobre CELL_SIZE x CELL_SIZE unidades do mapa. Só as células
+ * ocupadas existem, guardadas em uma tabela hash de endereçamento aberto
+ * indexada pelas coordenadas da célula. Dispositivos entram e saem em O(1)
+ * (posição guardada em Device.gridSlot). Os enlaces são registrados em todas
+ * as células que o segmento atravessa e são reconstruídos de uma vez quando a
+ * topologia muda, em vez de a cada quadro.
+ *
+ * Usado apenas pela thread que altera e desenha o mapa.
+ */
+class SpatialGrid {
+
+    static final int CELL_SIZE = 128;
+
+    private static final int INITIAL_TABLE_SIZE = 64;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // Enlace entre dois dispositivos (desenhado uma vez, de 'a' para 'b')
+    static final class Link {
+        final Device a;
+        final Device b;
+        int visitStamp; // evita visitar o mesmo enlace duas vezes em uma consulta
+
+        Link(Device a, Device b) {
+            this.a = a;
+            this.b = b;
+        }
+    }
+
+    private static final class Cell {
+        final int cellX;
+        final int cellY;
+        Device[] devices = new Device[4];
+        int deviceCount = 0;
+        Link[] links = new Link[4];
+        int linkCount = 0;
+
+        Cell(int cellX, int cellY) {
+            this.cellX = cellX;
+            this.cellY = cellY;
+        }
+    }
+
+    private long[] keys;
+    private Cell[] cells;
+    private int cellCount = 0;
+    private int linkCount = 0;
+    private int visitStamp = 0;
+
+    SpatialGrid() {
+        keys = new long[INITIAL_TABLE_SIZE];
+        cells = new Cell[INITIAL_TABLE_SIZE];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // ============================
+    // DISPOSITIVOS
+    // ============================
+
+    void insert(Device d) {
+        Cell cell = cellAt(cellOf(d.getX()), cellOf(d.getY()), true);
+        if (cell.deviceCount == cell.devices.length)
+            cell.devices = Arrays.copyOf(cell.devices, cell.deviceCount * 2);
+        d.gridSlot = cell.deviceCount;
+        cell.devices[cell.deviceCount++] = d;
+    }
+
+    void remove(Device d) {
+        Cell cell = cellAt(cellOf(d.getX()), cellOf(d.getY()), false);
+        int slot = d.gridSlot;
+        if (cell == null || slot < 0 || slot >= cell.deviceCount || cell.devices[slot] != d)
+            return;
+        Device last = cell.devices[--cell.deviceCount];
+        cell.devices[slot] = last;
+        last.gridSlot = slot;
+        cell.devices[cell.deviceCount] = null;
+        d.gridSlot = -1;
+    }
+
+    /**
+     * Dispositivo mais próximo de (x, y) a no máximo 'tolerance', ou null.
+     */
+    Device nearest(int x, int y, int tolerance) {
+        Device best = null;
+        long bestDistance = (long) tolerance * tolerance;
+        for (int cx = cellOf(x - tolerance); cx <= cellOf(x + tolerance); cx++) {
+            for (int cy = cellOf(y - tolerance); cy <= cellOf(y + tolerance); cy++) {
+                Cell cell = cellAt(cx, cy, false);
+                if (cell == null) continue;
+                for (int i = 0; i < cell.deviceCount; i++) {
+                    Device d = cell.devices[i];
+                    long dx = x - d.getX();
+                    long dy = y - d.getY();
+                    long distance = dx * dx + dy * dy;
+                    if (distance <= bestDistance && (best == null || distance < bestDistance || d.mapSlot < best.mapSlot)) {
+                        best = d;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Visita os dispositivos cuja posição está no retângulo [minX, maxX] x [minY, maxY]
+    void forEachDevice(int minX, int minY, int maxX, int maxY, NetworkMap.DeviceConsumer consumer) {
+        if (cellsInRange(minX, minY, maxX, maxY) > cellCount) {
+            for (Cell cell : cells) {
+                if (cell != null) visitDevices(cell, minX, minY, maxX, maxY, consumer);
+            }
+            return;
+        }
+        for (int cx = cellOf(minX); cx <= cellOf(maxX); cx++) {
+            for (int cy = cellOf(minY); cy <= cellOf(maxY); cy++) {
+                Cell cell = cellAt(cx, cy, false);
+                if (cell != null) visitDevices(cell, minX, minY, maxX, maxY, consumer);
+            }
+        }
+    }
+
+    private static void visitDevices(Cell cell, int minX, int minY, int maxX, int maxY, NetworkMap.DeviceConsumer consumer) {
+        for (int i = 0; i < cell.deviceCount; i++) {
+            Device d = cell.devices[i];
+            if (d.getX() >= minX && d.getX() <= maxX && d.getY() >= minY && d.getY() <= maxY)
+                consumer.accept(d);
+        }
+    }
+
+    // ============================
+    // ENLACES
+    // ============================
+
+    // Descarta todos os enlaces registrados (antes de reconstruí-los)
+    void clearLinks() {
+        for (Cell cell : cells) {
+            if (cell == null) continue;
+            Arrays.fill(cell.links, 0, cell.linkCount, null);
+            cell.linkCount = 0;
+        }
+        linkCount = 0;
+    }
+
+    // Registra o enlace em todas as células atravessadas pelo segmento (Amanatides-Woo)
+    void insertLink(Device a, Device b) {
+        Link link = new Link(a, b);
+        linkCount++;
+
+        double x0 = a.getX(), y0 = a.getY();
+        double dx = b.getX() - x0, dy = b.getY() - y0;
+        int cx = cellOf(a.getX()), cy = cellOf(a.getY());
+        int endX = cellOf(b.getX()), endY = cellOf(b.getY());
+        int stepX = Integer.signum(endX - cx), stepY = Integer.signum(endY - cy);
+
+        double tMaxX = (stepX == 0) ? Double.POSITIVE_INFINITY
+                : ((double) (stepX > 0 ? cx + 1 : cx) * CELL_SIZE - x0) / dx;
+        double tMaxY = (stepY == 0) ? Double.POSITIVE_INFINITY
+                : ((double) (stepY > 0 ? cy + 1 : cy) * CELL_SIZE - y0) / dy;
+        double tDeltaX = (stepX == 0) ? Double.POSITIVE_INFINITY : CELL_SIZE / Math.abs(dx);
+        double tDeltaY = (stepY == 0) ? Double.POSITIVE_INFINITY : CELL_SIZE / Math.abs(dy);
+
+        addLink(cellAt(cx, cy, true), link);
+        int remaining = Math.abs(endX - cx) + Math.abs(endY - cy);
+        while (remaining-- > 0) {
+            if (cx != endX && (tMaxX < tMaxY || cy == endY)) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+            addLink(cellAt(cx, cy, true), link);
+        }
+    }
+
+    private static void addLink(Cell cell, Link link) {
+        if (cell.linkCount == cell.links.length)
+            cell.links = Arrays.copyOf(cell.links, cell.linkCount * 2);
+        cell.links[cell.linkCount++] = link;
+    }
+
+    // Visita (uma vez cada) os enlaces que passam por células que tocam o retângulo
+    void forEachLink(int minX, int minY, int maxX, int maxY, NetworkMap.LinkConsumer consumer) {
+        int stamp = ++visitStamp;
+        if (cellsInRange(minX, minY, maxX, maxY) > cellCount) {
+            for (Cell cell : cells) {
+                if (cell != null && cellTouches(cell, minX, minY, maxX, maxY))
+                    visitLinks(cell, stamp, consumer);
+            }
+            return;
+        }
+        for (int cx = cellOf(minX); cx <= cellOf(maxX); cx++) {
+            for (int cy = cellOf(minY); cy <= cellOf(maxY); cy++) {
+                Cell cell = cellAt(cx, cy, false);
+                if (cell != null) visitLinks(cell, stamp, consumer);
+            }
+        }
+    }
+
+    private static void visitLinks(Cell cell, int stamp, NetworkMap.LinkConsumer consumer) {
+        for (int i = 0; i < cell.linkCount; i++) {
+            Link link = cell.links[i];
+            if (link.visitStamp == stamp) continue;
+            link.visitStamp = stamp;
+            consumer.accept(link.a, link.b);
+        }
+    }
+
+    private static boolean cellTouches(Cell cell, int minX, int minY, int maxX, int maxY) {
+        return cell.cellX >= cellOf(minX) && cell.cellX <= cellOf(maxX)
+                && cell.cellY >= cellOf(minY) && cell.cellY <= cellOf(maxY);
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+
+    int cellCount() {
+        return cellCount;
+    }
+
+    int linkCount() {
+        return linkCount;
+    }
+
+    long estimateMemory() {
+        long total = MemoryFootprint.primitiveArraySize(keys.length, 8) + MemoryFootprint.referenceArraySize(cells.length);
+        for (Cell cell : cells) {
+            if (cell == null) continue;
+            total += MemoryFootprint.shallowSize(Cell.class)
+                    + MemoryFootprint.referenceArraySize(cell.devices.length)
+                    + MemoryFootprint.referenceArraySize(cell.links.length);
+        }
+        return total + (long) linkCount * MemoryFootprint.shallowSize(Link.class);
+    }
+
+    // ============================
+    // TABELA DE CÉLULAS
+    // ============================
+
+    static int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, CELL_SIZE);
+    }
+
+    private static long cellsInRange(int minX, int minY, int maxX, int maxY) {
+        return ((long) cellOf(maxX) - cellOf(minX) + 1) * ((long) cellOf(maxY) - cellOf(minY) + 1);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    private Cell cellAt(int cellX, int cellY, boolean create) {
+        long key = key(cellX, cellY);
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key)
+                return cells[index];
+            index = (index + 1) & mask;
+        }
+        if (!create)
+            return null;
+
+        if ((cellCount + 1) * 2 > keys.length) {
+            grow();
+            return cellAt(cellX, cellY, true);
+        }
+        Cell cell = new Cell(cellX, cellY);
+        keys[index] = key;
+        cells[index] = cell;
+        cellCount++;
+        return cell;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Cell[] oldCells = cells;
+        keys = new long[oldKeys.length * 2];
+        cells = new Cell[oldCells.length * 2];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int index = mix(oldKeys[i]) & mask;
+            while (keys[index] != EMPTY)
+                index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            cells[index] = oldCells[i];
+        }
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,84 @@
+package routing;
+
+import java.util.Locale;
+
+/**
+ * Resultado de uma rodada de convergência de um protocolo de roteamento
+ * (LinkStateRouting.update() ou DistanceVectorRouting.update()): o que mudou
+ * na topologia, quanto trabalho o protocolo fez e quanto das tabelas de
+ * rotas foi alterado.
+ *
+ * O tempo de convergência é simulado, em ticks:
+ *   - link-state: maior atraso de inundação (soma das latências dos
+ *     enlaces) entre um roteador que originou a mudança e um roteador cujas
+ *     rotas mudaram; no cálculo completo não é estimado (-1);
+ *   - distance-vector: instante da última rota alterada menos o início da
+ *     rodada (as mensagens trafegam pelo EventScheduler).
+ *
+ * Mensagens: no link-state, as cópias de LSA que a inundação confiável
+ * envia (cada LSA novo atravessa cada enlace uma vez, menos os enlaces por
+ * onde chegou); no distance-vector, as atualizações enviadas, cada uma
+ * levando várias rotas. O custo de CPU é o tempo de parede gasto pelo
+ * protocolo.
+ */
+public class ConvergenceReport {
+
+    final String protocol;
+    boolean full;
+    int routers;
+    int linkChanges;
+    int prefixChanges;
+    int fullSpfRuns;
+    int partialSpfRuns;
+    long messages;
+    long advertisedRoutes;
+    int routersUpdated;
+    long routesAdded;
+    long routesRemoved;
+    long routesChanged;
+    long convergenceTicks;
+    long cpuNanos;
+
+    ConvergenceReport(String protocol) {
+        this.protocol = protocol;
+    }
+
+    // Soma os contadores de rotas de uma tarefa do cálculo paralelo
+    synchronized void addRoutes(long added, long removed, long changed, int updatedRouters) {
+        routesAdded += added;
+        routesRemoved += removed;
+        routesChanged += changed;
+        routersUpdated += updatedRouters;
+    }
+
+    public String getProtocol() { return protocol; }
+    public boolean isFull() { return full; }
+    public int getRouters() { return routers; }
+    public int getLinkChanges() { return linkChanges; }
+    public int getPrefixChanges() { return prefixChanges; }
+    public int getFullSpfRuns() { return fullSpfRuns; }
+    // Árvores de caminhos mínimos em que só a subárvore abaixo do enlace alterado foi recalculada
+    public int getPartialSpfRuns() { return partialSpfRuns; }
+    public long getMessages() { return messages; }
+    // Rotas levadas nas mensagens do distance-vector (mais de uma por mensagem)
+    public long getAdvertisedRoutes() { return advertisedRoutes; }
+    public int getRoutersUpdated() { return routersUpdated; }
+    public long getRoutesAdded() { return routesAdded; }
+    public long getRoutesRemoved() { return routesRemoved; }
+    public long getRoutesChanged() { return routesChanged; }
+    public long getConvergenceTicks() { return convergenceTicks; }
+    public long getCpuNanos() { return cpuNanos; }
+
+    @Override
+    public String toString() {
+        String work = (fullSpfRuns + partialSpfRuns > 0)
+                ? String.format(Locale.ROOT, "SPF %d completos/%d parciais, %d mensagens", fullSpfRuns, partialSpfRuns, messages)
+                : String.format(Locale.ROOT, "%d mensagens com %d rotas", messages, advertisedRoutes);
+        return String.format(Locale.ROOT,
+                "%s, %s: %d roteadores, %d enlaces e %d prefixos alterados, %s, "
+                        + "%d roteadores com rotas novas (+%d -%d ~%d), convergência %s, CPU %.2f ms",
+                protocol, full ? "cálculo completo" : "atualização incremental", routers, linkChanges, prefixChanges,
+                work, routersUpdated, routesAdded, routesRemoved, routesChanged,
+                (convergenceTicks < 0) ? "não estimada" : convergenceTicks + " ticks", cpuNanos / 1e6);
+    }
+}
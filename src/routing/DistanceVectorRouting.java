@@ -0,0 +1,484 @@
+package routing;
+
+import models.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Roteamento distance-vector no estilo do RIP, executado como eventos no
+ * EventScheduler do NetworkMap, junto com os pacotes.
+ *
+ * A métrica é o número de saltos entre Routers (cada enlace custa 1) e
+ * 'infinity' (16 no RIP) significa inalcançável. Cada Router só conhece o
+ * que os vizinhos anunciam:
+ *   - split horizon com poison reverse: a rota aprendida de um vizinho
+ *     volta para ele com métrica infinita (sem poison reverse, é omitida);
+ *   - atualizações disparadas: uma rota que muda é anunciada sem esperar
+ *     um ciclo periódico;
+ *   - agrupamento: as mudanças de um Router ficam pendentes por
+ *     'triggerDelay' ticks e saem juntas, uma atualização por vizinho, com
+ *     até MAX_ROUTES_PER_MESSAGE rotas por mensagem (como no RIP). A
+ *     mensagem chega ao vizinho depois da latência do enlace.
+ *
+ * Não há atualizações periódicas (a agenda nunca esvaziaria). No lugar
+ * delas, um Router que perde uma rota a anuncia como infinita junto com um
+ * pedido (como a mensagem Request do RIP), e os vizinhos que têm rota
+ * respondem; quem recebe de um vizinho uma rota finita pior que a sua
+ * também responde. Um vizinho novo recebe a tabela completa.
+ *
+ * Enlaces e LANs seguem a mesma regra do LinkStateRouting: vizinhos são
+ * Routers ligados nos dois sentidos; as demais interfaces são redes
+ * conectadas (métrica 0). Rotas já cadastradas por outro meio para um
+ * prefixo têm precedência sobre as aprendidas.
+ *
+ * update() sincroniza com a topologia (na primeira chamada, todas as redes
+ * conectadas são anunciadas) e devolve o relatório da rodada, que continua
+ * sendo preenchido enquanto os eventos do protocolo disparam. Como as
+ * demais alterações de topologia, chame com a simulação parada ou dentro de
+ * synchronized(map).
+ */
+public class DistanceVectorRouting {
+
+    public static final int DEFAULT_INFINITY = 16;
+    // Janela de agrupamento das atualizações disparadas (o RIP sorteia entre 1 e 5 s)
+    public static final int DEFAULT_TRIGGER_DELAY = 5;
+    public static final int MAX_ROUTES_PER_MESSAGE = 25;
+
+    // Valores de 'via' que não são índices de roteador
+    private static final int CONNECTED = -1;
+    private static final int NO_ROUTE = -2;
+    // Marca, na métrica enviada, uma rota perdida para a qual o Router pede alternativas
+    private static final int REQUEST_FLAG = 1 << 30;
+
+    private final NetworkMap map;
+    private final int infinity;
+    private int triggerDelay = DEFAULT_TRIGGER_DELAY;
+    private boolean poisonReverse = true;
+
+    private boolean started = false;
+    private int knownVersion;
+    // Eventos de uma geração anterior (antes de reset) são ignorados
+    private int generation = 0;
+    private int pendingEvents = 0;
+
+    private Node[] nodes = new Node[16];
+    private int nodeCount = 0;
+    private final Map<Router, Integer> indexOf = new IdentityHashMap<>();
+    private final PrefixTable prefixes = new PrefixTable();
+
+    private ConvergenceReport report = new ConvergenceReport("distance-vector");
+    private long roundStart;
+    private BitSet updatedInRound = new BitSet();
+
+    public DistanceVectorRouting(NetworkMap map) {
+        this(map, DEFAULT_INFINITY);
+    }
+
+    public DistanceVectorRouting(NetworkMap map, int infinity) {
+        if (infinity < 2)
+            throw new IllegalArgumentException("A métrica infinita deve ser ao menos 2");
+        this.map = map;
+        this.infinity = infinity;
+    }
+
+    // ============================
+    // API
+    // ============================
+
+    /**
+     * Aplica as mudanças de topologia desde a chamada anterior e agenda os
+     * anúncios correspondentes. O relatório devolvido é o da rodada atual:
+     * mensagens, rotas e tempo de convergência são acumulados à medida que a
+     * simulação avança (até a próxima chamada).
+     */
+    public ConvergenceReport update() {
+        if (started && map.getTopologyVersion() == knownVersion)
+            return report;
+        long start = System.nanoTime();
+        report = new ConvergenceReport("distance-vector");
+        report.full = !started;
+        roundStart = map.getScheduler().now();
+        updatedInRound = new BitSet();
+
+        synchronizeTopology();
+        started = true;
+        knownVersion = map.getTopologyVersion();
+        report.routers = indexOf.size();
+        report.cpuNanos += System.nanoTime() - start;
+        return report;
+    }
+
+    // Nenhuma atualização agendada nem mensagem em trânsito
+    public boolean isConverged() {
+        return pendingEvents == 0;
+    }
+
+    public ConvergenceReport getReport() {
+        return report;
+    }
+
+    /**
+     * Remove as rotas instaladas pelo protocolo e esquece o estado; eventos
+     * ainda agendados são descartados quando dispararem.
+     */
+    public void reset() {
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes[i];
+            if (!node.removed)
+                RouteInstaller.removeAll(node.router, node.installed);
+        }
+        nodes = new Node[16];
+        nodeCount = 0;
+        indexOf.clear();
+        prefixes.clear();
+        generation++;
+        pendingEvents = 0;
+        started = false;
+    }
+
+    public void setTriggerDelay(int ticks) {
+        if (ticks < 0)
+            throw new IllegalArgumentException("O atraso deve ser >= 0");
+        triggerDelay = ticks;
+    }
+
+    public void setPoisonReverse(boolean enabled) {
+        poisonReverse = enabled;
+    }
+
+    public int getInfinity() {
+        return infinity;
+    }
+
+    // Métrica atual de 'router' para 'network/mask' (-1 se não há rota)
+    public int metric(Router router, int network, int mask) {
+        Integer r = indexOf.get(router);
+        if (r == null) return -1;
+        Node node = nodes[r];
+        int p = prefixes.find(network & mask, mask);
+        if (p < 0) return -1;
+        ensurePrefixes(node);
+        return (node.metric[p] >= infinity) ? -1 : node.metric[p];
+    }
+
+    // ============================
+    // TOPOLOGIA
+    // ============================
+
+    private void synchronizeTopology() {
+        // Routers que saíram do mapa: as rotas são removidas e os vizinhos percebem o enlace perdido
+        IdentityHashMap<Router, Boolean> present = new IdentityHashMap<>();
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            Device d = map.getDevices()[i];
+            if (d instanceof Router)
+                present.put((Router) d, Boolean.TRUE);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes[i];
+            if (!node.removed && !present.containsKey(node.router)) {
+                RouteInstaller.removeAll(node.router, node.installed);
+                indexOf.remove(node.router);
+                node.removed = true;
+            }
+        }
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            Device d = map.getDevices()[i];
+            if (d instanceof Router && !indexOf.containsKey(d)) {
+                Router router = (Router) d;
+                if (nodeCount == nodes.length)
+                    nodes = Arrays.copyOf(nodes, nodeCount * 2);
+                nodes[nodeCount] = new Node(router);
+                indexOf.put(router, nodeCount++);
+            }
+        }
+
+        for (int r = 0; r < nodeCount; r++) {
+            if (!nodes[r].removed)
+                synchronizeNode(r);
+        }
+    }
+
+    private void synchronizeNode(int r) {
+        Node node = nodes[r];
+        Router router = node.router;
+        int count = router.getInterfaceCount();
+        int[] neighbors = new int[count], interfaces = new int[count], nextHops = new int[count], latencies = new int[count];
+        int[] stubPrefixes = new int[count], stubInterfaces = new int[count];
+        int edges = 0, stubs = 0;
+        for (int j = 0; j < count; j++) {
+            NetworkInterface intf = router.getInterface(j);
+            Device neighbor = intf.getNeighbor();
+            Integer n = (neighbor instanceof Router) ? indexOf.get(neighbor) : null;
+            NetworkInterface back = (n == null) ? null : neighbor.findInterfaceByNeighbor(router);
+            if (back != null) {
+                neighbors[edges] = n;
+                interfaces[edges] = j;
+                nextHops[edges] = back.getAddress();
+                latencies[edges] = LinkStateRouting.latencyOf(intf);
+                edges++;
+            } else {
+                stubPrefixes[stubs] = prefixes.indexOf(intf.getAddress() & intf.getMask(), intf.getMask());
+                stubInterfaces[stubs] = j;
+                stubs++;
+            }
+        }
+        int[] oldNeighbors = node.neighbors;
+        int[] oldInterfaces = node.interfaces;
+        int[] oldNextHops = node.nextHops;
+        int[] oldStubs = node.stubPrefixes;
+        node.neighbors = Arrays.copyOf(neighbors, edges);
+        node.interfaces = Arrays.copyOf(interfaces, edges);
+        node.nextHops = Arrays.copyOf(nextHops, edges);
+        node.latencies = Arrays.copyOf(latencies, edges);
+        node.stubPrefixes = Arrays.copyOf(stubPrefixes, stubs);
+        node.stubInterfaces = Arrays.copyOf(stubInterfaces, stubs);
+        ensurePrefixes(node);
+
+        // Vizinhos perdidos: as rotas por eles ficam inalcançáveis; vizinhos novos recebem a tabela completa
+        for (int k = 0; k < oldNeighbors.length; k++) {
+            int n = oldNeighbors[k];
+            int now = node.edgeTo(n);
+            if (now < 0) {
+                if (r < n) report.linkChanges++;
+                for (int p = 0; p < prefixes.size(); p++) {
+                    if (node.via[p] == n)
+                        setRoute(r, p, infinity, NO_ROUTE);
+                }
+            } else if (node.interfaces[now] != oldInterfaces[k] || node.nextHops[now] != oldNextHops[k]) {
+                for (int p = 0; p < prefixes.size(); p++) {
+                    if (node.via[p] == n)
+                        install(r, p);
+                }
+            }
+        }
+        for (int n : node.neighbors) {
+            if (indexIn(oldNeighbors, n) < 0) {
+                if (r < n) report.linkChanges++;
+                node.fullTableTo.set(n);
+                scheduleFlush(r);
+            }
+        }
+
+        // Redes conectadas
+        for (int p : oldStubs) {
+            if (indexIn(node.stubPrefixes, p) < 0 && node.via[p] == CONNECTED) {
+                report.prefixChanges++;
+                setRoute(r, p, infinity, NO_ROUTE);
+            }
+        }
+        for (int s = 0; s < node.stubPrefixes.length; s++) {
+            int p = node.stubPrefixes[s];
+            if (node.via[p] != CONNECTED) {
+                report.prefixChanges++;
+                setRoute(r, p, 0, CONNECTED);
+            } else {
+                install(r, p);
+            }
+        }
+    }
+
+    // ============================
+    // PROTOCOLO
+    // ============================
+
+    private void setRoute(int r, int p, int metric, int via) {
+        Node node = nodes[r];
+        if (node.metric[p] == metric && node.via[p] == via)
+            return;
+        boolean announce = node.metric[p] != metric;
+        node.metric[p] = metric;
+        node.via[p] = via;
+        install(r, p);
+        if (announce) {
+            node.changed.set(p);
+            if (metric >= infinity && via != CONNECTED)
+                node.requested.set(p);
+            scheduleFlush(r);
+        }
+    }
+
+    private void install(int r, int p) {
+        Node node = nodes[r];
+        int nextHop = Ipv4Address.ANY, outputInterface = -1;
+        int via = node.via[p];
+        if (node.metric[p] < infinity) {
+            if (via == CONNECTED) {
+                outputInterface = node.stubInterfaces[indexIn(node.stubPrefixes, p)];
+            } else if (via >= 0) {
+                int k = node.edgeTo(via);
+                nextHop = node.nextHops[k];
+                outputInterface = node.interfaces[k];
+            }
+        }
+        int result = RouteInstaller.install(node.router, node.installed, prefixes, p, nextHop, outputInterface);
+        if (result == RouteInstaller.UNCHANGED)
+            return;
+        if (result == RouteInstaller.ADDED) report.routesAdded++;
+        else if (result == RouteInstaller.REMOVED) report.routesRemoved++;
+        else report.routesChanged++;
+        if (!updatedInRound.get(r)) {
+            updatedInRound.set(r);
+            report.routersUpdated++;
+        }
+        report.convergenceTicks = map.getScheduler().now() - roundStart;
+    }
+
+    private void scheduleFlush(int r) {
+        Node node = nodes[r];
+        if (node.flushScheduled) return;
+        node.flushScheduled = true;
+        pendingEvents++;
+        int scheduledGeneration = generation;
+        map.getScheduler().scheduleAfter(triggerDelay, t -> {
+            if (scheduledGeneration != generation) return;
+            pendingEvents--;
+            flush(r);
+        });
+    }
+
+    /**
+     * Envia a cada vizinho uma atualização com as rotas que mudaram desde o
+     * último envio (ou a tabela completa, para vizinhos novos).
+     */
+    private void flush(int r) {
+        long start = System.nanoTime();
+        Node node = nodes[r];
+        node.flushScheduled = false;
+        if (!node.removed) {
+            ensurePrefixes(node);
+            for (int k = 0; k < node.neighbors.length; k++) {
+                int n = node.neighbors[k];
+                BitSet routes = node.fullTableTo.get(n) ? null : node.changed;
+                send(r, k, routes);
+            }
+        }
+        node.changed.clear();
+        node.requested.clear();
+        node.fullTableTo.clear();
+        report.cpuNanos += System.nanoTime() - start;
+    }
+
+    // 'routes' == null: tabela completa (só rotas válidas)
+    private void send(int r, int k, BitSet routes) {
+        Node node = nodes[r];
+        int n = node.neighbors[k];
+        int size = (routes == null) ? prefixes.size() : routes.cardinality();
+        int[] ps = new int[size];
+        int[] ms = new int[size];
+        int entries = 0;
+        int p = (routes == null) ? 0 : routes.nextSetBit(0);
+        while (p >= 0 && p < prefixes.size()) {
+            int metric = node.metric[p];
+            if (node.via[p] == n) {
+                // Split horizon: a rota volta envenenada, ou nem volta
+                metric = poisonReverse ? infinity : -1;
+            }
+            if (metric >= 0 && (routes != null || metric < infinity)) {
+                ps[entries] = p;
+                ms[entries] = (metric >= infinity && node.requested.get(p)) ? metric | REQUEST_FLAG : metric;
+                entries++;
+            }
+            p = (routes == null) ? p + 1 : routes.nextSetBit(p + 1);
+        }
+        if (entries == 0) return;
+
+        report.messages += (entries + MAX_ROUTES_PER_MESSAGE - 1) / MAX_ROUTES_PER_MESSAGE;
+        report.advertisedRoutes += entries;
+        int[] sentPrefixes = Arrays.copyOf(ps, entries);
+        int[] sentMetrics = Arrays.copyOf(ms, entries);
+        int scheduledGeneration = generation;
+        pendingEvents++;
+        map.getScheduler().scheduleAfter(node.latencies[k], t -> {
+            if (scheduledGeneration != generation) return;
+            pendingEvents--;
+            receive(n, r, sentPrefixes, sentMetrics);
+        });
+    }
+
+    private void receive(int r, int from, int[] ps, int[] ms) {
+        long start = System.nanoTime();
+        Node node = nodes[r];
+        // O enlace pode ter caído enquanto a mensagem estava em trânsito
+        if (!node.removed && node.edgeTo(from) >= 0) {
+            ensurePrefixes(node);
+            for (int i = 0; i < ps.length; i++) {
+                int p = ps[i];
+                boolean request = (ms[i] & REQUEST_FLAG) != 0;
+                int advertised = ms[i] & ~REQUEST_FLAG;
+                int candidate = Math.min(infinity, advertised + 1);
+                int current = node.metric[p];
+                int via = node.via[p];
+                if (via == CONNECTED) {
+                    continue;
+                } else if (via == from) {
+                    // O próximo salto atual é sempre ouvido, mesmo quando piora
+                    if (candidate != current)
+                        setRoute(r, p, candidate, (candidate >= infinity) ? NO_ROUTE : from);
+                } else if (candidate < current) {
+                    setRoute(r, p, candidate, from);
+                } else if (current < infinity && (request || current + 1 < advertised)) {
+                    // O vizinho perdeu a rota ou tem uma pior que a nossa: responde com ela
+                    node.changed.set(p);
+                    scheduleFlush(r);
+                }
+            }
+        }
+        report.cpuNanos += System.nanoTime() - start;
+    }
+
+    // ============================
+    // ESTADO POR ROUTER
+    // ============================
+
+    private void ensurePrefixes(Node node) {
+        int capacity = prefixes.capacity();
+        int old = node.metric.length;
+        if (old >= capacity) return;
+        node.metric = Arrays.copyOf(node.metric, capacity);
+        node.via = Arrays.copyOf(node.via, capacity);
+        node.installed = Arrays.copyOf(node.installed, capacity);
+        Arrays.fill(node.metric, old, capacity, infinity);
+        Arrays.fill(node.via, old, capacity, NO_ROUTE);
+    }
+
+    private static int indexIn(int[] values, int value) {
+        for (int i = 0; i < values.length; i++)
+            if (values[i] == value) return i;
+        return -1;
+    }
+
+    private static final class Node {
+        final Router router;
+        boolean removed = false;
+
+        // Vizinhos (índice do roteador), ordenados pela interface local
+        int[] neighbors = new int[0];
+        int[] interfaces = new int[0];
+        int[] nextHops = new int[0];
+        int[] latencies = new int[0];
+        int[] stubPrefixes = new int[0];
+        int[] stubInterfaces = new int[0];
+
+        // Por prefixo: métrica e vizinho de quem a rota foi aprendida
+        int[] metric = new int[0];
+        int[] via = new int[0];
+        RouteEntry[] installed = new RouteEntry[0];
+
+        // Rotas a anunciar e vizinhos que recebem a tabela completa no próximo envio
+        final BitSet changed = new BitSet();
+        final BitSet requested = new BitSet();
+        final BitSet fullTableTo = new BitSet();
+        boolean flushScheduled = false;
+
+        Node(Router router) {
+            this.router = router;
+        }
+
+        int edgeTo(int neighbor) {
+            return indexIn(neighbors, neighbor);
+        }
+    }
+}
@@ -0,0 +1,1023 @@
+package routing;
+
+import models.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Roteamento dinâmico link-state (no estilo do OSPF) que preenche as tabelas
+ * dos Routers de um NetworkMap.
+ *
+ * Cada Router anuncia um LSA com seus enlaces para outros Routers (só quando
+ * os dois lados se declaram vizinhos) e as redes "stub" das demais
+ * interfaces (LANs: sem vizinho, com Host ou com enlace de um lado só). A
+ * inundação é considerada confiável, então todos têm o mesmo banco de
+ * dados; o custo de um enlace é 1 para banda ilimitada ou
+ * REFERENCE_BANDWIDTH / banda (o maior dos dois sentidos, mínimo 1).
+ *
+ * O motor guarda a distância de cada roteador para todos os outros (a
+ * árvore de caminhos mínimos de cada um, 4 bytes por par), o que permite
+ * atualizar só o que uma mudança afeta:
+ *   - enlace novo ou mais barato: só as origens que passam a chegar mais
+ *     perto ao outro lado do enlace são atualizadas, e só nos destinos desse
+ *     lado;
+ *   - enlace removido ou mais caro: só as origens cuja árvore usa o enlace,
+ *     e nelas só a subárvore abaixo dele é recalculada (Dijkstra restrito a
+ *     partir da fronteira da subárvore).
+ * O cálculo completo (primeira chamada ou recomputeAll) roda um Dijkstra por
+ * roteador, em paralelo.
+ *
+ * As rotas são instaladas com addRoute/replaceRoute/removeRoute. Um prefixo
+ * para o qual o Router já tem uma rota cadastrada por outro meio (estática)
+ * não é tocado. O próximo salto é o primeiro vizinho, na ordem das
+ * interfaces, que está em um caminho mínimo; com isso a atualização
+ * incremental produz as mesmas tabelas que o cálculo completo.
+ *
+ * Não é thread-safe: chame com a simulação parada ou dentro de
+ * synchronized(map), como as demais alterações de topologia.
+ */
+public class LinkStateRouting {
+
+    public static final int REFERENCE_BANDWIDTH = 100;
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int INITIAL_CAPACITY = 16;
+    // Linhas por tarefa do cálculo completo
+    private static final int ROWS_PER_TASK = 32;
+
+    private final NetworkMap map;
+    private boolean built = false;
+    private int knownVersion;
+    private int knownCostVersion;
+
+    // Roteadores por índice; índices de roteadores removidos são reaproveitados
+    private Router[] routers = new Router[0];
+    private Lsa[] lsas = new Lsa[0];
+    private int[][] distance = new int[0][];
+    private RouteEntry[][] installed = new RouteEntry[0][];
+    private int routerCount = 0;
+    private int capacity = 0;
+    private final Map<Router, Integer> indexOf = new IdentityHashMap<>();
+    private int[] freeIndexes = new int[INITIAL_CAPACITY];
+    private int freeCount = 0;
+
+    // Prefixos anunciados e, para cada um, os pares (roteador, interface) que o anunciam
+    private final PrefixTable prefixes = new PrefixTable();
+    private int[][] prefixOwners = new int[0][];
+
+    // Rotas a revisar: por linha, destinos (roteadores) cujas rotas podem ter mudado
+    private BitSet[] dirtyDestinations = new BitSet[0];
+    private boolean[] dirtyAll = new boolean[0];
+    private final BitSet dirtyPrefixes = new BitSet();
+
+    // Áreas de trabalho do cálculo incremental (sequencial)
+    private final LongHeap heap = new LongHeap();
+    private int[] marks = new int[0];
+    private int mark = 0;
+    private int[] members = new int[0];
+    private int partialRuns = 0;
+
+    public LinkStateRouting(NetworkMap map) {
+        this.map = map;
+    }
+
+    // ============================
+    // API
+    // ============================
+
+    /**
+     * Sincroniza as tabelas com a topologia atual: na primeira chamada faz o
+     * cálculo completo; nas seguintes aplica só as diferenças desde a
+     * chamada anterior (nada, se nem a topologia nem o custo de um enlace
+     * mudaram).
+     */
+    public ConvergenceReport update() {
+        long start = System.nanoTime();
+        ConvergenceReport report = new ConvergenceReport("link-state");
+        if (!built) {
+            fullBuild(report);
+        } else if (map.getTopologyVersion() != knownVersion || map.getLinkCostVersion() != knownCostVersion) {
+            incrementalUpdate(report);
+        }
+        knownVersion = map.getTopologyVersion();
+        knownCostVersion = map.getLinkCostVersion();
+        report.routers = indexOf.size();
+        report.cpuNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Descarta o estado calculado e refaz tudo (as rotas já instaladas pelo
+     * motor são atualizadas, não duplicadas).
+     */
+    public ConvergenceReport recomputeAll() {
+        long start = System.nanoTime();
+        ConvergenceReport report = new ConvergenceReport("link-state");
+        fullBuild(report);
+        knownVersion = map.getTopologyVersion();
+        knownCostVersion = map.getLinkCostVersion();
+        report.routers = indexOf.size();
+        report.cpuNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Remove todas as rotas instaladas pelo motor e esquece o estado; a
+     * próxima chamada a update() recalcula do zero.
+     */
+    public void reset() {
+        for (int r = 0; r < routerCount; r++)
+            removeInstalledRoutes(r);
+        routers = new Router[0];
+        lsas = new Lsa[0];
+        distance = new int[0][];
+        installed = new RouteEntry[0][];
+        dirtyDestinations = new BitSet[0];
+        dirtyAll = new boolean[0];
+        marks = new int[0];
+        routerCount = capacity = freeCount = 0;
+        indexOf.clear();
+        prefixes.clear();
+        prefixOwners = new int[0][];
+        dirtyPrefixes.clear();
+        built = false;
+    }
+
+    // Custo do caminho mínimo entre dois roteadores conhecidos (-1 se inalcançável ou desconhecido)
+    public int distance(Router from, Router to) {
+        Integer a = indexOf.get(from);
+        Integer b = indexOf.get(to);
+        if (a == null || b == null || distance[a][b] >= INFINITY)
+            return -1;
+        return distance[a][b];
+    }
+
+    public int getRouterCount() {
+        return indexOf.size();
+    }
+
+    public int getPrefixCount() {
+        int count = 0;
+        for (int p = 0; p < prefixes.size(); p++)
+            if (prefixOwners[p].length > 0) count++;
+        return count;
+    }
+
+    // Memória das distâncias e das referências às rotas instaladas
+    public long estimateMemory() {
+        return (long) capacity * capacity * 4 + (long) routerCount * prefixes.capacity() * 4;
+    }
+
+    // ============================
+    // CÁLCULO COMPLETO
+    // ============================
+
+    private void fullBuild(ConvergenceReport report) {
+        report.full = true;
+        report.convergenceTicks = -1;
+
+        // Roteadores do mapa; os que saíram têm as rotas removidas
+        List<Router> present = presentRouters();
+        IdentityHashMap<Router, Boolean> presentSet = new IdentityHashMap<>();
+        for (Router r : present) presentSet.put(r, Boolean.TRUE);
+        for (int i = 0; i < routerCount; i++) {
+            if (routers[i] != null && !presentSet.containsKey(routers[i]))
+                releaseIndex(i);
+        }
+        int added = 0;
+        for (Router r : present) {
+            if (!indexOf.containsKey(r)) added++;
+        }
+        ensureCapacity(routerCount + Math.max(0, added - freeCount), true);
+        for (Router r : present) {
+            if (!indexOf.containsKey(r))
+                assignIndex(r);
+        }
+
+        // Prefixos e LSAs reconstruídos do zero
+        for (int p = 0; p < prefixes.size(); p++)
+            prefixOwners[p] = new int[0];
+        for (int i = 0; i < routerCount; i++) {
+            lsas[i] = (routers[i] == null) ? Lsa.EMPTY : buildLsa(routers[i]);
+            addStubOwners(i, lsas[i]);
+        }
+
+        ForkJoinPool.commonPool().invoke(new ShortestPathTask(0, routerCount));
+        report.fullSpfRuns = indexOf.size();
+        report.messages = floodMessages(indexOf.size());
+
+        for (int i = 0; i < routerCount; i++) {
+            dirtyAll[i] = false;
+            dirtyDestinations[i] = null;
+        }
+        dirtyPrefixes.clear();
+        ForkJoinPool.commonPool().invoke(new InstallTask(0, routerCount, report));
+        built = true;
+    }
+
+    // Dijkstra completo a partir de 'source' (só lê o grafo; pode rodar em paralelo)
+    private void shortestPaths(int source, BucketQueue queue) {
+        int[] row = distance[source];
+        Arrays.fill(row, 0, routerCount, INFINITY);
+        row[source] = 0;
+        queue.clear();
+        queue.push(0, source);
+        while (!queue.isEmpty()) {
+            long item = queue.pop();
+            int d = (int) (item >>> 32);
+            int x = (int) item;
+            if (d > row[x]) continue;
+            Lsa lsa = lsas[x];
+            for (int k = 0; k < lsa.neighbors.length; k++) {
+                int y = lsa.neighbors[k];
+                int nd = d + lsa.costs[k];
+                if (nd < row[y]) {
+                    row[y] = nd;
+                    queue.push(nd, y);
+                }
+            }
+        }
+    }
+
+    private class ShortestPathTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ShortestPathTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                BucketQueue queue = new BucketQueue();
+                for (int i = from; i < to; i++) {
+                    if (routers[i] != null)
+                        shortestPaths(i, queue);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ShortestPathTask(from, middle), new ShortestPathTask(middle, to));
+        }
+    }
+
+    // Cada tarefa só altera as tabelas dos seus próprios roteadores
+    private class InstallTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final ConvergenceReport report;
+
+        InstallTask(int from, int to, ConvergenceReport report) {
+            this.from = from;
+            this.to = to;
+            this.report = report;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                long[] counts = new long[3];
+                int updated = 0;
+                for (int r = from; r < to; r++) {
+                    if (routers[r] == null) continue;
+                    long before = counts[0] + counts[1] + counts[2];
+                    for (int p = 0; p < prefixes.size(); p++)
+                        refreshRoute(r, p, counts);
+                    if (counts[0] + counts[1] + counts[2] != before) updated++;
+                }
+                report.addRoutes(counts[0], counts[1], counts[2], updated);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new InstallTask(from, middle, report), new InstallTask(middle, to, report));
+        }
+    }
+
+    // ============================
+    // ATUALIZAÇÃO INCREMENTAL
+    // ============================
+
+    private void incrementalUpdate(ConvergenceReport report) {
+        // 1. Roteadores que entraram e saíram do mapa
+        List<Router> present = presentRouters();
+        IdentityHashMap<Router, Boolean> presentSet = new IdentityHashMap<>();
+        for (Router r : present) presentSet.put(r, Boolean.TRUE);
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < routerCount; i++) {
+            if (routers[i] != null && !presentSet.containsKey(routers[i])) {
+                indexOf.remove(routers[i]);
+                removed.add(i);
+            }
+        }
+        for (Router r : present) {
+            if (!indexOf.containsKey(r))
+                assignIndex(r);
+        }
+        ensureCapacity(routerCount, false);
+
+        // 2. LSAs atuais (os removidos não anunciam nada)
+        Lsa[] targets = new Lsa[routerCount];
+        for (int i = 0; i < routerCount; i++)
+            targets[i] = (routers[i] == null || !indexOf.containsKey(routers[i])) ? Lsa.EMPTY : buildLsa(routers[i]);
+
+        BitSet originators = new BitSet(routerCount);
+
+        // 3. Redes stub
+        for (int i = 0; i < routerCount; i++) {
+            if (lsas[i].sameStubs(targets[i])) continue;
+            for (int p : lsas[i].stubPrefixes) dirtyPrefixes.set(p);
+            for (int p : targets[i].stubPrefixes) dirtyPrefixes.set(p);
+            removeStubOwners(i, lsas[i]);
+            addStubOwners(i, targets[i]);
+            lsas[i] = lsas[i].withStubs(targets[i]);
+            originators.set(i);
+        }
+        report.prefixChanges = dirtyPrefixes.cardinality();
+
+        // 4. Enlaces: cada par (u < v) com custo diferente é aplicado separadamente
+        for (int u = 0; u < routerCount; u++) {
+            Lsa before = lsas[u];
+            Lsa after = targets[u];
+            for (int k = 0; k < before.neighbors.length; k++) {
+                int v = before.neighbors[k];
+                if (v < u) continue;
+                int newCost = after.costTo(v);
+                if (newCost != before.costs[k]) {
+                    applyEdgeChange(u, v, before.costs[k], newCost, targets);
+                    originators.set(u);
+                    originators.set(v);
+                    report.linkChanges++;
+                }
+            }
+            for (int k = 0; k < after.neighbors.length; k++) {
+                int v = after.neighbors[k];
+                if (v < u || lsas[u].costTo(v) != INFINITY) continue;
+                applyEdgeChange(u, v, INFINITY, after.costs[k], targets);
+                originators.set(u);
+                originators.set(v);
+                report.linkChanges++;
+            }
+        }
+
+        // 5. Mudanças sem efeito nas distâncias (interface, próximo salto, latência)
+        for (int i = 0; i < routerCount; i++) {
+            if (!lsas[i].sameEdges(targets[i])) {
+                markAllDirty(i);
+                originators.set(i);
+            }
+            lsas[i] = targets[i];
+        }
+
+        for (int i : removed)
+            releaseIndex(i);
+
+        installDirtyRoutes(report, originators);
+    }
+
+    /**
+     * Aplica a mudança de custo de um enlace (INFINITY = ausente) ao grafo e
+     * às distâncias, marcando as rotas que precisam ser revistas.
+     */
+    private void applyEdgeChange(int u, int v, int oldCost, int newCost, Lsa[] targets) {
+        int[] du = Arrays.copyOf(distance[u], routerCount);
+        int[] dv = Arrays.copyOf(distance[v], routerCount);
+
+        if (newCost == INFINITY) {
+            lsas[u] = lsas[u].withoutEdge(v);
+            lsas[v] = lsas[v].withoutEdge(u);
+        } else {
+            lsas[u] = lsas[u].withEdgeFrom(targets[u], v);
+            lsas[v] = lsas[v].withEdgeFrom(targets[v], u);
+        }
+        // As duas pontas podem trocar de próximo salto para qualquer destino
+        markAllDirty(u);
+        markAllDirty(v);
+
+        if (newCost < oldCost) {
+            decreaseEdge(newCost, du, dv);
+        } else {
+            increaseEdge(oldCost, du, dv);
+        }
+    }
+
+    // Enlace novo ou mais barato: D[a][b] = min(D[a][b], D[a][u] + w + D[v][b]) nos dois sentidos
+    private void decreaseEdge(int cost, int[] du, int[] dv) {
+        for (int a = 0; a < routerCount; a++) {
+            if (du[a] + cost < dv[a]) {
+                relaxThrough(a, du[a] + cost, dv);
+            } else if (dv[a] + cost < du[a]) {
+                relaxThrough(a, dv[a] + cost, du);
+            }
+        }
+    }
+
+    private void relaxThrough(int a, int base, int[] far) {
+        int[] row = distance[a];
+        for (int b = 0; b < routerCount; b++) {
+            if (far[b] >= INFINITY) continue;
+            int candidate = base + far[b];
+            if (candidate < row[b]) {
+                row[b] = candidate;
+                markDirty(a, b);
+            }
+        }
+    }
+
+    /**
+     * Enlace removido ou mais caro: para cada origem 'a' cuja árvore usa o
+     * enlace, os destinos com algum caminho mínimo através dele formam a
+     * subárvore afetada; só ela é recalculada.
+     */
+    private void increaseEdge(int oldCost, int[] du, int[] dv) {
+        for (int a = 0; a < routerCount; a++) {
+            boolean throughU = du[a] + oldCost == dv[a];
+            boolean throughV = dv[a] + oldCost == du[a];
+            if (!throughU && !throughV) continue;
+
+            int[] row = distance[a];
+            int count = 0;
+            for (int b = 0; b < routerCount; b++) {
+                int d = row[b];
+                if (d >= INFINITY) continue;
+                if ((throughU && dv[b] < INFINITY && du[a] + oldCost + dv[b] == d)
+                        || (throughV && du[b] < INFINITY && dv[a] + oldCost + du[b] == d))
+                    members[count++] = b;
+            }
+            if (count > 0) {
+                repairSubtree(a, count);
+                partialRuns++;
+            }
+        }
+    }
+
+    // Dijkstra restrito aos destinos em 'members', partindo da fronteira com o resto da árvore
+    private void repairSubtree(int a, int count) {
+        int[] row = distance[a];
+        mark++;
+        for (int i = 0; i < count; i++) {
+            int b = members[i];
+            marks[b] = mark;
+            row[b] = INFINITY;
+            markDirty(a, b);
+        }
+
+        heap.clear();
+        for (int i = 0; i < count; i++) {
+            int b = members[i];
+            Lsa lsa = lsas[b];
+            int best = INFINITY;
+            for (int k = 0; k < lsa.neighbors.length; k++) {
+                int x = lsa.neighbors[k];
+                if (marks[x] != mark && row[x] < INFINITY)
+                    best = Math.min(best, row[x] + lsa.costs[k]);
+            }
+            if (best < INFINITY) {
+                row[b] = best;
+                heap.push(best, b);
+            }
+        }
+        while (!heap.isEmpty()) {
+            long item = heap.pop();
+            int d = (int) (item >>> 32);
+            int x = (int) item;
+            if (d > row[x]) continue;
+            Lsa lsa = lsas[x];
+            for (int k = 0; k < lsa.neighbors.length; k++) {
+                int y = lsa.neighbors[k];
+                if (marks[y] != mark) continue;
+                int nd = d + lsa.costs[k];
+                if (nd < row[y]) {
+                    row[y] = nd;
+                    heap.push(nd, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * A rota de 'a' para os prefixos de 'b' depende de D[a][b] e de D[x][b]
+     * dos vizinhos x de 'a'; por isso os vizinhos também são marcados.
+     */
+    private void markDirty(int a, int b) {
+        dirtyBits(a).set(b);
+        Lsa lsa = lsas[a];
+        for (int k = 0; k < lsa.neighbors.length; k++)
+            dirtyBits(lsa.neighbors[k]).set(b);
+    }
+
+    private BitSet dirtyBits(int row) {
+        BitSet bits = dirtyDestinations[row];
+        if (bits == null) {
+            bits = new BitSet(routerCount);
+            dirtyDestinations[row] = bits;
+        }
+        return bits;
+    }
+
+    private void markAllDirty(int row) {
+        dirtyAll[row] = true;
+    }
+
+    private void installDirtyRoutes(ConvergenceReport report, BitSet originators) {
+        report.partialSpfRuns = partialRuns;
+        partialRuns = 0;
+
+        long[] counts = new long[3];
+        BitSet changedRouters = new BitSet(routerCount);
+        for (int r = 0; r < routerCount; r++) {
+            BitSet bits = dirtyDestinations[r];
+            boolean all = dirtyAll[r];
+            dirtyDestinations[r] = null;
+            dirtyAll[r] = false;
+            if (routers[r] == null || (!all && bits == null && dirtyPrefixes.isEmpty())) continue;
+
+            long before = counts[0] + counts[1] + counts[2];
+            if (all) {
+                for (int p = 0; p < prefixes.size(); p++)
+                    refreshRoute(r, p, counts);
+            } else {
+                if (bits != null) {
+                    for (int b = bits.nextSetBit(0); b >= 0; b = bits.nextSetBit(b + 1)) {
+                        for (int p : lsas[b].stubPrefixes)
+                            refreshRoute(r, p, counts);
+                    }
+                }
+                for (int p = dirtyPrefixes.nextSetBit(0); p >= 0; p = dirtyPrefixes.nextSetBit(p + 1))
+                    refreshRoute(r, p, counts);
+            }
+            if (counts[0] + counts[1] + counts[2] != before)
+                changedRouters.set(r);
+        }
+        dirtyPrefixes.clear();
+        report.addRoutes(counts[0], counts[1], counts[2], changedRouters.cardinality());
+        report.convergenceTicks = floodTime(originators, changedRouters);
+        report.messages = floodMessages(originators.cardinality());
+    }
+
+    /**
+     * Cópias de LSA enviadas pela inundação confiável: cada roteador repassa
+     * um LSA novo a todos os vizinhos menos aquele de quem o recebeu.
+     */
+    private long floodMessages(int originators) {
+        long directedLinks = 0;
+        for (int i = 0; i < routerCount; i++)
+            directedLinks += lsas[i].neighbors.length;
+        return originators * Math.max(0, directedLinks - (indexOf.size() - 1));
+    }
+
+    /**
+     * Tempo simulado para o LSA dos roteadores de origem chegar ao último
+     * roteador cujas rotas mudaram (Dijkstra pelas latências dos enlaces).
+     */
+    private long floodTime(BitSet originators, BitSet changedRouters) {
+        if (changedRouters.isEmpty() || originators.isEmpty())
+            return 0;
+        long[] arrival = new long[routerCount];
+        Arrays.fill(arrival, Long.MAX_VALUE);
+        heap.clear();
+        for (int o = originators.nextSetBit(0); o >= 0; o = originators.nextSetBit(o + 1)) {
+            arrival[o] = 0;
+            heap.push(0, o);
+        }
+        while (!heap.isEmpty()) {
+            long item = heap.pop();
+            int d = (int) (item >>> 32);
+            int x = (int) item;
+            if (d > arrival[x]) continue;
+            Lsa lsa = lsas[x];
+            for (int k = 0; k < lsa.neighbors.length; k++) {
+                int y = lsa.neighbors[k];
+                long nd = d + lsa.latencies[k];
+                if (nd < arrival[y]) {
+                    arrival[y] = nd;
+                    heap.push((int) nd, y);
+                }
+            }
+        }
+        long worst = 0;
+        for (int r = changedRouters.nextSetBit(0); r >= 0; r = changedRouters.nextSetBit(r + 1)) {
+            if (arrival[r] != Long.MAX_VALUE)
+                worst = Math.max(worst, arrival[r]);
+        }
+        return worst;
+    }
+
+    // ============================
+    // ROTAS
+    // ============================
+
+    /**
+     * Recalcula a rota do roteador 'r' para o prefixo 'p' e instala a
+     * diferença. counts = {adicionadas, removidas, trocadas}.
+     */
+    private void refreshRoute(int r, int p, long[] counts) {
+        int nextHop = 0, outputInterface = -1;
+        int[] owners = prefixOwners[p];
+        int bestOwner = -1;
+        for (int i = 0; i < owners.length; i += 2) {
+            int owner = owners[i];
+            if (owner == r) {
+                // Rede conectada: entrega direta pela interface da LAN
+                bestOwner = r;
+                nextHop = Ipv4Address.ANY;
+                outputInterface = owners[i + 1];
+                break;
+            }
+            if (distance[r][owner] < INFINITY && (bestOwner < 0 || distance[r][owner] < distance[r][bestOwner]))
+                bestOwner = owner;
+        }
+        if (bestOwner >= 0 && bestOwner != r) {
+            int target = distance[r][bestOwner];
+            Lsa lsa = lsas[r];
+            for (int k = 0; k < lsa.neighbors.length; k++) {
+                if (lsa.costs[k] + distance[lsa.neighbors[k]][bestOwner] == target) {
+                    nextHop = lsa.nextHops[k];
+                    outputInterface = lsa.interfaces[k];
+                    break;
+                }
+            }
+        }
+
+        int result = RouteInstaller.install(routers[r], installedRow(r), prefixes, p, nextHop, outputInterface);
+        if (result != RouteInstaller.UNCHANGED)
+            counts[result]++;
+    }
+
+    private RouteEntry[] installedRow(int r) {
+        RouteEntry[] row = installed[r];
+        if (row == null || row.length < prefixes.size()) {
+            row = (row == null) ? new RouteEntry[prefixes.capacity()] : Arrays.copyOf(row, prefixes.capacity());
+            installed[r] = row;
+        }
+        return row;
+    }
+
+    private void removeInstalledRoutes(int r) {
+        if (installed[r] != null && routers[r] != null)
+            RouteInstaller.removeAll(routers[r], installed[r]);
+        installed[r] = null;
+    }
+
+    // ============================
+    // LSAs
+    // ============================
+
+    private List<Router> presentRouters() {
+        List<Router> present = new ArrayList<>();
+        for (int i = 0; i < map.getDeviceCount(); i++) {
+            Device d = map.getDevices()[i];
+            if (d instanceof Router)
+                present.add((Router) d);
+        }
+        return present;
+    }
+
+    private Lsa buildLsa(Router router) {
+        int count = router.getInterfaceCount();
+        int[] neighbors = new int[count], costs = new int[count], latencies = new int[count];
+        int[] interfaces = new int[count], nextHops = new int[count];
+        int[] stubPrefixes = new int[count], stubInterfaces = new int[count];
+        int edges = 0, stubs = 0;
+
+        for (int j = 0; j < count; j++) {
+            NetworkInterface intf = router.getInterface(j);
+            Device neighbor = intf.getNeighbor();
+            Integer n = (neighbor instanceof Router) ? indexOf.get(neighbor) : null;
+            NetworkInterface back = (n == null) ? null : neighbor.findInterfaceByNeighbor(router);
+            if (back != null) {
+                neighbors[edges] = n;
+                costs[edges] = Math.max(costOf(intf), costOf(back));
+                latencies[edges] = latencyOf(intf);
+                interfaces[edges] = j;
+                nextHops[edges] = back.getAddress();
+                edges++;
+            } else {
+                stubPrefixes[stubs] = prefixFor(intf.getAddress() & intf.getMask(), intf.getMask());
+                stubInterfaces[stubs] = j;
+                stubs++;
+            }
+        }
+        return new Lsa(Arrays.copyOf(neighbors, edges), Arrays.copyOf(costs, edges), Arrays.copyOf(latencies, edges),
+                Arrays.copyOf(interfaces, edges), Arrays.copyOf(nextHops, edges),
+                Arrays.copyOf(stubPrefixes, stubs), Arrays.copyOf(stubInterfaces, stubs));
+    }
+
+    private static int costOf(NetworkInterface intf) {
+        OutputQueue queue = intf.peekOutputQueue();
+        if (queue == null || queue.getBandwidth() == OutputQueue.UNLIMITED)
+            return 1;
+        return Math.max(1, (REFERENCE_BANDWIDTH + queue.getBandwidth() - 1) / queue.getBandwidth());
+    }
+
+    // Atraso de um sentido do enlace (também usado para as mensagens do distance-vector)
+    static int latencyOf(NetworkInterface intf) {
+        OutputQueue queue = intf.peekOutputQueue();
+        return (queue == null) ? OutputQueue.DEFAULT_LATENCY : queue.getLatency();
+    }
+
+    private int prefixFor(int network, int mask) {
+        int p = prefixes.indexOf(network, mask);
+        if (prefixOwners.length < prefixes.capacity())
+            prefixOwners = Arrays.copyOf(prefixOwners, prefixes.capacity());
+        if (prefixOwners[p] == null)
+            prefixOwners[p] = new int[0];
+        return p;
+    }
+
+    // Donos de cada prefixo em pares (roteador, interface), ordenados, para o desempate não depender da ordem das mudanças
+    private void addStubOwners(int router, Lsa lsa) {
+        for (int s = 0; s < lsa.stubPrefixes.length; s++) {
+            int p = lsa.stubPrefixes[s];
+            int[] owners = prefixOwners[p];
+            int[] grown = new int[owners.length + 2];
+            int position = 0;
+            while (position < owners.length && (owners[position] < router
+                    || (owners[position] == router && owners[position + 1] < lsa.stubInterfaces[s])))
+                position += 2;
+            System.arraycopy(owners, 0, grown, 0, position);
+            grown[position] = router;
+            grown[position + 1] = lsa.stubInterfaces[s];
+            System.arraycopy(owners, position, grown, position + 2, owners.length - position);
+            prefixOwners[p] = grown;
+        }
+    }
+
+    private void removeStubOwners(int router, Lsa lsa) {
+        for (int p : lsa.stubPrefixes) {
+            int[] owners = prefixOwners[p];
+            int kept = 0;
+            int[] remaining = new int[owners.length];
+            for (int i = 0; i < owners.length; i += 2) {
+                if (owners[i] == router) continue;
+                remaining[kept++] = owners[i];
+                remaining[kept++] = owners[i + 1];
+            }
+            prefixOwners[p] = Arrays.copyOf(remaining, kept);
+        }
+    }
+
+    // ============================
+    // ÍNDICES E CAPACIDADE
+    // ============================
+
+    private void assignIndex(Router router) {
+        int index;
+        if (freeCount > 0) {
+            index = freeIndexes[--freeCount];
+        } else {
+            index = routerCount++;
+            ensureCapacity(routerCount, false);
+            Arrays.fill(distance[index], INFINITY);
+            for (int a = 0; a < index; a++)
+                distance[a][index] = INFINITY;
+        }
+        distance[index][index] = 0;
+        routers[index] = router;
+        lsas[index] = Lsa.EMPTY;
+        indexOf.put(router, index);
+    }
+
+    // Um índice liberado fica isolado (distâncias infinitas) até ser reaproveitado
+    private void releaseIndex(int index) {
+        removeInstalledRoutes(index);
+        if (routers[index] != null)
+            indexOf.remove(routers[index]);
+        if (lsas[index] != null && lsas[index] != Lsa.EMPTY)
+            removeStubOwners(index, lsas[index]);
+        routers[index] = null;
+        lsas[index] = Lsa.EMPTY;
+        Arrays.fill(distance[index], 0, routerCount, INFINITY);
+        for (int a = 0; a < routerCount; a++)
+            distance[a][index] = INFINITY;
+        dirtyDestinations[index] = null;
+        dirtyAll[index] = false;
+        if (freeCount == freeIndexes.length)
+            freeIndexes = Arrays.copyOf(freeIndexes, freeCount * 2);
+        freeIndexes[freeCount++] = index;
+    }
+
+    /**
+     * Garante espaço para 'needed' roteadores. No cálculo completo a matriz
+     * é alocada no tamanho exato; no incremental cresce 50% de cada vez.
+     */
+    private void ensureCapacity(int needed, boolean exact) {
+        if (needed <= capacity) return;
+        int newCapacity = exact ? needed : Math.max(needed, Math.max(INITIAL_CAPACITY, capacity + capacity / 2));
+        int[][] grown = new int[newCapacity][];
+        for (int a = 0; a < newCapacity; a++) {
+            int[] row = (a < capacity) ? Arrays.copyOf(distance[a], newCapacity) : new int[newCapacity];
+            Arrays.fill(row, (a < capacity) ? capacity : 0, newCapacity, INFINITY);
+            grown[a] = row;
+        }
+        distance = grown;
+        routers = Arrays.copyOf(routers, newCapacity);
+        lsas = Arrays.copyOf(lsas, newCapacity);
+        installed = Arrays.copyOf(installed, newCapacity);
+        dirtyDestinations = Arrays.copyOf(dirtyDestinations, newCapacity);
+        dirtyAll = Arrays.copyOf(dirtyAll, newCapacity);
+        marks = Arrays.copyOf(marks, newCapacity);
+        members = new int[newCapacity];
+        for (int a = capacity; a < newCapacity; a++)
+            lsas[a] = Lsa.EMPTY;
+        capacity = newCapacity;
+    }
+
+    // ============================
+    // ESTRUTURAS AUXILIARES
+    // ============================
+
+    /**
+     * Anúncio de um roteador: enlaces (vizinho, custo, latência, interface
+     * local, endereço do vizinho) ordenados pela interface local, e redes
+     * stub (prefixo, interface). Imutável: mudanças criam um novo LSA.
+     */
+    private static final class Lsa {
+        static final Lsa EMPTY = new Lsa(new int[0], new int[0], new int[0], new int[0], new int[0], new int[0], new int[0]);
+
+        final int[] neighbors;
+        final int[] costs;
+        final int[] latencies;
+        final int[] interfaces;
+        final int[] nextHops;
+        final int[] stubPrefixes;
+        final int[] stubInterfaces;
+
+        Lsa(int[] neighbors, int[] costs, int[] latencies, int[] interfaces, int[] nextHops,
+            int[] stubPrefixes, int[] stubInterfaces) {
+            this.neighbors = neighbors;
+            this.costs = costs;
+            this.latencies = latencies;
+            this.interfaces = interfaces;
+            this.nextHops = nextHops;
+            this.stubPrefixes = stubPrefixes;
+            this.stubInterfaces = stubInterfaces;
+        }
+
+        int indexOf(int neighbor) {
+            for (int k = 0; k < neighbors.length; k++)
+                if (neighbors[k] == neighbor) return k;
+            return -1;
+        }
+
+        int costTo(int neighbor) {
+            int k = indexOf(neighbor);
+            return (k < 0) ? INFINITY : costs[k];
+        }
+
+        // Copia o enlace para 'neighbor' de 'source', mantendo a ordem pelas interfaces
+        Lsa withEdgeFrom(Lsa source, int neighbor) {
+            Lsa base = withoutEdge(neighbor);
+            int s = source.indexOf(neighbor);
+            int n = base.neighbors.length;
+            int position = 0;
+            while (position < n && base.interfaces[position] < source.interfaces[s])
+                position++;
+            return new Lsa(insert(base.neighbors, position, neighbor), insert(base.costs, position, source.costs[s]),
+                    insert(base.latencies, position, source.latencies[s]), insert(base.interfaces, position, source.interfaces[s]),
+                    insert(base.nextHops, position, source.nextHops[s]), stubPrefixes, stubInterfaces);
+        }
+
+        Lsa withoutEdge(int neighbor) {
+            int k = indexOf(neighbor);
+            if (k < 0) return this;
+            return new Lsa(remove(neighbors, k), remove(costs, k), remove(latencies, k), remove(interfaces, k),
+                    remove(nextHops, k), stubPrefixes, stubInterfaces);
+        }
+
+        Lsa withStubs(Lsa source) {
+            return new Lsa(neighbors, costs, latencies, interfaces, nextHops, source.stubPrefixes, source.stubInterfaces);
+        }
+
+        boolean sameEdges(Lsa other) {
+            return Arrays.equals(neighbors, other.neighbors) && Arrays.equals(costs, other.costs)
+                    && Arrays.equals(latencies, other.latencies) && Arrays.equals(interfaces, other.interfaces)
+                    && Arrays.equals(nextHops, other.nextHops);
+        }
+
+        boolean sameStubs(Lsa other) {
+            return Arrays.equals(stubPrefixes, other.stubPrefixes) && Arrays.equals(stubInterfaces, other.stubInterfaces);
+        }
+
+        private static int[] insert(int[] values, int position, int value) {
+            int[] result = new int[values.length + 1];
+            System.arraycopy(values, 0, result, 0, position);
+            result[position] = value;
+            System.arraycopy(values, position, result, position + 1, values.length - position);
+            return result;
+        }
+
+        private static int[] remove(int[] values, int position) {
+            int[] result = new int[values.length - 1];
+            System.arraycopy(values, 0, result, 0, position);
+            System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+            return result;
+        }
+    }
+
+    /**
+     * Fila de prioridade de Dial para o cálculo completo: os custos dos
+     * enlaces são inteiros entre 1 e REFERENCE_BANDWIDTH, então toda
+     * distância pendente fica a no máximo REFERENCE_BANDWIDTH da última
+     * retirada e um anel de REFERENCE_BANDWIDTH + 1 baldes basta (O(1) por
+     * operação, contra O(log n) do heap).
+     */
+    private static final class BucketQueue {
+        private final int[][] buckets = new int[REFERENCE_BANDWIDTH + 1][];
+        private final int[] sizes = new int[REFERENCE_BANDWIDTH + 1];
+        private int current = 0;
+        private int size = 0;
+
+        void clear() {
+            Arrays.fill(sizes, 0);
+            current = 0;
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int key, int value) {
+            int b = key % buckets.length;
+            int[] bucket = buckets[b];
+            if (bucket == null) {
+                bucket = new int[16];
+                buckets[b] = bucket;
+            } else if (sizes[b] == bucket.length) {
+                bucket = Arrays.copyOf(bucket, bucket.length * 2);
+                buckets[b] = bucket;
+            }
+            bucket[sizes[b]++] = value;
+            size++;
+        }
+
+        // Mesmo formato de LongHeap.pop: distância nos 32 bits altos, nó nos baixos
+        long pop() {
+            int b = current % buckets.length;
+            while (sizes[b] == 0) {
+                current++;
+                b = current % buckets.length;
+            }
+            size--;
+            return ((long) current << 32) | buckets[b][--sizes[b]];
+        }
+    }
+
+    // Heap mínimo de (distância, nó) empacotados em long, sem alocar por elemento
+    private static final class LongHeap {
+        private long[] items = new long[64];
+        private int size = 0;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int key, int value) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            long item = ((long) key << 32) | (value & 0xFFFFFFFFL);
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (items[parent] <= item) break;
+                items[index] = items[parent];
+                index = parent;
+            }
+            items[index] = item;
+        }
+
+        long pop() {
+            long top = items[0];
+            long last = items[--size];
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && items[child + 1] < items[child])
+                    child++;
+                if (items[child] >= last) break;
+                items[index] = items[child];
+                index = child;
+            }
+            items[index] = last;
+            return top;
+        }
+    }
+}
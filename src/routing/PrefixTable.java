@@ -0,0 +1,79 @@
+package routing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Numeração dos prefixos anunciados pelos protocolos de roteamento: cada
+ * par (rede, máscara) recebe um índice estável, usado para indexar arrays
+ * por roteador em vez de mapas. Prefixos nunca são removidos (um prefixo
+ * sem anunciantes só deixa de ter rotas).
+ */
+final class PrefixTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<Long, Integer> index = new HashMap<>();
+    private int[] networks = new int[INITIAL_CAPACITY];
+    private int[] masks = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Índice de 'network/mask', cadastrando o prefixo se for novo
+    int indexOf(int network, int mask) {
+        long key = mix(((long) network << 32) | (mask & 0xFFFFFFFFL));
+        Integer existing = index.get(key);
+        if (existing != null)
+            return existing;
+        if (size == networks.length) {
+            networks = Arrays.copyOf(networks, size * 2);
+            masks = Arrays.copyOf(masks, size * 2);
+        }
+        networks[size] = network;
+        masks[size] = mask;
+        index.put(key, size);
+        return size++;
+    }
+
+    // Índice de 'network/mask', ou -1 se o prefixo nunca foi anunciado
+    int find(int network, int mask) {
+        Integer existing = index.get(mix(((long) network << 32) | (mask & 0xFFFFFFFFL)));
+        return (existing == null) ? -1 : existing;
+    }
+
+    int network(int prefix) {
+        return networks[prefix];
+    }
+
+    int mask(int prefix) {
+        return masks[prefix];
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Tamanho dos arrays internos: arrays paralelos por prefixo podem usar o mesmo
+    int capacity() {
+        return networks.length;
+    }
+
+    void clear() {
+        index.clear();
+        size = 0;
+    }
+
+    /**
+     * Finalizador do MurmurHash3 (uma bijeção, então a chave continua única).
+     * Sem ele, redes /24 consecutivas com a mesma máscara caem quase todas no
+     * mesmo balde do HashMap.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
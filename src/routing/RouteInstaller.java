@@ -0,0 +1,76 @@
+package routing;
+
+import exceptions.InvalidMaskException;
+import models.RouteEntry;
+import models.Router;
+
+/**
+ * Aplica a uma tabela de Router a rota que um protocolo calculou para um
+ * prefixo, com addRoute/replaceRoute/removeRoute. Cada protocolo guarda,
+ * por roteador, as rotas que ele mesmo instalou ('installed', indexado pelo
+ * prefixo da PrefixTable) e só mexe nelas.
+ */
+final class RouteInstaller {
+
+    // Resultados de install(), usados como índice nos contadores {adicionadas, removidas, trocadas}
+    static final int UNCHANGED = -1;
+    static final int ADDED = 0;
+    static final int REMOVED = 1;
+    static final int CHANGED = 2;
+
+    private RouteInstaller() {
+    }
+
+    /**
+     * Deixa instalada a rota de 'prefix' por (nextHop, outputInterface), ou
+     * nenhuma se outputInterface < 0. Um prefixo para o qual o Router já tem
+     * rota cadastrada por outro meio (estática) não é tocado.
+     */
+    static int install(Router router, RouteEntry[] installed, PrefixTable prefixes, int prefix,
+                       int nextHop, int outputInterface) {
+        RouteEntry current = installed[prefix];
+        if (outputInterface < 0) {
+            if (current == null)
+                return UNCHANGED;
+            router.removeRoute(current);
+            installed[prefix] = null;
+            return REMOVED;
+        }
+        if (current != null && current.nextHop == nextHop && current.outputInterfaceIndex == outputInterface)
+            return UNCHANGED;
+
+        RouteEntry entry = newRoute(prefixes.network(prefix), prefixes.mask(prefix), nextHop, outputInterface);
+        int result;
+        if (current == null) {
+            if (router.getRoute(entry.network, entry.prefixLength) != null)
+                return UNCHANGED;
+            router.addRoute(entry);
+            result = ADDED;
+        } else {
+            if (!router.replaceRoute(current, entry))
+                router.addRoute(entry);
+            result = CHANGED;
+        }
+        installed[prefix] = entry;
+        return result;
+    }
+
+    // Remove todas as rotas que o protocolo instalou em 'router'
+    static void removeAll(Router router, RouteEntry[] installed) {
+        for (int p = 0; p < installed.length; p++) {
+            if (installed[p] != null) {
+                router.removeRoute(installed[p]);
+                installed[p] = null;
+            }
+        }
+    }
+
+    // Máscaras vindas de interfaces já validadas
+    private static RouteEntry newRoute(int network, int mask, int nextHop, int outputInterface) {
+        try {
+            return new RouteEntry(network, mask, nextHop, outputInterface);
+        } catch (InvalidMaskException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}